@@ -0,0 +1,147 @@
+package at.emini.physics2D;
+
+/**
+ * Base class for spatially bounded force fields.
+ * An area force declares an axis aligned bounding box.
+ * The world applies it only to the dynamic bodies whose AABB overlaps that area.
+ * The bodies are looked up in the sorted body list of the collision detection,
+ * so the cost of an area force depends on the number of bodies within its area,
+ * not on the total number of bodies in the world.
+ * <p>
+ * Subclasses implement {@link #applyForce(Body, int)} for a single body.
+ *
+ * @author Alexander Adensamer
+ */
+public abstract class AreaForce implements ExternalForce
+{
+    /**
+     * Minimum x coordinate of the area.
+     * @fx
+     */
+    int mMinXFX;
+
+    /**
+     * Minimum y coordinate of the area.
+     * @fx
+     */
+    int mMinYFX;
+
+    /**
+     * Maximum x coordinate of the area.
+     * @fx
+     */
+    int mMaxXFX;
+
+    /**
+     * Maximum y coordinate of the area.
+     * @fx
+     */
+    int mMaxYFX;
+
+    /**
+     * Constructor.
+     * @fx
+     * @param minXFX minimum x coordinate of the area
+     * @param minYFX minimum y coordinate of the area
+     * @param maxXFX maximum x coordinate of the area
+     * @param maxYFX maximum y coordinate of the area
+     */
+    protected AreaForce(int minXFX, int minYFX, int maxXFX, int maxYFX)
+    {
+        setArea(minXFX, minYFX, maxXFX, maxYFX);
+    }
+
+    /**
+     * Sets the area of the force.
+     * @fx
+     * @param minXFX minimum x coordinate of the area
+     * @param minYFX minimum y coordinate of the area
+     * @param maxXFX maximum x coordinate of the area
+     * @param maxYFX maximum y coordinate of the area
+     */
+    public void setArea(int minXFX, int minYFX, int maxXFX, int maxYFX)
+    {
+        mMinXFX = minXFX;
+        mMinYFX = minYFX;
+        mMaxXFX = maxXFX;
+        mMaxYFX = maxYFX;
+    }
+
+    /**
+     * Gets the minimum x coordinate of the area.
+     * @fx
+     * @return the minimum x coordinate
+     */
+    public int getMinXFX()
+    {
+        return mMinXFX;
+    }
+
+    /**
+     * Gets the minimum y coordinate of the area.
+     * @fx
+     * @return the minimum y coordinate
+     */
+    public int getMinYFX()
+    {
+        return mMinYFX;
+    }
+
+    /**
+     * Gets the maximum x coordinate of the area.
+     * @fx
+     * @return the maximum x coordinate
+     */
+    public int getMaxXFX()
+    {
+        return mMaxXFX;
+    }
+
+    /**
+     * Gets the maximum y coordinate of the area.
+     * @fx
+     * @return the maximum y coordinate
+     */
+    public int getMaxYFX()
+    {
+        return mMaxYFX;
+    }
+
+    /**
+     * Checks whether the AABB of a body overlaps the area.
+     * @param b the body
+     * @return true if the body overlaps the area.
+     */
+    public final boolean overlaps(Body b)
+    {
+        return ! (b.mAABBMinXFX > mMaxXFX || b.mAABBMaxXFX < mMinXFX ||
+                  b.mAABBMinYFX > mMaxYFX || b.mAABBMaxYFX < mMinYFX);
+    }
+
+    /**
+     * Applies the force to all dynamic bodies overlapping the area.
+     * This is only used if the force is applied outside of a world,
+     * the world itself calls {@link #applyForce(Body, int)} for the bodies within the area.
+     * @param bodies array containing the bodies.
+     * @param bodyCount the number of bodies
+     * @param timestepFX the current simulation timestep
+     */
+    public void applyForce(Body[] bodies, int bodyCount, int timestepFX)
+    {
+        for( int i = 0; i < bodyCount; i++)
+        {
+            if (bodies[i].mDynamic && overlaps(bodies[i]))
+            {
+                applyForce(bodies[i], timestepFX);
+            }
+        }
+    }
+
+    /**
+     * Applies the force to a single body.
+     * The body is dynamic and its AABB overlaps the area of the force.
+     * @param body the body within the area
+     * @param timestepFX the current simulation timestep
+     */
+    public abstract void applyForce(Body body, int timestepFX);
+}
@@ -86,6 +86,28 @@
      */
     boolean mDynamic = true;
 
+    /**
+     * Flag if the body is kinematic.
+     * Kinematic bodies are static bodies (infinite mass) that move with their velocity.
+     * They are not affected by gravity, forces or impulses and are ignored by the solver.
+     */
+    boolean mKinematic = false;
+
+    /**
+     * Contact colours used by the contacts of the body (see {@link World#setContactColoring(boolean)}).
+     */
+    int mColorMask = 0;
+
+    /**
+     * Index of the body in the contact solver.
+     */
+    int mSolverIndex = -1;
+
+    /**
+     * Index of the body in the joint chain solver.
+     */
+    int mChainIndex = -1;
+
     /**
      * Flag if the body is allowed to interact with other bodies
      */
@@ -96,6 +118,30 @@
      */
     boolean mGravityAffected = true;
 
+    /**
+     * Flag if the body is a sensor.
+     * Sensors take part in the collision detection, but never generate contacts.
+     * Instead the overlapping bodies are tracked.
+     */
+    boolean mSensor = false;
+
+    /**
+     * Bodies overlapping the sensor (current step).
+     */
+    Body[] mSensorOverlaps = null;
+    int mSensorOverlapCount = 0;
+
+    /**
+     * Bodies overlapping the sensor (previous step).
+     */
+    Body[] mSensorPrevOverlaps = null;
+    int mSensorPrevOverlapCount = 0;
+
+    /**
+     * Flag if the sensor is in the list of sensors with overlaps of the world.
+     */
+    boolean mSensorActive = false;
+
 
     /**
      * The shape of the body.
@@ -153,11 +199,20 @@
      */
     int mAABBMaxYFX = 0;
 
+    /**
+     * AABBs of the parts of a {@link MultiShape} (min x, min y, max x, max y for each part).
+     * Only the parts with overlapping AABBs are tested for collision.
+     * Null for other shapes.
+     * @fx
+     */
+    int[] mShapeAABBsFX = null;
+
     /**
      * Bitflag for collision detection.
      * Two bodies can only collide if <code>bitflag1 & bitflag2 == 0</code>.
      * Two bodies that are not supposed to collide (e.g: connected by joint)
      * have one common bit set to 1.
+     * Further layer pairs can be excluded with {@link World#setLayerCollision(int, int, boolean)}.
      */
     int mColissionBitFlag = 0x0;
 
@@ -171,6 +226,16 @@
      */
     Contact[] mContacts = new Contact[World.M_BODY_MAX_CONTACTS];
 
+    /**
+     * Separating axis cache.
+     * Partner bodies, shape indices (index1 << 16 | index2) and separating axis
+     * of pairs that were separated in their last test (see {@link Collision}).
+     * The cache is direct mapped by the id of the partner body.
+     */
+    Body[] mSeparationPartners = new Body[World.M_BODY_SEPARATION_CACHE_SIZE];
+    int[] mSeparationShapes = new int[World.M_BODY_SEPARATION_CACHE_SIZE];
+    int[] mSeparationAxes = new int[World.M_BODY_SEPARATION_CACHE_SIZE];
+
     /**
      * Flag if the body is at rest.
      * Resting bodies are treated specially and use less computation time.
@@ -182,6 +247,12 @@
      */
     protected int mId = - 1;
 
+    /**
+     * Hash of the body state.
+     * Updated when the body is integrated (see {@link #stateHash()}).
+     */
+    int mStateHash = 0;
+
     /**
      * User data.
      */
@@ -189,6 +260,7 @@
 
     private static FXVector M_tmp = new FXVector();
     private static FXMatrix M_tmpMatrix = new FXMatrix();
+    private static int M_partMinXFX, M_partMinYFX, M_partMaxXFX, M_partMaxYFX;    //AABB of the last part (calcVertexEstimates)
 
     /**
      * Constructor.
@@ -250,9 +322,11 @@ public Body(Body other)
         mColissionBitFlag = other.mColissionBitFlag;
 
         mDynamic = other.mDynamic;
+        mKinematic = other.mKinematic;
         mCanRotate = other.mCanRotate;
         mGravityAffected = other.mGravityAffected;
         mInteracting = other.mInteracting;
+        setSensor(other.mSensor);
 
         if (other.mUserData != null)
         {
@@ -306,6 +380,8 @@ public static Body loadBody(PhysicsFileReader reader, Vector shapes, UserData us
         body.mCanRotate = (flags & 2) != 0;
         body.mInteracting = (flags & 4) == 0;
         body.mGravityAffected = (flags & 8) == 0;
+        body.setSensor((flags & 16) != 0);
+        body.mKinematic = (flags & 32) != 0;
 
         body.mColissionBitFlag = reader.nextInt();
 
@@ -356,6 +432,11 @@ protected void initShapeInternals()
         {
             mAxes[i] = new FXVector();
         }
+        mShapeAABBsFX = null;
+        if (mShape instanceof MultiShape)
+        {
+            mShapeAABBsFX = new int[((MultiShape) mShape).mShapes.length * 4];
+        }
 
         mVerticesUpToDate = false;
         mAxesUpToDate = false;
@@ -379,6 +460,34 @@ public boolean isDynamic()
         return mDynamic;
     }
 
+    /**
+     * Checks if the body is kinematic.
+     * @return whether the body moves with its velocity, independent of the simulation
+     */
+    public boolean isKinematic()
+    {
+        return mKinematic;
+    }
+
+    /**
+     * Sets if the body is kinematic. <br>
+     * A kinematic body has infinite mass and moves with the velocity set by the user or by a {@link Script}.
+     * It collides with dynamic bodies (and carries them by friction),
+     * but it is not affected by gravity, forces, contacts or constraints.
+     * Kinematic bodies are not checked against static or other kinematic bodies.
+     * Setting a body kinematic makes it non-dynamic.
+     * @param kinematic whether the body is kinematic.
+     */
+    public void setKinematic(boolean kinematic)
+    {
+        mKinematic = kinematic;
+        if (kinematic)
+        {
+            mDynamic = false;
+        }
+        mIsResting = ! mDynamic && ! kinematic;
+    }
+
     /**
      * Checks if the body is resting.
      * @return whether the body is at rest
@@ -443,6 +552,51 @@ public void setGravityAffected(boolean affected)
         this.mGravityAffected = affected;
     }
 
+    /**
+     * Checks if the body is a sensor.
+     * @return whether the body is a sensor.
+     */
+    public boolean isSensor()
+    {
+        return mSensor;
+    }
+
+    /**
+     * Sets if the body is a sensor.
+     * Sensors do not collide with other bodies, the landscape or particles.
+     * The bodies overlapping a sensor are tracked by the collision detection,
+     * transitions are reported to the {@link SensorListener} of the world.
+     * Static sensors only detect dynamic bodies.
+     * @param sensor whether the body is a sensor.
+     */
+    public void setSensor(boolean sensor)
+    {
+        this.mSensor = sensor;
+        if (sensor && mSensorOverlaps == null)
+        {
+            mSensorOverlaps = new Body[World.M_BODY_MAX_CONTACTS];
+            mSensorPrevOverlaps = new Body[World.M_BODY_MAX_CONTACTS];
+        }
+    }
+
+    /**
+     * Gets the bodies currently overlapping the sensor.
+     * @return the overlapping bodies (see {@link #getSensorOverlapCount()}), null if the body is no sensor.
+     */
+    public Body[] getSensorOverlaps()
+    {
+        return mSensorOverlaps;
+    }
+
+    /**
+     * Gets the number of bodies currently overlapping the sensor.
+     * @return the number of overlapping bodies.
+     */
+    public int getSensorOverlapCount()
+    {
+        return mSensorOverlapCount;
+    }
+
 
     /**
      * Add a collision layer to the body.
@@ -529,6 +683,85 @@ public void translate(FXVector translation, int timestepFX)
         mVerticesUpToDate = false;
         mAxesUpToDate = false;
         calculateAABB(timestepFX);
+        updateStateHash();
+    }
+
+    /**
+     * Sets the state received from a server (see {@link ReplicationDecoder}).
+     * @param xFX the x position
+     * @param yFX the y position
+     * @param rotation2FX the rotation (2FX)
+     * @param vxFX the x velocity
+     * @param vyFX the y velocity
+     * @param timestepFX the timestep of the world
+     */
+    final void setReplicatedState(int xFX, int yFX, int rotation2FX, int vxFX, int vyFX, int timestepFX)
+    {
+        mPositionFX.assignFX(xFX, yFX);
+        mVelocityFX.assignFX(vxFX, vyFX);
+        if (rotation2FX != mRotation2FX)
+        {
+            mRotation2FX = rotation2FX;
+            mRotationMatrix.setRotationMatrix(rotation2FX);
+        }
+        forceUpdate(timestepFX);
+    }
+
+    /**
+     * Restores the state of the body from another body.
+     * Used to reset a world to a template state (see {@link WorldTemplate}) without reallocation.
+     * Position, velocity, rotation and body flags are copied, contacts are not touched.
+     * @param other the source body
+     */
+    final void restoreState(Body other)
+    {
+        if (mShape != other.mShape)
+        {
+            mShape = other.mShape;
+            initShapeInternals();
+        }
+        mPositionFX.assign(other.mPositionFX);
+        mVelocityFX.assign(other.mVelocityFX);
+        setRotation2FX(other.mRotation2FX);
+        mAngularVelocity2FX = other.mAngularVelocity2FX;
+        mVirtualVelocityFX.assignFX(0, 0);
+        mVirtualAngularVelocity2FX = 0;
+
+        mColissionBitFlag = other.mColissionBitFlag;
+        mDynamic = other.mDynamic;
+        mKinematic = other.mKinematic;
+        mCanRotate = other.mCanRotate;
+        mGravityAffected = other.mGravityAffected;
+        mInteracting = other.mInteracting;
+        mIsResting = other.mIsResting;
+        setSensor(other.mSensor);
+        mSensorOverlapCount = 0;
+        mSensorPrevOverlapCount = 0;
+    }
+
+    /**
+     * Gets the hash of the body state.
+     * The hash covers id, position, velocity, rotation and angular velocity.
+     * It is updated at the end of each world step for moving bodies
+     * and by {@link #forceUpdate(int)}.
+     * @return the state hash.
+     */
+    public int stateHash()
+    {
+        return mStateHash;
+    }
+
+    /**
+     * Recalculates the state hash.
+     */
+    final void updateStateHash()
+    {
+        int hash = FXUtil.hashStep(mId, mPositionFX.xFX);
+        hash = FXUtil.hashStep(hash, mPositionFX.yFX);
+        hash = FXUtil.hashStep(hash, mVelocityFX.xFX);
+        hash = FXUtil.hashStep(hash, mVelocityFX.yFX);
+        hash = FXUtil.hashStep(hash, mRotation2FX);
+        mStateHash = FXUtil.hashStep(hash, mAngularVelocity2FX);
     }
 
     /**
@@ -582,6 +815,18 @@ public final FXVector getRelativePoint(FXVector absolutePoint)
         return m2.mult(relativePoint);
     }
 
+    /**
+     * Converts an absolute position to relative coordinates (reuse object).
+     * Uses the current rotation matrix, no objects are created.
+     * @param absolutePoint the absolute position
+     * @param target the vector to store the relative position into
+     */
+    public final void getRelativePoint(FXVector absolutePoint, FXVector target)
+    {
+        M_tmp.assignDiff(absolutePoint, mPositionFX);
+        mRotationMatrix.multTransposed(M_tmp, target);
+    }
+
     /**
      * Calculates the velocity of a point of the body.
      * The point is given in relative (wrt. the body) coordinates.
@@ -739,6 +984,26 @@ public FXVector positionFX()
         return mPositionFX;
     }
 
+    /**
+     * Gets the x coordinate of the body position.
+     * @return the x coordinate of the center of gravity.
+     * @fx
+     */
+    public int positionXFX()
+    {
+        return mPositionFX.xFX;
+    }
+
+    /**
+     * Gets the y coordinate of the body position.
+     * @return the y coordinate of the center of gravity.
+     * @fx
+     */
+    public int positionYFX()
+    {
+        return mPositionFX.yFX;
+    }
+
     /**
      * Gets the current velocity.
      * @return the current velocity.
@@ -749,6 +1014,26 @@ public FXVector velocityFX()
         return mVelocityFX;
     }
 
+    /**
+     * Gets the x component of the current velocity.
+     * @return the x component of the velocity.
+     * @fx
+     */
+    public int velocityXFX()
+    {
+        return mVelocityFX.xFX;
+    }
+
+    /**
+     * Gets the y component of the current velocity.
+     * @return the y component of the velocity.
+     * @fx
+     */
+    public int velocityYFX()
+    {
+        return mVelocityFX.yFX;
+    }
+
     /**
      * Gets the angulare velocity.
      * @return the angular velocity(2FX)
@@ -959,6 +1244,13 @@ public final void applyTorque(int torqueFX)
      */
     public final void integrateVelocity (int dtFX)
     {
+        if (mKinematic)
+        {
+            mPositionFX.add(mVelocityFX, dtFX);
+            setRotation2FX(mRotation2FX - (int)( ((long)(mAngularVelocity2FX)* (long)dtFX) >> FXUtil.DECIMAL));
+            updateStateHash();
+            return;
+        }
         if (! mDynamic || mIsResting)
         {
             return;
@@ -984,6 +1276,8 @@ public final void integrateVirtualVelocity (int dtFX, FXVector gravity)
 
         mVirtualAngularVelocity2FX = 0;
         mVirtualVelocityFX.assignFX(0,0);
+
+        updateStateHash();
      }
 
 
@@ -1006,6 +1300,12 @@ protected final void calculateAABB(int timestepFX)
             for( int i = 0; i < multiShape.mShapes.length; i++)
             {
                 calcVertexEstimates(multiShape.mShapes[i], multiShape.mVertexStartIndices[i], timestepFX);
+
+                //AABB of the part
+                mShapeAABBsFX[i * 4 + 0] = M_partMinXFX;
+                mShapeAABBsFX[i * 4 + 1] = M_partMinYFX;
+                mShapeAABBsFX[i * 4 + 2] = M_partMaxXFX;
+                mShapeAABBsFX[i * 4 + 3] = M_partMaxYFX;
             }
         }
         else
@@ -1014,6 +1314,43 @@ protected final void calculateAABB(int timestepFX)
         }
     }
 
+    /**
+     * Checks whether the AABB of a part overlaps an area.
+     * @param index the index of the part (0 for simple shapes)
+     * @return true if the AABBs overlap.
+     */
+    final boolean partOverlaps(int index, int minXFX, int minYFX, int maxXFX, int maxYFX)
+    {
+        if (mShapeAABBsFX == null)
+        {
+            return ! (mAABBMinXFX > maxXFX || minXFX > mAABBMaxXFX || mAABBMinYFX > maxYFX || minYFX > mAABBMaxYFX);
+        }
+        index *= 4;
+        return ! (mShapeAABBsFX[index] > maxXFX || minXFX > mShapeAABBsFX[index + 2] ||
+                  mShapeAABBsFX[index + 1] > maxYFX || minYFX > mShapeAABBsFX[index + 3]);
+    }
+
+    /**
+     * Gets a side of the AABB of a part.
+     * @param index the index of the part (0 for simple shapes)
+     * @param side 0: min x, 1: min y, 2: max x, 3: max y
+     * @return the side of the AABB (FX)
+     */
+    final int partBoundFX(int index, int side)
+    {
+        if (mShapeAABBsFX == null)
+        {
+            switch (side)
+            {
+                case 0: return mAABBMinXFX;
+                case 1: return mAABBMinYFX;
+                case 2: return mAABBMaxXFX;
+                default: return mAABBMaxYFX;
+            }
+        }
+        return mShapeAABBsFX[index * 4 + side];
+    }
+
     /**
      * Calculate vertex estimates for the lookout collision detection with AABBs.
      * @param shape
@@ -1035,24 +1372,25 @@ private final void calcVertexEstimates(Shape shape, int startIdx, int timestepFX
             pos.assign(mPositionFX);
             pos.add(mVelocityFX, timestepFX);
 
-            for( int i = 0; i < shape.mVertices.length; i++)
+            M_tmpMatrix.transform(corners, corners.length, pos, mVertexPositionEstimates, startIdx);
+            for( int i = 0; i < corners.length; i++)
             {
-                M_tmpMatrix.mult(corners[i], mVertexPositionEstimates[startIdx + i]);
-                mVertexPositionEstimates[startIdx + i].add(pos);
                 mVertexPositionEstimates[startIdx + i].subtract(vertices[startIdx + i]);
             }
 
             int endIdx = startIdx + shape.mVertices.length;
+            M_partMinXFX = M_partMaxXFX = vertices[startIdx].xFX;
+            M_partMinYFX = M_partMaxYFX = vertices[startIdx].yFX;
             for( int i = startIdx; i < endIdx; i++)
             {
-                if (mAABBMinXFX > vertices[i].xFX) mAABBMinXFX = vertices[i].xFX;
-                if (mAABBMaxXFX < vertices[i].xFX) mAABBMaxXFX = vertices[i].xFX;
-                if (mAABBMinYFX > vertices[i].yFX) mAABBMinYFX = vertices[i].yFX;
-                if (mAABBMaxYFX < vertices[i].yFX) mAABBMaxYFX = vertices[i].yFX;
-                if (mAABBMinXFX > vertices[i].xFX + mVertexPositionEstimates[i].xFX) mAABBMinXFX = vertices[i].xFX + mVertexPositionEstimates[i].xFX;
-                if (mAABBMaxXFX < vertices[i].xFX + mVertexPositionEstimates[i].xFX) mAABBMaxXFX = vertices[i].xFX + mVertexPositionEstimates[i].xFX;
-                if (mAABBMinYFX > vertices[i].yFX + mVertexPositionEstimates[i].yFX) mAABBMinYFX = vertices[i].yFX + mVertexPositionEstimates[i].yFX;
-                if (mAABBMaxYFX < vertices[i].yFX + mVertexPositionEstimates[i].yFX) mAABBMaxYFX = vertices[i].yFX + mVertexPositionEstimates[i].yFX;
+                if (M_partMinXFX > vertices[i].xFX) M_partMinXFX = vertices[i].xFX;
+                if (M_partMaxXFX < vertices[i].xFX) M_partMaxXFX = vertices[i].xFX;
+                if (M_partMinYFX > vertices[i].yFX) M_partMinYFX = vertices[i].yFX;
+                if (M_partMaxYFX < vertices[i].yFX) M_partMaxYFX = vertices[i].yFX;
+                if (M_partMinXFX > vertices[i].xFX + mVertexPositionEstimates[i].xFX) M_partMinXFX = vertices[i].xFX + mVertexPositionEstimates[i].xFX;
+                if (M_partMaxXFX < vertices[i].xFX + mVertexPositionEstimates[i].xFX) M_partMaxXFX = vertices[i].xFX + mVertexPositionEstimates[i].xFX;
+                if (M_partMinYFX > vertices[i].yFX + mVertexPositionEstimates[i].yFX) M_partMinYFX = vertices[i].yFX + mVertexPositionEstimates[i].yFX;
+                if (M_partMaxYFX < vertices[i].yFX + mVertexPositionEstimates[i].yFX) M_partMaxYFX = vertices[i].yFX + mVertexPositionEstimates[i].yFX;
             }
 
         }
@@ -1061,18 +1399,19 @@ private final void calcVertexEstimates(Shape shape, int startIdx, int timestepFX
             int xOffsetFX = FXUtil.multFX(mVelocityFX.xFX, timestepFX);
             int yOffsetFX = FXUtil.multFX(mVelocityFX.yFX, timestepFX);
 
-            if (mAABBMinXFX > mPositionFX.xFX - shape.mBoundingRadiusFX) mAABBMinXFX = mPositionFX.xFX - shape.mBoundingRadiusFX;
-            if (mAABBMaxXFX < mPositionFX.xFX + shape.mBoundingRadiusFX) mAABBMaxXFX = mPositionFX.xFX + shape.mBoundingRadiusFX;
-            if (mAABBMinYFX > mPositionFX.yFX - shape.mBoundingRadiusFX) mAABBMinYFX = mPositionFX.yFX - shape.mBoundingRadiusFX;
-            if (mAABBMaxYFX < mPositionFX.yFX + shape.mBoundingRadiusFX) mAABBMaxYFX = mPositionFX.yFX + shape.mBoundingRadiusFX;
-            if (mAABBMinXFX > mPositionFX.xFX - shape.mBoundingRadiusFX + xOffsetFX) mAABBMinXFX = mPositionFX.xFX - shape.mBoundingRadiusFX + xOffsetFX;
-            if (mAABBMaxXFX < mPositionFX.xFX + shape.mBoundingRadiusFX + xOffsetFX) mAABBMaxXFX = mPositionFX.xFX + shape.mBoundingRadiusFX + xOffsetFX;
-            if (mAABBMinYFX > mPositionFX.yFX - shape.mBoundingRadiusFX + yOffsetFX) mAABBMinYFX = mPositionFX.yFX - shape.mBoundingRadiusFX + yOffsetFX;
-            if (mAABBMaxYFX < mPositionFX.yFX + shape.mBoundingRadiusFX + yOffsetFX) mAABBMaxYFX = mPositionFX.yFX + shape.mBoundingRadiusFX + yOffsetFX;
+            M_partMinXFX = mPositionFX.xFX - shape.mBoundingRadiusFX + Math.min(xOffsetFX, 0);
+            M_partMaxXFX = mPositionFX.xFX + shape.mBoundingRadiusFX + Math.max(xOffsetFX, 0);
+            M_partMinYFX = mPositionFX.yFX - shape.mBoundingRadiusFX + Math.min(yOffsetFX, 0);
+            M_partMaxYFX = mPositionFX.yFX + shape.mBoundingRadiusFX + Math.max(yOffsetFX, 0);
 
             mVertexPositionEstimates[startIdx].assign(mVelocityFX);
             mVertexPositionEstimates[startIdx].multFX(timestepFX);
         }
+
+        if (mAABBMinXFX > M_partMinXFX) mAABBMinXFX = M_partMinXFX;
+        if (mAABBMaxXFX < M_partMaxXFX) mAABBMaxXFX = M_partMaxXFX;
+        if (mAABBMinYFX > M_partMinYFX) mAABBMinYFX = M_partMinYFX;
+        if (mAABBMaxYFX < M_partMaxYFX) mAABBMaxYFX = M_partMaxYFX;
     }
 
     /**
@@ -1084,6 +1423,10 @@ private final void calcVertexEstimates(Shape shape, int startIdx, int timestepFX
      */
     protected final void updateVelocity(int dampingLinearFX, int dampingRotationalFX)
     {
+        if (mKinematic)
+        {
+            return;
+        }
         if (dampingLinearFX < FXUtil.ONE_FX)
         {
             mVelocityFX.multFX(dampingLinearFX);
@@ -1096,16 +1439,17 @@ protected final void updateVelocity(int dampingLinearFX, int dampingRotationalFX
 
     /**
      * Clear all contacts from previous step.
+     * Contacts that were not updated are returned to the contact pool of the world.
+     * @param world the world owning the contact pool
      */
-    protected void resetContacts()
+    protected void resetContacts(World world)
     {
         //delete contacts
         for( int i = 0; i < mContactCount; i++)
         {
-            if (!mContacts[i].mIsNew && World.mContactStorageCount < World.mContactStorage.length)
+            if (!mContacts[i].mIsNew)
             {
-                World.mContactStorage[World.mContactStorageCount++] = mContacts[i];
-                mContacts[i].mIsNew = true;   //not nice: this indicates that the contact is already in the storage... (reusing parameter ok, because similar usage)
+                world.releaseContact(mContacts[i]);
             }
             mContacts[i] = null;
         }
@@ -1135,6 +1479,15 @@ public Contact[] getContacts()
         return mContacts;
     }
 
+    /**
+     * Gets the number of current contacts.
+     * @return the number of valid entries in {@link #getContacts()}.
+     */
+    public int getContactCount()
+    {
+        return mContactCount;
+    }
+
     /**
      * Find a contact with another body.
      * @param other other body.
@@ -1180,6 +1533,62 @@ protected Contact getContact( int idx1, Body other, int idx2)
         return null;
     }
 
+    /**
+     * Gets the cached separating axis with another body.
+     * @param index1 shape index of this body
+     * @param other other body
+     * @param index2 shape index of the other body
+     * @return the axis index as stored by {@link #setSeparatingAxis(int, Body, int, int)}, Integer.MIN_VALUE if none is cached.
+     */
+    final int getSeparatingAxis(int index1, Body other, int index2)
+    {
+        int slot = other.mId & (World.M_BODY_SEPARATION_CACHE_SIZE - 1);
+        if (mSeparationPartners[slot] == other && mSeparationShapes[slot] == (index1 << 16 | index2))
+        {
+            return mSeparationAxes[slot];
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Caches the separating axis with another body.
+     * @param index1 shape index of this body
+     * @param other other body
+     * @param index2 shape index of the other body
+     * @param axis the axis index: i for the axis i of this body, -i-1 for the axis i of the other body.
+     */
+    final void setSeparatingAxis(int index1, Body other, int index2, int axis)
+    {
+        int slot = other.mId & (World.M_BODY_SEPARATION_CACHE_SIZE - 1);
+        mSeparationPartners[slot] = other;
+        mSeparationShapes[slot] = index1 << 16 | index2;
+        mSeparationAxes[slot] = axis;
+    }
+
+    /**
+     * Removes the cached separating axis with another body.
+     * @param other other body
+     */
+    final void clearSeparatingAxis(Body other)
+    {
+        int slot = other.mId & (World.M_BODY_SEPARATION_CACHE_SIZE - 1);
+        if (mSeparationPartners[slot] == other)
+        {
+            mSeparationPartners[slot] = null;
+        }
+    }
+
+    /**
+     * Removes all cached separating axes.
+     */
+    final void clearSeparatingAxes()
+    {
+        for( int i = 0; i < mSeparationPartners.length; i++)
+        {
+            mSeparationPartners[i] = null;
+        }
+    }
+
     /**
      * Sets dynamic property of the body.
      * @param dynamic if the body can move.
@@ -1187,6 +1596,10 @@ protected Contact getContact( int idx1, Body other, int idx2)
     public void setDynamic(boolean dynamic)
     {
         this.mDynamic = dynamic;
+        if (dynamic)
+        {
+            mKinematic = false;
+        }
     }
 
     /**
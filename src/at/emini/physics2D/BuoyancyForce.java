@@ -0,0 +1,87 @@
+package at.emini.physics2D;
+
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * A liquid volume that lifts and damps the bodies within.
+ * The surface of the liquid is the upper boundary (minimum y) of the area.
+ * The submerged fraction of a body is estimated from its AABB.
+ * Lift and damping are scaled with that fraction.
+ *
+ * @author Alexander Adensamer
+ */
+public class BuoyancyForce extends AreaForce
+{
+    /**
+     * The lift acceleration of a fully submerged body.
+     */
+    private FXVector mLift;
+
+    /**
+     * The velocity damping of a fully submerged body.
+     * @fx
+     */
+    private int mDampingFX;
+
+    private static FXVector M_tmp = new FXVector();
+
+    /**
+     * Constructor.
+     * @fx
+     * @param minXFX minimum x coordinate of the volume
+     * @param surfaceYFX the y coordinate of the liquid surface
+     * @param maxXFX maximum x coordinate of the volume
+     * @param bottomYFX the y coordinate of the bottom of the volume
+     * @param lift the lift acceleration of a fully submerged body (usually pointing against gravity)
+     * @param dampingFX the velocity damping per step of a fully submerged body (0..1)
+     */
+    public BuoyancyForce(int minXFX, int surfaceYFX, int maxXFX, int bottomYFX, FXVector lift, int dampingFX)
+    {
+        super(minXFX, surfaceYFX, maxXFX, bottomYFX);
+        mLift = new FXVector(lift);
+        mDampingFX = dampingFX;
+    }
+
+    /**
+     * Gets the lift.
+     * @return the lift acceleration of a fully submerged body.
+     */
+    public FXVector getLift()
+    {
+        return mLift;
+    }
+
+    /**
+     * Gets the damping.
+     * @fx
+     * @return the velocity damping of a fully submerged body.
+     */
+    public int getDampingFX()
+    {
+        return mDampingFX;
+    }
+
+    public void applyForce(Body body, int timestepFX)
+    {
+        if (body.mIsResting)
+        {
+            return;
+        }
+        int heightFX = body.mAABBMaxYFX - body.mAABBMinYFX;
+        int submergedFX = Math.min(body.mAABBMaxYFX, mMaxYFX) - Math.max(body.mAABBMinYFX, mMinYFX);
+        if (heightFX <= 0 || submergedFX <= 0)
+        {
+            return;
+        }
+        int fractionFX = Math.min(FXUtil.ONE_FX, FXUtil.divideFX(submergedFX, heightFX));
+        M_tmp.assignScaledFX(mLift, fractionFX);
+        body.applyAcceleration(M_tmp, timestepFX);
+        body.mVelocityFX.multFX(FXUtil.ONE_FX - FXUtil.multFX(mDampingFX, fractionFX));
+    }
+
+    public ExternalForce copy(Body[] bodyMapping)
+    {
+        return new BuoyancyForce(mMinXFX, mMinYFX, mMaxXFX, mMaxYFX, mLift, mDampingFX);
+    }
+}
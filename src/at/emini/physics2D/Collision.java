@@ -39,7 +39,7 @@
     private static FXVector[] M_supportVertices2 = new FXVector[2];
     private static int[] M_depthDiff1FX = new int[2];                 //#FX2F private static float[] M_depthDiff1FX = new float[2];
     private static int[] M_depthDiff2FX = new int[2];                 //#FX2F private static float[] M_depthDiff2FX = new float[2];
-    private static long M_dFX[] = new long[World.M_SHAPE_MAX_VERTICES]; //#FX2F private static float M_dFX[] = new float[World.M_SHAPE_MAX_VERTICES];
+    private static FXVector[] M_circleCenter = new FXVector[1];
 
     private static FXVector[] M_lineVertices = new FXVector[2];
     private static FXVector[] M_lineVertexEstimates = new FXVector[2];
@@ -64,6 +64,19 @@
      * @return the found contact, null if none found
      */
     public static Contact detectCollision(Body b1, Body b2)
+    {
+        return detectCollision(b1, b2, null);
+    }
+
+    /**
+     * Detects contacts between two bodies.
+     * New contacts are taken from the contact pool of the world if possible.
+     * @param b1 Body 1 of the collision
+     * @param b2 Body 2 of the collision
+     * @param pool the world providing the contact pool (null: no pooling)
+     * @return the found contact, null if none found
+     */
+    static Contact detectCollision(Body b1, Body b2, World pool)
     {
       //look for previously calculated contact
         Contact c = b1.getContact(b2);
@@ -76,27 +89,32 @@ public static Contact detectCollision(Body b1, Body b2)
         {
             if (b2.mShape.mVertices.length > 1 )
             {
-                return detectCollisionPolyPoly(b1, 0, b2, 0, c);
+                return detectCollisionPolyPoly(b1, 0, b2, 0, c, pool);
             }
             else
             {
-                return detectCollisionPolyCircle(b1, 0, b2, 0, c);
+                return detectCollisionPolyCircle(b1, 0, b2, 0, c, pool);
             }
         }
         else
         {
             if (b2.mShape.mVertices.length > 1 )
             {
-                return detectCollisionPolyCircle(b2, 0, b1, 0, c);
+                return detectCollisionPolyCircle(b2, 0, b1, 0, c, pool);
             }
             else
             {
-                return detectCollisionCircleCircle(b1, 0, b2, 0, c);
+                return detectCollisionCircleCircle(b1, 0, b2, 0, c, pool);
             }
         }
     }
 
     public static Contact detectCollision(Body b1, int index1, Body b2, int index2)
+    {
+        return detectCollision(b1, index1, b2, index2, null);
+    }
+
+    static Contact detectCollision(Body b1, int index1, Body b2, int index2, World pool)
     {
         //look for previously calculated contact
         Contact c = b1.getContact(index1, b2, index2);
@@ -130,22 +148,22 @@ public static Contact detectCollision(Body b1, int index1, Body b2, int index2)
         {
             if (isPoly2 )
             {
-                return detectCollisionPolyPoly(b1, index1, b2, index2, c);
+                return detectCollisionPolyPoly(b1, index1, b2, index2, c, pool);
             }
             else
             {
-                return detectCollisionPolyCircle(b1, index1, b2, index2, c);
+                return detectCollisionPolyCircle(b1, index1, b2, index2, c, pool);
             }
         }
         else
         {
             if (isPoly1 )
             {
-                return detectCollisionPolyCircle(b2, index2, b1, index1, c);
+                return detectCollisionPolyCircle(b2, index2, b1, index1, c, pool);
             }
             else
             {
-                return detectCollisionCircleCircle(b1, index1, b2, index2, c);
+                return detectCollisionCircleCircle(b1, index1, b2, index2, c, pool);
             }
 
         }
@@ -161,10 +179,11 @@ public static Contact detectCollision(Body b1, int index1, Body b2, int index2)
      * @param b1 Body 1 of the collision
      * @param landscape the landscape object
      * @param index the index of the line in the landscape
+     * @param pool the world providing the contact pool (null: no pooling)
      * @return the found contact, null if none found
      */
     //#NoEco /*
-    protected static Contact detectCollision(Body b1, Landscape landscape, int index)
+    protected static Contact detectCollision(Body b1, Landscape landscape, int index, World pool)
     {
       //look for previously calculated contact
         Contact c = landscape.getContact(b1, 0, index);
@@ -180,7 +199,7 @@ protected static Contact detectCollision(Body b1, Landscape landscape, int index
                     landscape.getBody(), index,
                     landscape.mStartpoints[index],
                     landscape.mEndpoints[index],
-                    landscape.mFaces[index], c);
+                    landscape.mFaces[index], c, pool);
         }
         else
         {
@@ -188,7 +207,7 @@ protected static Contact detectCollision(Body b1, Landscape landscape, int index
                     landscape.getBody(), index,
                     landscape.mStartpoints[index],
                     landscape.mEndpoints[index],
-                    landscape.mFaces[index], c);
+                    landscape.mFaces[index], c, pool);
         }
 
         if (contact != c)
@@ -205,7 +224,7 @@ protected static Contact detectCollision(Body b1, Landscape landscape, int index
     //#NoEco */
 
     //#NoEco /*
-    protected static Contact detectCollision(Body b1, int index1, Landscape landscape, int index)
+    protected static Contact detectCollision(Body b1, int index1, Landscape landscape, int index, World pool)
     {
       //look for previously calculated contact
         Contact c = landscape.getContact(b1, index1, index);
@@ -232,7 +251,7 @@ protected static Contact detectCollision(Body b1, int index1, Landscape landscap
                     landscape.getBody(), index,
                     landscape.mStartpoints[index],
                     landscape.mEndpoints[index],
-                    landscape.mFaces[index], c);
+                    landscape.mFaces[index], c, pool);
         }
         else
         {
@@ -240,7 +259,7 @@ protected static Contact detectCollision(Body b1, int index1, Landscape landscap
                     landscape.getBody(), index,
                     landscape.mStartpoints[index],
                     landscape.mEndpoints[index],
-                    landscape.mFaces[index], c);
+                    landscape.mFaces[index], c, pool);
         }
 
         if (contact != c)
@@ -268,6 +287,22 @@ protected static Contact detectCollision(Body b1, int index1, Landscape landscap
      */
     //#NoEco /*
     protected static FXVector detectCollision(Landscape landscape, int index, int xFX, int yFX, int xOldFX, int yOldFX)
+    {
+        return detectCollision(landscape, index, xFX, yFX, xOldFX, yOldFX, 32);
+    }
+
+    /**
+     * Detects collision of a landscape segment and a point.
+     * @param landscape
+     * @param index
+     * @param xFX
+     * @param yFX
+     * @param xOldFX
+     * @param yOldFX
+     * @param deltaFX minimal distance of the old position to the segment
+     * @return collision vector at the distance that the point has to move to exactly touch
+     */
+    protected static FXVector detectCollision(Landscape landscape, int index, int xFX, int yFX, int xOldFX, int yOldFX, int deltaFX)
     {
         M_lineVertices[0] = landscape.mStartpoints[index];
         M_lineVertices[1] = landscape.mEndpoints[index];
@@ -282,8 +317,6 @@ protected static FXVector detectCollision(Landscape landscape, int index, int xF
         M_tmp1.assignFX(xFX, yFX);
         M_tmp2.assignFX(xOldFX, yOldFX);
 
-        int deltaFX = 32;
-
         M_separationDistanceFX = Integer.MIN_VALUE;
         long depthFX = 0;
         // test separation axes of A
@@ -335,6 +368,29 @@ protected static FXVector detectCollision(Body b1, int xFX, int yFX)
     }
 
 
+    /**
+     * Detects the penetration of a point into a body.
+     * @param b1 the body
+     * @param xFX x position of the point
+     * @param yFX y position of the point
+     * @return the penetration vector (pointing into the body, scaled by the depth), null if the point is outside.
+     */
+    protected static FXVector detectPenetration(Body b1, int xFX, int yFX)
+    {
+        if (b1.mShape.mVertices.length > 1 )
+        {
+            return detectCollisionPolyPoint(b1, xFX, yFX);
+        }
+
+        FXVector normal = detectCollisionCirclePoint(b1, xFX, yFX);
+        if (normal != null)
+        {
+            int distFX = normal.lengthFX();
+            normal.multFX( FXUtil.divideFX(b1.mShape.mBoundingRadiusFX - distFX, distFX) );
+        }
+        return normal;
+    }
+
     /**
      * Detects collision of a circle and a particle.
      * @param b1
@@ -394,7 +450,7 @@ private static FXVector detectCollisionPolyPoint(Body b1, int xFX, int yFX)
             }
         }
 
-        M_tmp2.assign(b1.getAbsoluePoint(b1.mShape.mCcentroid));     //center of mass body 2
+        b1.getAbsoluePoint(b1.mShape.mCcentroid, M_tmp2);     //center of mass body 2
         M_b1b2.assignDiff(M_tmp1, M_tmp2);
         if (M_separationAxis.dotFX(M_b1b2) > 0)
         {
@@ -406,14 +462,209 @@ private static FXVector detectCollisionPolyPoint(Body b1, int xFX, int yFX)
         return M_separationAxis;
     }
 
+    //projections of the body prepared for the particle tests
+    private static int M_particlePartCount = 0;
+    private static int[] M_particleAxisStart = new int[2];         //first axis of each part, circles have no axes
+    private static int[] M_particleCentersFX = new int[2];         //center of each part (x, y)
+    private static int[] M_particleRadiiFX = new int[1];           //radius of each circle part, polygons: -1
+    private static int[] M_particleAxesFX = new int[8];            //axes (x, y)
+    private static long[] M_particleMinFX = new long[4];           //projection interval of the part on the axis
+    private static long[] M_particleMaxFX = new long[4];
+    private static FXVector M_particleDistance = new FXVector();
+
+    /**
+     * Detects the collisions of a body with a batch of particles.
+     * The projections of the body are computed once for all particles,
+     * then each particle only needs one projection per axis.
+     * Each part of a {@link MultiShape} is tested separately.
+     * The results are the same as with {@link #detectCollision(Body, int, int)} for single shapes.
+     * @param b1 the body
+     * @param xFX x positions of the particles
+     * @param yFX y positions of the particles
+     * @param indices indices of the particles to test, the colliding particles are stored here
+     * @param count number of indices to test
+     * @param normalsFX the scaled contact normals of the colliding particles (x, y)
+     * @return the number of colliding particles
+     */
+    protected static int detectCollisions(Body b1, int[] xFX, int[] yFX, int[] indices, int count, int[] normalsFX)
+    {
+        prepareParticleCollision(b1);
+
+        int hits = 0;
+        for( int i = 0; i < count; i++)
+        {
+            int index = indices[i];
+            int pxFX = xFX[index];
+            int pyFX = yFX[index];
+
+            //find the part with the least penetration
+            boolean hit = false;
+            long bestDepthFX = 0;
+            int normalXFX = 0, normalYFX = 0;
+            for( int p = 0; p < M_particlePartCount; p++)
+            {
+                if (M_particleRadiiFX[p] >= 0)
+                {
+                    M_particleDistance.assignFX(M_particleCentersFX[p * 2] - pxFX, M_particleCentersFX[p * 2 + 1] - pyFX);
+                    int distFX = M_particleDistance.lengthFX();
+                    long depthFX = M_particleRadiiFX[p] - distFX;
+                    if (depthFX < 0 || distFX == 0 || (hit && depthFX >= bestDepthFX))
+                    {
+                        continue;
+                    }
+                    hit = true;
+                    bestDepthFX = depthFX;
+                    normalXFX = M_particleDistance.xFX;
+                    normalYFX = M_particleDistance.yFX;
+                    continue;
+                }
+
+                long depthFX = Integer.MIN_VALUE;
+                int bestAxis = -1;
+                int axisEnd = M_particleAxisStart[p + 1];
+                for( int a = M_particleAxisStart[p]; a < axisEnd; a++)
+                {
+                    long dFX = ((long) M_particleAxesFX[a * 2] * pxFX + (long) M_particleAxesFX[a * 2 + 1] * pyFX) >> FXUtil.DECIMAL;
+                    long d1FX = M_particleMinFX[a] - dFX;
+                    long d2FX = dFX - M_particleMaxFX[a];
+                    long overlapFX = d1FX > d2FX ? -d1FX : -d2FX;
+                    if (overlapFX < 0)
+                    {
+                        bestAxis = -1;
+                        break;
+                    }
+                    if (overlapFX < depthFX || depthFX == Integer.MIN_VALUE)
+                    {
+                        depthFX = overlapFX;
+                        bestAxis = a;
+                    }
+                }
+                if (bestAxis < 0 || (hit && depthFX >= bestDepthFX))
+                {
+                    continue;
+                }
+
+                int axisXFX = M_particleAxesFX[bestAxis * 2];
+                int axisYFX = M_particleAxesFX[bestAxis * 2 + 1];
+                long sideFX = ((long) axisXFX * (pxFX - M_particleCentersFX[p * 2]) + (long) axisYFX * (pyFX - M_particleCentersFX[p * 2 + 1])) >> FXUtil.DECIMAL;
+                if (sideFX > 0)
+                {
+                    axisXFX = - axisXFX;
+                    axisYFX = - axisYFX;
+                }
+                hit = true;
+                bestDepthFX = depthFX;
+                normalXFX = (int) ((depthFX * axisXFX) >> FXUtil.DECIMAL);
+                normalYFX = (int) ((depthFX * axisYFX) >> FXUtil.DECIMAL);
+            }
+
+            if (hit)
+            {
+                indices[hits] = index;
+                normalsFX[hits * 2] = normalXFX;
+                normalsFX[hits * 2 + 1] = normalYFX;
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Computes the axes and projection intervals of all parts of a body for the particle tests.
+     * @param b1 the body
+     */
+    private static void prepareParticleCollision(Body b1)
+    {
+        FXVector[] vertices1 = b1.getVertices();
+        FXVector[] axes1 = b1.getAxes();
+
+        MultiShape multiShape = b1.mShape instanceof MultiShape ? (MultiShape) b1.mShape : null;
+        M_particlePartCount = multiShape != null ? multiShape.mShapes.length : 1;
+        M_particleAxisStart = World.checkVector(M_particleAxisStart, M_particlePartCount + 1);
+        M_particleCentersFX = World.checkVector(M_particleCentersFX, M_particlePartCount * 2 + 1);
+        M_particleRadiiFX = World.checkVector(M_particleRadiiFX, M_particlePartCount);
+
+        int axisCount = 0;
+        for( int p = 0; p < M_particlePartCount; p++)
+        {
+            int startIdx, endIdx, startAxes, endAxes;
+            if (multiShape != null)
+            {
+                startIdx  = multiShape.mVertexStartIndices[p];
+                endIdx    = multiShape.mVertexStartIndices[p + 1];
+                startAxes = multiShape.mAxesStartIndices[p];
+                endAxes   = multiShape.mAxesStartIndices[p + 1];
+            }
+            else
+            {
+                startIdx  = 0;
+                endIdx    = vertices1.length;
+                startAxes = 0;
+                endAxes   = axes1.length;
+            }
+
+            M_particleAxisStart[p] = axisCount;
+            if (endIdx - startIdx <= 1)
+            {
+                //circle
+                M_particleCentersFX[p * 2]     = multiShape != null ? vertices1[startIdx].xFX : b1.mPositionFX.xFX;
+                M_particleCentersFX[p * 2 + 1] = multiShape != null ? vertices1[startIdx].yFX : b1.mPositionFX.yFX;
+                M_particleRadiiFX[p] = multiShape != null ? multiShape.mShapes[p].mBoundingRadiusFX : b1.mShape.mBoundingRadiusFX;
+                continue;
+            }
+
+            M_particleRadiiFX[p] = -1;
+            if (multiShape != null)
+            {
+                //the parts are not centered: use the mean of the vertices
+                long xSumFX = 0, ySumFX = 0;
+                for( int i = startIdx; i < endIdx; i++)
+                {
+                    xSumFX += vertices1[i].xFX;
+                    ySumFX += vertices1[i].yFX;
+                }
+                M_particleCentersFX[p * 2]     = (int) (xSumFX / (endIdx - startIdx));
+                M_particleCentersFX[p * 2 + 1] = (int) (ySumFX / (endIdx - startIdx));
+            }
+            else
+            {
+                b1.getAbsoluePoint(b1.mShape.mCcentroid, M_tmp2);
+                M_particleCentersFX[p * 2]     = M_tmp2.xFX;
+                M_particleCentersFX[p * 2 + 1] = M_tmp2.yFX;
+            }
+
+            for( int a = startAxes; a < endAxes; a++, axisCount++)
+            {
+                M_particleAxesFX = World.checkVector(M_particleAxesFX, axisCount * 2 + 1);
+                M_particleMinFX = World.checkVector(M_particleMinFX, axisCount);
+                M_particleMaxFX = World.checkVector(M_particleMaxFX, axisCount);
+                M_particleAxesFX[axisCount * 2]     = axes1[a].xFX;
+                M_particleAxesFX[axisCount * 2 + 1] = axes1[a].yFX;
+
+                long minFX = vertices1[startIdx].dotFX(axes1[a]);
+                long maxFX = minFX;
+                for( int i = startIdx + 1; i < endIdx; i++)
+                {
+                    long dFX = vertices1[i].dotFX(axes1[a]);
+                    if (dFX < minFX) minFX = dFX;
+                    if (dFX > maxFX) maxFX = dFX;
+                }
+                M_particleMinFX[axisCount] = minFX;
+                M_particleMaxFX[axisCount] = maxFX;
+            }
+        }
+        M_particleAxisStart[M_particlePartCount] = axisCount;
+    }
+
     /**
      * Detects collision of two circles
      * @param b1 body 1 (circle)
      * @param b2 body 2 (circle)
      * @param c the contact to be filled.
+     * @param pool the world providing the contact pool (null: no pooling).
      * @return the contact if the bodies intersect, null otherwise.
      */
-    private static Contact detectCollisionCircleCircle(Body b1, int index1, Body b2, int index2, Contact c)
+    private static Contact detectCollisionCircleCircle(Body b1, int index1, Body b2, int index2, Contact c, World pool)
     {
         M_distance.assign(b1.mPositionFX);
         M_distance.subtract(b2.mPositionFX);        //length
@@ -474,7 +725,7 @@ private static Contact detectCollisionCircleCircle(Body b1, int index1, Body b2,
         M_tmp1.assign(b1.mPositionFX);      //point 1
         M_tmp1.add(M_distance, -shape1.mBoundingRadiusFX);
 
-        c = initContact(c, M_distance, b1, index1, b2, index2);
+        c = initContact(pool, c, M_distance, b1, index1, b2, index2);
         c.setContactPosition1(M_tmp1, -depthFX, true);
 
         return c;
@@ -485,9 +736,10 @@ private static Contact detectCollisionCircleCircle(Body b1, int index1, Body b2,
      * @param b1 body 1 (polygon)
      * @param b2 body 2 (circle)
      * @param c the contact to be filled.
+     * @param pool the world providing the contact pool (null: no pooling).
      * @return the contact if the bodies intersect, null otherwise.
      */
-    private static Contact detectCollisionPolyCircle(Body b1, int index1, Body b2, int index2, Contact c)
+    private static Contact detectCollisionPolyCircle(Body b1, int index1, Body b2, int index2, Contact c, World pool)
     {
         FXVector[] vertices1 = b1.getVertices();
         FXVector[] axes1 = b1.getAxes();
@@ -530,6 +782,32 @@ private static Contact detectCollisionPolyCircle(Body b1, int index1, Body b2, i
             startIdx2  = 0;
         }
 
+        //test the axis that separated the bodies in the last test first
+        int cachedAxis = b1.getSeparatingAxis(index1, b2, index2);
+        if (cachedAxis >= startAxes1 && cachedAxis < endAxes1)
+        {
+            if (intervalIntersectFX( vertices1, startIdx1, endIdx1, b2.mPositionFX, shape2.mBoundingRadiusFX, startIdx2, axes1[cachedAxis]) == Integer.MIN_VALUE)
+            {
+                return null;
+            }
+            b1.clearSeparatingAxis(b2);
+        }
+
+        //large polygons: only the axis of least penetration found by GJK/EPA is tested
+        M_circleCenter[0] = b2.mPositionFX;
+        if (endIdx1 - startIdx1 > World.M_SHAPE_SAT_MAX_VERTICES &&
+            GJKSolver.findAxis(vertices1, startIdx1, endIdx1, M_circleCenter, 0, 1, M_separationAxis))
+        {
+            long depthFX = intervalIntersectFX( vertices1, startIdx1, endIdx1, b2.mPositionFX, shape2.mBoundingRadiusFX, startIdx2, M_separationAxis);
+            if (depthFX == Integer.MIN_VALUE)
+            {
+                return null;
+            }
+            M_separationDistanceFX = (int) depthFX;
+
+            return createPolyCircleContact(b1, index1, shape1, vertices1, startIdx1, endIdx1, b2, index2, shape2, c, pool);
+        }
+
         M_separationDistanceFX = Integer.MIN_VALUE;
         long depthFX = 0;
         // test separation axes of A
@@ -539,6 +817,7 @@ private static Contact detectCollisionPolyCircle(Body b1, int index1, Body b2, i
 
             if (depthFX == Integer.MIN_VALUE)
             {
+                b1.setSeparatingAxis(index1, b2, index2, i);
                 return null;
             }
 
@@ -581,10 +860,19 @@ private static Contact detectCollisionPolyCircle(Body b1, int index1, Body b2, i
             }
         }
 
+        return createPolyCircleContact(b1, index1, shape1, vertices1, startIdx1, endIdx1, b2, index2, shape2, c, pool);
+    }
 
+    /**
+     * Creates the contact of a polygon and a circle from the separation axis.
+     * @return the contact.
+     */
+    private static Contact createPolyCircleContact(Body b1, int index1, Shape shape1, FXVector[] vertices1, int startIdx1, int endIdx1,
+                                                   Body b2, int index2, Shape shape2, Contact c, World pool)
+    {
         //determine contacts based on the (turned) separation axis (= face normal)
-        M_tmp1.assign(b1.getAbsoluePoint(shape1.mCcentroid));     //center of mass body 1
-        M_tmp2.assign(b2.getAbsoluePoint(shape2.mCcentroid));     //center of mass body 2
+        b1.getAbsoluePoint(shape1.mCcentroid, M_tmp1);     //center of mass body 1
+        b2.getAbsoluePoint(shape2.mCcentroid, M_tmp2);     //center of mass body 2
         M_b1b2.assignDiff(M_tmp2, M_tmp1);
         if (M_separationAxis.dotFX(M_b1b2) > 0)
         {
@@ -592,7 +880,7 @@ private static Contact detectCollisionPolyCircle(Body b1, int index1, Body b2, i
         }
 
         M_separationAxis2.assign(M_separationAxis);
-        c = initContact(c, M_separationAxis2, b1, index1, b2, index2);
+        c = initContact(pool, c, M_separationAxis2, b1, index1, b2, index2);
 
         int sCount1 = findSupportVertices(vertices1, startIdx1, endIdx1, M_separationAxis, M_supportVertices1, M_depthDiff1FX);
 
@@ -605,9 +893,10 @@ private static Contact detectCollisionPolyCircle(Body b1, int index1, Body b2, i
      * @param b1 body 1 (polygon)
      * @param b2 body 2 (polygon)
      * @param c the contact to be filled.
+     * @param pool the world providing the contact pool (null: no pooling).
      * @return the contact if the bodies intersect, null otherwise.
      */
-    private static Contact detectCollisionPolyPoly(Body b1, int index1, Body b2, int index2, Contact c)
+    private static Contact detectCollisionPolyPoly(Body b1, int index1, Body b2, int index2, Contact c, World pool)
     {
         FXVector[] vertices1 = b1.getVertices();
         FXVector[] vertices2 = b2.getVertices();
@@ -657,6 +946,43 @@ private static Contact detectCollisionPolyPoly(Body b1, int index1, Body b2, int
             endAxes2   = axes2.length;
         }
 
+        //test the axis that separated the bodies in the last test first
+        //(most pairs with overlapping AABBs stay separated for many steps)
+        int cachedAxis = b1.getSeparatingAxis(index1, b2, index2);
+        if (cachedAxis != Integer.MIN_VALUE)
+        {
+            FXVector cachedSeparationAxis = null;
+            if (cachedAxis >= startAxes1 && cachedAxis < endAxes1)
+            {
+                cachedSeparationAxis = axes1[cachedAxis];
+            }
+            else if (-cachedAxis - 1 >= startAxes2 && -cachedAxis - 1 < endAxes2)
+            {
+                cachedSeparationAxis = axes2[-cachedAxis - 1];
+            }
+            if (cachedSeparationAxis != null &&
+                intervalIntersectFX( vertices1, startIdx1, endIdx1, vertices2, startIdx2, endIdx2, cachedSeparationAxis) == Integer.MIN_VALUE)
+            {
+                return null;
+            }
+            b1.clearSeparatingAxis(b2);
+        }
+
+        //large polygons: only the axis of least penetration found by GJK/EPA is tested
+        if ((endIdx1 - startIdx1 > World.M_SHAPE_SAT_MAX_VERTICES || endIdx2 - startIdx2 > World.M_SHAPE_SAT_MAX_VERTICES) &&
+            GJKSolver.findAxis(vertices1, startIdx1, endIdx1, vertices2, startIdx2, endIdx2, M_separationAxis))
+        {
+            long depthFX = intervalIntersectFX( vertices1, startIdx1, endIdx1, vertices2, startIdx2, endIdx2, M_separationAxis);
+            if (depthFX  == Integer.MIN_VALUE)
+            {
+                return null;
+            }
+            M_separationDistanceFX = (int) depthFX;
+            M_projectionAxisIsFromFirstPoly = GJKSolver.M_axisFromFirst;
+
+            return createPolyPolyContact(b1, index1, shape1, vertices1, startIdx1, endIdx1, b2, index2, shape2, vertices2, startIdx2, endIdx2, c, pool);
+        }
+
         M_separationDistanceFX = Integer.MIN_VALUE;
         long depthFX = 0;
         long secondaryCriteriumFX = 0;      //secondary criterium in case of not complete penetration
@@ -668,6 +994,7 @@ private static Contact detectCollisionPolyPoly(Body b1, int index1, Body b2, int
             depthFX = intervalIntersectFX( vertices1, startIdx1, endIdx1, vertices2, startIdx2, endIdx2, axes1[i]);
              if (depthFX  == Integer.MIN_VALUE)
             {
+                b1.setSeparatingAxis(index1, b2, index2, i);
                 return null;
             }
 
@@ -715,6 +1042,7 @@ else if (depthFX < World.M_CONTACT_touchEpsilonCollisionSlackFX)
 
             if (depthFX  == Integer.MIN_VALUE)
             {
+                b1.setSeparatingAxis(index1, b2, index2, -i - 1);
                 return null;
             }
 
@@ -754,16 +1082,25 @@ else if (depthFX < World.M_CONTACT_touchEpsilonCollisionSlackFX)
             }
         }
 
+        return createPolyPolyContact(b1, index1, shape1, vertices1, startIdx1, endIdx1, b2, index2, shape2, vertices2, startIdx2, endIdx2, c, pool);
+    }
+
+    /**
+     * Creates the contact of two polygons from the separation axis.
+     * @return the contact.
+     */
+    private static Contact createPolyPolyContact(Body b1, int index1, Shape shape1, FXVector[] vertices1, int startIdx1, int endIdx1,
+                                                 Body b2, int index2, Shape shape2, FXVector[] vertices2, int startIdx2, int endIdx2, Contact c, World pool)
+    {
         //determine contacts based on the (turned) separation axis (= face normal)
-        M_tmp1.assign(b1.getAbsoluePoint(shape1.mCcentroid));     //center of mass body 1
-        M_tmp2.assign(b2.getAbsoluePoint(shape2.mCcentroid));     //center of mass body 2
+        b1.getAbsoluePoint(shape1.mCcentroid, M_tmp1);     //center of mass body 1
+        b2.getAbsoluePoint(shape2.mCcentroid, M_tmp2);     //center of mass body 2
         M_b1b2.assignDiff(M_tmp2, M_tmp1);
         if (M_separationAxis.dotFX(M_b1b2) > 0)
         {
             M_separationAxis.mult(-1);
         }
 
-        int minDiffFX = 0;
         int sCount1 = 0, sCount2 = 0;
         sCount1 = findSupportVertices(vertices1, startIdx1, endIdx1, M_separationAxis, M_supportVertices1, M_depthDiff1FX);
         M_separationAxis.mult(-1);
@@ -776,15 +1113,14 @@ else if (depthFX < World.M_CONTACT_touchEpsilonCollisionSlackFX)
         {
             //center of intersecting vertices is used
             //could be improved, but is works fine and is fast...
-            Contact c2 = new Contact(M_supportVertices1[0], M_supportVertices2[0], b1, b2);
-            return c2;
+            return initContact(pool, M_supportVertices1[0], M_supportVertices2[0], b1, b2);
         }
 
 
         M_separationAxis2.assign(M_separationAxis);
         M_separationAxis2.mult(-1);
 
-        c = initContact(c, M_separationAxis2, b1, index1, b2, index2);
+        c = initContact(pool, c, M_separationAxis2, b1, index1, b2, index2);
 
         return checkSupportVertexCasesPolygon(c, M_separationAxis, sCount1, sCount2, vertices1, startIdx1, endIdx1, vertices2, startIdx2, endIdx2);
     }
@@ -796,10 +1132,11 @@ else if (depthFX < World.M_CONTACT_touchEpsilonCollisionSlackFX)
      * @param end the end point of the line
      * @param face the face of the landscape element see {@link Landscape#mFaces}
      * @param c the contact to be filled.
+     * @param pool the world providing the contact pool (null: no pooling).
      * @return the contact if the bodies intersect, null otherwise.
      */
     //#NoEco /*
-    private static Contact detectCollisionCircleLine(Body b1, int index1, Body landscapeBody, int index2, FXVector start, FXVector end, short face, Contact c)
+    private static Contact detectCollisionCircleLine(Body b1, int index1, Body landscapeBody, int index2, FXVector start, FXVector end, short face, Contact c, World pool)
     {
         M_lineVertices[0] = start;
         M_lineVertices[1] = end;
@@ -889,7 +1226,7 @@ private static Contact detectCollisionCircleLine(Body b1, int index1, Body lands
         //determine contacts based on the (turned) separation axis (= face normal)
 
         M_separationAxis2.assign(M_separationAxis);
-        c = initContact(c, M_separationAxis2, landscapeBody, index2, b1, index1 );
+        c = initContact(pool, c, M_separationAxis2, landscapeBody, index2, b1, index1 );
 
         int sCount1 = findSupportVertices(M_lineVertices, 0, 2, M_separationAxis, M_supportVertices1, M_depthDiff1FX);
 
@@ -904,10 +1241,11 @@ private static Contact detectCollisionCircleLine(Body b1, int index1, Body lands
      * @param end the end point of the line
      * @param face the face of the landscape element see {@link Landscape#mFaces}
      * @param c the contact to be filled.
+     * @param pool the world providing the contact pool (null: no pooling).
      * @return the contact if the bodies intersect, null otherwise.
      */
     //#NoEco /*
-    private static Contact detectCollisionPolyLine(Body b1, int index1, Body landscapeBody, int index2, FXVector start, FXVector end, short face, Contact c)
+    private static Contact detectCollisionPolyLine(Body b1, int index1, Body landscapeBody, int index2, FXVector start, FXVector end, short face, Contact c, World pool)
     {
         FXVector[] vertices1 = b1.getVertices();
         M_lineVertices[0] = start;
@@ -968,6 +1306,7 @@ private static Contact detectCollisionPolyLine(Body b1, int index1, Body landsca
             {
                 M_separationAxis.assign(axes1[i]);
                 M_separationDistanceFX = (int) depthFX;
+                M_projectionAxisIsFromFirstPoly = true;
             }
         }
 
@@ -981,6 +1320,7 @@ private static Contact detectCollisionPolyLine(Body b1, int index1, Body landsca
         {
             M_separationAxis.assign(M_axis);
             M_separationDistanceFX = (int) depthFX;
+            M_projectionAxisIsFromFirstPoly = false;
         }
         //check condition for switching
         switch(face)
@@ -990,7 +1330,7 @@ private static Contact detectCollisionPolyLine(Body b1, int index1, Body landsca
                 M_tmp1.assign(start);     //center
                 M_tmp1.add(end);
                 M_tmp1.divideBy(2);
-                M_tmp2.assign(b1.getAbsoluePoint(shape1.mCcentroid));     //center of mass body 1
+                b1.getAbsoluePoint(shape1.mCcentroid, M_tmp2);     //center of mass body 1
                 M_b1b2.assignDiff(M_tmp1, M_tmp2);
                 if (M_separationAxis.dotFX(M_b1b2) > 0)
                 {
@@ -1023,13 +1363,12 @@ private static Contact detectCollisionPolyLine(Body b1, int index1, Body landsca
         {
             //center of intersecting vertices is used
             //could be improved, but is works fine and is fast...
-            Contact c2 = new Contact(M_supportVertices1[0], M_supportVertices2[0], b1, landscapeBody);
-            return c2;
+            return initContact(pool, M_supportVertices1[0], M_supportVertices2[0], b1, landscapeBody);
         }
 
         M_separationAxis2.assign(M_separationAxis);
         M_separationAxis2.mult(-1);
-        c = initContact(c, M_separationAxis2, b1, index1, landscapeBody, index2 );
+        c = initContact(pool, c, M_separationAxis2, b1, index1, landscapeBody, index2 );
 
         return checkSupportVertexCasesPolygon(c, M_separationAxis, sCount1, sCount2, vertices1, startIdx1, endIdx1, M_lineVertices, 0, 2);
     }
@@ -1389,22 +1728,25 @@ else if (tmpFX < dMin2FX)
     /**
      * Initializes a contact for two bodies.
      * If no contact is passed a new is created,
-     * unless the Contact storage holds an unused one (to avoid object creation).
+     * unless the contact pool of the world holds an unused one (to avoid object creation).
+     * @param pool the world providing the contact pool (null: no pooling)
      * @param c the contact
      * @param separationAxis the separation axis
      * @param b1 the body 1
      * @param b2 the body 2
      * @return the contact
      */
-    private static Contact initContact(Contact c, FXVector separationAxis,
+    static Contact initContact(World pool, Contact c, FXVector separationAxis,
             Body b1, int index1, Body b2, int index2)
     {
         if ( c == null)
         {
-            if (World.mContactStorageCount > 0)
+            if (pool != null)
+            {
+                c = pool.obtainContact();
+            }
+            if (c != null)
             {
-                c = World.mContactStorage[--World.mContactStorageCount];
-                World.mContactStorage[World.mContactStorageCount] = null;
                 c.clearAll();
                 c.setNormal(separationAxis, b1, index1, b2, index2);
             }
@@ -1421,6 +1763,31 @@ private static Contact initContact(Contact c, FXVector separationAxis,
         return c;
     }
 
-}
-
+    /**
+     * Initializes a contact between two points.
+     * The contact is taken from the contact pool of the world if possible,
+     * otherwise a new one is created.
+     * @param pool the world providing the contact pool (null: no pooling)
+     * @param contactPosition1 contact position on body 1
+     * @param contactPosition2 contact position on body 2
+     * @param b1 the body 1
+     * @param b2 the body 2
+     * @return the contact
+     */
+    static Contact initContact(World pool, FXVector contactPosition1, FXVector contactPosition2, Body b1, Body b2)
+    {
+        Contact c = null;
+        if (pool != null)
+        {
+            c = pool.obtainContact();
+        }
+        if (c == null)
+        {
+            return new Contact(contactPosition1, contactPosition2, b1, b2);
+        }
+        c.clearAll();
+        c.setPoints(contactPosition1, contactPosition2, b1, b2);
+        return c;
+    }
 
+}
@@ -78,11 +78,6 @@
     private FXVector mCorrectVec = new FXVector();     //Node. vector is reused after iteration as the complete the correcting impulse!
     private FXVector mAccumulatedVirtualLambdaVec = new FXVector();
 
-    /**
-     * impulse vector for the apply momentum method
-     * @fx
-     */
-    private static FXVector M_jvFX = new FXVector();
     private static FXVector M_contactTmp = new FXVector();
 
     /**
@@ -105,6 +100,11 @@
      */
     boolean mSkipContact = false;
 
+    /**
+     * Number of values written by {@link #storeState(int[], int)}.
+     */
+    static final int M_STATE_SIZE = 15;
+
     //variables for precalculation
     FXVector mB11c = new FXVector();
     FXVector mB21c = new FXVector();
@@ -130,14 +130,9 @@
     private static FXVector M_tempv2 = new FXVector();
     private static FXVector M_tempv3 = new FXVector();
 
-    private static FXVector M_oldAccumLambdaVec = new FXVector();
-    private static FXVector M_lambdaVec = new FXVector();
-    private static FXVector M_resubstituteLambdaVec = new FXVector();
     private static FXVector M_oldAccumVirtualLambdaVec = new FXVector();
     private static FXVector M_virtualLambdaVec = new FXVector();
 
-    private static FXVector M_tangentLambdaVec = new FXVector();
-
     //used for calculation whether contacts are active
     private static FXVector[] M_lineVertices = new FXVector[2];
 
@@ -176,10 +171,26 @@ protected Contact(FXVector normal, Body body1, int index1, Body body2, int index
      * @param body2 Body 2
      */
     protected Contact(FXVector contactPosition1, FXVector contactPosition2,Body body1, Body body2)
+    {
+        setPoints(contactPosition1, contactPosition2, body1, body2);
+    }
+
+    /**
+     * Resets bodies and contact position using two absolute points.
+     * This is required for contact reusal.
+     * @param contactPosition1 contact position on body 1
+     * @param contactPosition2 contact position on body 2
+     * @param body1 Body 1
+     * @param body2 Body 2
+     */
+    final void setPoints(FXVector contactPosition1, FXVector contactPosition2, Body body1, Body body2)
     {
         this.mBody1 = body1;
         this.mBody2 = body2;
 
+        mB1Index = 0;
+        mB2Index = 0;
+
         this.mNormalDirection.assign(contactPosition1);
         mNormalDirection.subtract(contactPosition2);
 
@@ -249,6 +260,62 @@ public final void clearAll()
         mAccumulatedVirtualLambdaVec.assignFX(0,0);
     }
 
+    /**
+     * Writes the persistent state of the contact into an array.
+     * This is the part of the contact, that is carried over to the next step
+     * (normal and the accumulated impulses used for warmstarting),
+     * and the contact points, which are queried by the application.
+     * @param stateFX the target array
+     * @param offset the start index in the array ({@link #M_STATE_SIZE} values are written)
+     */
+    final void storeState(int[] stateFX, int offset)
+    {
+        stateFX[offset    ] = mNormalDirection.xFX;
+        stateFX[offset + 1] = mNormalDirection.yFX;
+        stateFX[offset + 2] = mAccumulatedLambdaVec.xFX;
+        stateFX[offset + 3] = mAccumulatedLambdaVec.yFX;
+        stateFX[offset + 4] = mAccumulatedTangentLambdaVec.xFX;
+        stateFX[offset + 5] = mAccumulatedTangentLambdaVec.yFX;
+        stateFX[offset + 6] = mRestitutionVecStore.xFX;
+        stateFX[offset + 7] = mRestitutionVecStore.yFX;
+        stateFX[offset + 8] = mContactPosition1.xFX;
+        stateFX[offset + 9] = mContactPosition1.yFX;
+        stateFX[offset + 10] = mDepth1FX;
+        stateFX[offset + 11] = mContactPosition2.xFX;
+        stateFX[offset + 12] = mContactPosition2.yFX;
+        stateFX[offset + 13] = mDepth2FX;
+        stateFX[offset + 14] = mSingle ? 1 : 0;
+    }
+
+    /**
+     * Restores the persistent state of the contact from an array.
+     * @param stateFX the source array, filled by {@link #storeState(int[], int)}
+     * @param offset the start index in the array
+     */
+    final void restoreState(int[] stateFX, int offset)
+    {
+        mNormalDirection.assignFX(stateFX[offset], stateFX[offset + 1]);
+        mTangentDirection.assign(mNormalDirection);
+        mTangentDirection.turnRight();
+        mAccumulatedLambdaVec.assignFX(stateFX[offset + 2], stateFX[offset + 3]);
+        mAccumulatedTangentLambdaVec.assignFX(stateFX[offset + 4], stateFX[offset + 5]);
+        mRestitutionVecStore.assignFX(stateFX[offset + 6], stateFX[offset + 7]);
+
+        //the relative positions are derived from the restored body positions
+        mContactPosition1.assignFX(stateFX[offset + 8], stateFX[offset + 9]);
+        setContactPosition1(mContactPosition1, stateFX[offset + 10], false);
+        mContactPosition2.assignFX(stateFX[offset + 11], stateFX[offset + 12]);
+        mDepth2FX = stateFX[offset + 13];
+        if (stateFX[offset + 14] == 0)
+        {
+            setContactPosition2(mContactPosition2, mDepth2FX, false);
+        }
+        else
+        {
+            mSingle = true;
+        }
+    }
+
     /**
      * Sets the first contact position.
      * Calculates the correct relative position depending on the body positions and orientation
@@ -344,6 +411,66 @@ public FXVector getNormal()
         return mNormalDirection;
     }
 
+    /**
+     * Gets the x coordinate of the first contact point.
+     * @fx
+     * @return the x coordinate of contact position 1
+     */
+    public int getContactPosition1XFX()
+    {
+        return mContactPosition1.xFX;
+    }
+
+    /**
+     * Gets the y coordinate of the first contact point.
+     * @fx
+     * @return the y coordinate of contact position 1
+     */
+    public int getContactPosition1YFX()
+    {
+        return mContactPosition1.yFX;
+    }
+
+    /**
+     * Gets the x coordinate of the second contact point.
+     * @fx
+     * @return the x coordinate of contact position 2
+     */
+    public int getContactPosition2XFX()
+    {
+        return mContactPosition2.xFX;
+    }
+
+    /**
+     * Gets the y coordinate of the second contact point.
+     * @fx
+     * @return the y coordinate of contact position 2
+     */
+    public int getContactPosition2YFX()
+    {
+        return mContactPosition2.yFX;
+    }
+
+    /**
+     * Gets the x component of the contact normal.
+     * @fx
+     * @return the x component of the normal
+     */
+    public int getNormalXFX()
+    {
+        return mNormalDirection.xFX;
+    }
+
+    /**
+     * Gets the y component of the contact normal.
+     * @fx
+     * @return the y component of the normal
+     */
+    public int getNormalYFX()
+    {
+        return mNormalDirection.yFX;
+    }
+
     /**
      * Gets the first body.
      * @return the first body
@@ -621,169 +748,64 @@ protected final void precalculatePositionCorrection(int timestepFX, long invTime
         mAccumulatedVirtualLambdaVec.assignFX(0,0);
     }
 
-    /*
-     * The method is called iteratively by the simulation step.
-     * Eventually the applied effect on the bodies will converge towards zero.
-     */
     /**
-     * Applies the momentum of the collision.
-     * Uses the pre-calculated mass matrices and the current velocities of the bodies
-     * to calculate and apply the impulse to satisfy the contact constraint.
+     * Writes the precalculated values of the contact into a row of the {@link ContactSolver}.
+     * @param rows the contact rows
+     * @param offset the offset of the row
+     * @return the flags of the contact
      */
-    protected boolean applyMomentum()
+    final int storeRow(long[] rows, int offset)
     {
-        if (mSkipContact)
-        {
-            return true;
-        }
-
-        FXVector relativeVelocity1 = Contact.M_relativeVelocity1;
-        FXVector relativeVelocity2 = Contact.M_relativeVelocity2;
-        Body body1 = this.mBody1;
-        Body body2 = this.mBody2;
-        FXVector normalDirection = this.mNormalDirection;
-        FXVector accumulatedLambdaVec = this.mAccumulatedLambdaVec;
-
-        FXVector oldAccumLambdaVec = Contact.M_oldAccumLambdaVec;
-        FXVector lambdaVec = Contact.M_lambdaVec;
-        FXVector resubstituteLambdaVec = Contact.M_resubstituteLambdaVec;
-
-        FXVector tempv1 = Contact.M_tempv1;
-        FXVector tempv2 = Contact.M_tempv2;
-
-        body1.getVelocity(mB11c, tempv1);
-        body2.getVelocity(mB21c, tempv2);
-        relativeVelocity1.assignDiff(tempv1, tempv2);
-        if (!mSingle)
-        {
-            body1.getVelocity(mB12c, tempv1);
-            body2.getVelocity(mB22c, tempv2);
-            relativeVelocity2.assignDiff(tempv1, tempv2);
-        }
-
-        if (mSingle)
-        {
-            oldAccumLambdaVec.xFX = accumulatedLambdaVec.xFX;
-            accumulatedLambdaVec.xFX += (int) ((((long) (-relativeVelocity1.dotFX(normalDirection) + mRestitutionVec.xFX + mCorrectVec.xFX)) << (FXUtil.DECIMAL2)) / mKMatrix.mCol1xFX);
-
-            accumulatedLambdaVec.xFX = Math.max(accumulatedLambdaVec.xFX, 0);
-            lambdaVec.xFX = accumulatedLambdaVec.xFX - oldAccumLambdaVec.xFX;
-
-            applyImpulses(lambdaVec, normalDirection);
-        }
-        else
-        {
-            FXVector jvFX = Contact.M_jvFX;
-
-            jvFX.xFX = - (int) relativeVelocity1.dotFX(normalDirection);
-            jvFX.yFX = - (int) relativeVelocity2.dotFX(normalDirection);
-            jvFX.add(mRestitutionVec);        //restitution
-            jvFX.add(mCorrectVec);            //overlap
-
-            //this is due to calculation of block constraint on incremental impulse
-            mKMatrix.mult(accumulatedLambdaVec, tempv1);
-            jvFX.add( tempv1 );
-
-            mNormalMassMatrix.mult(jvFX, lambdaVec);
-
-            for(;;)
-            {
-                //case 1: both contacts active,
-                if (lambdaVec.xFX >= 0 && lambdaVec.yFX >= 0)
-                {
-                    break;
-                }
-
-                //case 2: contact 1 active
-                lambdaVec.xFX = (int) (((long)jvFX.xFX << FXUtil.DECIMAL2) / mKMatrix.mCol1xFX);
-                lambdaVec.yFX = 0;
-                int relativeVelocityDotNyFX = (int) (((long)lambdaVec.xFX * mKMatrix.mCol1yFX) >> FXUtil.DECIMAL2) - jvFX.yFX;
-
-                if (lambdaVec.xFX >= 0 && relativeVelocityDotNyFX >= 0)
-                {
-                    break;
-                }
-
-                //case 3: contact 2 active
-                lambdaVec.xFX = 0;
-                lambdaVec.yFX = (int) (((long)jvFX.yFX << FXUtil.DECIMAL2) / mKMatrix.mCol2yFX);
-                int relativeVelocityDotNxFX = (int) (((long)lambdaVec.yFX * mKMatrix.mCol2xFX) >> FXUtil.DECIMAL2) - jvFX.xFX;
-
-                if (lambdaVec.yFX >= 0 && relativeVelocityDotNxFX >= 0)
-                {
-                    break;
-                }
-
-                //case 4: both inactive
-                lambdaVec.xFX = 0;
-                lambdaVec.yFX = 0;
-                break;
-            }
-
-            resubstituteLambdaVec.assignDiff(lambdaVec, accumulatedLambdaVec);
-
-            applyImpulses(resubstituteLambdaVec, normalDirection);
-            accumulatedLambdaVec.assign(lambdaVec);
-        }
-
-        //friction
-
-        if ( ((World.M_iteration & 3) == 2) &&
-            ! ( mFrictionFX == 0 || mTangentMassVec2FX.xFX == 0 ) )
-        {
-
-            FXVector tangentDirection = this.mTangentDirection;
-            FXVector tangentLambdaVec = Contact.M_tangentLambdaVec;
-            FXVector accumulatedTangentLambdaVec = this.mAccumulatedTangentLambdaVec;
-
-            FXVector maxTangentImpulseVec = M_tempv3;
-            maxTangentImpulseVec.assignScaledFX(accumulatedLambdaVec, mFrictionFX);
-            oldAccumLambdaVec.assign( accumulatedTangentLambdaVec );
-
-            if (mDepth1FX >= 0)
-            {
-                body1.getVelocity(mB11c, tempv1);
-                body2.getVelocity(mB21c, tempv2);
-                relativeVelocity1.assignDiff(tempv1, tempv2);
-                accumulatedTangentLambdaVec.xFX = accumulatedTangentLambdaVec.xFX - (int) (((long) relativeVelocity1.crossFX(normalDirection) << FXUtil.DECIMAL2) / mTangentMassVec2FX.xFX );
-
-                if (accumulatedTangentLambdaVec.xFX < -maxTangentImpulseVec.xFX) accumulatedTangentLambdaVec.xFX = -maxTangentImpulseVec.xFX;
-                if (accumulatedTangentLambdaVec.xFX > maxTangentImpulseVec.xFX) accumulatedTangentLambdaVec.xFX = maxTangentImpulseVec.xFX;
-
-                tangentLambdaVec.xFX = accumulatedTangentLambdaVec.xFX - oldAccumLambdaVec.xFX;
-            }
-            else
-            {
-                tangentLambdaVec.xFX = 0;
-                accumulatedTangentLambdaVec.xFX = 0;
-            }
-
-            if (!mSingle )
-            {
-                if(mDepth2FX >= 0)
-                {
-                    body1.getVelocity(mB12c, tempv1);
-                    body2.getVelocity(mB22c, tempv2);
-                    relativeVelocity2.assignDiff(tempv1, tempv2);
-                    accumulatedTangentLambdaVec.yFX = accumulatedTangentLambdaVec.yFX - (int) (((long) relativeVelocity2.crossFX(normalDirection) << FXUtil.DECIMAL2) / mTangentMassVec2FX.yFX );
-                    if (accumulatedTangentLambdaVec.yFX < -maxTangentImpulseVec.yFX) accumulatedTangentLambdaVec.yFX = -maxTangentImpulseVec.yFX;
-                    if (accumulatedTangentLambdaVec.yFX > maxTangentImpulseVec.yFX) accumulatedTangentLambdaVec.yFX = maxTangentImpulseVec.yFX;
-
-                    tangentLambdaVec.yFX = accumulatedTangentLambdaVec.yFX - oldAccumLambdaVec.yFX;
-                }
-                else
-                {
-                    tangentLambdaVec.yFX = 0;
-                    accumulatedTangentLambdaVec.yFX = 0;
-                }
-            }
-            applyImpulses(tangentLambdaVec, tangentDirection);
-        }
-
-        //check if contact is sufficiently converged
-        return Math.abs(resubstituteLambdaVec.xFX) < World.M_CONTACT_IterationConvergenceFX &&
-               Math.abs(resubstituteLambdaVec.yFX) < World.M_CONTACT_IterationConvergenceFX;
+        rows[offset + ContactSolver.ROW_NORMAL_X] = mNormalDirection.xFX;
+        rows[offset + ContactSolver.ROW_NORMAL_Y] = mNormalDirection.yFX;
+        rows[offset + ContactSolver.ROW_TANGENT_X] = mTangentDirection.xFX;
+        rows[offset + ContactSolver.ROW_TANGENT_Y] = mTangentDirection.yFX;
+        rows[offset + ContactSolver.ROW_B11C_X] = mB11c.xFX;
+        rows[offset + ContactSolver.ROW_B11C_Y] = mB11c.yFX;
+        rows[offset + ContactSolver.ROW_B21C_X] = mB21c.xFX;
+        rows[offset + ContactSolver.ROW_B21C_Y] = mB21c.yFX;
+        rows[offset + ContactSolver.ROW_B12C_X] = mB12c.xFX;
+        rows[offset + ContactSolver.ROW_B12C_Y] = mB12c.yFX;
+        rows[offset + ContactSolver.ROW_B22C_X] = mB22c.xFX;
+        rows[offset + ContactSolver.ROW_B22C_Y] = mB22c.yFX;
+        rows[offset + ContactSolver.ROW_K_COL1_X] = mKMatrix.mCol1xFX;
+        rows[offset + ContactSolver.ROW_K_COL1_Y] = mKMatrix.mCol1yFX;
+        rows[offset + ContactSolver.ROW_K_COL2_X] = mKMatrix.mCol2xFX;
+        rows[offset + ContactSolver.ROW_K_COL2_Y] = mKMatrix.mCol2yFX;
+        rows[offset + ContactSolver.ROW_N_COL1_X] = mNormalMassMatrix.mCol1xFX;
+        rows[offset + ContactSolver.ROW_N_COL1_Y] = mNormalMassMatrix.mCol1yFX;
+        rows[offset + ContactSolver.ROW_N_COL2_X] = mNormalMassMatrix.mCol2xFX;
+        rows[offset + ContactSolver.ROW_N_COL2_Y] = mNormalMassMatrix.mCol2yFX;
+        rows[offset + ContactSolver.ROW_TANGENT_MASS_X] = mTangentMassVec2FX.xFX;
+        rows[offset + ContactSolver.ROW_TANGENT_MASS_Y] = mTangentMassVec2FX.yFX;
+        rows[offset + ContactSolver.ROW_BIAS_X] = (long) mRestitutionVec.xFX + mCorrectVec.xFX;
+        rows[offset + ContactSolver.ROW_BIAS_Y] = (long) mRestitutionVec.yFX + mCorrectVec.yFX;
+        rows[offset + ContactSolver.ROW_FRICTION] = mFrictionFX;
+        rows[offset + ContactSolver.ROW_LAMBDA_X] = mAccumulatedLambdaVec.xFX;
+        rows[offset + ContactSolver.ROW_LAMBDA_Y] = mAccumulatedLambdaVec.yFX;
+        rows[offset + ContactSolver.ROW_TANGENT_LAMBDA_X] = mAccumulatedTangentLambdaVec.xFX;
+        rows[offset + ContactSolver.ROW_TANGENT_LAMBDA_Y] = mAccumulatedTangentLambdaVec.yFX;
+
+        int flags = 0;
+        flags |= mSingle ? ContactSolver.FLAG_SINGLE : 0;
+        flags |= mSkipContact ? ContactSolver.FLAG_SKIP : 0;
+        flags |= ! (mFrictionFX == 0 || mTangentMassVec2FX.xFX == 0) ? ContactSolver.FLAG_FRICTION : 0;
+        flags |= mDepth1FX >= 0 ? ContactSolver.FLAG_DEPTH1 : 0;
+        flags |= mDepth2FX >= 0 ? ContactSolver.FLAG_DEPTH2 : 0;
+        return flags;
+    }
 
+    /**
+     * Reads the accumulated impulses from a row of the {@link ContactSolver}.
+     * @param rows the contact rows
+     * @param offset the offset of the row
+     */
+    final void loadImpulses(long[] rows, int offset)
+    {
+        mAccumulatedLambdaVec.xFX = (int) rows[offset + ContactSolver.ROW_LAMBDA_X];
+        mAccumulatedLambdaVec.yFX = (int) rows[offset + ContactSolver.ROW_LAMBDA_Y];
+        mAccumulatedTangentLambdaVec.xFX = (int) rows[offset + ContactSolver.ROW_TANGENT_LAMBDA_X];
+        mAccumulatedTangentLambdaVec.yFX = (int) rows[offset + ContactSolver.ROW_TANGENT_LAMBDA_Y];
     }
 
     /**
@@ -0,0 +1,461 @@
+package at.emini.physics2D;
+
+import at.emini.physics2D.util.FXUtil;
+
+/**
+ * Velocity solver for the contacts working on flat primitive arrays. <br>
+ * Before the velocity iterations, the velocities of the bodies touched by contacts
+ * are copied into compact arrays and the precalculated contacts are flattened into rows.
+ * The iterations only work on these arrays, the results are written back once at the end.
+ *
+ * @author Alexander Adensamer
+ */
+final class ContactSolver
+{
+    //row layout
+    static final int ROW_NORMAL_X       = 0;
+    static final int ROW_NORMAL_Y       = 1;
+    static final int ROW_TANGENT_X      = 2;
+    static final int ROW_TANGENT_Y      = 3;
+    static final int ROW_B11C_X         = 4;
+    static final int ROW_B11C_Y         = 5;
+    static final int ROW_B21C_X         = 6;
+    static final int ROW_B21C_Y         = 7;
+    static final int ROW_B12C_X         = 8;
+    static final int ROW_B12C_Y         = 9;
+    static final int ROW_B22C_X         = 10;
+    static final int ROW_B22C_Y         = 11;
+    static final int ROW_K_COL1_X       = 12;
+    static final int ROW_K_COL1_Y       = 13;
+    static final int ROW_K_COL2_X       = 14;
+    static final int ROW_K_COL2_Y       = 15;
+    static final int ROW_N_COL1_X       = 16;
+    static final int ROW_N_COL1_Y       = 17;
+    static final int ROW_N_COL2_X       = 18;
+    static final int ROW_N_COL2_Y       = 19;
+    static final int ROW_TANGENT_MASS_X = 20;
+    static final int ROW_TANGENT_MASS_Y = 21;
+    static final int ROW_BIAS_X         = 22;
+    static final int ROW_BIAS_Y         = 23;
+    static final int ROW_FRICTION       = 24;
+    static final int ROW_LAMBDA_X       = 25;
+    static final int ROW_LAMBDA_Y       = 26;
+    static final int ROW_TANGENT_LAMBDA_X = 27;
+    static final int ROW_TANGENT_LAMBDA_Y = 28;
+    static final int ROW_SIZE           = 29;
+
+    /**
+     * Initial number of contacts and bodies of the arrays.
+     */
+    private static final int INITIAL_SIZE = 16;
+
+    //contact flags
+    static final int FLAG_SINGLE        = 1;
+    static final int FLAG_SKIP          = 2;
+    static final int FLAG_FRICTION      = 4;
+    static final int FLAG_DEPTH1        = 8;
+    static final int FLAG_DEPTH2        = 16;
+
+    /**
+     * Contact rows.
+     */
+    private long[] mRows = new long[INITIAL_SIZE * ROW_SIZE];
+
+    /**
+     * Body indices (two per contact).
+     */
+    private int[] mRowBodies = new int[INITIAL_SIZE * 2];
+
+    /**
+     * Contact flags.
+     */
+    private int[] mRowFlags = new int[INITIAL_SIZE];
+
+    /**
+     * Number of contact rows.
+     */
+    private int mRowCount = 0;
+
+    /**
+     * Bodies touched by the contacts.
+     */
+    private Body[] mBodies = new Body[INITIAL_SIZE];
+
+    /**
+     * Number of bodies.
+     */
+    private int mBodyCount = 0;
+
+    private int[] mVelocitiesXFX = new int[INITIAL_SIZE];
+    private int[] mVelocitiesYFX = new int[INITIAL_SIZE];
+    private int[] mAngularVelocities2FX = new int[INITIAL_SIZE];
+
+    /**
+     * Inverse mass of the bodies (0 if the body is not moved by impulses).
+     */
+    private long[] mInvMasses2FX = new long[INITIAL_SIZE];
+
+    /**
+     * Inverse inertia of the bodies (0 if the body is not rotated by impulses).
+     */
+    private long[] mInvInertias2FX = new long[INITIAL_SIZE];
+
+    /**
+     * Last block solution change (resubstitution) of a contact pair.
+     * Used for the convergence check, it is carried over to the following iterations and steps.
+     */
+    private int mResubstituteXFX = 0;
+    private int mResubstituteYFX = 0;
+
+    /**
+     * Flattens the precalculated contacts and copies the body velocities.
+     * @param contacts the contacts
+     * @param contactCount the number of contacts
+     */
+    void load(Contact[] contacts, int contactCount)
+    {
+        mRows = World.checkVector(mRows, contactCount * ROW_SIZE);
+        mRowBodies = World.checkVector(mRowBodies, contactCount * 2);
+        mRowFlags = World.checkVector(mRowFlags, contactCount);
+
+        for( int i = 0; i < contactCount; i++)
+        {
+            contacts[i].mBody1.mSolverIndex = -1;
+            contacts[i].mBody2.mSolverIndex = -1;
+        }
+        mBodyCount = 0;
+
+        long[] rows = mRows;
+        for( int i = 0; i < contactCount; i++)
+        {
+            Contact c = contacts[i];
+            mRowBodies[2 * i] = addBody(c.mBody1);
+            mRowBodies[2 * i + 1] = addBody(c.mBody2);
+            mRowFlags[i] = c.storeRow(rows, i * ROW_SIZE);
+        }
+        mRowCount = contactCount;
+    }
+
+    /**
+     * Adds a body to the solver (if not yet added).
+     * @param b the body
+     * @return the index of the body in the solver
+     */
+    private int addBody(Body b)
+    {
+        if (b.mSolverIndex >= 0)
+        {
+            return b.mSolverIndex;
+        }
+        int index = mBodyCount++;
+        mBodies = World.checkVector(mBodies, index);
+        mVelocitiesXFX = World.checkVector(mVelocitiesXFX, index);
+        mVelocitiesYFX = World.checkVector(mVelocitiesYFX, index);
+        mAngularVelocities2FX = World.checkVector(mAngularVelocities2FX, index);
+        mInvMasses2FX = World.checkVector(mInvMasses2FX, index);
+        mInvInertias2FX = World.checkVector(mInvInertias2FX, index);
+
+        boolean movable = b.mDynamic && ! b.mIsResting;
+        mBodies[index] = b;
+        mInvMasses2FX[index] = movable ? b.mShape.mInvMass2FX : 0;
+        mInvInertias2FX[index] = movable && b.mCanRotate ? b.mShape.mInvInertia2FX : 0;
+        b.mSolverIndex = index;
+        return index;
+    }
+
+    /**
+     * Copies the velocities of the bodies into the solver.
+     */
+    void loadVelocities()
+    {
+        Body[] bodies = mBodies;
+        for( int i = 0; i < mBodyCount; i++)
+        {
+            Body b = bodies[i];
+            mVelocitiesXFX[i] = b.mVelocityFX.xFX;
+            mVelocitiesYFX[i] = b.mVelocityFX.yFX;
+            mAngularVelocities2FX[i] = b.mAngularVelocity2FX;
+        }
+    }
+
+    /**
+     * Writes the velocities of the solver back to the bodies.
+     */
+    void storeVelocities()
+    {
+        Body[] bodies = mBodies;
+        for( int i = 0; i < mBodyCount; i++)
+        {
+            Body b = bodies[i];
+            b.mVelocityFX.xFX = mVelocitiesXFX[i];
+            b.mVelocityFX.yFX = mVelocitiesYFX[i];
+            b.mAngularVelocity2FX = mAngularVelocities2FX[i];
+        }
+    }
+
+    /**
+     * Writes the accumulated impulses back to the contacts and releases the bodies.
+     * @param contacts the contacts passed to {@link #load(Contact[], int)}
+     */
+    void storeImpulses(Contact[] contacts)
+    {
+        for( int i = 0; i < mRowCount; i++)
+        {
+            contacts[i].loadImpulses(mRows, i * ROW_SIZE);
+        }
+        for( int i = 0; i < mBodyCount; i++)
+        {
+            mBodies[i] = null;
+        }
+    }
+
+    /**
+     * Performs one velocity iteration over all contacts.
+     * @param iteration the current iteration
+     * @return true if all contacts are sufficiently converged.
+     */
+    boolean solve(int iteration)
+    {
+        long[] rows = mRows;
+        int[] rowBodies = mRowBodies;
+        int[] rowFlags = mRowFlags;
+        boolean friction = (iteration & 3) == 2;
+
+        //the convergence is checked on the last block solution
+        int resubstituteXFX = mResubstituteXFX;
+        int resubstituteYFX = mResubstituteYFX;
+        boolean converged = true;
+
+        for( int i = 0; i < mRowCount; i++)
+        {
+            int flags = rowFlags[i];
+            if ((flags & FLAG_SKIP) != 0)
+            {
+                continue;
+            }
+            int r = i * ROW_SIZE;
+            int b1 = rowBodies[2 * i];
+            int b2 = rowBodies[2 * i + 1];
+            boolean single = (flags & FLAG_SINGLE) != 0;
+
+            long nxFX = rows[r + ROW_NORMAL_X];
+            long nyFX = rows[r + ROW_NORMAL_Y];
+
+            //relative velocities in the contact points
+            long rv1xFX = relativeVelocityX(b1, b2, rows[r + ROW_B11C_Y], rows[r + ROW_B21C_Y]);
+            long rv1yFX = relativeVelocityY(b1, b2, rows[r + ROW_B11C_X], rows[r + ROW_B21C_X]);
+            long rv2xFX = 0;
+            long rv2yFX = 0;
+            if (! single)
+            {
+                rv2xFX = relativeVelocityX(b1, b2, rows[r + ROW_B12C_Y], rows[r + ROW_B22C_Y]);
+                rv2yFX = relativeVelocityY(b1, b2, rows[r + ROW_B12C_X], rows[r + ROW_B22C_X]);
+            }
+
+            int lambdaXFX;
+            int lambdaYFX = 0;
+            if (single)
+            {
+                int oldAccumFX = (int) rows[r + ROW_LAMBDA_X];
+                long rv1DotNFX = (rv1xFX * nxFX + rv1yFX * nyFX) >> FXUtil.DECIMAL;
+                int accumFX = oldAccumFX + (int) (((- rv1DotNFX + rows[r + ROW_BIAS_X]) << FXUtil.DECIMAL2) / rows[r + ROW_K_COL1_X]);
+                accumFX = Math.max(accumFX, 0);
+                rows[r + ROW_LAMBDA_X] = accumFX;
+                lambdaXFX = accumFX - oldAccumFX;
+            }
+            else
+            {
+                int accumXFX = (int) rows[r + ROW_LAMBDA_X];
+                int accumYFX = (int) rows[r + ROW_LAMBDA_Y];
+                long k1xFX = rows[r + ROW_K_COL1_X];
+                long k1yFX = rows[r + ROW_K_COL1_Y];
+                long k2xFX = rows[r + ROW_K_COL2_X];
+                long k2yFX = rows[r + ROW_K_COL2_Y];
+
+                int jvxFX = - (int) ((rv1xFX * nxFX + rv1yFX * nyFX) >> FXUtil.DECIMAL);
+                int jvyFX = - (int) ((rv2xFX * nxFX + rv2yFX * nyFX) >> FXUtil.DECIMAL);
+                jvxFX += (int) rows[r + ROW_BIAS_X];
+                jvyFX += (int) rows[r + ROW_BIAS_Y];
+
+                //block constraint on the incremental impulse
+                jvxFX += (int) (((k1xFX * accumXFX) >> FXUtil.DECIMAL2) + ((k2xFX * accumYFX) >> FXUtil.DECIMAL2));
+                jvyFX += (int) (((k1yFX * accumXFX) >> FXUtil.DECIMAL2) + ((k2yFX * accumYFX) >> FXUtil.DECIMAL2));
+
+                lambdaXFX = (int) (((rows[r + ROW_N_COL1_X] * jvxFX) >> FXUtil.DECIMAL2) + ((rows[r + ROW_N_COL2_X] * jvyFX) >> FXUtil.DECIMAL2));
+                lambdaYFX = (int) (((rows[r + ROW_N_COL1_Y] * jvxFX) >> FXUtil.DECIMAL2) + ((rows[r + ROW_N_COL2_Y] * jvyFX) >> FXUtil.DECIMAL2));
+
+                if (lambdaXFX < 0 || lambdaYFX < 0)
+                {
+                    //contact 1 active
+                    lambdaXFX = (int) (((long) jvxFX << FXUtil.DECIMAL2) / k1xFX);
+                    lambdaYFX = 0;
+                    int relativeVelocityDotNyFX = (int) ((lambdaXFX * k1yFX) >> FXUtil.DECIMAL2) - jvyFX;
+                    if (lambdaXFX < 0 || relativeVelocityDotNyFX < 0)
+                    {
+                        //contact 2 active
+                        lambdaXFX = 0;
+                        lambdaYFX = (int) (((long) jvyFX << FXUtil.DECIMAL2) / k2yFX);
+                        int relativeVelocityDotNxFX = (int) ((lambdaYFX * k2xFX) >> FXUtil.DECIMAL2) - jvxFX;
+                        if (lambdaYFX < 0 || relativeVelocityDotNxFX < 0)
+                        {
+                            //both inactive
+                            lambdaXFX = 0;
+                            lambdaYFX = 0;
+                        }
+                    }
+                }
+
+                resubstituteXFX = lambdaXFX - accumXFX;
+                resubstituteYFX = lambdaYFX - accumYFX;
+                rows[r + ROW_LAMBDA_X] = lambdaXFX;
+                rows[r + ROW_LAMBDA_Y] = lambdaYFX;
+                lambdaXFX = resubstituteXFX;
+                lambdaYFX = resubstituteYFX;
+            }
+            applyImpulses(rows, r, b1, b2, single, lambdaXFX, lambdaYFX, nxFX, nyFX);
+
+            //friction
+            if (friction && (flags & FLAG_FRICTION) != 0)
+            {
+                long frictionFX = rows[r + ROW_FRICTION];
+                long txFX = rows[r + ROW_TANGENT_X];
+                long tyFX = rows[r + ROW_TANGENT_Y];
+                int tangentLambdaXFX = 0;
+                int tangentLambdaYFX = 0;
+
+                int oldAccumFX = (int) rows[r + ROW_TANGENT_LAMBDA_X];
+                if ((flags & FLAG_DEPTH1) != 0)
+                {
+                    int maxImpulseFX = (int) ((frictionFX * rows[r + ROW_LAMBDA_X]) >> FXUtil.DECIMAL);
+                    rv1xFX = relativeVelocityX(b1, b2, rows[r + ROW_B11C_Y], rows[r + ROW_B21C_Y]);
+                    rv1yFX = relativeVelocityY(b1, b2, rows[r + ROW_B11C_X], rows[r + ROW_B21C_X]);
+                    long crossFX = (rv1xFX * nyFX - rv1yFX * nxFX) >> FXUtil.DECIMAL;
+                    int accumFX = oldAccumFX - (int) ((crossFX << FXUtil.DECIMAL2) / rows[r + ROW_TANGENT_MASS_X]);
+                    if (accumFX < -maxImpulseFX) accumFX = -maxImpulseFX;
+                    if (accumFX > maxImpulseFX) accumFX = maxImpulseFX;
+                    rows[r + ROW_TANGENT_LAMBDA_X] = accumFX;
+                    tangentLambdaXFX = accumFX - oldAccumFX;
+                }
+                else
+                {
+                    rows[r + ROW_TANGENT_LAMBDA_X] = 0;
+                }
+
+                if (! single)
+                {
+                    oldAccumFX = (int) rows[r + ROW_TANGENT_LAMBDA_Y];
+                    if ((flags & FLAG_DEPTH2) != 0)
+                    {
+                        int maxImpulseFX = (int) ((frictionFX * rows[r + ROW_LAMBDA_Y]) >> FXUtil.DECIMAL);
+                        rv2xFX = relativeVelocityX(b1, b2, rows[r + ROW_B12C_Y], rows[r + ROW_B22C_Y]);
+                        rv2yFX = relativeVelocityY(b1, b2, rows[r + ROW_B12C_X], rows[r + ROW_B22C_X]);
+                        long crossFX = (rv2xFX * nyFX - rv2yFX * nxFX) >> FXUtil.DECIMAL;
+                        int accumFX = oldAccumFX - (int) ((crossFX << FXUtil.DECIMAL2) / rows[r + ROW_TANGENT_MASS_Y]);
+                        if (accumFX < -maxImpulseFX) accumFX = -maxImpulseFX;
+                        if (accumFX > maxImpulseFX) accumFX = maxImpulseFX;
+                        rows[r + ROW_TANGENT_LAMBDA_Y] = accumFX;
+                        tangentLambdaYFX = accumFX - oldAccumFX;
+                    }
+                    else
+                    {
+                        rows[r + ROW_TANGENT_LAMBDA_Y] = 0;
+                    }
+                }
+                applyImpulses(rows, r, b1, b2, single, tangentLambdaXFX, tangentLambdaYFX, txFX, tyFX);
+            }
+
+            converged &= Math.abs(resubstituteXFX) < World.M_CONTACT_IterationConvergenceFX &&
+                         Math.abs(resubstituteYFX) < World.M_CONTACT_IterationConvergenceFX;
+        }
+
+        mResubstituteXFX = resubstituteXFX;
+        mResubstituteYFX = resubstituteYFX;
+        return converged;
+    }
+
+    /**
+     * Relative velocity of two bodies at a contact (x coordinate).
+     * @param b1 index of body 1
+     * @param b2 index of body 2
+     * @param r1yFX y coordinate of the contact point relative to body 1
+     * @param r2yFX y coordinate of the contact point relative to body 2
+     * @return the relative velocity
+     */
+    private long relativeVelocityX(int b1, int b2, long r1yFX, long r2yFX)
+    {
+        int v1FX = (int) ((mAngularVelocities2FX[b1] * r1yFX) >> FXUtil.DECIMAL2) + mVelocitiesXFX[b1];
+        int v2FX = (int) ((mAngularVelocities2FX[b2] * r2yFX) >> FXUtil.DECIMAL2) + mVelocitiesXFX[b2];
+        return v1FX - v2FX;
+    }
+
+    /**
+     * Relative velocity of two bodies at a contact (y coordinate).
+     * @param b1 index of body 1
+     * @param b2 index of body 2
+     * @param r1xFX x coordinate of the contact point relative to body 1
+     * @param r2xFX x coordinate of the contact point relative to body 2
+     * @return the relative velocity
+     */
+    private long relativeVelocityY(int b1, int b2, long r1xFX, long r2xFX)
+    {
+        int v1FX = - (int) ((mAngularVelocities2FX[b1] * r1xFX) >> FXUtil.DECIMAL2) + mVelocitiesYFX[b1];
+        int v2FX = - (int) ((mAngularVelocities2FX[b2] * r2xFX) >> FXUtil.DECIMAL2) + mVelocitiesYFX[b2];
+        return v1FX - v2FX;
+    }
+
+    /**
+     * Applies the impulses of a contact to the bodies.
+     * @param rows the contact rows
+     * @param r the offset of the contact row
+     * @param b1 index of body 1
+     * @param b2 index of body 2
+     * @param single flag if the contact is a single contact
+     * @param lambdaXFX impulse length at position 1
+     * @param lambdaYFX impulse length at position 2
+     * @param dirXFX x coordinate of the impulse direction
+     * @param dirYFX y coordinate of the impulse direction
+     */
+    private void applyImpulses(long[] rows, int r, int b1, int b2, boolean single,
+                               int lambdaXFX, int lambdaYFX, long dirXFX, long dirYFX)
+    {
+        applyImpulse(b1, b2, (int) ((lambdaXFX * dirXFX) >> FXUtil.DECIMAL), (int) ((lambdaXFX * dirYFX) >> FXUtil.DECIMAL),
+                     rows[r + ROW_B11C_X], rows[r + ROW_B11C_Y], rows[r + ROW_B21C_X], rows[r + ROW_B21C_Y]);
+        if (! single)
+        {
+            applyImpulse(b1, b2, (int) ((lambdaYFX * dirXFX) >> FXUtil.DECIMAL), (int) ((lambdaYFX * dirYFX) >> FXUtil.DECIMAL),
+                         rows[r + ROW_B12C_X], rows[r + ROW_B12C_Y], rows[r + ROW_B22C_X], rows[r + ROW_B22C_Y]);
+        }
+    }
+
+    /**
+     * Applies an impulse to body 1 and the reverse impulse to body 2.
+     * @param b1 index of body 1
+     * @param b2 index of body 2
+     * @param impulseXFX x coordinate of the impulse
+     * @param impulseYFX y coordinate of the impulse
+     * @param r1xFX x coordinate of the position relative to body 1
+     * @param r1yFX y coordinate of the position relative to body 1
+     * @param r2xFX x coordinate of the position relative to body 2
+     * @param r2yFX y coordinate of the position relative to body 2
+     */
+    private void applyImpulse(int b1, int b2, long impulseXFX, long impulseYFX,
+                              long r1xFX, long r1yFX, long r2xFX, long r2yFX)
+    {
+        long invMass2FX = mInvMasses2FX[b1];
+        if (invMass2FX != 0)
+        {
+            long crossFX = (r1xFX * impulseYFX - r1yFX * impulseXFX) >> FXUtil.DECIMAL;
+            mAngularVelocities2FX[b1] -= (int) ((crossFX * mInvInertias2FX[b1]) >> FXUtil.DECIMAL);
+            mVelocitiesXFX[b1] += (int) ((invMass2FX * impulseXFX) >> FXUtil.DECIMAL2);
+            mVelocitiesYFX[b1] += (int) ((invMass2FX * impulseYFX) >> FXUtil.DECIMAL2);
+        }
+        invMass2FX = mInvMasses2FX[b2];
+        if (invMass2FX != 0)
+        {
+            long crossFX = (r2xFX * impulseYFX - r2yFX * impulseXFX) >> FXUtil.DECIMAL;
+            mAngularVelocities2FX[b2] += (int) ((crossFX * mInvInertias2FX[b2]) >> FXUtil.DECIMAL);
+            mVelocitiesXFX[b2] += (int) ((- invMass2FX * impulseXFX) >> FXUtil.DECIMAL2);
+            mVelocitiesYFX[b2] += (int) ((- invMass2FX * impulseYFX) >> FXUtil.DECIMAL2);
+        }
+    }
+}
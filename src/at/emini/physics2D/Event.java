@@ -214,6 +214,9 @@ public static Event createCollisionRelativeEvent(Body bodyFilter, Shape shapeFil
     /**
      * Creates an area collide event.
      * Triggers when a body collides with the sensor body.
+     * The event checks all bodies in each step and triggers while they overlap.
+     * For many sensors, sensor bodies added to the world ({@link Body#setSensor(boolean)})
+     * are cheaper and report only enter/exit transitions.
      * @param bodyFilter the body to which this event applies, null if all.
      * @param shapeFilter the shape (=group of bodies) to which this event applies, null if all.
      * @param sensor The sensor body that is not physically present, but is used only for event checking.
@@ -583,6 +586,18 @@ public void setTriggerOnce(boolean triggerOnce)
         }
     }
 
+    /**
+     * Resets the trigger state.
+     * Objects that triggered a trigger once event can trigger it again.
+     */
+    public void resetTriggers()
+    {
+        if (mTriggeredObjects != null)
+        {
+            mTriggeredObjects.removeAllElements();
+        }
+    }
+
     /**
      * Gets the trigger once flag.
      * @return the trigger once flag.
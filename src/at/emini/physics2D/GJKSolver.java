@@ -0,0 +1,415 @@
+package at.emini.physics2D;
+
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * Finds the axis of least penetration of two convex polygons.
+ * <p>
+ * The distance of the polygons is computed with GJK on the Minkowski difference.
+ * If the polygons intersect, the penetration is expanded with EPA.
+ * The support points are found by hill climbing along the polygon,
+ * starting at the last support point.
+ * This avoids testing all axes of large polygons (see {@link Collision}).
+ * <p>
+ * All values are FX, the intermediate products are kept in longs.
+ *
+ * @author Alexander Adensamer
+ */
+final class GJKSolver
+{
+    private static final int MAX_ITERATIONS = 32;
+    private static final int MAX_POLYGON_SIZE = 64;
+
+    /**
+     * Tolerance for the convergence of the distance and penetration (FX).
+     */
+    private static final long TOLERANCE_FX = FXUtil.ONE_FX / 256;
+
+    /**
+     * Whether the last found axis is a face normal of the first polygon.
+     */
+    static boolean M_axisFromFirst = false;
+
+    //points of the simplex (GJK) and the expanding polygon (EPA) of the minkowski difference
+    private static long[] M_xFX = new long[MAX_POLYGON_SIZE];
+    private static long[] M_yFX = new long[MAX_POLYGON_SIZE];
+    private static int[] M_index1 = new int[MAX_POLYGON_SIZE];
+    private static int[] M_index2 = new int[MAX_POLYGON_SIZE];
+    private static int M_count = 0;
+
+    //outward normals and distances of the polygon edges (EPA)
+    private static int[] M_normalXFX = new int[MAX_POLYGON_SIZE];
+    private static int[] M_normalYFX = new int[MAX_POLYGON_SIZE];
+    private static long[] M_distanceFX = new long[MAX_POLYGON_SIZE];
+    private static boolean M_counterClockwise = true;
+
+    //closest point to the origin
+    private static long M_closestXFX, M_closestYFX;
+
+    private static FXVector M_tmp = new FXVector();
+
+    private GJKSolver()
+    {
+    }
+
+    /**
+     * Finds the axis of least penetration (or of the distance for separated polygons).
+     * The direction of the axis is not defined.
+     * @param vertices1 vertices of polygon 1
+     * @param start1 first vertex of polygon 1
+     * @param end1 end index of the vertices of polygon 1
+     * @param vertices2 vertices of polygon 2 (a single vertex for a point)
+     * @param start2 first vertex of polygon 2
+     * @param end2 end index of the vertices of polygon 2
+     * @param axis the vector to store the normalized axis in
+     * @return false if no axis could be determined (degenerate case).
+     */
+    static boolean findAxis(FXVector[] vertices1, int start1, int end1, FXVector[] vertices2, int start2, int end2, FXVector axis)
+    {
+        int index1 = start1;
+        int index2 = start2;
+        M_count = 0;
+        addPoint(vertices1, index1, vertices2, index2, 0);
+        M_count = 1;
+        long vxFX = M_xFX[0];
+        long vyFX = M_yFX[0];
+
+        boolean intersect = false;
+        for( int iteration = 0; iteration < MAX_ITERATIONS; iteration++)
+        {
+            if (vxFX == 0 && vyFX == 0)
+            {
+                intersect = true;
+                break;
+            }
+
+            //support point of the difference in direction -v
+            index1 = support(vertices1, start1, end1, index1, -vxFX, -vyFX);
+            index2 = support(vertices2, start2, end2, index2, vxFX, vyFX);
+            long wxFX = vertices1[index1].xFX - vertices2[index2].xFX;
+            long wyFX = vertices1[index1].yFX - vertices2[index2].yFX;
+
+            long vvFX = (vxFX * vxFX + vyFX * vyFX) >> FXUtil.DECIMAL;
+            if (vvFX <= TOLERANCE_FX)
+            {
+                intersect = true;   //the origin is (nearly) on the simplex
+                break;
+            }
+            long vwFX = (vxFX * wxFX + vyFX * wyFX) >> FXUtil.DECIMAL;
+            if (vvFX - vwFX <= Math.max(TOLERANCE_FX, vvFX >> 10))
+            {
+                break;      //no progress: v is the closest point
+            }
+            boolean duplicate = false;
+            for( int i = 0; i < M_count; i++)
+            {
+                if (M_index1[i] == index1 && M_index2[i] == index2)
+                {
+                    duplicate = true;
+                }
+            }
+            if (duplicate)
+            {
+                break;
+            }
+
+            addPoint(vertices1, index1, vertices2, index2, M_count);
+            M_count++;
+            if (M_count == 3 && containsOrigin())
+            {
+                intersect = true;
+                break;
+            }
+            reduceSimplex();
+            vxFX = M_closestXFX;
+            vyFX = M_closestYFX;
+        }
+
+        if (! intersect)
+        {
+            //separated: the axis is the direction of the distance
+            return setAxis(vxFX, vyFX, axis, M_count < 2 || M_index1[0] != M_index1[1]);
+        }
+
+        if (M_count == 2)
+        {
+            //the origin is on the segment: complete the triangle with a support point beside it
+            long nxFX = M_yFX[0] - M_yFX[1];
+            long nyFX = M_xFX[1] - M_xFX[0];
+            index1 = support(vertices1, start1, end1, index1, nxFX, nyFX);
+            index2 = support(vertices2, start2, end2, index2, -nxFX, -nyFX);
+            addPoint(vertices1, index1, vertices2, index2, 2);
+            M_count = 3;
+            if (cross(0, 1) + cross(1, 2) + cross(2, 0) == 0)
+            {
+                index1 = support(vertices1, start1, end1, index1, -nxFX, -nyFX);
+                index2 = support(vertices2, start2, end2, index2, nxFX, nyFX);
+                addPoint(vertices1, index1, vertices2, index2, 2);
+            }
+        }
+        if (M_count < 3)
+        {
+            return false;   //touching in a single point
+        }
+        return expandPolygon(vertices1, start1, end1, vertices2, start2, end2, index1, index2, axis);
+    }
+
+    /**
+     * Expands the simplex triangle to the face of the minkowski difference closest to the origin (EPA).
+     * @return false if the expansion does not converge within the polygon size.
+     */
+    private static boolean expandPolygon(FXVector[] vertices1, int start1, int end1, FXVector[] vertices2, int start2, int end2,
+                                         int index1, int index2, FXVector axis)
+    {
+        long areaFX = cross(0, 1) + cross(1, 2) + cross(2, 0);
+        if (areaFX == 0)
+        {
+            return false;
+        }
+        M_counterClockwise = areaFX > 0;
+        for( int i = 0; i < 3; i++)
+        {
+            updateEdge(i);
+        }
+
+        int edge = 0;
+        while (true)
+        {
+            edge = 0;
+            for( int i = 1; i < M_count; i++)
+            {
+                if (M_distanceFX[i] < M_distanceFX[edge])
+                {
+                    edge = i;
+                }
+            }
+            if (M_distanceFX[edge] == Long.MAX_VALUE)
+            {
+                return false;
+            }
+            if (M_count == MAX_POLYGON_SIZE)
+            {
+                return false;   //deep penetration of round polygons, not converged
+            }
+
+            long nxFX = M_normalXFX[edge];
+            long nyFX = M_normalYFX[edge];
+            index1 = support(vertices1, start1, end1, index1, nxFX, nyFX);
+            index2 = support(vertices2, start2, end2, index2, -nxFX, -nyFX);
+            long wxFX = vertices1[index1].xFX - vertices2[index2].xFX;
+            long wyFX = vertices1[index1].yFX - vertices2[index2].yFX;
+            long supportDistanceFX = (nxFX * wxFX + nyFX * wyFX) >> FXUtil.DECIMAL;
+            if (supportDistanceFX - M_distanceFX[edge] <= TOLERANCE_FX)
+            {
+                break;      //the edge is a face of the minkowski difference
+            }
+
+            //insert the support point after the edge start
+            for( int i = M_count; i > edge + 1; i--)
+            {
+                M_xFX[i] = M_xFX[i - 1];
+                M_yFX[i] = M_yFX[i - 1];
+                M_index1[i] = M_index1[i - 1];
+                M_index2[i] = M_index2[i - 1];
+                M_normalXFX[i] = M_normalXFX[i - 1];
+                M_normalYFX[i] = M_normalYFX[i - 1];
+                M_distanceFX[i] = M_distanceFX[i - 1];
+            }
+            addPoint(vertices1, index1, vertices2, index2, edge + 1);
+            M_count++;
+            updateEdge(edge);
+            updateEdge(edge + 1);
+        }
+
+        int next = edge + 1 == M_count ? 0 : edge + 1;
+        M_axisFromFirst = M_index1[edge] != M_index1[next];
+        axis.assignFX(M_normalXFX[edge], M_normalYFX[edge]);
+        return true;
+    }
+
+    /**
+     * Finds the vertex with the largest projection on a direction.
+     * Climbs along the (convex) polygon starting at a given vertex.
+     */
+    private static int support(FXVector[] vertices, int start, int end, int index, long dxFX, long dyFX)
+    {
+        int count = end - start;
+        if (count == 1)
+        {
+            return start;
+        }
+        long bestFX = vertices[index].xFX * dxFX + vertices[index].yFX * dyFX;
+        int next = index + 1 == end ? start : index + 1;
+        int step = 1;
+        long nextFX = vertices[next].xFX * dxFX + vertices[next].yFX * dyFX;
+        if (nextFX <= bestFX)
+        {
+            next = index == start ? end - 1 : index - 1;
+            nextFX = vertices[next].xFX * dxFX + vertices[next].yFX * dyFX;
+            step = -1;
+        }
+        for( int i = 0; i < count && nextFX > bestFX; i++)
+        {
+            index = next;
+            bestFX = nextFX;
+            next = index + step;
+            if (next == end) next = start;
+            if (next < start) next = end - 1;
+            nextFX = vertices[next].xFX * dxFX + vertices[next].yFX * dyFX;
+        }
+        return index;
+    }
+
+    private static void addPoint(FXVector[] vertices1, int index1, FXVector[] vertices2, int index2, int position)
+    {
+        M_xFX[position] = vertices1[index1].xFX - vertices2[index2].xFX;
+        M_yFX[position] = vertices1[index1].yFX - vertices2[index2].yFX;
+        M_index1[position] = index1;
+        M_index2[position] = index2;
+    }
+
+    private static long cross(int i, int j)
+    {
+        return M_xFX[i] * M_yFX[j] - M_yFX[i] * M_xFX[j];
+    }
+
+    private static boolean containsOrigin()
+    {
+        long c1 = cross(0, 1);
+        long c2 = cross(1, 2);
+        long c3 = cross(2, 0);
+        return (c1 >= 0 && c2 >= 0 && c3 >= 0) || (c1 <= 0 && c2 <= 0 && c3 <= 0);
+    }
+
+    /**
+     * Reduces the simplex to the feature closest to the origin.
+     * The closest point is stored in M_closestXFX, M_closestYFX.
+     */
+    private static void reduceSimplex()
+    {
+        if (M_count == 2)
+        {
+            int keep = closestOnSegment(0, 1);
+            reduceSegment(0, 1, keep);
+            return;
+        }
+
+        //triangle without the origin: closest of the three edges
+        long bestFX = Long.MAX_VALUE;
+        int bestI = 0, bestJ = 1, bestKeep = 0;
+        long bestXFX = 0, bestYFX = 0;
+        for( int i = 0; i < 3; i++)
+        {
+            int j = i == 2 ? 0 : i + 1;
+            int keep = closestOnSegment(i, j);
+            long distanceFX = (M_closestXFX * M_closestXFX + M_closestYFX * M_closestYFX) >> FXUtil.DECIMAL;
+            if (distanceFX < bestFX)
+            {
+                bestFX = distanceFX;
+                bestI = i;
+                bestJ = j;
+                bestKeep = keep;
+                bestXFX = M_closestXFX;
+                bestYFX = M_closestYFX;
+            }
+        }
+        M_closestXFX = bestXFX;
+        M_closestYFX = bestYFX;
+        reduceSegment(bestI, bestJ, bestKeep);
+    }
+
+    /**
+     * Keeps the points of a segment: keep < 0: start point, keep > 0: end point, 0: both.
+     */
+    private static void reduceSegment(int i, int j, int keep)
+    {
+        long xiFX = M_xFX[i], yiFX = M_yFX[i], xjFX = M_xFX[j], yjFX = M_yFX[j];
+        int i1 = M_index1[i], i2 = M_index2[i], j1 = M_index1[j], j2 = M_index2[j];
+        if (keep > 0)
+        {
+            xiFX = xjFX; yiFX = yjFX; i1 = j1; i2 = j2;
+        }
+        M_xFX[0] = xiFX; M_yFX[0] = yiFX; M_index1[0] = i1; M_index2[0] = i2;
+        M_xFX[1] = xjFX; M_yFX[1] = yjFX; M_index1[1] = j1; M_index2[1] = j2;
+        M_count = keep == 0 ? 2 : 1;
+    }
+
+    /**
+     * Computes the point of a segment closest to the origin.
+     * @return -1 if the closest point is the start point, 1 if it is the end point, 0 otherwise.
+     */
+    private static int closestOnSegment(int i, int j)
+    {
+        long axFX = M_xFX[i], ayFX = M_yFX[i];
+        long abxFX = M_xFX[j] - axFX, abyFX = M_yFX[j] - ayFX;
+        long num = - (axFX * abxFX + ayFX * abyFX);
+        long den = abxFX * abxFX + abyFX * abyFX;
+        if (num <= 0)
+        {
+            M_closestXFX = axFX;
+            M_closestYFX = ayFX;
+            return -1;
+        }
+        if (num >= den)
+        {
+            M_closestXFX = M_xFX[j];
+            M_closestYFX = M_yFX[j];
+            return 1;
+        }
+        while (den > (1L << 38))
+        {
+            num >>= 1;
+            den >>= 1;
+        }
+        long t2FX = (num << FXUtil.DECIMAL2) / den;
+        M_closestXFX = axFX + ((abxFX * t2FX) >> FXUtil.DECIMAL2);
+        M_closestYFX = ayFX + ((abyFX * t2FX) >> FXUtil.DECIMAL2);
+        return 0;
+    }
+
+    /**
+     * Computes the outward normal and the distance to the origin of the edge starting at point i.
+     */
+    private static void updateEdge(int i)
+    {
+        int j = i + 1 == M_count ? 0 : i + 1;
+        long exFX = M_xFX[j] - M_xFX[i];
+        long eyFX = M_yFX[j] - M_yFX[i];
+        if (M_counterClockwise)
+        {
+            M_tmp.assignFX((int) eyFX, (int) - exFX);
+        }
+        else
+        {
+            M_tmp.assignFX((int) - eyFX, (int) exFX);
+        }
+        if (M_tmp.xFX == 0 && M_tmp.yFX == 0)
+        {
+            M_distanceFX[i] = Long.MAX_VALUE;
+            return;
+        }
+        M_tmp.normalize();
+        M_normalXFX[i] = M_tmp.xFX;
+        M_normalYFX[i] = M_tmp.yFX;
+        M_distanceFX[i] = (M_tmp.xFX * M_xFX[i] + M_tmp.yFX * M_yFX[i]) >> FXUtil.DECIMAL;
+    }
+
+    private static boolean setAxis(long xFX, long yFX, FXVector axis, boolean fromFirst)
+    {
+        if (xFX == 0 && yFX == 0)
+        {
+            return false;
+        }
+        //keep the components in the int range for the normalization
+        while (Math.abs(xFX) > (1 << 28) || Math.abs(yFX) > (1 << 28))
+        {
+            xFX >>= 1;
+            yFX >>= 1;
+        }
+        axis.assignFX((int) xFX, (int) yFX);
+        axis.normalize();
+        M_axisFromFirst = fromFirst;
+        return true;
+    }
+}
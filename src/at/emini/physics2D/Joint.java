@@ -54,8 +54,8 @@ public class Joint implements Constraint
 
     //precalculated Values;
     private FXMatrix mMatrix = new FXMatrix();
-    private FXVector mC1 = new FXVector();
-    private FXVector mC2 = new FXVector();
+    FXVector mC1 = new FXVector();
+    FXVector mC2 = new FXVector();
     private FXVector mDistanceFX = new FXVector();
     private int mAngle2FX = 0;
     private long mInvInertia2FX;
@@ -203,6 +203,68 @@ public FXVector getPoint2()
         return mBody2.getAbsoluePoint(mPoint2);
     }
 
+    /**
+     * Gets the absolute joint position (from body1).
+     * @param target the vector to store the absolute pivot point into
+     */
+    public void getPoint1(FXVector target)
+    {
+        mBody1.getAbsoluePoint(mPoint1, target);
+    }
+
+    /**
+     * Gets the absolute joint position (from body2).
+     * @param target the vector to store the absolute pivot point into
+     */
+    public void getPoint2(FXVector target)
+    {
+        mBody2.getAbsoluePoint(mPoint2, target);
+    }
+
+    /**
+     * Gets the x coordinate of the absolute joint position (from body1).
+     * @fx
+     * @return the x coordinate of the pivot point.
+     */
+    public int getPoint1XFX()
+    {
+        mBody1.getAbsoluePoint(mPoint1, M_temp1);
+        return M_temp1.xFX;
+    }
+
+    /**
+     * Gets the y coordinate of the absolute joint position (from body1).
+     * @fx
+     * @return the y coordinate of the pivot point.
+     */
+    public int getPoint1YFX()
+    {
+        mBody1.getAbsoluePoint(mPoint1, M_temp1);
+        return M_temp1.yFX;
+    }
+
+    /**
+     * Gets the x coordinate of the absolute joint position (from body2).
+     * @fx
+     * @return the x coordinate of the pivot point.
+     */
+    public int getPoint2XFX()
+    {
+        mBody2.getAbsoluePoint(mPoint2, M_temp2);
+        return M_temp2.xFX;
+    }
+
+    /**
+     * Gets the y coordinate of the absolute joint position (from body2).
+     * @fx
+     * @return the y coordinate of the pivot point.
+     */
+    public int getPoint2YFX()
+    {
+        mBody2.getAbsoluePoint(mPoint2, M_temp2);
+        return M_temp2.yFX;
+    }
+
     /**
      * Gets the relative joint position (from body1).
      * @return the Pivot point relative to the first body.
@@ -334,17 +396,41 @@ public boolean applyMomentum(long invTimestepFX)
             mBody2.applyTorque(- lambdaRotFX);
         }
         FXVector jvFX = M_temp2;
-        jvFX.assignFX(
-                (int) (mBody1.mVelocityFX.xFX - (((long) mC1.xFX * (long) mBody1.mAngularVelocity2FX)>> FXUtil.DECIMAL2)
-                     - mBody2.mVelocityFX.xFX - (((long) mC2.xFX * (long) mBody2.mAngularVelocity2FX)>> FXUtil.DECIMAL2) ),
-                (int) (mBody1.mVelocityFX.yFX - (((long) mC1.yFX * (long) mBody1.mAngularVelocity2FX)>> FXUtil.DECIMAL2)
-                     - mBody2.mVelocityFX.yFX - (((long) mC2.yFX * (long) mBody2.mAngularVelocity2FX)>> FXUtil.DECIMAL2) ) );
-        jvFX.subtract(mDistanceFX);
+        velocityError(jvFX);
         jvFX.mult(-1);
 
         mMatrix.mult(jvFX, M_temp1);
         FXVector lambda = M_temp1;
 
+        applyImpulse(lambda);
+
+        mAccumulatedLambdaFX.assign( lambda );
+
+        return lambda.fastLengthFX() < World.M_CONTACT_IterationConvergenceFX;
+    }
+
+    /**
+     * Calculates the violation of the velocity constraint.
+     * This is the relative velocity of the pivot points minus the drift correction.
+     * @param target the vector to store the error into
+     */
+    final void velocityError(FXVector target)
+    {
+        target.assignFX(
+                (int) (mBody1.mVelocityFX.xFX - (((long) mC1.xFX * (long) mBody1.mAngularVelocity2FX)>> FXUtil.DECIMAL2)
+                     - mBody2.mVelocityFX.xFX - (((long) mC2.xFX * (long) mBody2.mAngularVelocity2FX)>> FXUtil.DECIMAL2) ),
+                (int) (mBody1.mVelocityFX.yFX - (((long) mC1.yFX * (long) mBody1.mAngularVelocity2FX)>> FXUtil.DECIMAL2)
+                     - mBody2.mVelocityFX.yFX - (((long) mC2.yFX * (long) mBody2.mAngularVelocity2FX)>> FXUtil.DECIMAL2) ) );
+        target.subtract(mDistanceFX);
+    }
+
+    /**
+     * Applies an impulse at the pivot point.
+     * The impulse acts positive on the first and negative on the second body.
+     * @param lambda the impulse (unchanged after the call)
+     */
+    final void applyImpulse(FXVector lambda)
+    {
         //TODO: use body1.applymomentumat()...
         mBody1.applyMomentum(lambda);
         mBody1.applyTorque( (int)( (((long)lambda.xFX * (long)mC1.xFX) >> FXUtil.DECIMAL) + (((long)lambda.yFX * (long)mC1.yFX) >> FXUtil.DECIMAL) ));
@@ -354,10 +440,6 @@ public boolean applyMomentum(long invTimestepFX)
         mBody2.applyMomentum(lambda);
 
         lambda.mult(-1);
-
-        mAccumulatedLambdaFX.assign( lambda );
-
-        return lambda.fastLengthFX() < World.M_CONTACT_IterationConvergenceFX;
     }
 
     /**
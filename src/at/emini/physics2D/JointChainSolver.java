@@ -0,0 +1,437 @@
+package at.emini.physics2D;
+
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * Direct solver for chains of joints. <br>
+ * The joints are split into chains: a chain continues through every movable body
+ * that is connected to exactly two joints (ropes, bridges, limbs).
+ * Static, resting or branching bodies end a chain.
+ * The linear velocity constraints of a chain form a block tridiagonal system
+ * (one 2x2 block per joint), which is solved exactly in linear time by block elimination.
+ * <p>
+ * Chains are solved one after the other, so bodies shared by several chains
+ * (the branching bodies of a tree) and closed loops are only coupled by the order of the solve.
+ * The angular constraint of fixed joints is not part of the system.
+ * Both are left to the iterative pass, which starts from the solved velocities.
+ *
+ * @author Alexander Adensamer
+ */
+final class JointChainSolver
+{
+    //layout of the factorization of one chain element
+    private static final int FACTOR_D_XX    = 0;
+    private static final int FACTOR_D_XY    = 1;
+    private static final int FACTOR_D_YX    = 2;
+    private static final int FACTOR_D_YY    = 3;
+    private static final int FACTOR_DET     = 4;
+    private static final int FACTOR_B_XX    = 5;
+    private static final int FACTOR_B_XY    = 6;
+    private static final int FACTOR_B_YX    = 7;
+    private static final int FACTOR_B_YY    = 8;
+    private static final int FACTOR_Y_X     = 9;
+    private static final int FACTOR_Y_Y     = 10;
+    private static final int FACTOR_SIZE    = 11;
+
+    /**
+     * Initial number of joints and bodies of the arrays.
+     */
+    private static final int INITIAL_SIZE = 16;
+
+    /**
+     * Divisors are reduced to this size before the remainder is scaled.
+     */
+    private static final long MAX_DIVISOR = 1L << 38;
+
+    /**
+     * Joints of the world.
+     */
+    private Joint[] mJoints = new Joint[INITIAL_SIZE];
+
+    /**
+     * Number of joints.
+     */
+    private int mJointCount = 0;
+
+    /**
+     * Body indices (two per joint, -1 if the body is not moved by impulses).
+     */
+    private int[] mJointBodies = new int[INITIAL_SIZE * 2];
+
+    /**
+     * Flags whether a joint is already solved in the current step.
+     */
+    private boolean[] mSolved = new boolean[INITIAL_SIZE];
+
+    /**
+     * Movable bodies connected by the joints.
+     */
+    private Body[] mBodies = new Body[INITIAL_SIZE];
+
+    /**
+     * Number of bodies.
+     */
+    private int mBodyCount = 0;
+
+    /**
+     * Number of joints per body.
+     */
+    private int[] mDegrees = new int[INITIAL_SIZE];
+
+    /**
+     * The first two joints of each body.
+     */
+    private int[] mBodyJoints = new int[INITIAL_SIZE * 2];
+
+    private long[] mInvMasses2FX = new long[INITIAL_SIZE];
+    private long[] mInvInertias2FX = new long[INITIAL_SIZE];
+
+    /**
+     * Joints of the current chain.
+     */
+    private int[] mChain = new int[INITIAL_SIZE];
+
+    /**
+     * Bodies connecting the joints of the current chain.
+     */
+    private int[] mLinks = new int[INITIAL_SIZE];
+
+    /**
+     * Factorization of the current chain.
+     */
+    private long[] mFactors = new long[INITIAL_SIZE * FACTOR_SIZE];
+
+    private FXVector mLambda = new FXVector();
+
+    /**
+     * Collects the joints and the bodies they connect.
+     * The joints must be precalculated.
+     * @param constraints the constraints of the world
+     * @param constraintCount the number of constraints
+     */
+    void load(Constraint[] constraints, int constraintCount)
+    {
+        for( int i = 0; i < mBodyCount; i++)
+        {
+            mBodies[i].mChainIndex = -1;
+            mBodies[i] = null;
+        }
+        for( int i = 0; i < mJointCount; i++)
+        {
+            mJoints[i] = null;
+        }
+        mBodyCount = 0;
+        mJointCount = 0;
+
+        for( int i = 0; i < constraintCount; i++)
+        {
+            if (! (constraints[i] instanceof Joint))
+            {
+                continue;
+            }
+            Joint joint = (Joint) constraints[i];
+            if (joint.mBody1 == joint.mBody2)
+            {
+                continue;
+            }
+            int body1 = addBody(joint.mBody1);
+            int body2 = addBody(joint.mBody2);
+            if (body1 < 0 && body2 < 0)
+            {
+                continue;
+            }
+
+            int index = mJointCount++;
+            mJoints = World.checkVector(mJoints, index);
+            if (mSolved.length < mJoints.length)
+            {
+                mSolved = new boolean[mJoints.length];
+            }
+            mJointBodies = World.checkVector(mJointBodies, index * 2 + 1);
+            mJoints[index] = joint;
+            mJointBodies[index * 2] = body1;
+            mJointBodies[index * 2 + 1] = body2;
+            mSolved[index] = false;
+            addJoint(body1, index);
+            addJoint(body2, index);
+        }
+    }
+
+    /**
+     * Adds a body to the solver (if not yet added).
+     * @param b the body
+     * @return the index of the body in the solver, -1 if the body is not moved by impulses
+     */
+    private int addBody(Body b)
+    {
+        if (b.mChainIndex >= 0)
+        {
+            return b.mChainIndex;
+        }
+        if (! b.mDynamic || b.mIsResting)
+        {
+            return -1;
+        }
+        int index = mBodyCount++;
+        mBodies = World.checkVector(mBodies, index);
+        mDegrees = World.checkVector(mDegrees, index);
+        mBodyJoints = World.checkVector(mBodyJoints, index * 2 + 1);
+        mInvMasses2FX = World.checkVector(mInvMasses2FX, index);
+        mInvInertias2FX = World.checkVector(mInvInertias2FX, index);
+
+        mBodies[index] = b;
+        mDegrees[index] = 0;
+        mInvMasses2FX[index] = b.mShape.mInvMass2FX;
+        mInvInertias2FX[index] = b.mCanRotate ? b.mShape.mInvInertia2FX : 0;
+        b.mChainIndex = index;
+        return index;
+    }
+
+    private void addJoint(int body, int joint)
+    {
+        if (body >= 0)
+        {
+            if (mDegrees[body] < 2)
+            {
+                mBodyJoints[body * 2 + mDegrees[body]] = joint;
+            }
+            mDegrees[body]++;
+        }
+    }
+
+    /**
+     * Gets the body at the other end of a joint.
+     * @param joint the joint index
+     * @param body the body index at one end
+     * @return the body index at the other end
+     */
+    private int otherBody(int joint, int body)
+    {
+        return mJointBodies[joint * 2] == body ? mJointBodies[joint * 2 + 1] : mJointBodies[joint * 2];
+    }
+
+    /**
+     * Checks whether a chain continues through a body.
+     * @param body the body index
+     * @return true if the body is movable and connected to exactly two joints
+     */
+    private boolean isLink(int body)
+    {
+        return body >= 0 && mDegrees[body] == 2;
+    }
+
+    /**
+     * Gets the second joint of a link body.
+     * @param body the body index
+     * @param joint the first joint
+     * @return the other joint of the body
+     */
+    private int otherJoint(int body, int joint)
+    {
+        return mBodyJoints[body * 2] == joint ? mBodyJoints[body * 2 + 1] : mBodyJoints[body * 2];
+    }
+
+    /**
+     * Solves all joint chains and applies the impulses to the bodies.
+     */
+    void solve()
+    {
+        for( int i = 0; i < mJointCount; i++)
+        {
+            if (mSolved[i])
+            {
+                continue;
+            }
+
+            //walk back to the start of the chain
+            int start = i;
+            int outer = mJointBodies[i * 2];
+            while (isLink(outer))
+            {
+                int previous = otherJoint(outer, start);
+                if (previous == i)
+                {
+                    break;  //closed loop
+                }
+                outer = otherBody(previous, outer);
+                start = previous;
+            }
+
+            //collect the chain
+            int length = 0;
+            int joint = start;
+            int body = otherBody(start, outer);
+            while (true)
+            {
+                mChain = World.checkVector(mChain, length);
+                mChain[length++] = joint;
+                mSolved[joint] = true;
+                if (! isLink(body))
+                {
+                    break;
+                }
+                joint = otherJoint(body, joint);
+                if (mSolved[joint])
+                {
+                    break;
+                }
+                mLinks = World.checkVector(mLinks, length - 1);
+                mLinks[length - 1] = body;
+                body = otherBody(joint, body);
+            }
+
+            solveChain(length);
+        }
+    }
+
+    /**
+     * Solves the current chain by block elimination.
+     * @param length the number of joints in the chain
+     */
+    private void solveChain(int length)
+    {
+        mFactors = World.checkVector(mFactors, length * FACTOR_SIZE);
+        long[] f = mFactors;
+        int[] chain = mChain;
+        FXVector lambda = mLambda;
+
+        //forward elimination
+        for( int k = 0; k < length; k++)
+        {
+            int offset = k * FACTOR_SIZE;
+            Joint joint = mJoints[chain[k]];
+            int body1 = mJointBodies[chain[k] * 2];
+            int body2 = mJointBodies[chain[k] * 2 + 1];
+
+            long dxx = 0, dxy = 0, dyy = 0;
+            if (body1 >= 0)
+            {
+                dxx += massTerm(body1, joint.mC1.xFX, joint.mC1.xFX, true);
+                dxy += massTerm(body1, joint.mC1.xFX, joint.mC1.yFX, false);
+                dyy += massTerm(body1, joint.mC1.yFX, joint.mC1.yFX, true);
+            }
+            if (body2 >= 0)
+            {
+                dxx += massTerm(body2, joint.mC2.xFX, joint.mC2.xFX, true);
+                dxy += massTerm(body2, joint.mC2.xFX, joint.mC2.yFX, false);
+                dyy += massTerm(body2, joint.mC2.yFX, joint.mC2.yFX, true);
+            }
+            long dyx = dxy;
+
+            joint.velocityError(lambda);
+            long yx = - lambda.xFX;
+            long yy = - lambda.yFX;
+
+            if (k > 0)
+            {
+                //L = B^T D^-1 of the previous element
+                int prev = offset - FACTOR_SIZE;
+                long det = f[prev + FACTOR_DET];
+                long bxx = f[prev + FACTOR_B_XX], bxy = f[prev + FACTOR_B_XY];
+                long byx = f[prev + FACTOR_B_YX], byy = f[prev + FACTOR_B_YY];
+                long axx =   f[prev + FACTOR_D_YY], axy = - f[prev + FACTOR_D_XY];
+                long ayx = - f[prev + FACTOR_D_YX], ayy =   f[prev + FACTOR_D_XX];
+                long lxx = div(bxx * axx + byx * ayx, det);
+                long lxy = div(bxx * axy + byx * ayy, det);
+                long lyx = div(bxy * axx + byy * ayx, det);
+                long lyy = div(bxy * axy + byy * ayy, det);
+
+                dxx -= (lxx * bxx + lxy * byx) >> FXUtil.DECIMAL2;
+                dxy -= (lxx * bxy + lxy * byy) >> FXUtil.DECIMAL2;
+                dyx -= (lyx * bxx + lyy * byx) >> FXUtil.DECIMAL2;
+                dyy -= (lyx * bxy + lyy * byy) >> FXUtil.DECIMAL2;
+
+                long pyx = f[prev + FACTOR_Y_X], pyy = f[prev + FACTOR_Y_Y];
+                yx -= (lxx * pyx + lxy * pyy) >> FXUtil.DECIMAL2;
+                yy -= (lyx * pyx + lyy * pyy) >> FXUtil.DECIMAL2;
+            }
+
+            long det = dxx * dyy - dxy * dyx;
+            if (det <= 0)
+            {
+                return;     //degenerate, left to the iterative solver
+            }
+            f[offset + FACTOR_D_XX] = dxx;
+            f[offset + FACTOR_D_XY] = dxy;
+            f[offset + FACTOR_D_YX] = dyx;
+            f[offset + FACTOR_D_YY] = dyy;
+            f[offset + FACTOR_DET] = det;
+            f[offset + FACTOR_Y_X] = yx;
+            f[offset + FACTOR_Y_Y] = yy;
+
+            //coupling to the next joint through the shared body
+            if (k + 1 < length)
+            {
+                Joint next = mJoints[chain[k + 1]];
+                int shared = mLinks[k];
+                boolean first = shared == body1;
+                boolean nextFirst = mJointBodies[chain[k + 1] * 2] == shared;
+                FXVector c = first ? joint.mC1 : joint.mC2;
+                FXVector cNext = nextFirst ? next.mC1 : next.mC2;
+                long invMass2FX = first == nextFirst ? mInvMasses2FX[shared] : - mInvMasses2FX[shared];
+                long invInertia2FX = mInvInertias2FX[shared];
+                f[offset + FACTOR_B_XX] = invMass2FX + ((((long) c.xFX * cNext.xFX) >> FXUtil.DECIMAL) * invInertia2FX >> FXUtil.DECIMAL);
+                f[offset + FACTOR_B_XY] =              ((((long) c.xFX * cNext.yFX) >> FXUtil.DECIMAL) * invInertia2FX >> FXUtil.DECIMAL);
+                f[offset + FACTOR_B_YX] =              ((((long) c.yFX * cNext.xFX) >> FXUtil.DECIMAL) * invInertia2FX >> FXUtil.DECIMAL);
+                f[offset + FACTOR_B_YY] = invMass2FX + ((((long) c.yFX * cNext.yFX) >> FXUtil.DECIMAL) * invInertia2FX >> FXUtil.DECIMAL);
+            }
+        }
+
+        //back substitution (the impulses are stored in the y entries)
+        for( int k = length - 1; k >= 0; k--)
+        {
+            int offset = k * FACTOR_SIZE;
+            long yx = f[offset + FACTOR_Y_X];
+            long yy = f[offset + FACTOR_Y_Y];
+            if (k + 1 < length)
+            {
+                int next = offset + FACTOR_SIZE;
+                yx -= (f[offset + FACTOR_B_XX] * f[next + FACTOR_Y_X] + f[offset + FACTOR_B_XY] * f[next + FACTOR_Y_Y]) >> FXUtil.DECIMAL2;
+                yy -= (f[offset + FACTOR_B_YX] * f[next + FACTOR_Y_X] + f[offset + FACTOR_B_YY] * f[next + FACTOR_Y_Y]) >> FXUtil.DECIMAL2;
+            }
+            long det = f[offset + FACTOR_DET];
+            f[offset + FACTOR_Y_X] = div(f[offset + FACTOR_D_YY] * yx - f[offset + FACTOR_D_XY] * yy, det);
+            f[offset + FACTOR_Y_Y] = div(f[offset + FACTOR_D_XX] * yy - f[offset + FACTOR_D_YX] * yx, det);
+        }
+
+        for( int k = 0; k < length; k++)
+        {
+            int offset = k * FACTOR_SIZE;
+            lambda.assignFX((int) f[offset + FACTOR_Y_X], (int) f[offset + FACTOR_Y_Y]);
+            mJoints[chain[k]].applyImpulse(lambda);
+        }
+    }
+
+    /**
+     * Calculates an entry of the effective mass of a body at a pivot.
+     * @param body the body index
+     * @param aFX first component of the lever
+     * @param bFX second component of the lever
+     * @param diagonal true for a diagonal entry (includes the inverse mass)
+     * @return the entry (2FX)
+     */
+    private long massTerm(int body, int aFX, int bFX, boolean diagonal)
+    {
+        return (diagonal ? mInvMasses2FX[body] : 0) + ((((long) aFX * bFX) >> FXUtil.DECIMAL) * mInvInertias2FX[body] >> FXUtil.DECIMAL);
+    }
+
+    /**
+     * Divides with 2FX scaling.
+     * The remainder is scaled separately, so the intermediate results do not overflow.
+     * @param num the numerator
+     * @param det the positive divisor
+     * @return num * 2^DECIMAL2 / det
+     */
+    private static long div(long num, long det)
+    {
+        long quotient = num / det;
+        long remainder = num - quotient * det;
+        while (det > MAX_DIVISOR)
+        {
+            det >>= 1;
+            remainder >>= 1;
+        }
+        return (quotient << FXUtil.DECIMAL2) + (remainder << FXUtil.DECIMAL2) / det;
+    }
+}
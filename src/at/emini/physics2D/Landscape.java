@@ -2,6 +2,7 @@
 
 import java.util.Arrays;                            //#NoJ2ME
 
+import at.emini.physics2D.util.FXUtil;
 import at.emini.physics2D.util.FXVector;
 import at.emini.physics2D.util.PhysicsFileReader;    //#NoBasic
 
@@ -46,6 +47,11 @@
      */
     private static final int M_MAX_CHECK_SEGMENTS = 32;
 
+    /**
+     * Distance at which colliding soft body nodes are put in front of a segment.
+     */
+    private static final int M_SOFT_BODY_SLOPFX = 64;
+
     /**
      * Number of landscape segments.
      */
@@ -65,6 +71,12 @@
     protected short[] mFaces = new short[M_MAX_LANDSCAPE_SEGMENTS];
 
 
+    /**
+     * Flag if the segment arrays are shared with other landscapes.
+     * Shared arrays are copied before they are modified (copy on write).
+     */
+    private boolean mSharedSegments = false;
+
     private int mCurrentIndex = 0;
     private int[] mCurrentOpen = new int[M_MAX_CHECK_SEGMENTS];
     private int mOpenCheckSize = 0;
@@ -107,7 +119,8 @@ public Landscape()
 
     /**
      * Copy constructor.
-     * Creates a deep copy of the landscape.
+     * Creates a copy of the landscape.
+     * The segments are shared with the source until one of the landscapes is modified (copy on write).
      * @param other copy source
      */
     public Landscape(Landscape other)
@@ -122,16 +135,39 @@ public Landscape(Landscape other)
         mShape.mFrictionFX = other.mShape.mFrictionFX;
         mShape.mElasticityFX = other.mShape.mElasticityFX;
 
+        //the segments are shared until one of the landscapes is modified
         mSegmentCount = other.mSegmentCount;
-        mStartpoints = new FXVector[Math.max(M_MAX_LANDSCAPE_SEGMENTS, mSegmentCount)];
-        mEndpoints = new FXVector[Math.max(M_MAX_LANDSCAPE_SEGMENTS, mSegmentCount)];
-        mFaces = new short[Math.max(M_MAX_LANDSCAPE_SEGMENTS, mSegmentCount)];
+        mStartpoints = other.mStartpoints;
+        mEndpoints = other.mEndpoints;
+        mFaces = other.mFaces;
+        mSharedSegments = true;
+        other.mSharedSegments = true;
+    }
+
+    /**
+     * Creates own copies of shared segment arrays.
+     * Has to be called before the segments are modified.
+     */
+    protected final void ensureOwnSegments()
+    {
+        if (! mSharedSegments)
+        {
+            return;
+        }
+        int capacity = Math.max(M_MAX_LANDSCAPE_SEGMENTS, mSegmentCount);
+        FXVector[] startpoints = new FXVector[capacity];
+        FXVector[] endpoints = new FXVector[capacity];
+        short[] faces = new short[capacity];
         for( int i = 0; i < mSegmentCount; i++)
         {
-            mStartpoints[i] = new FXVector(other.mStartpoints[i]);
-            mEndpoints[i] = new FXVector(other.mEndpoints[i]);
-            mFaces[i] = other.mFaces[i];
+            startpoints[i] = new FXVector(mStartpoints[i]);
+            endpoints[i] = new FXVector(mEndpoints[i]);
+            faces[i] = mFaces[i];
         }
+        mStartpoints = startpoints;
+        mEndpoints = endpoints;
+        mFaces = faces;
+        mSharedSegments = false;
     }
 
     /**
@@ -147,12 +183,20 @@ public static Landscape loadLandscape(PhysicsFileReader reader)
 
         int segmentCount = reader.nextInt();
 
+        //allocate once and sort once (instead of per segment)
+        int capacity = Math.max(M_MAX_LANDSCAPE_SEGMENTS, segmentCount);
+        landscape.mStartpoints = new FXVector[capacity];
+        landscape.mEndpoints = new FXVector[capacity];
+        landscape.mFaces = new short[capacity];
+        int[] coordsFX = new int[4];       //#FX2F float[] coordsFX = new float[4];
         for( int i = 0; i < segmentCount; i++)
         {
-            landscape.addSegment(reader.nextVector(),
-                                 reader.nextVector(),
-                                 (short) reader.next());
+            reader.nextIntsFX(coordsFX, 0, 4);
+            landscape.appendSegment(new FXVector(coordsFX[0], coordsFX[1]),
+                                    new FXVector(coordsFX[2], coordsFX[3]),
+                                    (short) reader.next());
         }
+        landscape.sortArrays();
 
         landscape.mShape = Shape.loadShape(reader, null);
         landscape.mBody = new Body( 0, 0, landscape.mShape, false);
@@ -164,7 +208,7 @@ public static Landscape loadLandscape(PhysicsFileReader reader)
 
     /**
      * Copy method.
-     * Creates a deep copy of the landscape.
+     * Creates a copy of the landscape, the segments are copied on write.
      * @return the copied landscape.
      */
     public Landscape copy()
@@ -179,6 +223,19 @@ public Landscape copy()
      * @param face the face direction
      */
     public void addSegment(FXVector start, FXVector end, short face)
+    {
+        appendSegment(start, end, face);
+        sortArrays();
+    }
+
+    /**
+     * Adds a segment without sorting the segment arrays.
+     * {@link #sortArrays()} has to be called afterwards.
+     * @param start start point of the segment line
+     * @param end end point of the segment line
+     * @param face the face direction
+     */
+    final void appendSegment(FXVector start, FXVector end, short face)
     {
         FXVector actualStart = start.xFX < end.xFX ? start : end;
         FXVector actualEnd = start.xFX < end.xFX ? end : start;
@@ -186,6 +243,7 @@ public void addSegment(FXVector start, FXVector end, short face)
         {
             face = (face == FACE_RIGHT) ? FACE_LEFT : FACE_RIGHT;
         }
+        ensureOwnSegments();
         mStartpoints = World.checkVector(mStartpoints, mSegmentCount);
         mEndpoints = World.checkVector(mEndpoints, mSegmentCount);
         mFaces = World.checkVector(mFaces, mSegmentCount);
@@ -194,8 +252,6 @@ public void addSegment(FXVector start, FXVector end, short face)
         mEndpoints[mSegmentCount] = actualEnd;
         mFaces[mSegmentCount] = face;
         mSegmentCount++;
-
-        sortArrays();
     }
 
     /**
@@ -206,6 +262,7 @@ public void removeSegment(int index)
     {
         if (index < mSegmentCount)
         {
+            ensureOwnSegments();
             mStartpoints[index] = mStartpoints[mSegmentCount - 1];
             mEndpoints[index] = mEndpoints[mSegmentCount - 1];
             mFaces[index] = mFaces[mSegmentCount - 1];
@@ -224,6 +281,7 @@ public void removeSegment(int index)
     protected final void sortArrays()
     {
         //performs a linear sort on the three arrays -> see also check contacts for world
+        ensureOwnSegments();
         FXVector currVec;
         FXVector currVecEnd;
         short currface;
@@ -267,12 +325,12 @@ protected final void initCollision()
      */
     protected final void collisionCheckBody(World world, Body body)
     {
-        if (!body.mDynamic)
+        if (!body.mDynamic || body.mSensor)
         {
             return;
         }
 
-        if ( (body.mColissionBitFlag & this.mBody.mColissionBitFlag) != 0)
+        if ( ! world.layersCollide(body.mColissionBitFlag, this.mBody.mColissionBitFlag))
         {
             return;
         }
@@ -351,10 +409,20 @@ private final void checkBodySegment(World world, Body body, int index)
             int shapeCount = ((MultiShape) body.mShape).getShapeCount();
             //check for multishape
 
+            int minXFX = Math.min(mStartpoints[index].xFX, mEndpoints[index].xFX);
+            int minYFX = Math.min(mStartpoints[index].yFX, mEndpoints[index].yFX);
+            int maxXFX = Math.max(mStartpoints[index].xFX, mEndpoints[index].xFX);
+            int maxYFX = Math.max(mStartpoints[index].yFX, mEndpoints[index].yFX);
+
             Contact newContact;
             for( int i = 0; i < shapeCount; i++)
             {
-                newContact = Collision.detectCollision( body, i, this, index);
+                //only parts overlapping the segment
+                if (! body.partOverlaps(i, minXFX, minYFX, maxXFX, maxYFX))
+                {
+                    continue;
+                }
+                newContact = Collision.detectCollision( body, i, this, index, world);
                 if (newContact != null)
                 {
                     world.mContacts = World.checkVector(world.mContacts, world.mContactCount);
@@ -365,7 +433,7 @@ private final void checkBodySegment(World world, Body body, int index)
         }
         else
         {
-            Contact newContact = Collision.detectCollision( body, this, index);
+            Contact newContact = Collision.detectCollision( body, this, index, world);
             //add the contact directly to the contact list of the world
             if (newContact != null)
             {
@@ -378,19 +446,17 @@ private final void checkBodySegment(World world, Body body, int index)
 
     /**
      * Clears all contacts from the previous step.
+     * Contacts that were not updated are returned to the contact pool of the world.
+     * @param world the world owning the contact pool
      */
-    protected void resetContacts()
+    protected void resetContacts(World world)
     {
         //delete contacts
         for( int i = 0; i < mContactCount; i++)
         {
             if (mContacts[i] != null && !mContacts[i].mIsNew)
             {
-                if (World.mContactStorageCount < World.mContactStorage.length)
-                {
-                    World.mContactStorage[World.mContactStorageCount++] = mContacts[i];
-                    mContacts[i].mIsNew = true;   //not nice: this indicates that the contact is already in the storage...
-                }
+                world.releaseContact(mContacts[i]);
                 mContacts[i] = null;
             }
         }
@@ -442,6 +508,15 @@ public Contact[] getContacts()
         return mContacts;
     }
 
+    /**
+     * Gets the number of current contacts.
+     * @return the number of valid entries in {@link #getContacts()}.
+     */
+    public int getContactCount()
+    {
+        return mContactCount;
+    }
+
     public final void fillVertices(FXVector[] vertices, Contact c, int idx)
     {
         int index = c.mBody1 == mBody ? c.mB1Index : c.mB2Index;
@@ -506,6 +581,40 @@ public void collideParticles(ParticleEmitter particles)
             }
         }
     }
+
+    /**
+     * Collides the nodes of a soft body with the landscape.
+     * @param softBody the soft body
+     * @param timestepFX the timestep of the simulation
+     */
+    public void collideSoftBody(SoftBody softBody, int timestepFX)
+    {
+        for( int i = 0; i < mSegmentCount; i++)
+        {
+            if (mStartpoints[i].xFX > softBody.mAABBMaxXFX)
+            {
+                break;      //the segments are sorted by the start point
+            }
+            if (mEndpoints[i].xFX < softBody.mAABBMinXFX ||
+                Math.min(mStartpoints[i].yFX, mEndpoints[i].yFX) > softBody.mAABBMaxYFX ||
+                Math.max(mStartpoints[i].yFX, mEndpoints[i].yFX) < softBody.mAABBMinYFX)
+            {
+                continue;
+            }
+            for( int node = 0; node < softBody.mNodeCount; node++)
+            {
+                FXVector normal = Collision.detectCollision(this, i, softBody.mXFX[node], softBody.mYFX[node], softBody.mXPrevFX[node], softBody.mYPrevFX[node], 0);
+                if (normal != null && (normal.xFX != 0 || normal.yFX != 0))
+                {
+                    //the node is put slightly in front of the segment, so that it is detected again
+                    //(nodes that rest on the segment are pulled below it by the springs)
+                    int lengthFX = normal.lengthFX();
+                    normal.multFX(FXUtil.divideFX(lengthFX + M_SOFT_BODY_SLOPFX, lengthFX));
+                    softBody.collide(normal, node, null, timestepFX);
+                }
+            }
+        }
+    }
     //#NoBasic */
 
     /**
@@ -540,6 +649,7 @@ public int segmentCount()
      * Gets the starting points of the segments.
      * The returned array is sorted by the x value of the start points.
      * Note: The array might longer than the segment count (use {@link #segmentCount()}).
+     * The array might be shared with other landscapes and must not be modified.
      * @return the array containing the starting points.
      */
     public FXVector[] elementStartPoints()
@@ -551,6 +661,7 @@ public FXVector[] elementStartPoints()
      * Gets the end points of the segments.
      * The returned array is sorted by the x value of the corresponding start points.
      * Note: The array might longer than the element count (see {@link #segmentCount()}
+     * The array might be shared with other landscapes and must not be modified.
      * @return the array containing the end points.
      */
     public FXVector[] elementEndPoints()
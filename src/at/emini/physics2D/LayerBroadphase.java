@@ -0,0 +1,178 @@
+package at.emini.physics2D;
+
+/**
+ * Sweep and prune broadphase partitioned by collision layers.
+ * <p>
+ * Bodies with the same collision layers and the same dynamic state form a group.
+ * Each group has its own list of bodies open in the sweep (along the x axis).
+ * A body is only tested against the groups it can collide with,
+ * so static bodies are never paired with static bodies
+ * and bodies on filtered layers (see {@link World#setLayerCollision(int, int, boolean)}) are never paired.
+ * <p>
+ * The candidate pairs of a body are tested in the order of the sweep,
+ * which is the same order as with a single open list.
+ *
+ * @author Alexander Adensamer
+ */
+final class LayerBroadphase
+{
+    private int mGroupCount = 0;
+    private int[] mGroupLayers = new int[4];
+    private int[] mGroupFilters = new int[4];
+    private boolean[] mGroupDynamic = new boolean[4];
+
+    //open bodies of each group with their index in the sweep
+    private Body[][] mOpen = new Body[4][];
+    private int[][] mOpenIndices = new int[4][];
+    private int[] mOpenCount = new int[4];
+
+    private Body[] mCandidates = new Body[16];
+    private int[] mCandidateIndices = new int[16];
+
+    /**
+     * Sweeps the (sorted) bodies and checks all pairs that can collide.
+     * @param world the world
+     * @param bodies the bodies sorted by the left side of the AABB
+     * @param start first body
+     * @param end end index of the bodies
+     * @param layerFilters the layer filter masks of the world
+     */
+    void checkCollisions(World world, Body[] bodies, int start, int end, int[] layerFilters)
+    {
+        mGroupCount = 0;
+        for( int i = start; i < end; i++)
+        {
+            Body body = bodies[i];
+            world.mLandscape.collisionCheckBody(world, body);      //#NoEco
+
+            if (! body.mInteracting)
+            {
+                continue;
+            }
+
+            int group = findGroup(body, layerFilters);
+            int currValFX = body.mAABBMinXFX;
+
+            //collect the overlapping bodies of all groups that can collide
+            int candidateCount = 0;
+            for( int g = 0; g < mGroupCount; g++)
+            {
+                if ( (! mGroupDynamic[group] && ! mGroupDynamic[g]) ||
+                     (mGroupLayers[group] & mGroupFilters[g]) != 0)
+                {
+                    continue;
+                }
+
+                Body[] open = mOpen[g];
+                int[] openIndices = mOpenIndices[g];
+                int count = 0;
+                for( int j = 0; j < mOpenCount[g]; j++)
+                {
+                    Body other = open[j];
+                    if (other.mAABBMaxXFX < currValFX)
+                    {
+                        continue;   //removed from the sweep
+                    }
+                    open[count] = other;
+                    openIndices[count] = openIndices[j];
+                    count++;
+
+                    //check other dimension of AABB
+                    if (! (body.mAABBMinYFX > other.mAABBMaxYFX || other.mAABBMinYFX > body.mAABBMaxYFX) )
+                    {
+                        mCandidates = World.checkVector(mCandidates, candidateCount);
+                        mCandidateIndices = World.checkVector(mCandidateIndices, candidateCount);
+
+                        //insert in sweep order
+                        int k = candidateCount;
+                        for( ; k > 0 && mCandidateIndices[k - 1] > openIndices[count - 1]; k--)
+                        {
+                            mCandidates[k] = mCandidates[k - 1];
+                            mCandidateIndices[k] = mCandidateIndices[k - 1];
+                        }
+                        mCandidates[k] = other;
+                        mCandidateIndices[k] = openIndices[count - 1];
+                        candidateCount++;
+                    }
+                }
+                for( int j = count; j < mOpenCount[g]; j++)
+                {
+                    open[j] = null;
+                }
+                mOpenCount[g] = count;
+            }
+
+            for( int k = 0; k < candidateCount; k++)
+            {
+                //detailed collide
+                world.checkBodyPair(body, mCandidates[k]);
+                mCandidates[k] = null;
+            }
+
+            mOpen[group] = World.checkVector(mOpen[group], mOpenCount[group]);
+            mOpenIndices[group] = World.checkVector(mOpenIndices[group], mOpenCount[group]);
+            mOpen[group][mOpenCount[group]] = body;
+            mOpenIndices[group][mOpenCount[group]] = i;
+            mOpenCount[group]++;
+        }
+
+        //release references
+        for( int g = 0; g < mGroupCount; g++)
+        {
+            for( int j = 0; j < mOpenCount[g]; j++)
+            {
+                mOpen[g][j] = null;
+            }
+            mOpenCount[g] = 0;
+        }
+    }
+
+    /**
+     * Finds (or creates) the group of a body.
+     */
+    private int findGroup(Body body, int[] layerFilters)
+    {
+        for( int g = 0; g < mGroupCount; g++)
+        {
+            if (mGroupLayers[g] == body.mColissionBitFlag && mGroupDynamic[g] == body.mDynamic)
+            {
+                return g;
+            }
+        }
+
+        if (mGroupCount == mGroupLayers.length)
+        {
+            int size = mGroupCount * 2;
+            int[] layers = new int[size];
+            int[] filters = new int[size];
+            boolean[] dynamic = new boolean[size];
+            Body[][] open = new Body[size][];
+            int[][] openIndices = new int[size][];
+            int[] openCount = new int[size];
+            System.arraycopy(mGroupLayers, 0, layers, 0, mGroupCount);
+            System.arraycopy(mGroupFilters, 0, filters, 0, mGroupCount);
+            System.arraycopy(mGroupDynamic, 0, dynamic, 0, mGroupCount);
+            System.arraycopy(mOpen, 0, open, 0, mGroupCount);
+            System.arraycopy(mOpenIndices, 0, openIndices, 0, mGroupCount);
+            System.arraycopy(mOpenCount, 0, openCount, 0, mGroupCount);
+            mGroupLayers = layers;
+            mGroupFilters = filters;
+            mGroupDynamic = dynamic;
+            mOpen = open;
+            mOpenIndices = openIndices;
+            mOpenCount = openCount;
+        }
+
+        int g = mGroupCount++;
+        mGroupLayers[g] = body.mColissionBitFlag;
+        mGroupFilters[g] = World.getLayerFilter(layerFilters, body.mColissionBitFlag);
+        mGroupDynamic[g] = body.mDynamic;
+        mOpenCount[g] = 0;
+        if (mOpen[g] == null)
+        {
+            mOpen[g] = new Body[8];
+            mOpenIndices[g] = new int[8];
+        }
+        return g;
+    }
+}
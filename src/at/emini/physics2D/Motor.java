@@ -79,7 +79,7 @@ public class Motor implements Constraint
      * accumulated impulse for warmstarting
      * @fx
      */
-    private FXVector mAccumLambdaFX = new FXVector();
+    FXVector mAccumLambdaFX = new FXVector();
 
 
     /**
@@ -409,19 +409,21 @@ public int getMaxForceFX()
     }
 
     /**
-     * gets the target X.
+     * Gets the target X (or the target rotation velocity for rotation motors).
+     * @fx
      * @return the x component of the target velocity.
      */
-    protected int getTargetAFX()
+    public int getTargetAFX()
     {
         return mTargetAFX;
     }
 
     /**
-     * gets the target Y.
+     * Gets the target Y.
+     * @fx
      * @return the y component of the target velocity.
      */
-    protected int getTargetBFX()
+    public int getTargetBFX()
     {
         return mTargetBFX;
     }
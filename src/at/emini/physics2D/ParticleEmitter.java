@@ -80,6 +80,12 @@
     //random generator
     private Random mRandom = new Random();
 
+    /**
+     * Hash of the particle state.
+     * Updated when the particles are integrated.
+     */
+    int mStateHash = 0;
+
     //temporarily used rotation matrix (for initialization).
     private static FXMatrix M_rotation = new FXMatrix();
 
@@ -304,6 +310,7 @@ public void integrateParticles(int timestepFX)
         createParticles(timestepFX);
         int dampingFX = FXUtil.ONE_FX - this.mDampingFX;
         int xTmpFX, yTmpFX;
+        int hash = 0;
         for( int i = 0; i < mMaxParticleCount; i++)
         {
             if (mLife[i] > 0)
@@ -325,8 +332,13 @@ public void integrateParticles(int timestepFX)
                 mXPrevFX[i] = xTmpFX;
                 mYPrevFX[i] = yTmpFX;
                 mLife[i]--;
+
+                hash = FXUtil.hashStep(hash, mXFX[i]);
+                hash = FXUtil.hashStep(hash, mYFX[i]);
+                hash = FXUtil.hashStep(hash, mLife[i]);
             }
         }
+        mStateHash = hash;
         sortParticleList();
     }
 
@@ -382,13 +394,16 @@ private final void sortParticleList()
     public void applyAcceleration(FXVector gravity, int dtFX)
     {
         int scaleFX = (int) (((long)dtFX * (long)dtFX * (long) mGravityEffectFX) >> FXUtil.DECIMAL2);
+        int gravityXFX = FXUtil.multFX(scaleFX, gravity.xFX);
+        int gravityYFX = FXUtil.multFX(scaleFX, gravity.yFX);
+        short[] life = mLife;
+        int[] x = mXFX, y = mYFX;                   //#FX2F float[] x = mXFX, y = mYFX;
         for( int i = 0; i < mMaxParticleCount; i++)
         {
-            if (mLife[i] > 0)
+            if (life[i] > 0)
             {
-                mXFX[i] += FXUtil.multFX(scaleFX, gravity.xFX);
-                mYFX[i] += FXUtil.multFX(scaleFX, gravity.yFX);
-                //velocity[i].add( gravity, scaleFX );
+                x[i] += gravityXFX;
+                y[i] += gravityYFX;
             }
         }
     }
@@ -585,31 +600,175 @@ public void setCanCollide(boolean canCollide)
         this.mCanCollide = canCollide;
     }
 
+    /**
+     * Gets the x positions of all particle slots.
+     * The array is used by the simulation (no copy), see {@link #getLifeTimes()} for the layout.
+     * @fx
+     * @return the x positions.
+     */
     public int[] getXPosFX()
     {
         return mXFX;
     }
 
+    /**
+     * Gets the y positions of all particle slots.
+     * The array is used by the simulation (no copy), see {@link #getLifeTimes()} for the layout.
+     * @fx
+     * @return the y positions.
+     */
     public int[] getYPosFX()
     {
         return mYFX;
     }
 
+    /**
+     * Gets the x positions of all particle slots in the last step.
+     * The array is used by the simulation (no copy).
+     * @fx
+     * @return the last x positions.
+     */
     public int[] getXPrevPosFX()
     {
         return mXPrevFX;
     }
 
+    /**
+     * Gets the y positions of all particle slots in the last step.
+     * The array is used by the simulation (no copy).
+     * @fx
+     * @return the last y positions.
+     */
     public int[] getYPrevPosFX()
     {
         return mYPrevFX;
     }
 
+    /**
+     * Gets the remaining lifetimes (in steps) of all particle slots.
+     * The particle arrays have {@link #getMaxParticleCount()} slots,
+     * slots with a lifetime <= 0 are unused.
+     * The slots are sorted by the x position after each step, the live particles come first.
+     * The arrays are used by the simulation (no copy):
+     * they change with every step and are replaced if the maximum particle count changes.
+     * Use {@link #exportParticles(int[], int)} to get a packed copy of the live particles.
+     * @return the lifetimes.
+     */
     public short[] getLifeTimes()
     {
         return mLife;
     }
 
+    /**
+     * Counts the live particles.
+     * @return the number of live particles.
+     */
+    public int getParticleCount()
+    {
+        int count = 0;
+        for( int i = 0; i < mMaxParticleCount; i++)
+        {
+            if (mLife[i] > 0)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Copies the live particles into a buffer.
+     * The particles are stored interleaved, 3 ints per particle:
+     * x position, y position (both @fx) and remaining lifetime in steps.
+     * The buffer can be handed to a renderer or encoder (e.g. on another thread),
+     * it is not changed by the simulation.
+     * @param buffer the target buffer (at least offset + 3 * {@link #getParticleCount()} long)
+     * @param offset the index of the first particle in the buffer
+     * @return the number of copied particles.
+     */
+    public int exportParticles(int[] buffer, int offset)        //#FX2F public int exportParticles(float[] buffer, int offset)
+    {
+        int count = 0;
+        for( int i = 0; i < mMaxParticleCount; i++)
+        {
+            if (mLife[i] > 0)
+            {
+                buffer[offset++] = mXFX[i];
+                buffer[offset++] = mYFX[i];
+                buffer[offset++] = mLife[i];
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if a particle slot is in use.
+     * @param index the particle index
+     * @return true if the particle at the index is alive.
+     */
+    public boolean isAlive(int index)
+    {
+        return mLife[index] > 0;
+    }
+
+    /**
+     * Gets the x position of a particle.
+     * @fx
+     * @param index the particle index
+     * @return the x position of the particle.
+     */
+    public int getXPosFX(int index)
+    {
+        return mXFX[index];
+    }
+
+    /**
+     * Gets the y position of a particle.
+     * @fx
+     * @param index the particle index
+     * @return the y position of the particle.
+     */
+    public int getYPosFX(int index)
+    {
+        return mYFX[index];
+    }
+
+    /**
+     * Removes all particles.
+     * The particle arrays are kept.
+     */
+    public void clearParticles()
+    {
+        for( int i = 0; i < mMaxParticleCount; i++)
+        {
+            mLife[i] = 0;
+        }
+        mCreationCountFX = 0;
+        mStateHash = 0;
+    }
+
+    /**
+     * Seeds the random generator.
+     * Required for deterministic particle creation (e.g. lockstep simulation).
+     * @param seed the seed.
+     */
+    public void setRandomSeed(long seed)
+    {
+        mRandom.setSeed(seed);
+    }
+
+    /**
+     * Gets the hash of the particle state.
+     * The hash covers position and lifetime of all living particles
+     * and is updated when the particles are integrated.
+     * @return the state hash.
+     */
+    public int stateHash()
+    {
+        return mStateHash;
+    }
+
 
     /**
      * Loads a Particle Emitter from stream.
@@ -0,0 +1,97 @@
+package at.emini.physics2D;
+
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * A force pointing away from (or towards) a center point.
+ * Positive strength pushes the bodies away (explosion),
+ * negative strength pulls them towards the center (attractor).
+ * The force decreases linearly with the distance and vanishes at the radius.
+ * For a one time explosion the force is added to the world for a single step.
+ *
+ * @author Alexander Adensamer
+ */
+public class RadialForce extends AreaForce
+{
+    /**
+     * The center of the force.
+     */
+    private FXVector mCenter;
+
+    /**
+     * The radius of influence.
+     * @fx
+     */
+    private int mRadiusFX;
+
+    /**
+     * The force at the center.
+     * @fx
+     */
+    private int mStrengthFX;
+
+    private static FXVector M_tmp = new FXVector();
+
+    /**
+     * Constructor.
+     * @fx
+     * @param center the center of the force
+     * @param radiusFX the radius of influence
+     * @param strengthFX the force at the center (negative for attraction)
+     */
+    public RadialForce(FXVector center, int radiusFX, int strengthFX)
+    {
+        super(center.xFX - radiusFX, center.yFX - radiusFX, center.xFX + radiusFX, center.yFX + radiusFX);
+        mCenter = new FXVector(center);
+        mRadiusFX = radiusFX;
+        mStrengthFX = strengthFX;
+    }
+
+    /**
+     * Gets the center.
+     * @return the center of the force.
+     */
+    public FXVector getCenter()
+    {
+        return mCenter;
+    }
+
+    /**
+     * Gets the radius.
+     * @fx
+     * @return the radius of influence.
+     */
+    public int getRadiusFX()
+    {
+        return mRadiusFX;
+    }
+
+    /**
+     * Gets the strength.
+     * @fx
+     * @return the force at the center.
+     */
+    public int getStrengthFX()
+    {
+        return mStrengthFX;
+    }
+
+    public void applyForce(Body body, int timestepFX)
+    {
+        M_tmp.assignDiff(body.mPositionFX, mCenter);
+        int distanceFX = M_tmp.lengthFX();
+        if (distanceFX >= mRadiusFX || distanceFX == 0)
+        {
+            return;
+        }
+        M_tmp.normalize();
+        M_tmp.multFX(FXUtil.multFX(mStrengthFX, FXUtil.divideFX(mRadiusFX - distanceFX, mRadiusFX)));
+        body.applyForce(M_tmp, timestepFX);
+    }
+
+    public ExternalForce copy(Body[] bodyMapping)
+    {
+        return new RadialForce(mCenter, mRadiusFX, mStrengthFX);
+    }
+}
@@ -0,0 +1,56 @@
+package at.emini.physics2D;
+
+/**
+ * The replication state of a client on the server.
+ * Created by {@link ReplicationEncoder#createClient()}.
+ * <p>
+ * Keeps the views of the sent packets, the last packet acknowledged by the client
+ * and the priority accumulators of the bodies.
+ *
+ * @author Alexander Adensamer
+ */
+public class ReplicationClient
+{
+    ReplicationHistory mHistory = new ReplicationHistory();
+
+    /**
+     * Priority accumulators (by body id).
+     */
+    int[] mAccumulators = new int[16];
+
+    /**
+     * Sequence of the next packet.
+     */
+    int mSequence = 0;
+
+    /**
+     * Newest packet received by the client (-1: none).
+     */
+    int mAckSequence = -1;
+
+    ReplicationClient()
+    {
+    }
+
+    /**
+     * Acknowledges a packet.
+     * The next packets are coded as delta to the newest acknowledged packet.
+     * @param sequence the sequence of the packet (as returned by {@link ReplicationDecoder#decode(byte[], int)})
+     */
+    public void acknowledge(int sequence)
+    {
+        if (sequence > mAckSequence && sequence < mSequence)
+        {
+            mAckSequence = sequence;
+        }
+    }
+
+    /**
+     * Gets the newest acknowledged packet.
+     * @return the sequence of the packet, -1 if none was acknowledged.
+     */
+    public int getAcknowledgedSequence()
+    {
+        return mAckSequence;
+    }
+}
@@ -0,0 +1,176 @@
+package at.emini.physics2D;
+
+import at.emini.physics2D.util.BitReader;
+import at.emini.physics2D.util.BitWriter;
+import at.emini.physics2D.util.FXUtil;
+
+/**
+ * Quantization and value coding shared by the {@link ReplicationEncoder} and the {@link ReplicationDecoder}.
+ * <p>
+ * The state of a body is stored as {@link #STATE_SIZE} quantized ints:
+ * position and velocity keep {@link #POSITION_SHIFT} (or {@link #VELOCITY_SHIFT}) bits less precision than FX,
+ * the rotation is stored in {@link #ROTATION_BITS} bits.
+ * <p>
+ * Values are coded as deltas to a baseline with a prefix code:
+ * <code>0</code> (unchanged), <code>10</code> + 6 bits, <code>110</code> + 12 bits,
+ * <code>1110</code> + 20 bits, <code>1111</code> + 32 bits (zigzag coded).
+ *
+ * @author Alexander Adensamer
+ */
+final class ReplicationCodec
+{
+    static final int STATE_SIZE = 5;
+    static final int STATE_X = 0;
+    static final int STATE_Y = 1;
+    static final int STATE_ROTATION = 2;
+    static final int STATE_VX = 3;
+    static final int STATE_VY = 4;
+
+    static final int POSITION_SHIFT = 4;
+    static final int VELOCITY_SHIFT = 4;
+    static final int ROTATION_BITS = 12;
+    private static final int ROTATION_MASK = (1 << ROTATION_BITS) - 1;
+
+    private ReplicationCodec()
+    {
+    }
+
+    /**
+     * Quantizes the state of a body.
+     * @param body the body
+     * @param state the target
+     * @param offset the index of the first value in the target
+     */
+    static void quantize(Body body, int[] state, int offset)
+    {
+        state[offset + STATE_X] = (body.mPositionFX.xFX + (1 << (POSITION_SHIFT - 1))) >> POSITION_SHIFT;
+        state[offset + STATE_Y] = (body.mPositionFX.yFX + (1 << (POSITION_SHIFT - 1))) >> POSITION_SHIFT;
+        state[offset + STATE_ROTATION] = (int) ((((long) body.mRotation2FX << ROTATION_BITS) + FXUtil.PI_2FX) / FXUtil.TWO_PI_2FX) & ROTATION_MASK;
+        state[offset + STATE_VX] = (body.mVelocityFX.xFX + (1 << (VELOCITY_SHIFT - 1))) >> VELOCITY_SHIFT;
+        state[offset + STATE_VY] = (body.mVelocityFX.yFX + (1 << (VELOCITY_SHIFT - 1))) >> VELOCITY_SHIFT;
+    }
+
+    /**
+     * Applies a quantized state to a body.
+     * @param state the quantized state
+     * @param offset the index of the first value
+     * @param body the body
+     * @param timestepFX the timestep of the world
+     */
+    static void apply(int[] state, int offset, Body body, int timestepFX)
+    {
+        body.setReplicatedState(state[offset + STATE_X] << POSITION_SHIFT,
+                                state[offset + STATE_Y] << POSITION_SHIFT,
+                                (int) (((long) state[offset + STATE_ROTATION] * FXUtil.TWO_PI_2FX) >> ROTATION_BITS),
+                                state[offset + STATE_VX] << VELOCITY_SHIFT,
+                                state[offset + STATE_VY] << VELOCITY_SHIFT,
+                                timestepFX);
+    }
+
+    /**
+     * Writes a state as delta to a baseline.
+     * @param writer the target
+     * @param state the state
+     * @param base the baseline (null: no baseline)
+     * @param offset the index of the first value in both states
+     */
+    static void writeState(BitWriter writer, int[] state, int[] base, int offset)
+    {
+        for( int i = 0; i < STATE_SIZE; i++)
+        {
+            int delta = state[offset + i] - (base != null ? base[offset + i] : 0);
+            if (i == STATE_ROTATION)
+            {
+                //shortest way around
+                delta = ((delta + (1 << (ROTATION_BITS - 1))) & ROTATION_MASK) - (1 << (ROTATION_BITS - 1));
+            }
+            writeValue(writer, delta);
+        }
+    }
+
+    /**
+     * Reads a state written by {@link #writeState(BitWriter, int[], int[], int)}.
+     * @param reader the source
+     * @param state the target
+     * @param base the baseline (null: no baseline)
+     * @param offset the index of the first value in both states
+     */
+    static void readState(BitReader reader, int[] state, int[] base, int offset)
+    {
+        for( int i = 0; i < STATE_SIZE; i++)
+        {
+            int value = readValue(reader) + (base != null ? base[offset + i] : 0);
+            state[offset + i] = i == STATE_ROTATION ? value & ROTATION_MASK : value;
+        }
+    }
+
+    static void writeValue(BitWriter writer, int value)
+    {
+        int zigzag = (value << 1) ^ (value >> 31);
+        if (zigzag == 0)
+        {
+            writer.writeBits(0, 1);
+        }
+        else if ((zigzag >>> 6) == 0)
+        {
+            writer.writeBits(0x2, 2);
+            writer.writeBits(zigzag, 6);
+        }
+        else if ((zigzag >>> 12) == 0)
+        {
+            writer.writeBits(0x6, 3);
+            writer.writeBits(zigzag, 12);
+        }
+        else if ((zigzag >>> 20) == 0)
+        {
+            writer.writeBits(0xE, 4);
+            writer.writeBits(zigzag, 20);
+        }
+        else
+        {
+            writer.writeBits(0xF, 4);
+            writer.writeBits(zigzag, 32);
+        }
+    }
+
+    static int readValue(BitReader reader)
+    {
+        int zigzag;
+        if (! reader.readBit())
+        {
+            return 0;
+        }
+        else if (! reader.readBit())
+        {
+            zigzag = reader.readBits(6);
+        }
+        else if (! reader.readBit())
+        {
+            zigzag = reader.readBits(12);
+        }
+        else if (! reader.readBit())
+        {
+            zigzag = reader.readBits(20);
+        }
+        else
+        {
+            zigzag = reader.readBits(32);
+        }
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Computes the number of bits required for values up to a maximum.
+     * @param maxValue the maximum value
+     * @return the number of bits.
+     */
+    static int bitsFor(int maxValue)
+    {
+        int bits = 1;
+        while (bits < 31 && (maxValue >> bits) != 0)
+        {
+            bits++;
+        }
+        return bits;
+    }
+}
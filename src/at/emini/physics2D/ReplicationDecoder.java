@@ -0,0 +1,115 @@
+package at.emini.physics2D;
+
+import at.emini.physics2D.util.BitReader;
+
+/**
+ * Applies the packets of a {@link ReplicationEncoder} to a client world.
+ * <p>
+ * The decoder keeps the views of the received packets to decode the deltas.
+ * The sequence returned by {@link #decode(byte[], int)} has to be sent back to the server
+ * and passed to {@link ReplicationClient#acknowledge(int)}.
+ * Packets that arrive late are decoded (for the deltas), but not applied to the world.
+ *
+ * @author Alexander Adensamer
+ */
+public class ReplicationDecoder
+{
+    private World mWorld;
+    private ReplicationHistory mHistory = new ReplicationHistory();
+    private int mLastSequence = -1;
+
+    private Body[] mBodiesById = new Body[16];
+
+    /**
+     * Constructor.
+     * @param world the client world
+     */
+    public ReplicationDecoder(World world)
+    {
+        mWorld = world;
+    }
+
+    /**
+     * Decodes a packet and applies the body states to the world.
+     * @param buffer the packet data
+     * @param length the length of the packet
+     * @return the sequence of the packet to acknowledge, -1 if the packet could not be decoded.
+     */
+    public int decode(byte[] buffer, int length)
+    {
+        BitReader reader = new BitReader(buffer, length);
+        int sequence = reader.readBits(32);
+        int baseSlot = -1;
+        if (reader.readBit())
+        {
+            baseSlot = mHistory.find(reader.readBits(32));
+            if (baseSlot < 0)
+            {
+                return -1;      //baseline not available
+            }
+        }
+        int idBits = reader.readBits(5);
+        if (reader.isOverflow() || sequence < 0 || sequence <= mLastSequence - ReplicationHistory.M_SIZE)
+        {
+            return -1;
+        }
+
+        int slot = mHistory.create(sequence, baseSlot, 1 << idBits);
+        int[] view = mHistory.getStates(slot);
+        boolean[] known = mHistory.getKnown(slot);
+
+        boolean apply = sequence > mLastSequence;
+        if (apply)
+        {
+            mapBodies();
+        }
+
+        while (reader.readBit())
+        {
+            int id = reader.readBits(idBits);
+            int offset = id * ReplicationCodec.STATE_SIZE;
+            ReplicationCodec.readState(reader, view, known[id] ? view : null, offset);
+            known[id] = true;
+            if (apply && id < mBodiesById.length && mBodiesById[id] != null)
+            {
+                ReplicationCodec.apply(view, offset, mBodiesById[id], mWorld.mTimestepFX);
+            }
+        }
+        if (reader.isOverflow())
+        {
+            mHistory.remove(slot);
+            return -1;
+        }
+
+        if (apply)
+        {
+            mLastSequence = sequence;
+        }
+        return sequence;
+    }
+
+    /**
+     * Gets the newest applied packet.
+     * @return the sequence of the packet, -1 if none was applied.
+     */
+    public int getLastSequence()
+    {
+        return mLastSequence;
+    }
+
+    private void mapBodies()
+    {
+        if (mBodiesById.length < mWorld.mCurrentBodyId)
+        {
+            mBodiesById = new Body[mWorld.mCurrentBodyId];
+        }
+        for( int i = 0; i < mBodiesById.length; i++)
+        {
+            mBodiesById[i] = null;
+        }
+        for( int i = 0; i < mWorld.mBodyCount; i++)
+        {
+            mBodiesById[mWorld.mBodies[i].mId] = mWorld.mBodies[i];
+        }
+    }
+}
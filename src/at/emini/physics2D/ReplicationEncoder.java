@@ -0,0 +1,239 @@
+package at.emini.physics2D;
+
+import at.emini.physics2D.util.BitWriter;
+import at.emini.physics2D.util.FXUtil;
+
+/**
+ * Encodes the body states of a world for network clients.
+ * <p>
+ * Usage on the server: call {@link #update()} once after each step,
+ * then {@link #encode(ReplicationClient, byte[], int)} for each client.
+ * The client applies the packets with a {@link ReplicationDecoder} and
+ * sends back the returned sequence, which is passed to {@link ReplicationClient#acknowledge(int)}.
+ * <p>
+ * The states are quantized and coded as deltas to the newest packet acknowledged by the client.
+ * Bodies that did not change since then are not sent.
+ * If not all bodies fit into the byte budget, the bodies with the highest accumulated priority are sent:
+ * moving bodies and bodies with contacts gain priority faster than resting bodies.
+ * <p>
+ * The bodies are identified by their id,
+ * so the client world has to contain the same bodies (e.g. loaded from the same file).
+ *
+ * @author Alexander Adensamer
+ */
+public class ReplicationEncoder
+{
+    /**
+     * Priority gained per step by resting bodies.
+     */
+    public static final int PRIORITY_RESTING = 1;
+    /**
+     * Priority gained per step by moving bodies.
+     */
+    public static final int PRIORITY_MOVING = 4;
+    /**
+     * Additional priority gained per step by bodies with contacts.
+     */
+    public static final int PRIORITY_CONTACT = 16;
+    /**
+     * Maximum additional priority gained per step by the speed (1 per unit/s).
+     */
+    public static final int PRIORITY_MAX_SPEED = 64;
+
+    private static final int M_MAX_ACCUMULATOR = 1 << 24;
+
+    private World mWorld;
+
+    //quantized states and priorities by body id
+    private int mCapacity = 0;
+    private int[] mStates = new int[0];
+    private boolean[] mPresent = new boolean[0];
+    private int[] mPriorities = new int[0];
+
+    //heap of body ids for the priority order
+    private int[] mHeap = new int[16];
+
+    /**
+     * Constructor.
+     * @param world the world to replicate
+     */
+    public ReplicationEncoder(World world)
+    {
+        mWorld = world;
+    }
+
+    /**
+     * Creates the state for a new client.
+     * @return the client.
+     */
+    public ReplicationClient createClient()
+    {
+        return new ReplicationClient();
+    }
+
+    /**
+     * Quantizes the current state of the world.
+     * Has to be called once after each step, before the packets are encoded.
+     */
+    public void update()
+    {
+        mCapacity = mWorld.mCurrentBodyId;
+        if (mPresent.length < mCapacity)
+        {
+            mStates = new int[mCapacity * ReplicationCodec.STATE_SIZE];
+            mPresent = new boolean[mCapacity];
+            mPriorities = new int[mCapacity];
+        }
+        for( int i = 0; i < mCapacity; i++)
+        {
+            mPresent[i] = false;
+        }
+
+        Body[] bodies = mWorld.mBodies;
+        for( int i = 0; i < mWorld.mBodyCount; i++)
+        {
+            Body body = bodies[i];
+            int id = body.mId;
+            ReplicationCodec.quantize(body, mStates, id * ReplicationCodec.STATE_SIZE);
+            mPresent[id] = true;
+
+            if (body.mIsResting)
+            {
+                mPriorities[id] = PRIORITY_RESTING;
+            }
+            else
+            {
+                int speed = (Math.abs(body.mVelocityFX.xFX) + Math.abs(body.mVelocityFX.yFX)) >> FXUtil.DECIMAL;
+                mPriorities[id] = PRIORITY_MOVING + Math.min(speed, PRIORITY_MAX_SPEED)
+                                + (body.mContactCount > 0 ? PRIORITY_CONTACT : 0);
+            }
+        }
+    }
+
+    /**
+     * Encodes a packet for a client.
+     * @param client the client
+     * @param buffer the target buffer
+     * @param maxBytes the byte budget of the packet (at least 10)
+     * @return the number of bytes of the packet.
+     */
+    public int encode(ReplicationClient client, byte[] buffer, int maxBytes)
+    {
+        int sequence = client.mSequence++;
+        int baseSequence = client.mAckSequence;
+        int baseSlot = client.mHistory.find(baseSequence);
+        if (sequence - baseSequence >= ReplicationHistory.M_SIZE)
+        {
+            baseSlot = -1;
+        }
+        int slot = client.mHistory.create(sequence, baseSlot, mCapacity);
+        int[] view = client.mHistory.getStates(slot);
+        boolean[] known = client.mHistory.getKnown(slot);
+
+        int idBits = ReplicationCodec.bitsFor(mCapacity - 1);
+        BitWriter writer = new BitWriter(buffer, maxBytes);
+        writer.writeBits(sequence, 32);
+        writer.writeBit(baseSlot >= 0);
+        if (baseSlot >= 0)
+        {
+            writer.writeBits(baseSequence, 32);
+        }
+        writer.writeBits(idBits, 5);
+
+        //collect the changed bodies
+        client.mAccumulators = World.checkVector(client.mAccumulators, mCapacity);
+        int[] accumulators = client.mAccumulators;
+        int count = 0;
+        for( int id = 0; id < mCapacity; id++)
+        {
+            if (! mPresent[id])
+            {
+                continue;
+            }
+            if (known[id] && isUnchanged(view, id * ReplicationCodec.STATE_SIZE))
+            {
+                accumulators[id] = 0;
+                continue;
+            }
+            accumulators[id] = Math.min(accumulators[id] + mPriorities[id], M_MAX_ACCUMULATOR);
+            mHeap = World.checkVector(mHeap, count);
+            mHeap[count++] = id;
+        }
+
+        //write the bodies with the highest priority while they fit
+        for( int i = count / 2 - 1; i >= 0; i--)
+        {
+            siftDown(accumulators, i, count);
+        }
+        int limit = maxBytes * 8 - 1;       //end marker
+        while (count > 0)
+        {
+            int id = mHeap[0];
+            mHeap[0] = mHeap[--count];
+            siftDown(accumulators, 0, count);
+
+            int offset = id * ReplicationCodec.STATE_SIZE;
+            int position = writer.getPosition();
+            writer.writeBit(true);
+            writer.writeBits(id, idBits);
+            ReplicationCodec.writeState(writer, mStates, known[id] ? view : null, offset);
+            if (writer.isOverflow() || writer.getPosition() > limit)
+            {
+                writer.setPosition(position);
+                break;
+            }
+
+            System.arraycopy(mStates, offset, view, offset, ReplicationCodec.STATE_SIZE);
+            known[id] = true;
+            accumulators[id] = 0;
+        }
+        writer.writeBit(false);
+
+        return writer.getByteCount();
+    }
+
+    private boolean isUnchanged(int[] view, int offset)
+    {
+        for( int i = 0; i < ReplicationCodec.STATE_SIZE; i++)
+        {
+            if (view[offset + i] != mStates[offset + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Restores the heap order (highest accumulator first, lower id first on ties).
+     */
+    private void siftDown(int[] accumulators, int index, int count)
+    {
+        int[] heap = mHeap;
+        int id = heap[index];
+        while (true)
+        {
+            int child = index * 2 + 1;
+            if (child >= count)
+            {
+                break;
+            }
+            if (child + 1 < count && higher(accumulators, heap[child + 1], heap[child]))
+            {
+                child++;
+            }
+            if (! higher(accumulators, heap[child], id))
+            {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = id;
+    }
+
+    private static boolean higher(int[] accumulators, int id1, int id2)
+    {
+        return accumulators[id1] > accumulators[id2] || (accumulators[id1] == accumulators[id2] && id1 < id2);
+    }
+}
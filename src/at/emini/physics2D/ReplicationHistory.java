@@ -0,0 +1,110 @@
+package at.emini.physics2D;
+
+/**
+ * Ring buffer of the body states known by a client after each replication packet.
+ * <p>
+ * The encoder and the decoder keep the same history:
+ * the view of a packet is the view of its baseline packet updated with the bodies in the packet.
+ * Both sides can thus code the deltas against the same baseline,
+ * even if packets are lost or only some bodies fit into a packet.
+ *
+ * @author Alexander Adensamer
+ */
+final class ReplicationHistory
+{
+    /**
+     * Number of views kept.
+     */
+    static final int M_SIZE = 32;
+
+    private int[] mSequences = new int[M_SIZE];
+    private int[][] mStates = new int[M_SIZE][];
+    private boolean[][] mKnown = new boolean[M_SIZE][];
+    private int mCapacity = 0;
+
+    ReplicationHistory()
+    {
+        for( int i = 0; i < M_SIZE; i++)
+        {
+            mSequences[i] = -1;
+            mStates[i] = new int[0];
+            mKnown[i] = new boolean[0];
+        }
+    }
+
+    /**
+     * Finds the view of a packet.
+     * @param sequence the packet sequence
+     * @return the slot of the view, -1 if the view is not kept.
+     */
+    int find(int sequence)
+    {
+        int slot = sequence % M_SIZE;
+        return sequence >= 0 && mSequences[slot] == sequence ? slot : -1;
+    }
+
+    /**
+     * Creates the view of a packet from the view of its baseline.
+     * @param sequence the packet sequence
+     * @param baseSlot the slot of the baseline view, -1 for an empty view
+     * @param capacity the number of body ids
+     * @return the slot of the new view.
+     */
+    int create(int sequence, int baseSlot, int capacity)
+    {
+        if (capacity > mCapacity)
+        {
+            mCapacity = Math.max(capacity, mCapacity * 2);
+        }
+
+        int slot = sequence % M_SIZE;
+        if (mStates[slot].length < mCapacity * ReplicationCodec.STATE_SIZE)
+        {
+            int[] states = new int[mCapacity * ReplicationCodec.STATE_SIZE];
+            boolean[] known = new boolean[mCapacity];
+            System.arraycopy(mStates[slot], 0, states, 0, mStates[slot].length);
+            System.arraycopy(mKnown[slot], 0, known, 0, mKnown[slot].length);
+            mStates[slot] = states;
+            mKnown[slot] = known;
+        }
+
+        if (baseSlot < 0)
+        {
+            for( int i = 0; i < mKnown[slot].length; i++)
+            {
+                mKnown[slot][i] = false;
+            }
+        }
+        else if (baseSlot != slot)
+        {
+            int count = Math.min(mKnown[baseSlot].length, capacity);
+            System.arraycopy(mStates[baseSlot], 0, mStates[slot], 0, count * ReplicationCodec.STATE_SIZE);
+            System.arraycopy(mKnown[baseSlot], 0, mKnown[slot], 0, count);
+            for( int i = count; i < mKnown[slot].length; i++)
+            {
+                mKnown[slot][i] = false;
+            }
+        }
+        mSequences[slot] = sequence;
+        return slot;
+    }
+
+    /**
+     * Drops a view (e.g. of a corrupt packet).
+     * @param slot the slot of the view
+     */
+    void remove(int slot)
+    {
+        mSequences[slot] = -1;
+    }
+
+    int[] getStates(int slot)
+    {
+        return mStates[slot];
+    }
+
+    boolean[] getKnown(int slot)
+    {
+        return mKnown[slot];
+    }
+}
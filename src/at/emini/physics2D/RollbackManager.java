@@ -0,0 +1,953 @@
+package at.emini.physics2D;
+
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * The rollback manager keeps the recent history of a world for rollback resimulation. <br>
+ * It stores a snapshot of the simulation state for each of the last ticks in a ring buffer
+ * and records timestamped input commands (forces, velocities, scripts, body spawns).
+ * When an input for a past tick arrives (e.g. a late network packet),
+ * the world is rewound to that tick and all ticks up to the present are resimulated
+ * with the corrected input sequence. <br>
+ * The fixed point arithmetic makes the resimulation deterministic:
+ * replaying the same inputs from the same snapshot always yields exactly the same state.
+ * <p>
+ * A snapshot comprises:
+ * <ul>
+ * <li>body list, positions, velocities, angles and AABBs</li>
+ * <li>contacts including their contact points and accumulated impulses (warmstarting)</li>
+ * <li>motor impulses (warmstarting)</li>
+ * <li>script execution state</li>
+ * <li>sensor overlaps</li>
+ * <li>soft body node positions</li>
+ * </ul>
+ * Particles are not part of the snapshot, as they are created randomly.
+ * Events are triggered again during resimulation.
+ * Bodies must not be removed or added to the world directly while the manager is used,
+ * use the input commands instead. <br>
+ * The snapshot memory is allocated once and only grows if the number of bodies or contacts grows.
+ *
+ * @author Alexander Adensamer
+ */
+public class RollbackManager
+{
+    /**
+     * Input type force: applies the force (aFX, bFX) to the body for one tick.
+     */
+    public static final int INPUT_FORCE = 1;
+    /**
+     * Input type impulse: applies the impulse (aFX, bFX) to the body.
+     */
+    public static final int INPUT_IMPULSE = 2;
+    /**
+     * Input type velocity: sets the velocity of the body to (aFX, bFX).
+     */
+    public static final int INPUT_VELOCITY = 3;
+    /**
+     * Input type angular velocity: sets the angular velocity (2FX) of the body to aFX.
+     */
+    public static final int INPUT_ANGULAR_VELOCITY = 4;
+    /**
+     * Input type script: applies the script (payload) to the body.
+     * The script has to be registered in the world.
+     */
+    public static final int INPUT_SCRIPT = 5;
+    /**
+     * Input type spawn: adds a copy of the body (payload) at position (aFX, bFX).
+     * The body id is ignored.
+     */
+    public static final int INPUT_SPAWN = 6;
+
+    /**
+     * Number of values stored per body.
+     */
+    private static final int M_BODY_STATE_SIZE = 10;
+
+    /**
+     * Increment for the snapshot and input arrays.
+     */
+    private static final int M_ARRAY_INCREMENT = 32;
+
+    /**
+     * The managed world.
+     */
+    private World mWorld;
+
+    /**
+     * Number of snapshots (= maximum number of ticks that can be rewound).
+     */
+    private int mCapacity;
+
+    /**
+     * The current tick (the next tick to simulate).
+     */
+    private int mTick = 0;
+
+    //snapshot ring buffer, each slot stores the state at the beginning of a tick
+    private int[] mSnapshotTick;
+    private int[] mSnapshotBodyCount;
+    private int[] mSnapshotBodyId;
+    private int[] mSnapshotBodyStartIndex;
+    private int[] mSnapshotBodyEndIndex;
+    private Body[][] mSnapshotBodies;
+    private int[][] mBodyStateFX;
+
+    private int[] mSnapshotContactCount;
+    private Body[][] mContactBodies;
+    private int[][] mContactIndices;
+    private int[][] mContactStateFX;
+
+    private int[] mSnapshotConstraintCount;
+    private int[][] mConstraintStateFX;
+
+    private int[] mSnapshotSensorCount;
+    private Body[][] mSensorBodies;                     //each sensor followed by its overlapping bodies
+    private int[][] mSensorOverlapCounts;
+
+    private int[] mSnapshotScriptCount;                 //#NoBasic
+    private Body[][] mScriptBodies;                     //#NoBasic
+    private int[][] mScriptState;                       //#NoBasic
+
+    private int[] mSnapshotSoftBodyCount;               //#NoBasic
+    private int[][] mSoftBodyStateFX;                   //#NoBasic
+
+    //recorded inputs, sorted by tick
+    private int mInputCount = 0;
+    private int[] mInputTick = new int[M_ARRAY_INCREMENT];
+    private int[] mInputType = new int[M_ARRAY_INCREMENT];
+    private int[] mInputBodyId = new int[M_ARRAY_INCREMENT];
+    private int[] mInputAFX = new int[M_ARRAY_INCREMENT];      //#FX2F private float[] mInputAFX = new float[M_ARRAY_INCREMENT];
+    private int[] mInputBFX = new int[M_ARRAY_INCREMENT];      //#FX2F private float[] mInputBFX = new float[M_ARRAY_INCREMENT];
+    private Object[] mInputPayload = new Object[M_ARRAY_INCREMENT];
+
+    /**
+     * Earliest tick that received an input after it was simulated (-1 if none).
+     */
+    private int mDirtyTick = -1;
+
+    //resimulation metrics
+    private int mLastResimulatedTicks = 0;
+    private long mLastResimulationTime = 0;
+    private long mMaxResimulationTime = 0;
+    private int mTotalResimulatedTicks = 0;
+    private long mTotalResimulationTime = 0;
+    private int mResimulationCount = 0;
+
+    private static FXVector M_tmp = new FXVector();
+
+    /**
+     * Constructor.
+     * @param world the world to manage.
+     * @param capacity the number of ticks that can be rewound.
+     */
+    public RollbackManager(World world, int capacity)
+    {
+        mWorld = world;
+        mCapacity = Math.max(1, capacity);
+
+        mSnapshotTick = new int[mCapacity];
+        mSnapshotBodyCount = new int[mCapacity];
+        mSnapshotBodyId = new int[mCapacity];
+        mSnapshotBodyStartIndex = new int[mCapacity];
+        mSnapshotBodyEndIndex = new int[mCapacity];
+        mSnapshotBodies = new Body[mCapacity][];
+        mBodyStateFX = new int[mCapacity][];                  //#FX2F mBodyStateFX = new float[mCapacity][];
+
+        mSnapshotContactCount = new int[mCapacity];
+        mContactBodies = new Body[mCapacity][];
+        mContactIndices = new int[mCapacity][];
+        mContactStateFX = new int[mCapacity][];               //#FX2F mContactStateFX = new float[mCapacity][];
+
+        mSnapshotConstraintCount = new int[mCapacity];
+        mConstraintStateFX = new int[mCapacity][];            //#FX2F mConstraintStateFX = new float[mCapacity][];
+
+        mSnapshotSensorCount = new int[mCapacity];
+        mSensorBodies = new Body[mCapacity][];
+        mSensorOverlapCounts = new int[mCapacity][];
+
+        //#NoBasic /*
+        mSnapshotScriptCount = new int[mCapacity];
+        mScriptBodies = new Body[mCapacity][];
+        mScriptState = new int[mCapacity][];
+        mSnapshotSoftBodyCount = new int[mCapacity];
+        mSoftBodyStateFX = new int[mCapacity][];
+        //#NoBasic */
+
+        int bodyCapacity = world.mBodyCount + M_ARRAY_INCREMENT;
+        int contactCapacity = world.mContacts.length;
+        int constraintCapacity = M_ARRAY_INCREMENT;
+        constraintCapacity = world.mConstraints.length;                              //#NoEco
+        for( int i = 0; i < mCapacity; i++)
+        {
+            mSnapshotTick[i] = -1;
+            mSnapshotBodies[i] = new Body[bodyCapacity];
+            mBodyStateFX[i] = new int[bodyCapacity * M_BODY_STATE_SIZE];               //#FX2F mBodyStateFX[i] = new float[bodyCapacity * M_BODY_STATE_SIZE];
+            mContactBodies[i] = new Body[contactCapacity * 2];
+            mContactIndices[i] = new int[contactCapacity * 2];
+            mContactStateFX[i] = new int[contactCapacity * Contact.M_STATE_SIZE];      //#FX2F mContactStateFX[i] = new float[contactCapacity * Contact.M_STATE_SIZE];
+            mConstraintStateFX[i] = new int[constraintCapacity * 2];          //#FX2F mConstraintStateFX[i] = new float[constraintCapacity * 2];
+            mSensorBodies[i] = new Body[M_ARRAY_INCREMENT];
+            mSensorOverlapCounts[i] = new int[M_ARRAY_INCREMENT];
+            //#NoBasic /*
+            mScriptBodies[i] = new Body[world.mScriptBodies.length];
+            mScriptState[i] = new int[world.mScriptBodies.length * 3];
+            mSoftBodyStateFX[i] = new int[0];
+            //#NoBasic */
+        }
+    }
+
+    /**
+     * Gets the managed world.
+     * @return the world.
+     */
+    public World getWorld()
+    {
+        return mWorld;
+    }
+
+    /**
+     * Gets the current tick.
+     * This is the tick that is simulated by the next call to {@link #tick()}.
+     * @return the current tick.
+     */
+    public int getTick()
+    {
+        return mTick;
+    }
+
+    /**
+     * Gets the number of ticks that can be rewound.
+     * @return the snapshot capacity.
+     */
+    public int getCapacity()
+    {
+        return mCapacity;
+    }
+
+    /**
+     * Gets the oldest tick that can be rewound to.
+     * @return the oldest available tick.
+     */
+    public int getOldestTick()
+    {
+        return Math.max(0, mTick - mCapacity + 1);
+    }
+
+    /**
+     * Adds an input command.
+     * If the tick is already simulated, the command is recorded for the next resimulation
+     * (see {@link #resimulate()}).
+     * @fx
+     * @param tick the tick at which the input is applied.
+     * @param type the input type (e.g. {@link #INPUT_FORCE}).
+     * @param bodyId the id of the affected body.
+     * @param aFX first value (FX).
+     * @param bFX second value (FX).
+     * @return false if the tick lies before the oldest snapshot and is dropped.
+     */
+    public boolean addInput(int tick, int type, int bodyId, int aFX, int bFX)
+    {
+        return addInput(tick, type, bodyId, aFX, bFX, null);
+    }
+
+    /**
+     * Adds an input command with a payload.
+     * The payload is the script for {@link #INPUT_SCRIPT} and the body template for {@link #INPUT_SPAWN}.
+     * @fx
+     * @param tick the tick at which the input is applied.
+     * @param type the input type (e.g. {@link #INPUT_SPAWN}).
+     * @param bodyId the id of the affected body.
+     * @param aFX first value (FX).
+     * @param bFX second value (FX).
+     * @param payload the payload object.
+     * @return false if the tick lies before the oldest snapshot and is dropped.
+     */
+    public boolean addInput(int tick, int type, int bodyId, int aFX, int bFX, Object payload)
+    {
+        if (tick < getOldestTick())
+        {
+            return false;
+        }
+
+        if (mInputCount >= mInputTick.length)
+        {
+            growInputs();
+        }
+
+        //insert sorted by tick, keep insertion order within a tick
+        int idx = mInputCount;
+        while (idx > 0 && mInputTick[idx - 1] > tick)
+        {
+            mInputTick[idx] = mInputTick[idx - 1];
+            mInputType[idx] = mInputType[idx - 1];
+            mInputBodyId[idx] = mInputBodyId[idx - 1];
+            mInputAFX[idx] = mInputAFX[idx - 1];
+            mInputBFX[idx] = mInputBFX[idx - 1];
+            mInputPayload[idx] = mInputPayload[idx - 1];
+            idx--;
+        }
+        mInputTick[idx] = tick;
+        mInputType[idx] = type;
+        mInputBodyId[idx] = bodyId;
+        mInputAFX[idx] = aFX;
+        mInputBFX[idx] = bFX;
+        mInputPayload[idx] = payload;
+        mInputCount++;
+
+        markDirty(tick);
+        return true;
+    }
+
+    /**
+     * Removes all recorded inputs of a tick.
+     * This can be used to replace predicted inputs by confirmed ones.
+     * @param tick the tick.
+     */
+    public void clearInputs(int tick)
+    {
+        int j = 0;
+        boolean removed = false;
+        for( int i = 0; i < mInputCount; i++)
+        {
+            if (mInputTick[i] == tick)
+            {
+                mInputPayload[i] = null;
+                removed = true;
+                continue;
+            }
+            mInputTick[j] = mInputTick[i];
+            mInputType[j] = mInputType[i];
+            mInputBodyId[j] = mInputBodyId[i];
+            mInputAFX[j] = mInputAFX[i];
+            mInputBFX[j] = mInputBFX[i];
+            mInputPayload[j] = mInputPayload[i];
+            j++;
+        }
+        for( int i = j; i < mInputCount; i++)
+        {
+            mInputPayload[i] = null;
+        }
+        mInputCount = j;
+
+        if (removed)
+        {
+            markDirty(tick);
+        }
+    }
+
+    /**
+     * Marks a simulated tick for resimulation.
+     * @param tick the tick that received a changed input.
+     */
+    private final void markDirty(int tick)
+    {
+        if (tick >= mTick)
+        {
+            return;
+        }
+        tick = Math.max(tick, getOldestTick());
+        if (mDirtyTick < 0 || tick < mDirtyTick)
+        {
+            mDirtyTick = tick;
+        }
+    }
+
+    /**
+     * Simulates a single tick.
+     * The state is stored, the inputs of the tick are applied and the world is ticked.
+     */
+    public void tick()
+    {
+        storeSnapshot(mTick);
+        applyInputs(mTick);
+        mWorld.tick();
+        mTick++;
+
+        discardInputs(getOldestTick());
+        if (mDirtyTick >= 0 && mDirtyTick < getOldestTick())
+        {
+            mDirtyTick = getOldestTick();       //the snapshot of the dirty tick was overwritten
+        }
+    }
+
+    /**
+     * Resimulates from the earliest tick that received a late input.
+     * Does nothing if no late input was added.
+     * If the tick is not available anymore, the resimulation starts at the oldest snapshot.
+     * @return true if a resimulation was performed.
+     */
+    public boolean resimulate()
+    {
+        if (mDirtyTick < 0)
+        {
+            return false;
+        }
+        int fromTick = mDirtyTick;
+        mDirtyTick = -1;
+        return rewindAndReplay(fromTick);
+    }
+
+    /**
+     * Rewinds the world to a past tick and resimulates up to the current tick.
+     * @param fromTick the tick to rewind to.
+     * @return false if the tick is not available in the snapshot buffer.
+     */
+    public boolean rewindAndReplay(int fromTick)
+    {
+        if (fromTick > mTick)
+        {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        int targetTick = mTick;
+        if (! restoreSnapshot(fromTick))
+        {
+            return false;
+        }
+        mTick = fromTick;
+        mDirtyTick = -1;
+        while (mTick < targetTick)
+        {
+            tick();
+        }
+
+        mLastResimulatedTicks = targetTick - fromTick;
+        mLastResimulationTime = System.currentTimeMillis() - start;
+        mMaxResimulationTime = Math.max(mMaxResimulationTime, mLastResimulationTime);
+        mTotalResimulatedTicks += mLastResimulatedTicks;
+        mTotalResimulationTime += mLastResimulationTime;
+        mResimulationCount++;
+
+        return true;
+    }
+
+    /**
+     * Rewinds the world to a past tick without resimulating.
+     * All snapshots after that tick are discarded.
+     * @param tick the tick to rewind to.
+     * @return false if the tick is not available in the snapshot buffer.
+     */
+    public boolean rewind(int tick)
+    {
+        if (tick > mTick || ! restoreSnapshot(tick))
+        {
+            return false;
+        }
+        for( int i = tick + 1; i < mTick; i++)
+        {
+            mSnapshotTick[i % mCapacity] = -1;
+        }
+        mTick = tick;
+        mDirtyTick = -1;
+        return true;
+    }
+
+    /**
+     * Gets the number of ticks simulated in the last resimulation.
+     * @return the number of resimulated ticks.
+     */
+    public int getLastResimulatedTicks()
+    {
+        return mLastResimulatedTicks;
+    }
+
+    /**
+     * Gets the duration of the last resimulation.
+     * @return the time in milliseconds.
+     */
+    public long getLastResimulationTime()
+    {
+        return mLastResimulationTime;
+    }
+
+    /**
+     * Gets the longest resimulation so far.
+     * @return the time in milliseconds.
+     */
+    public long getMaxResimulationTime()
+    {
+        return mMaxResimulationTime;
+    }
+
+    /**
+     * Gets the number of resimulations so far.
+     * @return the resimulation count.
+     */
+    public int getResimulationCount()
+    {
+        return mResimulationCount;
+    }
+
+    /**
+     * Gets the total number of resimulated ticks so far.
+     * @return the resimulated tick count.
+     */
+    public int getTotalResimulatedTicks()
+    {
+        return mTotalResimulatedTicks;
+    }
+
+    /**
+     * Gets the total time spent for resimulation.
+     * @return the time in milliseconds.
+     */
+    public long getTotalResimulationTime()
+    {
+        return mTotalResimulationTime;
+    }
+
+    /**
+     * Estimates how many ticks can be resimulated within a time budget.
+     * The estimate is based on the measured average resimulation cost per tick.
+     * It can be used to choose the snapshot capacity or the input delay.
+     * @param budgetMillis the time budget (e.g. the frame time) in milliseconds.
+     * @return the estimated number of ticks, -1 if no measurement is available yet
+     * (also while the measured resimulations took less than a millisecond in total).
+     */
+    public int estimateResimulationTicks(int budgetMillis)
+    {
+        if (mTotalResimulatedTicks == 0 || mTotalResimulationTime == 0)
+        {
+            return -1;
+        }
+        return (int) (((long) budgetMillis * mTotalResimulatedTicks) / mTotalResimulationTime);
+    }
+
+    /**
+     * Resets the resimulation metrics.
+     */
+    public void resetMetrics()
+    {
+        mLastResimulatedTicks = 0;
+        mLastResimulationTime = 0;
+        mMaxResimulationTime = 0;
+        mTotalResimulatedTicks = 0;
+        mTotalResimulationTime = 0;
+        mResimulationCount = 0;
+    }
+
+    /**
+     * Applies all inputs of a tick to the world.
+     * @param tick the tick.
+     */
+    private final void applyInputs(int tick)
+    {
+        World world = mWorld;
+        for( int i = 0; i < mInputCount; i++)
+        {
+            if (mInputTick[i] < tick)
+            {
+                continue;
+            }
+            if (mInputTick[i] > tick)
+            {
+                break;
+            }
+
+            if (mInputType[i] == INPUT_SPAWN)
+            {
+                Body body = ((Body) mInputPayload[i]).copy();
+                M_tmp.assignFX(mInputAFX[i], mInputBFX[i]);
+                body.setPositionFX(M_tmp);
+                world.addBody(body);
+                continue;
+            }
+
+            Body body = world.findBodyById(mInputBodyId[i]);
+            if (body == null)
+            {
+                continue;
+            }
+            switch (mInputType[i])
+            {
+            case INPUT_FORCE:
+                M_tmp.assignFX(mInputAFX[i], mInputBFX[i]);
+                body.applyForce(M_tmp, world.mTimestepFX);
+                break;
+            case INPUT_IMPULSE:
+                M_tmp.assignFX(mInputAFX[i], mInputBFX[i]);
+                body.applyMomentum(M_tmp);
+                break;
+            case INPUT_VELOCITY:
+                body.mVelocityFX.assignFX(mInputAFX[i], mInputBFX[i]);
+                break;
+            case INPUT_ANGULAR_VELOCITY:
+                body.mAngularVelocity2FX = mInputAFX[i];
+                break;
+            //#NoBasic /*
+            case INPUT_SCRIPT:
+                for( int j = 0; j < world.mScriptCount; j++)
+                {
+                    if (world.mScripts[j] == mInputPayload[i])
+                    {
+                        world.addScriptBody(j, body);
+                        break;
+                    }
+                }
+                break;
+            //#NoBasic */
+            default: break;
+            }
+        }
+    }
+
+    /**
+     * Removes all inputs before a tick.
+     * @param tick the oldest tick to keep.
+     */
+    private final void discardInputs(int tick)
+    {
+        int count = 0;
+        while (count < mInputCount && mInputTick[count] < tick)
+        {
+            count++;
+        }
+        if (count == 0)
+        {
+            return;
+        }
+        for( int i = count; i < mInputCount; i++)
+        {
+            mInputTick[i - count] = mInputTick[i];
+            mInputType[i - count] = mInputType[i];
+            mInputBodyId[i - count] = mInputBodyId[i];
+            mInputAFX[i - count] = mInputAFX[i];
+            mInputBFX[i - count] = mInputBFX[i];
+            mInputPayload[i - count] = mInputPayload[i];
+        }
+        for( int i = mInputCount - count; i < mInputCount; i++)
+        {
+            mInputPayload[i] = null;
+        }
+        mInputCount -= count;
+    }
+
+    /**
+     * Enlarges the input arrays.
+     */
+    private final void growInputs()
+    {
+        mInputTick = World.checkVector(mInputTick, mInputCount);
+        mInputType = World.checkVector(mInputType, mInputCount);
+        mInputBodyId = World.checkVector(mInputBodyId, mInputCount);
+
+        int[] aFX = new int[mInputAFX.length + M_ARRAY_INCREMENT];      //#FX2F float[] aFX = new float[mInputAFX.length + M_ARRAY_INCREMENT];
+        int[] bFX = new int[mInputBFX.length + M_ARRAY_INCREMENT];      //#FX2F float[] bFX = new float[mInputBFX.length + M_ARRAY_INCREMENT];
+        System.arraycopy(mInputAFX, 0, aFX, 0, mInputAFX.length);
+        System.arraycopy(mInputBFX, 0, bFX, 0, mInputBFX.length);
+        mInputAFX = aFX;
+        mInputBFX = bFX;
+
+        Object[] payload = new Object[mInputPayload.length + M_ARRAY_INCREMENT];
+        System.arraycopy(mInputPayload, 0, payload, 0, mInputPayload.length);
+        mInputPayload = payload;
+    }
+
+    /**
+     * Stores the current state of the world in the slot of a tick.
+     * @param tick the tick.
+     */
+    private final void storeSnapshot(int tick)
+    {
+        World world = mWorld;
+        int slot = tick % mCapacity;
+        mSnapshotTick[slot] = tick;
+
+        //bodies
+        int bodyCount = world.mBodyCount;
+        if (mSnapshotBodies[slot].length < bodyCount)
+        {
+            mSnapshotBodies[slot] = new Body[bodyCount + M_ARRAY_INCREMENT];
+            mBodyStateFX[slot] = new int[(bodyCount + M_ARRAY_INCREMENT) * M_BODY_STATE_SIZE];    //#FX2F mBodyStateFX[slot] = new float[(bodyCount + M_ARRAY_INCREMENT) * M_BODY_STATE_SIZE];
+        }
+        Body[] bodies = mSnapshotBodies[slot];
+        int[] bodyStateFX = mBodyStateFX[slot];
+        for( int i = 0, offset = 0; i < bodyCount; i++, offset += M_BODY_STATE_SIZE)
+        {
+            Body b = world.mBodies[i];
+            bodies[i] = b;
+            bodyStateFX[offset    ] = b.mPositionFX.xFX;
+            bodyStateFX[offset + 1] = b.mPositionFX.yFX;
+            bodyStateFX[offset + 2] = b.mVelocityFX.xFX;
+            bodyStateFX[offset + 3] = b.mVelocityFX.yFX;
+            bodyStateFX[offset + 4] = b.mRotation2FX;
+            bodyStateFX[offset + 5] = b.mAngularVelocity2FX;
+            bodyStateFX[offset + 6] = b.mAABBMinXFX;
+            bodyStateFX[offset + 7] = b.mAABBMaxXFX;
+            bodyStateFX[offset + 8] = b.mAABBMinYFX;
+            bodyStateFX[offset + 9] = b.mAABBMaxYFX;
+        }
+        for( int i = bodyCount; i < bodies.length && bodies[i] != null; i++)
+        {
+            bodies[i] = null;
+        }
+        mSnapshotBodyCount[slot] = bodyCount;
+        mSnapshotBodyId[slot] = world.mCurrentBodyId;
+        mSnapshotBodyStartIndex[slot] = world.mBodyStartIndex;
+        mSnapshotBodyEndIndex[slot] = world.mBodyEndIndex;
+
+        //contacts
+        int contactCount = world.mContactCount;
+        if (mContactBodies[slot].length < contactCount * 2)
+        {
+            mContactBodies[slot] = new Body[(contactCount + M_ARRAY_INCREMENT) * 2];
+            mContactIndices[slot] = new int[(contactCount + M_ARRAY_INCREMENT) * 2];
+            mContactStateFX[slot] = new int[(contactCount + M_ARRAY_INCREMENT) * Contact.M_STATE_SIZE];  //#FX2F mContactStateFX[slot] = new float[(contactCount + M_ARRAY_INCREMENT) * Contact.M_STATE_SIZE];
+        }
+        Body[] contactBodies = mContactBodies[slot];
+        int[] contactIndices = mContactIndices[slot];
+        for( int i = 0; i < contactCount; i++)
+        {
+            Contact c = world.mContacts[i];
+            contactBodies[i * 2] = c.mBody1;
+            contactBodies[i * 2 + 1] = c.mBody2;
+            contactIndices[i * 2] = c.mB1Index;
+            contactIndices[i * 2 + 1] = c.mB2Index;
+            c.storeState(mContactStateFX[slot], i * Contact.M_STATE_SIZE);
+        }
+        for( int i = contactCount * 2; i < contactBodies.length && contactBodies[i] != null; i++)
+        {
+            contactBodies[i] = null;
+        }
+        mSnapshotContactCount[slot] = contactCount;
+
+        //constraints (only motors carry state to the next step)
+        //#NoEco /*
+        int constraintCount = world.mConstraintCount;
+        if (mConstraintStateFX[slot].length < constraintCount * 2)
+        {
+            mConstraintStateFX[slot] = new int[(constraintCount + M_ARRAY_INCREMENT) * 2];   //#FX2F mConstraintStateFX[slot] = new float[(constraintCount + M_ARRAY_INCREMENT) * 2];
+        }
+        int[] constraintStateFX = mConstraintStateFX[slot];
+        for( int i = 0; i < constraintCount; i++)
+        {
+            if (world.mConstraints[i] instanceof Motor)
+            {
+                constraintStateFX[i * 2] = ((Motor) world.mConstraints[i]).mAccumLambdaFX.xFX;
+                constraintStateFX[i * 2 + 1] = ((Motor) world.mConstraints[i]).mAccumLambdaFX.yFX;
+            }
+        }
+        mSnapshotConstraintCount[slot] = constraintCount;
+        //#NoEco */
+
+        //sensors (the overlaps of the last step are the reference for the enter/exit events)
+        int sensorCount = world.mActiveSensorCount;
+        int sensorBodyCount = 0;
+        mSensorOverlapCounts[slot] = World.checkVector(mSensorOverlapCounts[slot], sensorCount);
+        int[] sensorOverlapCounts = mSensorOverlapCounts[slot];
+        for( int i = 0; i < sensorCount; i++)
+        {
+            Body sensor = world.mActiveSensors[i];
+            mSensorBodies[slot] = World.checkVector(mSensorBodies[slot], sensorBodyCount + sensor.mSensorOverlapCount);
+            Body[] sensorBodies = mSensorBodies[slot];
+            sensorBodies[sensorBodyCount++] = sensor;
+            System.arraycopy(sensor.mSensorOverlaps, 0, sensorBodies, sensorBodyCount, sensor.mSensorOverlapCount);
+            sensorBodyCount += sensor.mSensorOverlapCount;
+            sensorOverlapCounts[i] = sensor.mSensorOverlapCount;
+        }
+        Body[] sensorBodies = mSensorBodies[slot];
+        for( int i = sensorBodyCount; i < sensorBodies.length && sensorBodies[i] != null; i++)
+        {
+            sensorBodies[i] = null;
+        }
+        mSnapshotSensorCount[slot] = sensorCount;
+
+        //scripts
+        //#NoBasic /*
+        int scriptCount = world.mScriptBodyCount;
+        if (mScriptBodies[slot].length < scriptCount)
+        {
+            mScriptBodies[slot] = new Body[scriptCount + M_ARRAY_INCREMENT];
+            mScriptState[slot] = new int[(scriptCount + M_ARRAY_INCREMENT) * 3];
+        }
+        Body[] scriptBodies = mScriptBodies[slot];
+        int[] scriptState = mScriptState[slot];
+        for( int i = 0; i < scriptCount; i++)
+        {
+            scriptBodies[i] = world.mScriptBodies[i];
+            scriptState[i * 3] = world.mScriptIndex[i];
+            scriptState[i * 3 + 1] = world.mScriptElementIndex[i];
+            scriptState[i * 3 + 2] = world.mScriptExecutionIndex[i];
+        }
+        for( int i = scriptCount; i < scriptBodies.length && scriptBodies[i] != null; i++)
+        {
+            scriptBodies[i] = null;
+        }
+        mSnapshotScriptCount[slot] = scriptCount;
+
+        //soft bodies
+        int softBodyCount = world.mSoftBodies.size();
+        int stateSize = 0;
+        for( int i = 0; i < softBodyCount; i++)
+        {
+            stateSize += ((SoftBody) world.mSoftBodies.elementAt(i)).getStateSize();
+        }
+        if (mSoftBodyStateFX[slot].length < stateSize)
+        {
+            mSoftBodyStateFX[slot] = new int[stateSize + M_ARRAY_INCREMENT];
+        }
+        for( int i = 0, offset = 0; i < softBodyCount; i++)
+        {
+            SoftBody softBody = (SoftBody) world.mSoftBodies.elementAt(i);
+            softBody.storeState(mSoftBodyStateFX[slot], offset);
+            offset += softBody.getStateSize();
+        }
+        mSnapshotSoftBodyCount[slot] = softBodyCount;
+        //#NoBasic */
+    }
+
+    /**
+     * Restores the world state stored for a tick.
+     * @param tick the tick.
+     * @return false if no snapshot exists for the tick.
+     */
+    private final boolean restoreSnapshot(int tick)
+    {
+        int slot = tick % mCapacity;
+        if (tick < 0 || mSnapshotTick[slot] != tick)
+        {
+            return false;
+        }
+        World world = mWorld;
+
+        //release all current contacts to the contact pool
+        for( int i = 0; i < world.mBodyCount; i++)
+        {
+            world.mBodies[i].resetContacts(world);
+        }
+        world.mLandscape.resetContacts(world);                   //#NoEco
+        for( int i = 0; i < world.mContactCount; i++)
+        {
+            world.mContacts[i] = null;
+        }
+        world.mContactCount = 0;
+
+        //bodies
+        int bodyCount = mSnapshotBodyCount[slot];
+        Body[] bodies = mSnapshotBodies[slot];
+        int[] bodyStateFX = mBodyStateFX[slot];
+        world.mBodies = World.checkVector(world.mBodies, bodyCount);
+        for( int i = world.mBodyCount - 1; i >= bodyCount; i--)
+        {
+            world.mBodies[i] = null;
+        }
+        for( int i = 0, offset = 0; i < bodyCount; i++, offset += M_BODY_STATE_SIZE)
+        {
+            Body b = bodies[i];
+            world.mBodies[i] = b;
+            b.resetContacts(world);
+            b.mPositionFX.assignFX(bodyStateFX[offset], bodyStateFX[offset + 1]);
+            b.mVelocityFX.assignFX(bodyStateFX[offset + 2], bodyStateFX[offset + 3]);
+            if (b.mRotation2FX != bodyStateFX[offset + 4])
+            {
+                boolean resting = b.mIsResting;
+                b.setRotation2FX(bodyStateFX[offset + 4]);
+                b.mIsResting = resting;
+            }
+            b.mAngularVelocity2FX = bodyStateFX[offset + 5];
+            b.mVirtualVelocityFX.assignFX(0, 0);
+            b.mVirtualAngularVelocity2FX = 0;
+            b.forceUpdate(world.mTimestepFX);
+            b.mAABBMinXFX = bodyStateFX[offset + 6];
+            b.mAABBMaxXFX = bodyStateFX[offset + 7];
+            b.mAABBMinYFX = bodyStateFX[offset + 8];
+            b.mAABBMaxYFX = bodyStateFX[offset + 9];
+        }
+        world.mBodyCount = bodyCount;
+        world.mCurrentBodyId = mSnapshotBodyId[slot];
+        world.mBodyStartIndex = mSnapshotBodyStartIndex[slot];
+        world.mBodyEndIndex = mSnapshotBodyEndIndex[slot];
+
+        //contacts
+        int contactCount = mSnapshotContactCount[slot];
+        Body[] contactBodies = mContactBodies[slot];
+        int[] contactIndices = mContactIndices[slot];
+        Body landscapeBody = world.mLandscape.getBody();         //#NoEco
+        world.mContacts = World.checkVector(world.mContacts, contactCount);
+        for( int i = 0; i < contactCount; i++)
+        {
+            Body b1 = contactBodies[i * 2];
+            Body b2 = contactBodies[i * 2 + 1];
+            Contact c = Collision.initContact(world, null, M_tmp, b1, contactIndices[i * 2], b2, contactIndices[i * 2 + 1]);
+            c.restoreState(mContactStateFX[slot], i * Contact.M_STATE_SIZE);
+            c.mIsNew = false;
+
+            world.mContacts[i] = c;
+            b1.addContact(c);
+            b2.addContact(c);
+            //#NoEco /*
+            if (b2 == landscapeBody)
+            {
+                world.mLandscape.addContact(c);
+            }
+            //#NoEco */
+        }
+        world.mContactCount = contactCount;
+
+        //constraints
+        //#NoEco /*
+        int constraintCount = Math.min(mSnapshotConstraintCount[slot], world.mConstraintCount);
+        int[] constraintStateFX = mConstraintStateFX[slot];
+        for( int i = 0; i < constraintCount; i++)
+        {
+            if (world.mConstraints[i] instanceof Motor)
+            {
+                ((Motor) world.mConstraints[i]).mAccumLambdaFX.assignFX(constraintStateFX[i * 2], constraintStateFX[i * 2 + 1]);
+            }
+        }
+        //#NoEco */
+
+        //sensors
+        world.clearSensors();
+        int sensorCount = mSnapshotSensorCount[slot];
+        Body[] sensorBodies = mSensorBodies[slot];
+        int[] sensorOverlapCounts = mSensorOverlapCounts[slot];
+        world.mActiveSensors = World.checkVector(world.mActiveSensors, sensorCount);
+        for( int i = 0, index = 0; i < sensorCount; i++)
+        {
+            Body sensor = sensorBodies[index++];
+            int overlapCount = sensorOverlapCounts[i];
+            sensor.mSensorOverlaps = World.checkVector(sensor.mSensorOverlaps, overlapCount);
+            System.arraycopy(sensorBodies, index, sensor.mSensorOverlaps, 0, overlapCount);
+            index += overlapCount;
+            sensor.mSensorOverlapCount = overlapCount;
+            sensor.mSensorActive = true;
+            world.mActiveSensors[i] = sensor;
+        }
+        world.mActiveSensorCount = sensorCount;
+
+        //scripts
+        //#NoBasic /*
+        int scriptCount = mSnapshotScriptCount[slot];
+        Body[] scriptBodies = mScriptBodies[slot];
+        int[] scriptState = mScriptState[slot];
+        world.mScriptBodies = World.checkVector(world.mScriptBodies, scriptCount);
+        world.mScriptIndex = World.checkVector(world.mScriptIndex, scriptCount);
+        world.mScriptElementIndex = World.checkVector(world.mScriptElementIndex, scriptCount);
+        world.mScriptExecutionIndex = World.checkVector(world.mScriptExecutionIndex, scriptCount);
+        for( int i = world.mScriptBodyCount - 1; i >= scriptCount; i--)
+        {
+            world.mScriptBodies[i] = null;
+        }
+        for( int i = 0; i < scriptCount; i++)
+        {
+            world.mScriptBodies[i] = scriptBodies[i];
+            world.mScriptIndex[i] = scriptState[i * 3];
+            world.mScriptElementIndex[i] = scriptState[i * 3 + 1];
+            world.mScriptExecutionIndex[i] = scriptState[i * 3 + 2];
+        }
+        world.mScriptBodyCount = scriptCount;
+
+        //soft bodies (only the nodes, soft bodies must not be added or changed while the manager is used)
+        int softBodyCount = Math.min(mSnapshotSoftBodyCount[slot], world.mSoftBodies.size());
+        for( int i = 0, offset = 0; i < softBodyCount; i++)
+        {
+            SoftBody softBody = (SoftBody) world.mSoftBodies.elementAt(i);
+            softBody.restoreState(mSoftBodyStateFX[slot], offset);
+            offset += softBody.getStateSize();
+        }
+        //#NoBasic */
+
+        return true;
+    }
+}
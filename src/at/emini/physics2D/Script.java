@@ -12,6 +12,13 @@
  * Each script consists of simple script elements.
  * Each element can influence the position, velocity or acceleration
  * of the body.
+ * <p>
+ * The elements are compiled into primitive timeline arrays before the script is executed.
+ * A script can be shared by many bodies, each body keeps its own cursor
+ * and can start with a phase offset (see {@link #applyToBody(Body, World, int)}).
+ * Consecutive elements of the same type can be interpolated as keyframes
+ * (see {@link #setInterpolation(int)}).
+ * Position and angle elements move kinematic bodies with their velocity instead of setting the position.
  *
  * @author Alexander Adensamer
  */
@@ -48,6 +55,20 @@
      */
     public static final int ROTATIONAL_ACCELERATION = 6;
 
+    //Interpolation
+    /**
+     * Interpolation none: each element holds its target value.
+     */
+    public static final int INTERPOLATION_STEP      = 0;
+    /**
+     * Linear interpolation towards the next element of the same type.
+     */
+    public static final int INTERPOLATION_LINEAR    = 1;
+    /**
+     * Cubic (Catmull-Rom) interpolation through the elements of the same type.
+     */
+    public static final int INTERPOLATION_CUBIC     = 2;
+
 
     /**
      * Vector containing the scripting elements .
@@ -59,6 +80,62 @@
      */
     protected boolean mRestart = false;
 
+    /**
+     * Flag if the elements are shared with other scripts.
+     * Shared elements are copied before they are modified (copy on write).
+     */
+    private boolean mSharedElements = false;
+
+    /**
+     * The interpolation between consecutive elements.
+     */
+    protected int mInterpolation = INTERPOLATION_STEP;
+
+    /**
+     * Flag if the compiled timeline is up to date.
+     */
+    private boolean mCompiled = false;
+
+    /**
+     * Number of compiled elements.
+     */
+    private int mElementCount;
+
+    /**
+     * Compiled element types.
+     */
+    private int[] mTypes;
+
+    /**
+     * Compiled first target values.
+     */
+    private int[] mTargetsAFX;
+
+    /**
+     * Compiled second target values.
+     */
+    private int[] mTargetsBFX;
+
+    /**
+     * Compiled number of timesteps of the elements.
+     */
+    private int[] mTimeSteps;
+
+    /**
+     * Index of the previous keyframe of the same type (the element itself if there is none).
+     */
+    private int[] mPrevKeys;
+
+    /**
+     * Index of the next keyframe of the same type (the element itself if there is none).
+     */
+    private int[] mNextKeys;
+
+    /**
+     * Number of timesteps until the script repeats (0 if it does not).
+     */
+    private int mCycleSteps;
+
     /**
      * Single action element for a script.
      * Each element has a type and target values, depending on the type.
@@ -140,17 +217,51 @@ public Script(boolean restart)
 
     /**
      * Copy constructor.
+     * The elements are shared with the source until one of the scripts is modified (copy on write).
      * @param script the source script object
      */
     public Script(Script script)
     {
-        mElements = new Vector();
+        //the elements are shared until one of the scripts is modified
+        mElements = script.mElements;
         mRestart = script.mRestart;
+        mInterpolation = script.mInterpolation;
+        mSharedElements = true;
+        script.mSharedElements = true;
+
+        //the compiled arrays are never modified, they are replaced on recompilation
+        if (script.mCompiled)
+        {
+            mElementCount = script.mElementCount;
+            mTypes = script.mTypes;
+            mTargetsAFX = script.mTargetsAFX;
+            mTargetsBFX = script.mTargetsBFX;
+            mTimeSteps = script.mTimeSteps;
+            mPrevKeys = script.mPrevKeys;
+            mNextKeys = script.mNextKeys;
+            mCycleSteps = script.mCycleSteps;
+            mCompiled = true;
+        }
+    }
 
-        for( int i = 0; i < script.mElements.size();i++)
+    /**
+     * Creates own copies of shared script elements.
+     * Has to be called before the elements are modified.
+     */
+    protected final void ensureOwnElements()
+    {
+        mCompiled = false;
+        if (! mSharedElements)
         {
-            addElement( ((ScriptElement) script.mElements.elementAt(i)) );
+            return;
         }
+        Vector elements = new Vector();
+        for( int i = 0; i < mElements.size();i++)
+        {
+            elements.addElement(new ScriptElement((ScriptElement) mElements.elementAt(i)));
+        }
+        mElements = elements;
+        mSharedElements = false;
     }
 
     /**
@@ -164,29 +275,144 @@ public Script copy()
         return script;
     }
 
+    /**
+     * Gets the restart flag.
+     * @return true if the script is restarted after finishing.
+     */
+    public boolean isRestart()
+    {
+        return mRestart;
+    }
+
+    /**
+     * Sets the restart flag.
+     * @param restart the flag, if the script is restarted after finishing.
+     */
+    public void setRestart(boolean restart)
+    {
+        mRestart = restart;
+        mCompiled = false;
+    }
+
+    /**
+     * Gets the interpolation between consecutive elements.
+     * @return the interpolation (INTERPOLATION_STEP, INTERPOLATION_LINEAR or INTERPOLATION_CUBIC).
+     */
+    public int getInterpolation()
+    {
+        return mInterpolation;
+    }
+
+    /**
+     * Sets the interpolation between consecutive elements. <br>
+     * With linear or cubic interpolation an element is a keyframe:
+     * its target value is reached at its first timestep and
+     * the value moves towards the target of the next element during its timesteps.
+     * Only consecutive elements of the same type are interpolated
+     * (with restart, the last element is followed by the first one).
+     * An element followed by an element of another type holds its value.
+     * Angles are interpolated along the shorter direction.
+     * @param interpolation the interpolation (INTERPOLATION_STEP, INTERPOLATION_LINEAR or INTERPOLATION_CUBIC).
+     */
+    public void setInterpolation(int interpolation)
+    {
+        mInterpolation = interpolation;
+    }
+
     /**
      * Applies the script to a body.
      * @param b the body
      * @param w the world managing the scripts
      */
     public void applyToBody(Body b, World w)
+    {
+        applyToBody(b, w, 0);
+    }
+
+    /**
+     * Applies the script to a body with a phase offset.
+     * The body starts as if the script had already been executed for the given number of timesteps.
+     * This allows to share one script among many bodies (e.g. platforms) that move out of phase.
+     * @param b the body
+     * @param w the world managing the scripts
+     * @param phaseSteps the number of timesteps to skip.
+     */
+    public void applyToBody(Body b, World w, int phaseSteps)
     {
         //check if script already applies to body...
 
-        w.mScriptBodies[w.mScriptBodyCount] = b;
+        int scriptIndex = 0;
         for( int i = 0; i < w.mScriptCount; i++ )
         {
             if (w.mScripts[i] == this)
             {
-                w.mScriptIndex[w.mScriptBodyCount] = i;
+                scriptIndex = i;
                 break;
             }
         }
+        int index = w.mScriptBodyCount;
+        w.addScriptBody(scriptIndex, b);
+
+        if (phaseSteps > 0)
+        {
+            skip(index, w, phaseSteps);
+        }
+    }
+
+    /**
+     * Advances the cursor of a body without executing the script.
+     * @param index the execution index (referring to the corresponding body, stored in the world)
+     * @param w the world
+     * @param steps the number of timesteps to skip
+     */
+    private void skip(int index, World w, int steps)
+    {
+        if (! mCompiled)
+        {
+            compile();
+        }
+        int[] timeSteps = mTimeSteps;
+        int elementCount = mElementCount;
+        int element = w.mScriptElementIndex[index];
+        int execution = w.mScriptExecutionIndex[index];
 
-        w.mScriptElementIndex[w.mScriptBodyCount] = 0;
-        w.mScriptExecutionIndex[w.mScriptBodyCount] = 0;
+        //the cursor repeats after a full cycle, starting from the first element
+        if (mCycleSteps > 0 && element == 0 && execution == 0)
+        {
+            steps %= mCycleSteps;
+        }
+
+        while (steps > 0)
+        {
+            if (element < elementCount)
+            {
+                if (timeSteps[element] <= 0)
+                {
+                    break;      //element is executed forever
+                }
+                int remaining = timeSteps[element] + 1 - execution;
+                if (steps < remaining)
+                {
+                    execution += steps;
+                    break;
+                }
+                steps -= remaining;
+                element++;
+                execution = 0;
+            }
+            else if (mRestart)
+            {
+                element = 0;
+                steps--;
+            }
+            else
+            {
+                break;          //finished, the body is removed at the next execution
+            }
+        }
 
-        w.mScriptBodyCount++;
+        w.mScriptElementIndex[index] = element;
+        w.mScriptExecutionIndex[index] = execution;
     }
 
     /**
@@ -198,6 +424,7 @@ public void applyToBody(Body b, World w)
      */
     public void addElement(int type, int target1, int target2, int timeSteps)
     {
+        ensureOwnElements();
         switch(type)
         {
         case POSITION:
@@ -232,9 +459,61 @@ public void addElement(int type, int target1, int timeSteps)
      */
     public void addElement(ScriptElement element)
     {
+        ensureOwnElements();
         mElements.addElement(new ScriptElement(element) );
     }
 
+    /**
+     * Compiles the elements into the timeline arrays.
+     */
+    private void compile()
+    {
+        int elementCount = mElements.size();
+        int[] types = new int[elementCount];
+        int[] targetsAFX = new int[elementCount];
+        int[] targetsBFX = new int[elementCount];
+        int[] timeSteps = new int[elementCount];
+        int[] prevKeys = new int[elementCount];
+        int[] nextKeys = new int[elementCount];
+
+        int cycleSteps = 1;     //the restart takes one timestep
+        for( int i = 0; i < elementCount; i++)
+        {
+            ScriptElement element = (ScriptElement) mElements.elementAt(i);
+            types[i] = element.mType;
+            targetsAFX[i] = element.mTargetAFX;
+            targetsBFX[i] = element.mTargetBFX;
+            timeSteps[i] = element.mTimeSteps;
+
+            if (cycleSteps > 0 && element.mTimeSteps > 0)
+            {
+                cycleSteps += element.mTimeSteps + 1;
+            }
+            else
+            {
+                cycleSteps = 0;
+            }
+        }
+
+        for( int i = 0; i < elementCount; i++)
+        {
+            int prev = i > 0 ? i - 1 : (mRestart ? elementCount - 1 : i);
+            int next = i < elementCount - 1 ? i + 1 : (mRestart ? 0 : i);
+            prevKeys[i] = types[prev] == types[i] ? prev : i;
+            nextKeys[i] = types[next] == types[i] ? next : i;
+        }
+
+        mElementCount = elementCount;
+        mTypes = types;
+        mTargetsAFX = targetsAFX;
+        mTargetsBFX = targetsBFX;
+        mTimeSteps = timeSteps;
+        mPrevKeys = prevKeys;
+        mNextKeys = nextKeys;
+        mCycleSteps = mRestart ? cycleSteps : 0;
+        mCompiled = true;
+    }
+
     /**
      * Executes the script.
      * @param index the execution index (referring to the corresponding body, stored in the world)
@@ -242,23 +521,29 @@ public void addElement(ScriptElement element)
      */
     protected void executeScript(int index, World w)
     {
-        if (w.mScriptElementIndex[index] < mElements.size())
+        if (! mCompiled)
         {
-            ScriptElement currElement = (ScriptElement) mElements.elementAt(w.mScriptElementIndex[index]);
+            compile();
+        }
+        int[] timeSteps = mTimeSteps;
+        int element = w.mScriptElementIndex[index];
+        int execution = w.mScriptExecutionIndex[index];
 
-            if (currElement.mTimeSteps > 0)
+        if (element < mElementCount)
+        {
+            if (timeSteps[element] > 0)
             {
-                w.mScriptExecutionIndex[index]++;
-                if (w.mScriptExecutionIndex[index] > currElement.mTimeSteps)
+                execution++;
+                if (execution > timeSteps[element])
                 {
-                    w.mScriptElementIndex[index]++;
-                    w.mScriptExecutionIndex[index] = 0;
+                    element++;
+                    execution = 0;
                 }
             }
         }
         else if (mRestart)
         {
-            w.mScriptElementIndex[index] = 0;
+            element = 0;
         }
         else
         {
@@ -266,39 +551,104 @@ else if (mRestart)
             w.mScriptBodies[index] = null;
             return;
         }
+        w.mScriptElementIndex[index] = element;
+        w.mScriptExecutionIndex[index] = execution;
 
         //perform script
-        if (w.mScriptElementIndex[index] < mElements.size())
+        if (element < mElementCount)
         {
-            ScriptElement currElement = (ScriptElement)  mElements.elementAt(w.mScriptElementIndex[index]);
             Body body = w.mScriptBodies[index];
+            int targetAFX = mTargetsAFX[element];
+            int targetBFX = mTargetsBFX[element];
 
-            switch (currElement.mType)
+            int next = mNextKeys[element];
+            if (mInterpolation != INTERPOLATION_STEP && next != element && execution > 0)
+            {
+                boolean angle = mTypes[element] == ANGLE;
+                targetAFX = interpolate(element, next, mTargetsAFX, execution, timeSteps[element] + 1, angle);
+                targetBFX = interpolate(element, next, mTargetsBFX, execution, timeSteps[element] + 1, angle);
+            }
+
+            switch (mTypes[element])
             {
             case POSITION:
-                body.mPositionFX.xFX = currElement.mTargetAFX;
-                body.mPositionFX.yFX = currElement.mTargetBFX;
+                if (body.mKinematic)
+                {
+                    //kinematic bodies move to the target, so they carry touching bodies
+                    body.mVelocityFX.assignFX((int) FXUtil.multFX(targetAFX - body.mPositionFX.xFX, w.mInvTimestepFX),
+                                              (int) FXUtil.multFX(targetBFX - body.mPositionFX.yFX, w.mInvTimestepFX));
+                    break;
+                }
+                body.mPositionFX.xFX = targetAFX;
+                body.mPositionFX.yFX = targetBFX;
                 break;
             case VELOCITY:
-                body.mVelocityFX.assignFX(currElement.mTargetAFX, currElement.mTargetBFX);
+                body.mVelocityFX.assignFX(targetAFX, targetBFX);
                 break;
             case ACCELERATION:
-                body.mVelocityFX.addFX(currElement.mTargetAFX, currElement.mTargetBFX, w.getTimestepFX());
+                body.mVelocityFX.addFX(targetAFX, targetBFX, w.getTimestepFX());
                 break;
             case ANGLE:
-                body.setRotation2FX(currElement.mTargetAFX);
+                if (body.mKinematic)
+                {
+                    body.mAngularVelocity2FX = - (int) FXUtil.multFX(FXUtil.angleDiffFX(body.mRotation2FX, targetAFX), w.mInvTimestepFX);
+                    break;
+                }
+                body.setRotation2FX(targetAFX);
                 break;
             case ROTATIONAL_VELOCITY:
-                body.mAngularVelocity2FX = currElement.mTargetAFX;
+                body.mAngularVelocity2FX = targetAFX;
                 break;
             case ROTATIONAL_ACCELERATION:
-                body.mAngularVelocity2FX += (int) (((long)currElement.mTargetAFX * (long) w.getTimestepFX() ) >> FXUtil.DECIMAL);
+                body.mAngularVelocity2FX += (int) (((long)targetAFX * (long) w.getTimestepFX() ) >> FXUtil.DECIMAL);
                 break;
             default: break;
             }
         }
     }
 
+    /**
+     * Interpolates a target value between two keyframes.
+     * @fx
+     * @param element the current keyframe
+     * @param next the next keyframe
+     * @param targetsFX the target values
+     * @param execution the timestep within the current keyframe
+     * @param steps the number of timesteps between the keyframes
+     * @param angle flag if the values are angles
+     * @return the interpolated value
+     */
+    private int interpolate(int element, int next, int[] targetsFX, int execution, int steps, boolean angle)
+    {
+        //values relative to the current keyframe
+        int p1FX = targetsFX[element];
+        int q2FX = angle ? FXUtil.angleDiffFX(p1FX, targetsFX[next]) : targetsFX[next] - p1FX;
+        if (mInterpolation == INTERPOLATION_LINEAR)
+        {
+            return p1FX + (int) (((long) q2FX * execution) / steps);
+        }
+        int tFX = FXUtil.divideFX(execution, steps);
+
+        int prev = mPrevKeys[element];
+        int nextNext = mNextKeys[next];
+        int q0FX = angle ? FXUtil.angleDiffFX(p1FX, targetsFX[prev]) : targetsFX[prev] - p1FX;
+        int q3FX = angle ? q2FX + FXUtil.angleDiffFX(targetsFX[next], targetsFX[nextNext]) : targetsFX[nextNext] - p1FX;
+        if (prev == element)
+        {
+            q0FX = - q2FX;      //no previous keyframe: continue the slope
+        }
+        if (nextNext == next)
+        {
+            q3FX = 2 * q2FX;    //no following keyframe: continue the slope
+        }
+
+        //Catmull-Rom spline
+        int c1FX = q2FX - q0FX;
+        int c2FX = 2 * q0FX + 4 * q2FX - q3FX;
+        int c3FX = - q0FX - 3 * q2FX + q3FX;
+        int valueFX = FXUtil.multFX(FXUtil.multFX(FXUtil.multFX(c3FX, tFX) + c2FX, tFX) + c1FX, tFX);
+        return p1FX + valueFX / 2;
+    }
 
     /**
      * Loads a script from a stream.
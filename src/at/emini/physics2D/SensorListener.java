@@ -0,0 +1,26 @@
+package at.emini.physics2D;
+
+/**
+ * Interface for a sensor listener. <br>
+ * Listener that registers on the world and receives the overlap transitions of all sensor bodies.
+ * A transition is reported once, when a body starts or stops overlapping a sensor.
+ *
+ * @author Alexander Adensamer
+ * @see Body#setSensor(boolean)
+ */
+public interface SensorListener
+{
+    /**
+     * Callback method when a body starts to overlap a sensor.
+     * @param sensor the sensor body.
+     * @param body the body that entered the sensor.
+     */
+    public void sensorEntered(Body sensor, Body body);
+
+    /**
+     * Callback method when a body stops to overlap a sensor.
+     * @param sensor the sensor body.
+     * @param body the body that left the sensor (it might have been removed from the world).
+     */
+    public void sensorExited(Body sensor, Body body);
+}
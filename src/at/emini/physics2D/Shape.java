@@ -216,10 +216,12 @@ public static Shape loadShape( PhysicsFileReader reader, UserData userData)
 
         int verticesCnt = reader.next();
 
+        int[] coordsFX = new int[verticesCnt * 2];     //#FX2F float[] coordsFX = new float[verticesCnt * 2];
+        reader.nextIntsFX(coordsFX, 0, verticesCnt * 2);
         FXVector[] corners = new FXVector[verticesCnt];
         for( int i = 0; i < verticesCnt; i++)
         {
-            corners[i] = reader.nextVector();
+            corners[i] = new FXVector(coordsFX[i * 2], coordsFX[i * 2 + 1]);
         }
 
         Shape shape = new Shape(corners);
@@ -707,11 +709,7 @@ protected final void getVerticesFX(FXVector pos, FXMatrix rotation, FXVector[] v
         if (vertices.length < mVertices.length)
             return;
 
-        for( int i = 0; i < mVertices.length; i++)
-        {
-            rotation.mult(mVertices[i], vertices[i]);
-            vertices[i].add(pos);
-        }
+        rotation.transform(mVertices, mVertices.length, pos, vertices, 0);
     }
 
     /**
@@ -0,0 +1,834 @@
+package at.emini.physics2D;
+
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * A soft body (jelly or cloth) made of point masses connected by springs.
+ * <p>
+ * Unlike bodies connected by {@link Spring} constraints,
+ * the nodes and springs are stored in primitive arrays.
+ * The nodes are moved by verlet integration like particles,
+ * the springs are solved by position projection:
+ * each spring moves its two nodes towards the rest length.
+ * The springs are processed in a fixed number of iterations per step.
+ * <p>
+ * The nodes collide with the bodies and the landscape of the world.
+ * The collision pushes the node out of the body, removes the approaching velocity
+ * and applies the corresponding impulse to the body.
+ *
+ * @author Alexander Adensamer
+ */
+public class SoftBody
+{
+    /**
+     * Initial number of nodes and springs of the arrays.
+     */
+    private static final int INITIAL_SIZE = 16;
+
+    /**
+     * Number of nodes.
+     */
+    protected int mNodeCount = 0;
+
+    /**
+     * X positions of the nodes.
+     */
+    protected int mXFX[] = new int[INITIAL_SIZE];
+    /**
+     * Y positions of the nodes.
+     */
+    protected int mYFX[] = new int[INITIAL_SIZE];
+    /**
+     * Last X positions of the nodes.
+     */
+    protected int mXPrevFX[] = new int[INITIAL_SIZE];
+    /**
+     * Last Y positions of the nodes.
+     */
+    protected int mYPrevFX[] = new int[INITIAL_SIZE];
+    /**
+     * Flags for nodes that are fixed at their position.
+     */
+    protected boolean mPinned[] = new boolean[INITIAL_SIZE];
+
+    /**
+     * Number of springs.
+     */
+    protected int mSpringCount = 0;
+
+    /**
+     * First node of the springs.
+     */
+    protected int mSpringNodes1[] = new int[INITIAL_SIZE];
+    /**
+     * Second node of the springs.
+     */
+    protected int mSpringNodes2[] = new int[INITIAL_SIZE];
+    /**
+     * Rest length of the springs.
+     */
+    protected int mRestLengthsFX[] = new int[INITIAL_SIZE];
+
+    //share of the correction for the first and the second node
+    private int mSpringWeights1FX[] = new int[INITIAL_SIZE];
+    private int mSpringWeights2FX[] = new int[INITIAL_SIZE];
+
+    //behavior parameters
+    private int mNodeMassFX = FXUtil.ONE_FX;
+    private int mStiffnessFX = FXUtil.ONE_FX;
+    private int mIterations = 4;
+    private int mDampingFX = 0;
+    private int mFrictionFX = FXUtil.ONE_FX / 2;
+    private int mGravityEffectFX = FXUtil.ONE_FX;
+
+    /**
+     * Performance switch: avoid complex calculation if not required
+     */
+    boolean mCanCollide = true;
+
+    //bounding box of the nodes
+    int mAABBMinXFX, mAABBMinYFX, mAABBMaxXFX, mAABBMaxYFX;
+
+    /**
+     * Hash of the node state.
+     * Updated when the nodes are integrated.
+     */
+    int mStateHash = 0;
+
+    //Helper vectors used by the collide method
+    private static FXVector M_tmp1 = new FXVector();
+    private static FXVector M_tmp2 = new FXVector();
+    private static FXVector M_tmp3 = new FXVector();
+
+    /**
+     * User data
+     */
+    protected UserData mUserData = null;
+
+    /**
+     * Constructor.
+     * Creates an empty soft body.
+     */
+    public SoftBody()
+    {
+    }
+
+    /**
+     * Copy Constructor.
+     * @param other the soft body to copy
+     */
+    public SoftBody(SoftBody other)
+    {
+        mNodeCount = other.mNodeCount;
+        mXFX = copyOf(other.mXFX);
+        mYFX = copyOf(other.mYFX);
+        mXPrevFX = copyOf(other.mXPrevFX);
+        mYPrevFX = copyOf(other.mYPrevFX);
+        mPinned = new boolean[other.mPinned.length];
+        System.arraycopy(other.mPinned, 0, mPinned, 0, mPinned.length);
+
+        mSpringCount = other.mSpringCount;
+        mSpringNodes1 = copyOf(other.mSpringNodes1);
+        mSpringNodes2 = copyOf(other.mSpringNodes2);
+        mRestLengthsFX = copyOf(other.mRestLengthsFX);
+        mSpringWeights1FX = copyOf(other.mSpringWeights1FX);
+        mSpringWeights2FX = copyOf(other.mSpringWeights2FX);
+
+        mNodeMassFX = other.mNodeMassFX;
+        mStiffnessFX = other.mStiffnessFX;
+        mIterations = other.mIterations;
+        mDampingFX = other.mDampingFX;
+        mFrictionFX = other.mFrictionFX;
+        mGravityEffectFX = other.mGravityEffectFX;
+        mCanCollide = other.mCanCollide;
+
+        mAABBMinXFX = other.mAABBMinXFX;
+        mAABBMinYFX = other.mAABBMinYFX;
+        mAABBMaxXFX = other.mAABBMaxXFX;
+        mAABBMaxYFX = other.mAABBMaxYFX;
+        mStateHash = other.mStateHash;
+
+        if (other.mUserData != null)
+        {
+            mUserData = other.mUserData.copy();
+        }
+    }
+
+    private static int[] copyOf(int[] array)
+    {
+        int[] copy = new int[array.length];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    /**
+     * Copies the soft body.
+     * Performs a deep copy.
+     * @return the new soft body.
+     */
+    public SoftBody copy()
+    {
+        return new SoftBody(this);
+    }
+
+    /**
+     * Creates a rectangular grid of nodes.
+     * Neighboring nodes are connected by springs.
+     * With shear springs (diagonal springs in each cell) the grid keeps its shape (jelly),
+     * without it folds like cloth.
+     * @fx
+     * @param xFX x position of the upper left node
+     * @param yFX y position of the upper left node
+     * @param columns number of nodes per row
+     * @param rows number of rows
+     * @param spacingFX distance of neighboring nodes
+     * @param shear whether shear springs are created
+     * @return the new soft body, the node of column c and row r has the index r * columns + c.
+     */
+    public static SoftBody createGrid(int xFX, int yFX, int columns, int rows, int spacingFX, boolean shear)
+    {
+        SoftBody softBody = new SoftBody();
+        for( int r = 0; r < rows; r++)
+        {
+            for( int c = 0; c < columns; c++)
+            {
+                softBody.addNodeFX(xFX + c * spacingFX, yFX + r * spacingFX);
+            }
+        }
+        for( int r = 0; r < rows; r++)
+        {
+            for( int c = 0; c < columns; c++)
+            {
+                int node = r * columns + c;
+                if (c + 1 < columns)
+                {
+                    softBody.addSpring(node, node + 1);
+                }
+                if (r + 1 < rows)
+                {
+                    softBody.addSpring(node, node + columns);
+                }
+                if (shear && c + 1 < columns && r + 1 < rows)
+                {
+                    softBody.addSpring(node, node + columns + 1);
+                    softBody.addSpring(node + 1, node + columns);
+                }
+            }
+        }
+        return softBody;
+    }
+
+    /**
+     * Adds a node at rest.
+     * @fx
+     * @param xFX x position of the node
+     * @param yFX y position of the node
+     * @return the index of the new node.
+     */
+    public int addNodeFX(int xFX, int yFX)
+    {
+        int index = mNodeCount++;
+        mXFX = World.checkVector(mXFX, index);
+        mYFX = World.checkVector(mYFX, index);
+        mXPrevFX = World.checkVector(mXPrevFX, index);
+        mYPrevFX = World.checkVector(mYPrevFX, index);
+        if (index >= mPinned.length)
+        {
+            boolean[] pinned = new boolean[mXFX.length];
+            System.arraycopy(mPinned, 0, pinned, 0, mPinned.length);
+            mPinned = pinned;
+        }
+        mXFX[index] = mXPrevFX[index] = xFX;
+        mYFX[index] = mYPrevFX[index] = yFX;
+        mPinned[index] = false;
+        if (index == 0)
+        {
+            mAABBMinXFX = mAABBMaxXFX = xFX;
+            mAABBMinYFX = mAABBMaxYFX = yFX;
+        }
+        else
+        {
+            mAABBMinXFX = Math.min(mAABBMinXFX, xFX);
+            mAABBMinYFX = Math.min(mAABBMinYFX, yFX);
+            mAABBMaxXFX = Math.max(mAABBMaxXFX, xFX);
+            mAABBMaxYFX = Math.max(mAABBMaxYFX, yFX);
+        }
+        return index;
+    }
+
+    /**
+     * Adds a spring between two nodes.
+     * The rest length is the current distance of the nodes.
+     * @param node1 index of the first node
+     * @param node2 index of the second node
+     * @return the index of the new spring.
+     */
+    public int addSpring(int node1, int node2)
+    {
+        M_tmp1.assignFX(mXFX[node2] - mXFX[node1], mYFX[node2] - mYFX[node1]);
+        return addSpringFX(node1, node2, M_tmp1.lengthFX());
+    }
+
+    /**
+     * Adds a spring between two nodes.
+     * @fx
+     * @param node1 index of the first node
+     * @param node2 index of the second node
+     * @param restLengthFX the rest length of the spring
+     * @return the index of the new spring.
+     */
+    public int addSpringFX(int node1, int node2, int restLengthFX)
+    {
+        int index = mSpringCount++;
+        mSpringNodes1 = World.checkVector(mSpringNodes1, index);
+        mSpringNodes2 = World.checkVector(mSpringNodes2, index);
+        mRestLengthsFX = World.checkVector(mRestLengthsFX, index);
+        mSpringWeights1FX = World.checkVector(mSpringWeights1FX, index);
+        mSpringWeights2FX = World.checkVector(mSpringWeights2FX, index);
+        mSpringNodes1[index] = node1;
+        mSpringNodes2[index] = node2;
+        mRestLengthsFX[index] = restLengthFX;
+        updateWeights(index);
+        return index;
+    }
+
+    /**
+     * Distributes the correction of a spring to its nodes.
+     * Pinned nodes are not moved, the other node takes the full correction.
+     * @param spring the spring index
+     */
+    private void updateWeights(int spring)
+    {
+        boolean pinned1 = mPinned[mSpringNodes1[spring]];
+        boolean pinned2 = mPinned[mSpringNodes2[spring]];
+        mSpringWeights1FX[spring] = pinned1 ? 0 : (pinned2 ? 2 * FXUtil.ONE_FX : FXUtil.ONE_FX);
+        mSpringWeights2FX[spring] = pinned2 ? 0 : (pinned1 ? 2 * FXUtil.ONE_FX : FXUtil.ONE_FX);
+    }
+
+    /**
+     * Pins a node at its position.
+     * Pinned nodes are not moved by springs, gravity or collisions
+     * (see {@link #setNodePositionFX(int, int, int)}).
+     * @param node the node index
+     * @param pinned whether the node is pinned
+     */
+    public void setNodePinned(int node, boolean pinned)
+    {
+        mPinned[node] = pinned;
+        mXPrevFX[node] = mXFX[node];
+        mYPrevFX[node] = mYFX[node];
+        for( int i = 0; i < mSpringCount; i++)
+        {
+            if (mSpringNodes1[i] == node || mSpringNodes2[i] == node)
+            {
+                updateWeights(i);
+            }
+        }
+    }
+
+    /**
+     * Checks if a node is pinned.
+     * @param node the node index
+     * @return true if the node is pinned.
+     */
+    public boolean isNodePinned(int node)
+    {
+        return mPinned[node];
+    }
+
+    /**
+     * Moves a node.
+     * A pinned node keeps the new position, a free node keeps its velocity.
+     * @fx
+     * @param node the node index
+     * @param xFX the new x position
+     * @param yFX the new y position
+     */
+    public void setNodePositionFX(int node, int xFX, int yFX)
+    {
+        mXPrevFX[node] += xFX - mXFX[node];
+        mYPrevFX[node] += yFX - mYFX[node];
+        mXFX[node] = xFX;
+        mYFX[node] = yFX;
+    }
+
+    /**
+     * Sets the velocity of a node.
+     * The velocity is stored as the distance to the last position.
+     * @fx
+     * @param node the node index
+     * @param velocityXFX the x velocity (per second)
+     * @param velocityYFX the y velocity (per second)
+     * @param timestepFX the timestep of the simulation
+     */
+    public void setNodeVelocityFX(int node, int velocityXFX, int velocityYFX, int timestepFX)
+    {
+        mXPrevFX[node] = mXFX[node] - FXUtil.multFX(velocityXFX, timestepFX);
+        mYPrevFX[node] = mYFX[node] - FXUtil.multFX(velocityYFX, timestepFX);
+    }
+
+    /**
+     * Moves all nodes and solves the springs.
+     * @param gravity the gravity of the world
+     * @param timestepFX the timestep of the simulation
+     */
+    void integrate(FXVector gravity, int timestepFX)
+    {
+        int scaleFX = (int) (((long)timestepFX * (long)timestepFX * (long) mGravityEffectFX) >> FXUtil.DECIMAL2);
+        int gravityXFX = FXUtil.multFX(scaleFX, gravity.xFX);
+        int gravityYFX = FXUtil.multFX(scaleFX, gravity.yFX);
+        int dampingFX = FXUtil.ONE_FX - mDampingFX;
+
+        int[] x = mXFX, y = mYFX, xPrev = mXPrevFX, yPrev = mYPrevFX;
+        boolean[] pinned = mPinned;
+        int nodeCount = mNodeCount;
+        for( int i = 0; i < nodeCount; i++)
+        {
+            int xTmpFX = x[i];
+            int yTmpFX = y[i];
+            if (! pinned[i])
+            {
+                x[i] += FXUtil.multFX(dampingFX, xTmpFX - xPrev[i]) + gravityXFX;
+                y[i] += FXUtil.multFX(dampingFX, yTmpFX - yPrev[i]) + gravityYFX;
+            }
+            xPrev[i] = xTmpFX;
+            yPrev[i] = yTmpFX;
+        }
+
+        int[] nodes1 = mSpringNodes1, nodes2 = mSpringNodes2, restLengths = mRestLengthsFX;
+        int[] weights1 = mSpringWeights1FX, weights2 = mSpringWeights2FX;
+        int springCount = mSpringCount;
+        long stiffnessFX = mStiffnessFX;
+        FXVector delta = M_tmp1;
+        for( int iteration = 0; iteration < mIterations; iteration++)
+        {
+            for( int i = 0; i < springCount; i++)
+            {
+                int node1 = nodes1[i];
+                int node2 = nodes2[i];
+                int dxFX = x[node2] - x[node1];
+                int dyFX = y[node2] - y[node1];
+                delta.assignFX(dxFX, dyFX);
+                int lengthFX = delta.lengthFX();
+                if (lengthFX == 0)
+                {
+                    continue;
+                }
+                //each node takes half of the length error (scaled by the weights)
+                long factorFX = ((((long) (restLengths[i] - lengthFX) << FXUtil.DECIMAL) / (2 * lengthFX)) * stiffnessFX) >> FXUtil.DECIMAL;
+                int correctionXFX = (int) ((dxFX * factorFX) >> FXUtil.DECIMAL);
+                int correctionYFX = (int) ((dyFX * factorFX) >> FXUtil.DECIMAL);
+                x[node1] -= (int) (((long) correctionXFX * weights1[i]) >> FXUtil.DECIMAL);
+                y[node1] -= (int) (((long) correctionYFX * weights1[i]) >> FXUtil.DECIMAL);
+                x[node2] += (int) (((long) correctionXFX * weights2[i]) >> FXUtil.DECIMAL);
+                y[node2] += (int) (((long) correctionYFX * weights2[i]) >> FXUtil.DECIMAL);
+            }
+        }
+
+        int hash = 0;
+        int minXFX = Integer.MAX_VALUE, minYFX = Integer.MAX_VALUE;
+        int maxXFX = Integer.MIN_VALUE, maxYFX = Integer.MIN_VALUE;
+        for( int i = 0; i < nodeCount; i++)
+        {
+            minXFX = Math.min(minXFX, x[i]);
+            minYFX = Math.min(minYFX, y[i]);
+            maxXFX = Math.max(maxXFX, x[i]);
+            maxYFX = Math.max(maxYFX, y[i]);
+            hash = FXUtil.hashStep(hash, x[i]);
+            hash = FXUtil.hashStep(hash, y[i]);
+        }
+        mAABBMinXFX = minXFX;
+        mAABBMinYFX = minYFX;
+        mAABBMaxXFX = maxXFX;
+        mAABBMaxYFX = maxYFX;
+        mStateHash = hash;
+    }
+
+    /**
+     * Resolves the collision of a node.
+     * The node is moved out of the body, the approaching velocity
+     * relative to the body is removed and the tangential velocity is reduced by the friction.
+     * The opposite impulse is applied to the body.
+     * @param penetration the penetration vector (points into the body)
+     * @param node the node index
+     * @param body the body (null for the landscape)
+     * @param timestepFX the timestep of the simulation
+     */
+    void collide(FXVector penetration, int node, Body body, int timestepFX)
+    {
+        if (mPinned[node])
+        {
+            return;
+        }
+        int stepXFX = mXFX[node] - mXPrevFX[node];
+        int stepYFX = mYFX[node] - mYPrevFX[node];
+        mXFX[node] -= penetration.xFX;
+        mYFX[node] -= penetration.yFX;
+
+        FXVector normal = M_tmp1;
+        normal.assignFX(- penetration.xFX, - penetration.yFX);
+        normal.normalize();
+
+        //movement relative to the body surface
+        FXVector relative = M_tmp2;
+        relative.assignFX(stepXFX, stepYFX);
+        if (body != null)
+        {
+            M_tmp3.assignFX(mXFX[node] - body.mPositionFX.xFX, mYFX[node] - body.mPositionFX.yFX);
+            body.getVelocity(M_tmp3, M_tmp2);
+            M_tmp2.multFX(timestepFX);
+            relative.assignFX(stepXFX - M_tmp2.xFX, stepYFX - M_tmp2.yFX);
+        }
+        long normalStepFX = relative.dotFX(normal);
+        int deltaXFX = 0, deltaYFX = 0;
+        if (normalStepFX < 0)
+        {
+            int normalXFX = (int) ((normalStepFX * normal.xFX) >> FXUtil.DECIMAL);
+            int normalYFX = (int) ((normalStepFX * normal.yFX) >> FXUtil.DECIMAL);
+            deltaXFX = - normalXFX - FXUtil.multFX(relative.xFX - normalXFX, mFrictionFX);
+            deltaYFX = - normalYFX - FXUtil.multFX(relative.yFX - normalYFX, mFrictionFX);
+        }
+        mXPrevFX[node] = mXFX[node] - stepXFX - deltaXFX;
+        mYPrevFX[node] = mYFX[node] - stepYFX - deltaYFX;
+
+        if (body != null && (deltaXFX != 0 || deltaYFX != 0))
+        {
+            //momentum change of the node, applied in opposite direction to the body
+            M_tmp2.assignFX((int) (- ((long) mNodeMassFX * deltaXFX) / timestepFX),
+                            (int) (- ((long) mNodeMassFX * deltaYFX) / timestepFX));
+            body.applyMomentumAt(M_tmp2, M_tmp3);
+        }
+    }
+
+    /**
+     * Restores the node positions of another soft body with the same structure.
+     * @param other the soft body to copy the state from
+     */
+    void restoreState(SoftBody other)
+    {
+        System.arraycopy(other.mXFX, 0, mXFX, 0, mNodeCount);
+        System.arraycopy(other.mYFX, 0, mYFX, 0, mNodeCount);
+        System.arraycopy(other.mXPrevFX, 0, mXPrevFX, 0, mNodeCount);
+        System.arraycopy(other.mYPrevFX, 0, mYPrevFX, 0, mNodeCount);
+        mAABBMinXFX = other.mAABBMinXFX;
+        mAABBMinYFX = other.mAABBMinYFX;
+        mAABBMaxXFX = other.mAABBMaxXFX;
+        mAABBMaxYFX = other.mAABBMaxYFX;
+        mStateHash = other.mStateHash;
+    }
+
+    /**
+     * Gets the number of values written by {@link #storeState(int[], int)}.
+     * @return the size of the state.
+     */
+    final int getStateSize()
+    {
+        return mNodeCount * 4 + 5;
+    }
+
+    /**
+     * Writes the node positions (current and last) into an array.
+     * @param stateFX the target array
+     * @param offset the start index in the array ({@link #getStateSize()} values are written)
+     */
+    final void storeState(int[] stateFX, int offset)
+    {
+        int count = mNodeCount;
+        System.arraycopy(mXFX, 0, stateFX, offset, count);
+        System.arraycopy(mYFX, 0, stateFX, offset + count, count);
+        System.arraycopy(mXPrevFX, 0, stateFX, offset + count * 2, count);
+        System.arraycopy(mYPrevFX, 0, stateFX, offset + count * 3, count);
+        offset += count * 4;
+        stateFX[offset    ] = mAABBMinXFX;
+        stateFX[offset + 1] = mAABBMinYFX;
+        stateFX[offset + 2] = mAABBMaxXFX;
+        stateFX[offset + 3] = mAABBMaxYFX;
+        stateFX[offset + 4] = mStateHash;
+    }
+
+    /**
+     * Restores the node positions from an array.
+     * @param stateFX the source array, filled by {@link #storeState(int[], int)}
+     * @param offset the start index in the array
+     */
+    final void restoreState(int[] stateFX, int offset)
+    {
+        int count = mNodeCount;
+        System.arraycopy(stateFX, offset, mXFX, 0, count);
+        System.arraycopy(stateFX, offset + count, mYFX, 0, count);
+        System.arraycopy(stateFX, offset + count * 2, mXPrevFX, 0, count);
+        System.arraycopy(stateFX, offset + count * 3, mYPrevFX, 0, count);
+        offset += count * 4;
+        mAABBMinXFX = stateFX[offset    ];
+        mAABBMinYFX = stateFX[offset + 1];
+        mAABBMaxXFX = stateFX[offset + 2];
+        mAABBMaxYFX = stateFX[offset + 3];
+        mStateHash  = stateFX[offset + 4];
+    }
+
+    /**
+     * Gets the number of nodes.
+     * @return the number of nodes.
+     */
+    public int getNodeCount()
+    {
+        return mNodeCount;
+    }
+
+    /**
+     * Gets the number of springs.
+     * @return the number of springs.
+     */
+    public int getSpringCount()
+    {
+        return mSpringCount;
+    }
+
+    /**
+     * Gets the x positions of the nodes.
+     * Note: The array might be longer than the node count (use {@link #getNodeCount()}).
+     * @fx
+     * @return the array of x positions.
+     */
+    public int[] getXPosFX()
+    {
+        return mXFX;
+    }
+
+    /**
+     * Gets the y positions of the nodes.
+     * Note: The array might be longer than the node count (use {@link #getNodeCount()}).
+     * @fx
+     * @return the array of y positions.
+     */
+    public int[] getYPosFX()
+    {
+        return mYFX;
+    }
+
+    /**
+     * Gets the x position of a node.
+     * @fx
+     * @param node the node index
+     * @return the x position of the node.
+     */
+    public int getXPosFX(int node)
+    {
+        return mXFX[node];
+    }
+
+    /**
+     * Gets the y position of a node.
+     * @fx
+     * @param node the node index
+     * @return the y position of the node.
+     */
+    public int getYPosFX(int node)
+    {
+        return mYFX[node];
+    }
+
+    /**
+     * Gets the first node of a spring.
+     * @param spring the spring index
+     * @return the index of the first node.
+     */
+    public int getSpringNode1(int spring)
+    {
+        return mSpringNodes1[spring];
+    }
+
+    /**
+     * Gets the second node of a spring.
+     * @param spring the spring index
+     * @return the index of the second node.
+     */
+    public int getSpringNode2(int spring)
+    {
+        return mSpringNodes2[spring];
+    }
+
+    /**
+     * Gets the rest length of a spring.
+     * @fx
+     * @param spring the spring index
+     * @return the rest length.
+     */
+    public int getRestLengthFX(int spring)
+    {
+        return mRestLengthsFX[spring];
+    }
+
+    /**
+     * Gets the mass of each node.
+     * @fx
+     * @return the node mass.
+     */
+    public int getNodeMassFX()
+    {
+        return mNodeMassFX;
+    }
+
+    /**
+     * Sets the mass of each node.
+     * The mass determines the impulse transferred to bodies on collision.
+     * @fx
+     * @param nodeMassFX the node mass.
+     */
+    public void setNodeMassFX(int nodeMassFX)
+    {
+        mNodeMassFX = nodeMassFX;
+    }
+
+    /**
+     * Gets the stiffness of the springs.
+     * @fx
+     * @return the stiffness (0: no correction, 1: full correction per iteration).
+     */
+    public int getStiffnessFX()
+    {
+        return mStiffnessFX;
+    }
+
+    /**
+     * Sets the stiffness of the springs.
+     * This is the part of the length error that is corrected per iteration.
+     * @fx
+     * @param stiffnessFX the stiffness (between 0 and 1).
+     */
+    public void setStiffnessFX(int stiffnessFX)
+    {
+        mStiffnessFX = stiffnessFX;
+    }
+
+    /**
+     * Gets the number of spring iterations per step.
+     * @return the number of iterations.
+     */
+    public int getIterations()
+    {
+        return mIterations;
+    }
+
+    /**
+     * Sets the number of spring iterations per step.
+     * More iterations make the soft body stiffer.
+     * @param iterations the number of iterations.
+     */
+    public void setIterations(int iterations)
+    {
+        mIterations = iterations;
+    }
+
+    /**
+     * Gets the damping of the node movement.
+     * @fx
+     * @return the damping (0: no damping, 1: the nodes stop every step).
+     */
+    public int getDampingFX()
+    {
+        return mDampingFX;
+    }
+
+    /**
+     * Sets the damping of the node movement.
+     * This is the part of the node velocity that is removed per step.
+     * @fx
+     * @param dampingFX the damping (between 0 and 1).
+     */
+    public void setDampingFX(int dampingFX)
+    {
+        mDampingFX = dampingFX;
+    }
+
+    /**
+     * Gets the friction of the nodes on bodies and the landscape.
+     * @fx
+     * @return the friction (0: no friction, 1: the nodes stick to the surface).
+     */
+    public int getFrictionFX()
+    {
+        return mFrictionFX;
+    }
+
+    /**
+     * Sets the friction of the nodes on bodies and the landscape.
+     * This is the part of the tangential movement of a colliding node that is removed.
+     * @fx
+     * @param frictionFX the friction (between 0 and 1).
+     */
+    public void setFrictionFX(int frictionFX)
+    {
+        mFrictionFX = frictionFX;
+    }
+
+    /**
+     * Gets the effect of the world gravity on the nodes.
+     * @fx
+     * @return the gravity factor (1: full gravity).
+     */
+    public int getGravityEffectFX()
+    {
+        return mGravityEffectFX;
+    }
+
+    /**
+     * Sets the effect of the world gravity on the nodes.
+     * The gravity of the world is scaled by this factor.
+     * @fx
+     * @param gravityEffectFX the gravity factor (1: full gravity, 0: no gravity, negative: the nodes rise).
+     */
+    public void setGravityEffectFX(int gravityEffectFX)
+    {
+        mGravityEffectFX = gravityEffectFX;
+    }
+
+    /**
+     * Checks whether the nodes collide with bodies and the landscape.
+     * @return true if the nodes collide.
+     */
+    public boolean canCollide()
+    {
+        return mCanCollide;
+    }
+
+    /**
+     * Sets whether the nodes collide with bodies and the landscape.
+     * Soft bodies that do not collide are cheaper to simulate.
+     * @param canCollide true if the nodes collide.
+     */
+    public void setCanCollide(boolean canCollide)
+    {
+        mCanCollide = canCollide;
+    }
+
+    /**
+     * Gets the hash of the node state.
+     * The hash covers the positions of all nodes
+     * and is updated when the nodes are integrated.
+     * @return the state hash.
+     */
+    public int stateHash()
+    {
+        return mStateHash;
+    }
+
+    /**
+     * Get user data.
+     * @return the user data.
+     */
+    public UserData getUserData()
+    {
+        return mUserData;
+    }
+
+    /**
+     * Set User data
+     * @param userData the user data
+     */
+    public void setUserData(UserData userData)
+    {
+        this.mUserData = userData;
+    }
+}
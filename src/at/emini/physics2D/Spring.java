@@ -272,6 +272,50 @@ public void getPoint2(FXVector target)
         mBody2.getAbsoluePoint(mPoint2, target);
     }
 
+    /**
+     * Gets the x coordinate of the absolute position of point 1.
+     * @fx
+     * @return the x coordinate of point 1
+     */
+    public int getPoint1XFX()
+    {
+        mBody1.getAbsoluePoint(mPoint1, M_temp1);
+        return M_temp1.xFX;
+    }
+
+    /**
+     * Gets the y coordinate of the absolute position of point 1.
+     * @fx
+     * @return the y coordinate of point 1
+     */
+    public int getPoint1YFX()
+    {
+        mBody1.getAbsoluePoint(mPoint1, M_temp1);
+        return M_temp1.yFX;
+    }
+
+    /**
+     * Gets the x coordinate of the absolute position of point 2.
+     * @fx
+     * @return the x coordinate of point 2
+     */
+    public int getPoint2XFX()
+    {
+        mBody2.getAbsoluePoint(mPoint2, M_temp2);
+        return M_temp2.xFX;
+    }
+
+    /**
+     * Gets the y coordinate of the absolute position of point 2.
+     * @fx
+     * @return the y coordinate of point 2
+     */
+    public int getPoint2YFX()
+    {
+        mBody2.getAbsoluePoint(mPoint2, M_temp2);
+        return M_temp2.yFX;
+    }
+
     /**
      * Gets the relative position of point 1.
      * @return the point 1 relative to body 1
@@ -0,0 +1,211 @@
+package at.emini.physics2D;
+
+/**
+ * Double buffer for the simulation results.
+ * <p>
+ * If a buffer is set (see {@link World#setTransformBuffer(TransformBuffer)}),
+ * the world writes the state of all awake bodies and all particles into the back frame
+ * at the end of each step and then swaps the frames.
+ * Renderers or network encoders on other threads read the front frame ({@link #getFront()})
+ * without locking while the next step is computed.
+ * <p>
+ * The front frame is overwritten two steps later.
+ * A reader has to finish within one step. <br>
+ * Comparing {@link TransformFrame#getTick()} before and after reading the front frame
+ * detects most overwrites, but the Java memory model does not order the reads of the data
+ * before the second read of the tick, so a torn frame can pass the check.
+ * Readers that need a consistent frame copy it with {@link #copyFront(TransformFrame)}.
+ *
+ * @author Alexander Adensamer
+ */
+public class TransformBuffer
+{
+    /**
+     * Number of ints per body.
+     */
+    public static final int BODY_STRIDE = 7;
+    /**
+     * Offset of the body id.
+     */
+    public static final int BODY_ID = 0;
+    /**
+     * Offset of the x position (FX).
+     */
+    public static final int BODY_X = 1;
+    /**
+     * Offset of the y position (FX).
+     */
+    public static final int BODY_Y = 2;
+    /**
+     * Offset of the rotation (2FX).
+     */
+    public static final int BODY_ROTATION = 3;
+    /**
+     * Offset of the x velocity (FX).
+     */
+    public static final int BODY_VX = 4;
+    /**
+     * Offset of the y velocity (FX).
+     */
+    public static final int BODY_VY = 5;
+    /**
+     * Offset of the flags.
+     */
+    public static final int BODY_FLAGS = 6;
+
+    /**
+     * Flag: the body is dynamic.
+     */
+    public static final int FLAG_DYNAMIC = 1;
+    /**
+     * Flag: the body is a sensor.
+     */
+    public static final int FLAG_SENSOR = 2;
+    /**
+     * Flag: the body is a sensor and touches another body.
+     */
+    public static final int FLAG_SENSOR_ACTIVE = 4;
+
+    /**
+     * Number of ints per particle (x, y, lifetime).
+     */
+    public static final int PARTICLE_STRIDE = 3;
+
+    private TransformFrame[] mFrames = new TransformFrame[2];
+    private volatile TransformFrame mFront = null;
+    private int mTick = 0;
+
+    /**
+     * Constructor.
+     */
+    public TransformBuffer()
+    {
+        mFrames[0] = new TransformFrame();
+        mFrames[1] = new TransformFrame();
+    }
+
+    /**
+     * Gets the last complete frame.
+     * @return the front frame, null if no step was published yet.
+     */
+    public TransformFrame getFront()
+    {
+        return mFront;
+    }
+
+    /**
+     * Copies the front frame.
+     * The frame is copied without blocking the simulation.
+     * The tick of the frame is checked under the lock of the buffer before and after the copy,
+     * which orders the reads of the data against the next write of the frame.
+     * @param target the frame to copy to (see {@link TransformFrame#TransformFrame()})
+     * @return true if a consistent frame was copied,
+     * false if no step was published yet or the frame was overwritten while copying (try again).
+     */
+    public boolean copyFront(TransformFrame target)
+    {
+        TransformFrame frame;
+        int tick;
+        synchronized (this)
+        {
+            frame = mFront;
+            if (frame == null)
+            {
+                return false;
+            }
+            tick = frame.mTick;
+        }
+
+        int[] bodyData = frame.mBodyData;
+        int bodyCount = Math.min(frame.mBodyCount, bodyData.length / BODY_STRIDE);
+        target.mBodyData = World.checkVector(target.mBodyData, bodyCount * BODY_STRIDE);
+        System.arraycopy(bodyData, 0, target.mBodyData, 0, bodyCount * BODY_STRIDE);
+        target.mBodyCount = bodyCount;
+
+        int[] particleData = frame.mParticleData;
+        int particleCount = Math.min(frame.mParticleCount, particleData.length / PARTICLE_STRIDE);
+        target.mParticleData = World.checkVector(target.mParticleData, particleCount * PARTICLE_STRIDE);
+        System.arraycopy(particleData, 0, target.mParticleData, 0, particleCount * PARTICLE_STRIDE);
+        target.mParticleCount = particleCount;
+
+        int[] emitterStarts = frame.mEmitterStarts;
+        int emitterCount = Math.min(frame.mEmitterCount, emitterStarts.length - 1);
+        target.mEmitterStarts = World.checkVector(target.mEmitterStarts, emitterCount + 1);
+        System.arraycopy(emitterStarts, 0, target.mEmitterStarts, 0, emitterCount + 1);
+        target.mEmitterCount = emitterCount;
+
+        synchronized (this)
+        {
+            if (frame.mTick != tick)
+            {
+                return false;
+            }
+        }
+        target.mTick = tick;
+        return true;
+    }
+
+    /**
+     * Writes the state of the world into the back frame and swaps the frames.
+     * @param world the world
+     */
+    void publish(World world)
+    {
+        TransformFrame frame = mFront == mFrames[0] ? mFrames[1] : mFrames[0];
+        synchronized (this)
+        {
+            frame.mTick = -1;
+        }
+
+        //bodies
+        Body[] bodies = world.mBodies;
+        int[] data = frame.mBodyData;
+        int count = 0;
+        for( int i = 0; i < world.mBodyCount; i++)
+        {
+            Body body = bodies[i];
+            if (body.mIsResting)
+            {
+                continue;
+            }
+            int offset = count * BODY_STRIDE;
+            data = World.checkVector(data, offset + BODY_STRIDE - 1);
+            data[offset + BODY_ID]       = body.mId;
+            data[offset + BODY_X]        = body.mPositionFX.xFX;
+            data[offset + BODY_Y]        = body.mPositionFX.yFX;
+            data[offset + BODY_ROTATION] = body.mRotation2FX;
+            data[offset + BODY_VX]       = body.mVelocityFX.xFX;
+            data[offset + BODY_VY]       = body.mVelocityFX.yFX;
+            data[offset + BODY_FLAGS]    = (body.mDynamic ? FLAG_DYNAMIC : 0)
+                                         | (body.mSensor ? FLAG_SENSOR : 0)
+                                         | (body.mSensorActive ? FLAG_SENSOR_ACTIVE : 0);
+            count++;
+        }
+        frame.mBodyData = data;
+        frame.mBodyCount = count;
+
+        //particles
+        count = 0;
+        frame.mEmitterCount = 0;
+        //#NoBasic /*
+        int emitterCount = world.mParticles.size();
+        frame.mEmitterStarts = World.checkVector(frame.mEmitterStarts, emitterCount);
+        for( int i = 0; i < emitterCount; i++)
+        {
+            ParticleEmitter emitter = (ParticleEmitter) world.mParticles.elementAt(i);
+            frame.mParticleData = World.checkVector(frame.mParticleData, (count + emitter.mMaxParticleCount) * PARTICLE_STRIDE);
+            frame.mEmitterStarts[i] = count;
+            count += emitter.exportParticles(frame.mParticleData, count * PARTICLE_STRIDE);
+        }
+        frame.mEmitterStarts[emitterCount] = count;
+        frame.mEmitterCount = emitterCount;
+        //#NoBasic */
+        frame.mParticleCount = count;
+
+        synchronized (this)
+        {
+            frame.mTick = ++mTick;
+            mFront = frame;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package at.emini.physics2D;
+
+/**
+ * The state of the bodies and particles after one simulation step.
+ * <p>
+ * The frames are filled by the {@link TransformBuffer} at the end of {@link World#tick()}.
+ * The body data contains {@link TransformBuffer#BODY_STRIDE} ints per body
+ * (see {@link TransformBuffer#BODY_ID} and the following offsets),
+ * the particle data {@link TransformBuffer#PARTICLE_STRIDE} ints per particle
+ * (see {@link ParticleEmitter#exportParticles(int[], int)}).
+ * The particles of all emitters are stored one emitter after the other.
+ * <p>
+ * The arrays can be larger than the data, only the first
+ * <code>getBodyCount() * BODY_STRIDE</code> (<code>getParticleCount() * PARTICLE_STRIDE</code>) ints are valid.
+ *
+ * @author Alexander Adensamer
+ */
+public class TransformFrame
+{
+    /**
+     * The number of the step the frame was written in.
+     * -1 while the frame is written.
+     */
+    volatile int mTick = -1;
+
+    int[] mBodyData = new int[TransformBuffer.BODY_STRIDE * 16];
+    int mBodyCount = 0;
+
+    int[] mParticleData = new int[TransformBuffer.PARTICLE_STRIDE * 64];
+    int mParticleCount = 0;
+
+    //first particle of each emitter (and the end of the last)
+    int[] mEmitterStarts = new int[4];
+    int mEmitterCount = 0;
+
+    /**
+     * Constructor.
+     * Creates an empty frame, e.g. as the target of {@link TransformBuffer#copyFront(TransformFrame)}.
+     */
+    public TransformFrame()
+    {
+    }
+
+    /**
+     * Gets the number of the step of the frame.
+     * A reader can compare the values before and after reading the frame:
+     * if it changed, the frame was overwritten while reading
+     * (see {@link TransformBuffer} for the limits of this check).
+     * @return the step number, -1 if the frame is being written.
+     */
+    public int getTick()
+    {
+        return mTick;
+    }
+
+    /**
+     * Gets the number of bodies in the frame.
+     * @return the body count.
+     */
+    public int getBodyCount()
+    {
+        return mBodyCount;
+    }
+
+    /**
+     * Gets the packed body data.
+     * @return the body data.
+     */
+    public int[] getBodyData()
+    {
+        return mBodyData;
+    }
+
+    /**
+     * Gets the number of particles of all emitters in the frame.
+     * @return the particle count.
+     */
+    public int getParticleCount()
+    {
+        return mParticleCount;
+    }
+
+    /**
+     * Gets the packed particle data.
+     * @return the particle data.
+     */
+    public int[] getParticleData()
+    {
+        return mParticleData;
+    }
+
+    /**
+     * Gets the number of particle emitters in the frame.
+     * @return the emitter count.
+     */
+    public int getEmitterCount()
+    {
+        return mEmitterCount;
+    }
+
+    /**
+     * Gets the index of the first particle of an emitter.
+     * @param emitter the index of the emitter in the world
+     * @return the index of the first particle.
+     */
+    public int getEmitterStart(int emitter)
+    {
+        return mEmitterStarts[emitter];
+    }
+
+    /**
+     * Gets the number of particles of an emitter.
+     * @param emitter the index of the emitter in the world
+     * @return the particle count of the emitter.
+     */
+    public int getEmitterParticleCount(int emitter)
+    {
+        return mEmitterStarts[emitter + 1] - mEmitterStarts[emitter];
+    }
+}
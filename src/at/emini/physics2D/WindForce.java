@@ -0,0 +1,51 @@
+package at.emini.physics2D;
+
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * A constant force within a rectangular area (e.g. a wind zone).
+ * The force is applied to the center of each body overlapping the area.
+ *
+ * @author Alexander Adensamer
+ */
+public class WindForce extends AreaForce
+{
+    /**
+     * The force applied to the bodies.
+     */
+    private FXVector mForce;
+
+    /**
+     * Constructor.
+     * @fx
+     * @param minXFX minimum x coordinate of the area
+     * @param minYFX minimum y coordinate of the area
+     * @param maxXFX maximum x coordinate of the area
+     * @param maxYFX maximum y coordinate of the area
+     * @param force the force applied to the bodies within the area
+     */
+    public WindForce(int minXFX, int minYFX, int maxXFX, int maxYFX, FXVector force)
+    {
+        super(minXFX, minYFX, maxXFX, maxYFX);
+        mForce = new FXVector(force);
+    }
+
+    /**
+     * Gets the force.
+     * @return the force applied to the bodies within the area.
+     */
+    public FXVector getForce()
+    {
+        return mForce;
+    }
+
+    public void applyForce(Body body, int timestepFX)
+    {
+        body.applyForce(mForce, timestepFX);
+    }
+
+    public ExternalForce copy(Body[] bodyMapping)
+    {
+        return new WindForce(mMinXFX, mMinYFX, mMaxXFX, mMaxYFX, mForce);
+    }
+}
@@ -50,6 +50,7 @@
     static final int VERSION_8  =   0x0800;   //version Index 8: userData particle emitter, world, events and constraints
     static final int VERSION_9  =   0x0900;   //version Index 9: multishapes
     static final int VERSION_10 =   0x0A00;   //version Index 10: rotational damping
+    static final int VERSION_11 =   0x0B00;   //version Index 11: length prefixed sections
 
     //Saving/Loading section indices
     static final int SHAPES_IDX       = 1;
@@ -66,6 +67,11 @@
      */
     private PhysicsEventListener mListener;                              //#NoBasic
 
+    /**
+     * Registered sensor listener
+     */
+    private SensorListener mSensorListener;
+
     //physical parameters
     /**
      * Gravity (FX), in pixel/sec^2
@@ -120,6 +126,54 @@
      */
     boolean mDynamicConstraintIteration = false;
 
+    /**
+     * Determines whether the contacts are ordered in colour batches before they are solved.
+     */
+    boolean mContactColoring = false;
+
+    /**
+     * Maximum number of contact colours (including the uncoloured range).
+     * Contacts that do not fit into one of the other colours are not coloured,
+     * they are solved sequentially after the colours.
+     */
+    static final int M_CONTACT_COLORS = 32;
+
+    /**
+     * Number of independent contact colours of the current step.
+     */
+    int mContactColorCount = 0;
+
+    /**
+     * Start index of each contact colour in the contact array.
+     * The entry after the last colour is the start of the uncoloured contacts.
+     */
+    int[] mContactColorStarts = new int[M_CONTACT_COLORS + 1];
+
+    /**
+     * Colour of each contact (temporary storage of the colouring).
+     */
+    private int[] mContactColors = new int[M_INITIAL_MAX_CONTACTS];
+
+    /**
+     * Temporary storage for the reordering of the contacts.
+     */
+    private Contact[] mColoredContacts = new Contact[M_INITIAL_MAX_CONTACTS];
+
+    /**
+     * Solver for the velocity iterations of the contacts.
+     */
+    private ContactSolver mContactSolver = new ContactSolver();
+
+    /**
+     * Determines whether joint chains are solved directly before the iterations.
+     */
+    boolean mJointChainSolving = false;
+
+    /**
+     * Direct solver for the joint chains.
+     */
+    private JointChainSolver mJointChainSolver = new JointChainSolver();           //#NoEco
+
 
 
     //stabilisation parameters
@@ -159,7 +213,15 @@
     static final int M_COLLISION_collinearityDeltaFX = (FXUtil.ONE_FX * 16 / 4); //factor for determining collinearity for two faces
     static final int M_COLLISION_collinearityThresholdFX = FXUtil.ONE_FX + (FXUtil.ONE_FX / 16);
 
-    public static final int M_SHAPE_MAX_VERTICES = 12;
+    /**
+     * Maximum number of vertices of a polygon shape (limited by the file format).
+     */
+    public static final int M_SHAPE_MAX_VERTICES = 255;
+    /**
+     * Polygons with more vertices are not tested on all their axes,
+     * the axis of least penetration is found with GJK/EPA instead.
+     */
+    public static final int M_SHAPE_SAT_MAX_VERTICES = 12;
     static final int M_SHAPE_UniqueAxesFactorFX = FXUtil.ONE_FX - (FXUtil.ONE_FX / 512);       //factor for determining the relevant axes for projecting at a shape
 
     static final int M_RESTING_THRESHOLD = - (1 << 0);
@@ -170,10 +232,11 @@
     static final int M_INITIAL_SCRIPT_MAX_BODIES = 32;
 
     static final int M_BODY_MAX_CONTACTS = 8;
+    static final int M_BODY_SEPARATION_CACHE_SIZE = 8;    //power of 2
     static final int M_LANDSCAPE_INITIAL_MAX_CONTACTS = 32;
 
     /**
-     * increment for static array resizing
+     * minimum increment for static array resizing (arrays grow geometrically)
      */
     private static final int M_WORLD_ARRAY_INCREMENT = 32;
 
@@ -190,7 +253,12 @@
      */
     static final int M_INITIAL_MAX_CONTACTS = 128;
     /**
-     * Maximum size of contact storage vector
+     * Initial size of the active sensor list
+     */
+    static final int M_INITIAL_MAX_SENSORS = 8;
+
+    /**
+     * Initial size of the contact pool
      */
     static final int M_INITIAL_MAX_STORAGE_CONTACTS = 32;
     /**
@@ -212,7 +280,37 @@
      * helper data structure for optimized collision
      * sweep and prune
      */
-    private Body[] mCurrentOpen = new Body[M_INITIAL_MAX_BODIES];
+    private LayerBroadphase mBroadphase = new LayerBroadphase();
+
+    /**
+     * Collision filter of the layers.
+     * Bit <code>l2</code> of <code>mLayerFilters[l1]</code> is set if the layers l1 and l2 do not collide.
+     * By default bodies that share a layer do not collide (see {@link Body#addCollisionLayer(int)}).
+     */
+    int[] mLayerFilters = createDefaultLayerFilters();
+
+    /**
+     * helper data structures for the particle collision
+     */
+    private int[] mParticleCandidates = new int[16];                                 //#NoBasic
+    private int[] mParticleNormalsFX = new int[32];                                  //#NoBasic
+    private FXVector mParticleNormal = new FXVector();                               //#NoBasic
+
+    /**
+     * buffer the results are published to after each step (null: not used)
+     */
+    private TransformBuffer mTransformBuffer = null;
+
+    /**
+     * helper data structure for the parts of multishapes
+     * (indices of the parts with overlapping AABBs)
+     */
+    private int[] mParts = new int[16];
+
+    /**
+     * temporary position for queries
+     */
+    private FXVector mQueryPosition = new FXVector();
 
     /**
      * the start of the computation area (along the x-axis)
@@ -226,7 +324,7 @@
     //World bodies (physical and constraints)
     int mBodyCount = 0;
     Body[] mBodies = new Body[M_INITIAL_MAX_BODIES];   //sorted bodies
-    private int mCurrentBodyId = 0;                    //id for next body insertion
+    int mCurrentBodyId = 0;                            //id for next body insertion
 
     int mBodyStartIndex = 0;
     int mBodyEndIndex = mBodyCount;
@@ -237,14 +335,23 @@
     //Contact storage
     int mContactCount = 0;
     Contact[] mContacts = new Contact[M_INITIAL_MAX_CONTACTS];
-    static int mContactStorageCount = 0;
-    static Contact[] mContactStorage = new Contact[M_INITIAL_MAX_STORAGE_CONTACTS];
+
+    //Sensors with overlaps in the current or previous step
+    int mActiveSensorCount = 0;
+    Body[] mActiveSensors = new Body[M_INITIAL_MAX_SENSORS];
+
+    //Contact pool: unused contacts for reuse, grows up to the high water mark
+    int mContactPoolCount = 0;
+    Contact[] mContactPool = new Contact[M_INITIAL_MAX_STORAGE_CONTACTS];
     int mConstraintCount = 0;                                                        //#NoEco
     Constraint[] mConstraints = new Constraint[M_INITIAL_MAX_CONSTRAINTS];           //#NoEco
 
     //particles
     protected Vector mParticles = new Vector();                                      //#NoBasic
 
+    //soft bodies
+    protected Vector mSoftBodies = new Vector();                                     //#NoBasic
+
     //external forces
     protected Vector mForces = new Vector();                                         //#NoBasic
 
@@ -258,6 +365,11 @@
     int[] mScriptExecutionIndex = new int[World.M_INITIAL_SCRIPT_MAX_BODIES];          //#NoBasic
     int mScriptBodyCount = 0;                                                        //#NoBasic
 
+    /**
+     * Hash of the world state after the last step.
+     */
+    int mStateHash = 0;
+
     /**
      * Iteration counter
      */
@@ -310,10 +422,11 @@ public World(World world)
         mInvTimestepFX = world.mInvTimestepFX;
         mConstraintIterations = world.mConstraintIterations;
         mPositionConstraintIterations = world.mPositionConstraintIterations;
+        mContactColoring = world.mContactColoring;
+        mJointChainSolving = world.mJointChainSolving;
+        System.arraycopy(world.mLayerFilters, 0, mLayerFilters, 0, mLayerFilters.length);
 
-        addWorld(world);
-
-        mEventSet = world.mEventSet.copy();           //#NoBasic
+        addWorld(world, false);        //the landscape is shared below
 
         //#NoEco /*
         if (world.mLandscape != null)
@@ -373,7 +486,7 @@ public static World loadWorld(PhysicsFileReader reader, UserData userData)
     {
         int version = reader.getVersion();
         if ( ((version & MASK_VERSION) < VERSION_1) ||
-             ((version & MASK_VERSION) > VERSION_10) )
+             ((version & MASK_VERSION) > VERSION_11) )
         {
             return null;
         }
@@ -382,6 +495,7 @@ public static World loadWorld(PhysicsFileReader reader, UserData userData)
         Vector bodies = new Vector();
 
         int nextItem = 0;
+        int sectionEnd = -1;
         while( nextItem != -1)
         {
             switch(nextItem)
@@ -515,8 +629,18 @@ public static World loadWorld(PhysicsFileReader reader, UserData userData)
             }
             else
             {
+                //length prefixed sections: continue after the section, skips unknown data
+                if (sectionEnd >= 0)
+                {
+                    reader.setPosition(sectionEnd);
+                }
                 //newer version read the next section type
                 nextItem = reader.next();
+                if ((version & MASK_VERSION) >= VERSION_11 && nextItem != -1)
+                {
+                    sectionEnd = reader.nextInt();
+                    sectionEnd += reader.getPosition();
+                }
             }
         }
 
@@ -609,6 +733,80 @@ public void setConstraintIterationDynamic(boolean isDynamic)
         mDynamicConstraintIteration = isDynamic;
     }
 
+    /**
+     * Sets whether the contacts are ordered in colour batches before they are solved.
+     * The default is false. <br>
+     * The contacts are coloured such that no two contacts of the same colour
+     * touch the same dynamic body.
+     * The contacts of one colour are independent and can be solved in any order.
+     * If a body has too many contacts, the remaining contacts are not coloured
+     * (see {@link #getContactColorStart(int)}).
+     * The colouring is deterministic, it only depends on the order in which the contacts were found.
+     * @param coloring whether the contacts are ordered by colour.
+     */
+    public void setContactColoring(boolean coloring)
+    {
+        mContactColoring = coloring;
+        mContactColorCount = 0;
+    }
+
+    /**
+     * Checks whether the contacts are ordered in colour batches.
+     * @return true if contact colouring is enabled.
+     */
+    public boolean isContactColoring()
+    {
+        return mContactColoring;
+    }
+
+    /**
+     * Sets whether chains of joints are solved directly before the constraint iterations.
+     * The default is false. <br>
+     * Joints that are connected through bodies with exactly two joints
+     * (ropes, chains, bridges, limbs) are solved exactly in linear time.
+     * The iterations then only have to correct the influence of contacts and other constraints,
+     * so long chains do not stretch and fewer iterations are needed
+     * (see {@link #setConstraintIterations(int)}).
+     * @param chainSolving whether joint chains are solved directly.
+     */
+    public void setJointChainSolving(boolean chainSolving)
+    {
+        mJointChainSolving = chainSolving;
+    }
+
+    /**
+     * Checks whether joint chains are solved directly.
+     * @return true if the direct joint chain solver is enabled.
+     */
+    public boolean isJointChainSolving()
+    {
+        return mJointChainSolving;
+    }
+
+    /**
+     * Gets the number of independent contact colours of the last step.
+     * @return the number of colours, 0 if the colouring is disabled.
+     */
+    public int getContactColorCount()
+    {
+        return mContactColorCount;
+    }
+
+    /**
+     * Gets the start of a contact colour.
+     * The contacts of colour c are the entries from getContactColorStart(c)
+     * to getContactColorStart(c + 1) - 1 of {@link #getContacts()}. <br>
+     * The contacts from getContactColorStart(getContactColorCount())
+     * to getContactColorStart(getContactColorCount() + 1) - 1 did not fit into a colour,
+     * they may share bodies (the range is empty in most cases).
+     * @param color the colour (0 to {@link #getContactColorCount()} + 1).
+     * @return the index of the first contact of the colour.
+     */
+    public int getContactColorStart(int color)
+    {
+        return mContactColorStarts[color];
+    }
+
 
     /**
      * Sets the event listener.
@@ -621,6 +819,16 @@ public void setPhysicsEventListener(PhysicsEventListener listener)
     }
     //#NoBasic */
 
+    /**
+     * Sets the sensor listener.
+     * The listener is informed when bodies start or stop to overlap sensor bodies.
+     * @param listener the listener.
+     */
+    public void setSensorListener(SensorListener listener)
+    {
+        this.mSensorListener = listener;
+    }
+
     /**
      * Sets the simulation area.
      * This defines an area along the x-axis, where the simulation is performed.
@@ -652,17 +860,30 @@ public ShapeSet getShapeSet()
      * @param world the elements to add to this world
      */
     public Body[] addWorld(World world)
+    {
+        return addWorld(world, true);
+    }
+
+    /**
+     * Adds a a complete world.
+     * @param world the elements to add to this world
+     * @param addLandscape whether the landscape segments are added
+     * @return the mapping of the source body ids to the new bodies
+     */
+    private final Body[] addWorld(World world, boolean addLandscape)
     {
         int maxId = world.mCurrentBodyId;
         Body[] bodyMapping = new Body[maxId];
 
+        //add all bodies first and sort once
         for( int i = 0; i < world.mBodyCount; i++)
         {
             Body b = world.mBodies[i].copy();
-            addBody( b );
+            appendBody( b );
             b.calculateAABB(0);
             bodyMapping[world.mBodies[i].mId] = b;
         }
+        sortBodyList();
 
         //#NoEco /*
         for( int i = 0; i < world.mConstraintCount; i++)
@@ -690,6 +911,10 @@ public Body[] addWorld(World world)
         {
             addParticleEmitter( ((ParticleEmitter) world.mParticles.elementAt(i)).copy(bodyMapping) );
         }
+        for( int i = 0;  i < world.mSoftBodies.size(); i++)
+        {
+            addSoftBody( ((SoftBody) world.mSoftBodies.elementAt(i)).copy() );
+        }
         //#NoBasic */
 
         //#NoBasic /*
@@ -710,13 +935,17 @@ public Body[] addWorld(World world)
 
         //#NoBasic /*
         //Landscape
-        Landscape otherLandscape = world.getLandscape();
-        for( int i = 0; i < otherLandscape.mSegmentCount; i++)
+        if (addLandscape)
         {
-            mLandscape.addSegment(
-                    new FXVector( otherLandscape.mStartpoints[i] ),
-                    new FXVector( otherLandscape.mEndpoints[i] ),
-                    otherLandscape.mFaces[i]);
+            Landscape otherLandscape = world.getLandscape();
+            for( int i = 0; i < otherLandscape.mSegmentCount; i++)
+            {
+                mLandscape.appendSegment(
+                        new FXVector( otherLandscape.mStartpoints[i] ),
+                        new FXVector( otherLandscape.mEndpoints[i] ),
+                        otherLandscape.mFaces[i]);
+            }
+            mLandscape.sortArrays();
         }
         //#NoBasic */
 
@@ -746,6 +975,23 @@ public void addBody(Body body)
         }
     }
 
+    /**
+     * Adds a body to the world without sorting the body list.
+     * {@link #sortBodyList()} has to be called afterwards.
+     * @param body new Body.
+     */
+    private final void appendBody(Body body)
+    {
+        body.mId = mCurrentBodyId++;
+
+        mBodies = checkVector(mBodies, mBodyCount);
+        mBodies[mBodyCount++] = body;
+
+        mShapeSet.registerShape(body.mShape);
+
+        body.forceUpdate(mTimestepFX);
+    }
+
     /**
      * Sets the landscape for the world.
      * Only one landscape exists, containing all landscape elements.
@@ -783,6 +1029,20 @@ public void addParticleEmitter(ParticleEmitter particleEmitter)
     }
     //#NoBasic */
 
+    /**
+     * Adds a soft body to the world.
+     * @param softBody new soft body.
+     */
+    //#NoBasic /*
+    public void addSoftBody(SoftBody softBody)
+    {
+        if (softBody != null)
+        {
+            mSoftBodies.addElement(softBody);
+        }
+    }
+    //#NoBasic */
+
     /**
      * Adds an external force to the world.
      * @param externalForce new external force.
@@ -821,6 +1081,13 @@ public void removeBody(Body body)
         mBodyCount = compactVector(mBodies, mBodyCount);
         sortBodyList();
 
+        //the separating axis caches must not keep the removed body
+        for( int i = 0; i < mBodyCount; i++)
+        {
+            mBodies[i].clearSeparatingAxis(body);
+        }
+        body.clearSeparatingAxes();
+
         //#NoBasic /*
         for( int i = 0; i < mScriptBodyCount; i++)
         {
@@ -964,6 +1231,20 @@ public void removeParticleEmitter(ParticleEmitter particleEmitter)
     }
     //#NoBasic */
 
+    /**
+     * Removes a soft body from the world.
+     * @param softBody soft body to remove.
+     */
+    //#NoBasic /*
+    public void removeSoftBody(SoftBody softBody)
+    {
+        if (softBody != null)
+        {
+            mSoftBodies.removeElement(softBody);
+        }
+    }
+    //#NoBasic */
+
     /**
      * Removes an external force from the world.
      * @param externalForce external force to remove.
@@ -978,6 +1259,37 @@ public void removeExternalForce(ExternalForce externalForce)
     }
     //#NoBasic */
 
+    /**
+     * Calculates the new length of a resized array.
+     * Arrays are doubled (at least by the minimum increment),
+     * so the number of resizes is logarithmic in the final size.
+     * @param length the current length
+     * @param checkSize the size that has to fit
+     * @return the new length
+     */
+    private static final int grownLength(int length, int checkSize)
+    {
+        return Math.max(length + Math.max(length, M_WORLD_ARRAY_INCREMENT), checkSize + 1);
+    }
+
+    /**
+     * Increases vector size if required.
+     * Internal Usage - Check an array for size and resize if required
+     * @param vector the array to check
+     * @param checkSize the current size of the vector
+     * @return the new vector if it was resized, the same if it was okay
+     */
+    static final long[] checkVector(long[] vector, int checkSize)
+    {
+        if (vector.length <= checkSize)
+        {
+            long[] newVector = new long[grownLength(vector.length, checkSize)];
+            System.arraycopy(vector, 0, newVector, 0, vector.length);
+            return newVector;
+        }
+        return vector;
+    }
+
     /**
      * Increases vector size if required.
      * Internal Usage - Check an array for size and resize if required
@@ -989,7 +1301,7 @@ static final int[] checkVector(int[] vector, int checkSize)
     {
         if (vector.length <= checkSize)
         {
-            int[] newVector = new int[vector.length + M_WORLD_ARRAY_INCREMENT];
+            int[] newVector = new int[grownLength(vector.length, checkSize)];
             System.arraycopy(vector, 0, newVector, 0, vector.length);
             return newVector;
         }
@@ -1007,7 +1319,7 @@ static final short[] checkVector(short[] vector, int checkSize)
     {
         if (vector.length <= checkSize)
         {
-            short[] newVector = new short[vector.length + M_WORLD_ARRAY_INCREMENT];
+            short[] newVector = new short[grownLength(vector.length, checkSize)];
             System.arraycopy(vector, 0, newVector, 0, vector.length);
             return newVector;
         }
@@ -1025,7 +1337,7 @@ static final Body[] checkVector(Body[] vector, int checkSize)
     {
         if (vector.length <= checkSize)
         {
-            Body[] newVector = new Body[vector.length + M_WORLD_ARRAY_INCREMENT];
+            Body[] newVector = new Body[grownLength(vector.length, checkSize)];
             System.arraycopy(vector, 0, newVector, 0, vector.length);
             return newVector;
         }
@@ -1043,7 +1355,7 @@ static final Contact[] checkVector(Contact[] vector, int checkSize)
     {
         if (vector.length <= checkSize)
         {
-            Contact[] newVector = new Contact[vector.length + M_WORLD_ARRAY_INCREMENT];
+            Contact[] newVector = new Contact[grownLength(vector.length, checkSize)];
             System.arraycopy(vector, 0, newVector, 0, vector.length);
             return newVector;
         }
@@ -1062,7 +1374,25 @@ static final Constraint[] checkVector(Constraint[] vector, int checkSize)
     {
         if (vector.length <= checkSize)
         {
-            Constraint[] newVector = new Constraint[vector.length + M_WORLD_ARRAY_INCREMENT];
+            Constraint[] newVector = new Constraint[grownLength(vector.length, checkSize)];
+            System.arraycopy(vector, 0, newVector, 0, vector.length);
+            return newVector;
+        }
+        return vector;
+    }
+
+    /**
+     * Increases vector size if required.
+     * Internal Usage - Check an array for size and resize if required
+     * @param vector the array to check
+     * @param checkSize the current size of the vector
+     * @return the new vector if it was resized, the same if it was okay
+     */
+    static final Joint[] checkVector(Joint[] vector, int checkSize)
+    {
+        if (vector.length <= checkSize)
+        {
+            Joint[] newVector = new Joint[grownLength(vector.length, checkSize)];
             System.arraycopy(vector, 0, newVector, 0, vector.length);
             return newVector;
         }
@@ -1082,7 +1412,7 @@ static final Script[] checkVector(Script[] vector, int checkSize)
     {
         if (vector.length <= checkSize)
         {
-            Script[] newVector = new Script[vector.length + M_WORLD_ARRAY_INCREMENT];
+            Script[] newVector = new Script[grownLength(vector.length, checkSize)];
             System.arraycopy(vector, 0, newVector, 0, vector.length);
             return  newVector;
         }
@@ -1101,7 +1431,7 @@ static final FXVector[] checkVector(FXVector[] vector, int checkSize)
     {
         if (vector.length <= checkSize)
         {
-            FXVector[] newVector = new FXVector[vector.length + M_WORLD_ARRAY_INCREMENT];
+            FXVector[] newVector = new FXVector[grownLength(vector.length, checkSize)];
             System.arraycopy(vector, 0, newVector, 0, vector.length);
             return  newVector;
         }
@@ -1153,7 +1483,7 @@ public Body findBodyAt(int xFX, int yFX )
     {
         //TODO: optimize this!
         Body[] bodies = getBodies();
-        FXVector pos = new FXVector();
+        FXVector pos = mQueryPosition;
 
         for( int i = 0; i < getBodyCount(); i++)
         {
@@ -1316,6 +1646,13 @@ public void addScript(Script script)
     //#NoBasic /*
     protected void addScriptBody(int index, Body b)
     {
+        mScriptBodies = checkVector(mScriptBodies, mScriptBodyCount);
+        mScriptIndex = checkVector(mScriptIndex, mScriptBodyCount);
+        mScriptElementIndex = checkVector(mScriptElementIndex, mScriptBodyCount);
+        mScriptExecutionIndex = checkVector(mScriptExecutionIndex, mScriptBodyCount);
+
+        mScriptElementIndex[mScriptBodyCount] = 0;
+        mScriptExecutionIndex[mScriptBodyCount] = 0;
         mScriptIndex[mScriptBodyCount] = index;
         mScriptBodies[mScriptBodyCount++] = b;
     }
@@ -1412,10 +1749,7 @@ public void tick()
         //integrate forces to get first estimation velocity
         //apply external forces
         //#NoBasic /*
-        for(int i = 0; i < mForces.size(); i++)
-        {
-            ((ExternalForce) mForces.elementAt(i)).applyForce(bodies, mBodyCount, mTimestepFX);
-        }
+        applyForces();
         //#NoBasic */
         for(int i = mBodyStartIndex; i < mBodyEndIndex; i++)
         {
@@ -1451,15 +1785,27 @@ public void tick()
         {
             mContacts[i].precalculate(mInvTimestepFX);
         }
+        if (mContactColoring)
+        {
+            colorContacts();
+        }
 
         //#NoEco /*
         for( int i = 0; i < mConstraintCount; i++ )
         {
             constraints[i].precalculate(mInvTimestepFX);
         }
+        if (mJointChainSolving && mConstraintCount > 0)
+        {
+            mJointChainSolver.load(constraints, mConstraintCount);
+            mJointChainSolver.solve();
+        }
         //#NoEco */
 
         //solve and apply constraint forces (collision)
+        ContactSolver contactSolver = mContactSolver;
+        contactSolver.load(mContacts, mContactCount);
+        contactSolver.loadVelocities();
         boolean iterationDone = false;
         for( M_iteration = 0;
             M_iteration < mConstraintIterations &&
@@ -1469,17 +1815,22 @@ public void tick()
         {
             iterationDone = true;
             //#NoEco /*
-            for( int j = 0; j < mConstraintCount; j++ )
+            if (mConstraintCount > 0)
             {
-                iterationDone &= constraints[j].applyMomentum(mInvTimestepFX);
+                //the constraints work on the bodies directly
+                contactSolver.storeVelocities();
+                for( int j = 0; j < mConstraintCount; j++ )
+                {
+                    iterationDone &= constraints[j].applyMomentum(mInvTimestepFX);
+                }
+                contactSolver.loadVelocities();
             }
             //#NoEco */
             //Contacts have higher priority than other constraints
-            for( int j = 0; j < mContactCount; j++)
-            {
-                iterationDone &= mContacts[j].applyMomentum();
-            }
+            iterationDone &= contactSolver.solve(M_iteration);
         }
+        contactSolver.storeVelocities();
+        contactSolver.storeImpulses(mContacts);
 
 
         //#NoEco /*
@@ -1536,8 +1887,26 @@ public void tick()
         {
             ((ParticleEmitter)mParticles.elementAt(i)).integrateParticles(mTimestepFX);
         }
+        for( int i = 0; i < mSoftBodies.size(); i++)
+        {
+            SoftBody softBody = (SoftBody) mSoftBodies.elementAt(i);
+            softBody.integrate(mGravity, mTimestepFX);
+            if (softBody.mCanCollide)
+            {
+                collideSoftBody(softBody);
+            }
+        }
         //#NoBasic */
 
+        updateStateHash();
+
+        updateSensors();
+
+        if (mTransformBuffer != null)
+        {
+            mTransformBuffer.publish(this);
+        }
+
         //
         //long kinE = bodies[0].velocityFX().lengthSquareFX() / 2;
         //long potE = -FXUtil.multFX(bodies[0].positionFX().yFX, mGravity.yFX);
@@ -1567,65 +1936,35 @@ protected void checkCollisions()
         mContactCount = 0;
         int startContactCount = mContactCount;
 
+        //start new overlap sets of the sensors
+        for( int i = 0; i < mActiveSensorCount; i++)
+        {
+            Body sensor = mActiveSensors[i];
+            Body[] prevOverlaps = sensor.mSensorPrevOverlaps;
+            for( int j = 0; j < sensor.mSensorPrevOverlapCount; j++)
+            {
+                prevOverlaps[j] = null;
+            }
+            sensor.mSensorPrevOverlaps = sensor.mSensorOverlaps;
+            sensor.mSensorPrevOverlapCount = sensor.mSensorOverlapCount;
+            sensor.mSensorOverlaps = prevOverlaps;
+            sensor.mSensorOverlapCount = 0;
+        }
+
         mLandscape.initCollision();          //#NoEco
 
         //sorting of body Vector
         //works almost O(n) due to minimal changes with small timesteps
         sortBodyList();
 
-        //walk through sorted body vector and add open bodies/collide pairs
-        //long start = System.nanoTime();
-        int openCnt = 0;
-        int openCheckSize = 0;
-        for( int i = mBodyStartIndex; i < mBodyEndIndex; i++)
-        {
-            int currValFX = mBodies[i].mAABBMinXFX;
-            boolean toInsert = true;
-            mLandscape.collisionCheckBody(this, mBodies[i]);      //#NoEco
-
-            //delete entries from openlist, add curr entry
-            for( int j = 0; j < openCheckSize; j++)
-            {
-                if ( mCurrentOpen[j] == null)
-                {
-                    if (!toInsert)
-                    {
-                        mCurrentOpen[j] = mBodies[i];
-                        openCnt++;
-                        toInsert = false;
-                    }
-                    continue;
-                }
-                if (mCurrentOpen[j].mAABBMaxXFX < currValFX)
-                {
-                    openCnt--;
-                    mCurrentOpen[j] = null;
-                }
-                //check other dimension of AABB
-                else if (! (mBodies[i].mAABBMinYFX > mCurrentOpen[j].mAABBMaxYFX
-                         || mCurrentOpen[j].mAABBMinYFX > mBodies[i].mAABBMaxYFX) )
-                {
-                    //detailed collide
-                    checkBodyPair(mBodies[i], mCurrentOpen[j]);
-                }
-            }
-            if (toInsert)
-            {
-                mCurrentOpen = checkVector(mCurrentOpen, openCheckSize);
-                mCurrentOpen[openCheckSize++] = mBodies[i];
-                openCnt++;
-            }
-            if (openCheckSize > openCnt * 2)
-            {
-                openCheckSize = compactVector(mCurrentOpen, openCheckSize);
-            }
-        }
+        //walk through sorted body vector and collide pairs of open bodies
+        mBroadphase.checkCollisions(this, mBodies, mBodyStartIndex, mBodyEndIndex, mLayerFilters);
 
         //delete and update contacts stored in bodies
-        mLandscape.resetContacts();                              //#NoEco
+        mLandscape.resetContacts(this);                          //#NoEco
         for(int i = mBodyStartIndex; i < mBodyEndIndex; i++)
         {
-            mBodies[i].resetContacts();
+            mBodies[i].resetContacts(this);
         }
 
 
@@ -1658,45 +1997,385 @@ else if (! (mBodies[i].mAABBMinYFX > mCurrentOpen[j].mAABBMaxYFX
         }*/
     }
 
-    //#NoBasic /*
-    protected void collideParticles()
+    /**
+     * Orders the contacts in colour batches.
+     * Greedy colouring: each contact gets the first colour that is not used by
+     * another contact of one of its dynamic bodies.
+     * Contacts without a free colour are put into the uncoloured range after the colours.
+     * The order of the contacts within a colour is kept.
+     */
+    private final void colorContacts()
     {
-        for( int particle = 0; particle < mParticles.size(); particle++)
+        Contact[] contacts = mContacts;
+        int contactCount = mContactCount;
+        mContactColors = checkVector(mContactColors, contactCount);
+        mColoredContacts = checkVector(mColoredContacts, contactCount);
+        int[] colors = mContactColors;
+        int[] starts = mContactColorStarts;
+
+        for( int i = 0; i <= M_CONTACT_COLORS; i++)
         {
-            ParticleEmitter particleEmitter = ((ParticleEmitter)mParticles.elementAt(particle));
-            if (! particleEmitter.mCanCollide)
+            starts[i] = 0;
+        }
+        for( int i = 0; i < contactCount; i++)
+        {
+            contacts[i].mBody1.mColorMask = 0;
+            contacts[i].mBody2.mColorMask = 0;
+        }
+
+        int uncolored = M_CONTACT_COLORS - 1;
+        int colorCount = 0;
+        for( int i = 0; i < contactCount; i++)
+        {
+            Body body1 = contacts[i].mBody1;
+            Body body2 = contacts[i].mBody2;
+            int usedColors = (body1.mDynamic ? body1.mColorMask : 0) | (body2.mDynamic ? body2.mColorMask : 0);
+            int color = 0;
+            while (color < uncolored && (usedColors & (1 << color)) != 0)
             {
-                continue;
+                color++;
             }
-            int particleStartIdx = 0;
-            int particleIdx = 0;
-            for( int i = mBodyStartIndex; i < mBodyEndIndex; i++)
+            if (color < uncolored)
             {
-                while ( particleStartIdx < particleEmitter.mMaxParticleCount &&
-                       (particleEmitter.mLife[particleStartIdx] <= 0 ||
-                       (mBodies[i].mAABBMinXFX > particleEmitter.mXFX[particleStartIdx])) )
+                body1.mColorMask |= 1 << color;
+                body2.mColorMask |= 1 << color;
+                if (color >= colorCount)
                 {
-                    particleStartIdx++;
+                    colorCount = color + 1;
                 }
+            }
+            colors[i] = color;
+            starts[color + 1]++;
+        }
 
-                particleIdx = particleStartIdx;
-                while ( particleIdx < particleEmitter.mMaxParticleCount &&
-                       (particleEmitter.mLife[particleIdx] <= 0 ||
-                       (mBodies[i].mAABBMaxXFX > particleEmitter.mXFX[particleIdx])) )
-                {
-                    if (particleEmitter.mLife[particleIdx] > 0 &&
-                        mBodies[i].mAABBMinYFX < particleEmitter.mYFX[particleIdx] &&
-                        mBodies[i].mAABBMaxYFX > particleEmitter.mYFX[particleIdx] &&
-                        mBodies[i].mInteracting)
-                    {
-                        FXVector normal = Collision.detectCollision(mBodies[i], particleEmitter.mXFX[particleIdx], particleEmitter.mYFX[particleIdx]);
-                        if (normal != null)
-                        {
-                            particleEmitter.collide(normal, particleIdx);
-                        }
+        //stable counting sort by colour (the uncoloured contacts last)
+        for( int i = 1; i <= M_CONTACT_COLORS; i++)
+        {
+            starts[i] += starts[i - 1];
+        }
+        Contact[] coloredContacts = mColoredContacts;
+        for( int i = 0; i < contactCount; i++)
+        {
+            coloredContacts[starts[colors[i]]++] = contacts[i];
+        }
+        for( int i = M_CONTACT_COLORS; i > 0; i--)
+        {
+            starts[i] = starts[i - 1];
+        }
+        starts[0] = 0;
+        //the unused colours are empty, the uncoloured range follows the last colour
+        starts[colorCount + 1] = contactCount;
+        System.arraycopy(coloredContacts, 0, contacts, 0, contactCount);
+
+        mContactColorCount = colorCount;
+    }
+
+    /**
+     * Applies all external forces.
+     * Area forces are only applied to the bodies overlapping their area.
+     * These are found by binary search in the body list,
+     * which is still sorted by the collision detection of the last step.
+     * If the list is not sorted anymore (bodies were moved or added), all bodies are checked.
+     */
+    //#NoBasic /*
+    private final void applyForces()
+    {
+        Body[] bodies = mBodies;
+        boolean bodiesChecked = false;
+        boolean sorted = true;
+        int maxWidthFX = 0;
+        for(int i = 0; i < mForces.size(); i++)
+        {
+            ExternalForce force = (ExternalForce) mForces.elementAt(i);
+            if (! (force instanceof AreaForce))
+            {
+                force.applyForce(bodies, mBodyCount, mTimestepFX);
+                continue;
+            }
+
+            //check the sorting and the maximum body width (once for all area forces)
+            if (! bodiesChecked)
+            {
+                for( int j = mBodyStartIndex; j < mBodyEndIndex; j++)
+                {
+                    Body b = bodies[j];
+                    maxWidthFX = Math.max(maxWidthFX, b.mAABBMaxXFX - b.mAABBMinXFX);
+                    if (j > mBodyStartIndex && bodies[j - 1].mAABBMinXFX > b.mAABBMinXFX)
+                    {
+                        sorted = false;
+                    }
+                }
+                bodiesChecked = true;
+            }
+
+            AreaForce areaForce = (AreaForce) force;
+            int start = mBodyStartIndex;
+            if (sorted)
+            {
+                //bodies further left cannot reach into the area
+                start = findFirstBody(areaForce.mMinXFX - maxWidthFX);
+            }
+            for( int j = start; j < mBodyEndIndex; j++)
+            {
+                Body b = bodies[j];
+                if (sorted && b.mAABBMinXFX > areaForce.mMaxXFX)
+                {
+                    break;
+                }
+                if (b.mDynamic && areaForce.overlaps(b))
+                {
+                    areaForce.applyForce(b, mTimestepFX);
+                }
+            }
+        }
+    }
+    //#NoBasic */
+
+    /**
+     * Finds the first body in the sorted body list, whose AABB starts at or after a position.
+     * Only the simulated bodies (between start and end index) are considered.
+     * @fx
+     * @param minXFX the position
+     * @return the index of the first body with AABB min x &gt;= minXFX.
+     */
+    private final int findFirstBody(int minXFX)
+    {
+        int low = mBodyStartIndex;
+        int high = mBodyEndIndex;
+        while (low < high)
+        {
+            int mid = (low + high) >> 1;
+            if (mBodies[mid].mAABBMinXFX < minXFX)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Checks whether a body overlaps a sensor.
+     * The overlap is found by the collision detection, the contact is returned to the pool immediately.
+     * @param body1 Body 1 to check
+     * @param body2 Body 2 to check
+     */
+    private final void checkSensorPair(Body body1, Body body2)
+    {
+        if (body1.mSensor && body2.mSensor)
+        {
+            return;
+        }
+        Body sensor = body1.mSensor ? body1 : body2;
+        Body other = body1.mSensor ? body2 : body1;
+
+        int shapeCount1 = 1;
+        int shapeCount2 = 1;
+        boolean isMultiShape = sensor.mShape instanceof MultiShape || other.mShape instanceof MultiShape;
+        if (sensor.mShape instanceof MultiShape )
+        {
+            shapeCount1 = ((MultiShape) sensor.mShape).getShapeCount();
+        }
+        if (other.mShape instanceof MultiShape )
+        {
+            shapeCount2 = ((MultiShape) other.mShape).getShapeCount();
+        }
+        for( int i = 0; i < shapeCount1; i++)
+        {
+            for( int j = 0; j < shapeCount2; j++)
+            {
+                Contact c = isMultiShape ? Collision.detectCollision(sensor, i, other, j, this) : Collision.detectCollision(sensor, other, this);
+                if (c != null)
+                {
+                    releaseContact(c);
+
+                    if (! sensor.mSensorActive)
+                    {
+                        mActiveSensors = checkVector(mActiveSensors, mActiveSensorCount);
+                        mActiveSensors[mActiveSensorCount++] = sensor;
+                        sensor.mSensorActive = true;
+                    }
+                    sensor.mSensorOverlaps = checkVector(sensor.mSensorOverlaps, sensor.mSensorOverlapCount);
+                    sensor.mSensorOverlaps[sensor.mSensorOverlapCount++] = other;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports the overlap transitions of the sensors to the sensor listener.
+     * Only sensors with overlaps in the current or previous step are checked.
+     */
+    private final void updateSensors()
+    {
+        for( int i = 0; i < mActiveSensorCount; i++)
+        {
+            Body sensor = mActiveSensors[i];
+            if (mSensorListener != null)
+            {
+                for( int j = 0; j < sensor.mSensorOverlapCount; j++)
+                {
+                    if (! containsBody(sensor.mSensorPrevOverlaps, sensor.mSensorPrevOverlapCount, sensor.mSensorOverlaps[j]))
+                    {
+                        mSensorListener.sensorEntered(sensor, sensor.mSensorOverlaps[j]);
+                    }
+                }
+                for( int j = 0; j < sensor.mSensorPrevOverlapCount; j++)
+                {
+                    if (! containsBody(sensor.mSensorOverlaps, sensor.mSensorOverlapCount, sensor.mSensorPrevOverlaps[j]))
+                    {
+                        mSensorListener.sensorExited(sensor, sensor.mSensorPrevOverlaps[j]);
+                    }
+                }
+            }
+
+            if (sensor.mSensorOverlapCount == 0)
+            {
+                //no overlaps anymore: remove from active list
+                for( int j = 0; j < sensor.mSensorPrevOverlapCount; j++)
+                {
+                    sensor.mSensorPrevOverlaps[j] = null;
+                }
+                sensor.mSensorPrevOverlapCount = 0;
+                sensor.mSensorActive = false;
+                mActiveSensors[i] = mActiveSensors[--mActiveSensorCount];
+                mActiveSensors[mActiveSensorCount] = null;
+                i--;
+            }
+        }
+    }
+
+    /**
+     * Clears the overlap sets of all sensors without reporting transitions.
+     */
+    final void clearSensors()
+    {
+        for( int i = 0; i < mActiveSensorCount; i++)
+        {
+            Body sensor = mActiveSensors[i];
+            for( int j = 0; j < sensor.mSensorOverlapCount; j++)
+            {
+                sensor.mSensorOverlaps[j] = null;
+            }
+            for( int j = 0; j < sensor.mSensorPrevOverlapCount; j++)
+            {
+                sensor.mSensorPrevOverlaps[j] = null;
+            }
+            sensor.mSensorOverlapCount = 0;
+            sensor.mSensorPrevOverlapCount = 0;
+            sensor.mSensorActive = false;
+            mActiveSensors[i] = null;
+        }
+        mActiveSensorCount = 0;
+    }
+
+    /**
+     * Checks whether a body is contained in an array.
+     * @param bodies the array
+     * @param count the number of valid entries
+     * @param b the body
+     * @return true if the body is in the array.
+     */
+    private static final boolean containsBody(Body[] bodies, int count, Body b)
+    {
+        for( int i = 0; i < count; i++)
+        {
+            if (bodies[i] == b)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns an unused contact to the contact pool.
+     * The pool grows as required and is never shrunk,
+     * so a steady state simulation does not create new contacts.
+     * @param c the contact that is not referenced anymore
+     */
+    final void releaseContact(Contact c)
+    {
+        mContactPool = checkVector(mContactPool, mContactPoolCount);
+        mContactPool[mContactPoolCount++] = c;
+        c.mIsNew = true;   //not nice: this indicates that the contact is already in the pool... (reusing parameter ok, because similar usage)
+    }
+
+    /**
+     * Takes a contact from the contact pool.
+     * @return an unused contact, null if the pool is empty
+     */
+    final Contact obtainContact()
+    {
+        if (mContactPoolCount == 0)
+        {
+            return null;
+        }
+        Contact c = mContactPool[--mContactPoolCount];
+        mContactPool[mContactPoolCount] = null;
+        return c;
+    }
+
+    //#NoBasic /*
+    protected void collideParticles()
+    {
+        for( int particle = 0; particle < mParticles.size(); particle++)
+        {
+            ParticleEmitter particleEmitter = ((ParticleEmitter)mParticles.elementAt(particle));
+            if (! particleEmitter.mCanCollide)
+            {
+                continue;
+            }
+            int particleStartIdx = 0;
+            int particleIdx = 0;
+            for( int i = mBodyStartIndex; i < mBodyEndIndex; i++)
+            {
+                while ( particleStartIdx < particleEmitter.mMaxParticleCount &&
+                       (particleEmitter.mLife[particleStartIdx] <= 0 ||
+                       (mBodies[i].mAABBMinXFX > particleEmitter.mXFX[particleStartIdx])) )
+                {
+                    particleStartIdx++;
+                }
+
+                if (! mBodies[i].mInteracting || mBodies[i].mSensor)
+                {
+                    continue;
+                }
+
+                //collect the particles inside the AABB
+                int candidateCount = 0;
+                particleIdx = particleStartIdx;
+                while ( particleIdx < particleEmitter.mMaxParticleCount &&
+                       (particleEmitter.mLife[particleIdx] <= 0 ||
+                       (mBodies[i].mAABBMaxXFX > particleEmitter.mXFX[particleIdx])) )
+                {
+                    if (particleEmitter.mLife[particleIdx] > 0 &&
+                        mBodies[i].mAABBMinYFX < particleEmitter.mYFX[particleIdx] &&
+                        mBodies[i].mAABBMaxYFX > particleEmitter.mYFX[particleIdx])
+                    {
+                        mParticleCandidates = checkVector(mParticleCandidates, candidateCount);
+                        mParticleCandidates[candidateCount++] = particleIdx;
                     }
                     particleIdx++;
                 }
+                if (candidateCount == 0)
+                {
+                    continue;
+                }
+
+                //test them in one batch
+                mParticleNormalsFX = checkVector(mParticleNormalsFX, candidateCount * 2);
+                int hits = Collision.detectCollisions(mBodies[i], particleEmitter.mXFX, particleEmitter.mYFX,
+                        mParticleCandidates, candidateCount, mParticleNormalsFX);
+                for( int j = 0; j < hits; j++)
+                {
+                    mParticleNormal.assignFX(mParticleNormalsFX[j * 2], mParticleNormalsFX[j * 2 + 1]);
+                    particleEmitter.collide(mParticleNormal, mParticleCandidates[j]);
+                }
             }
             //collide with landscape
             mLandscape.collideParticles(particleEmitter);
@@ -1704,6 +2383,48 @@ protected void collideParticles()
     }
     //#NoBasic */
 
+    /**
+     * Collides the nodes of a soft body with the bodies and the landscape.
+     * The impulses on the bodies take effect in the next step.
+     * @param softBody the soft body
+     */
+    //#NoBasic /*
+    protected void collideSoftBody(SoftBody softBody)
+    {
+        for( int i = mBodyStartIndex; i < mBodyEndIndex; i++)
+        {
+            Body b = mBodies[i];
+            if (b.mAABBMinXFX > softBody.mAABBMaxXFX)
+            {
+                break;
+            }
+            if (b.mAABBMaxXFX < softBody.mAABBMinXFX ||
+                b.mAABBMinYFX > softBody.mAABBMaxYFX ||
+                b.mAABBMaxYFX < softBody.mAABBMinYFX ||
+                ! b.mInteracting || b.mSensor)
+            {
+                continue;
+            }
+            for( int node = 0; node < softBody.mNodeCount; node++)
+            {
+                int xFX = softBody.mXFX[node];
+                int yFX = softBody.mYFX[node];
+                if (b.mAABBMinXFX < xFX && b.mAABBMaxXFX > xFX &&
+                    b.mAABBMinYFX < yFX && b.mAABBMaxYFX > yFX)
+                {
+                    FXVector penetration = Collision.detectPenetration(b, xFX, yFX);
+                    if (penetration != null)
+                    {
+                        softBody.collide(penetration, node, b, mTimestepFX);
+                    }
+                }
+            }
+        }
+        //collide with landscape
+        mLandscape.collideSoftBody(softBody, mTimestepFX);
+    }
+    //#NoBasic */
+
     /**
      * Compacts a vector.
      * Internal Usage - fill null pointer in open vector
@@ -1768,7 +2489,7 @@ static final int compactVector(int[] vector, int vectorSize)
      * A simple linear sort is used.
      * In this specific case - almost sorted lists - the algorithm scales nearly with O(n)
      */
-    private final void sortBodyList()
+    final void sortBodyList()
     {
         Body currBody;
         int  j = 0;
@@ -1806,16 +2527,16 @@ private final void sortBodyList()
 
     /**
      * Checks whether two bodies touch (or intersect).
-     * Usually the calling routine already has checked the AABBs
+     * The broadphase ({@link LayerBroadphase}) has already checked the AABBs,
+     * the collision layers and the static state of the bodies.
      * @param body1 Body 1 to check
      * @param body2 Body 2 to check
      */
-    private final void checkBodyPair(Body body1, Body body2)
+    final void checkBodyPair(Body body1, Body body2)
     {
-        if ( (! body1.mDynamic && ! body2.mDynamic) ||
-              (body1.mColissionBitFlag & body2.mColissionBitFlag) != 0 ||
-              ! body1.mInteracting || ! body2.mInteracting)
+        if (body1.mSensor || body2.mSensor)
         {
+            checkSensorPair(body1, body2);
             return;
         }
 
@@ -1833,12 +2554,26 @@ private final void checkBodyPair(Body body1, Body body2)
             {
                 shapeCount2 = ((MultiShape) body2.mShape).getShapeCount();
             }
+            //midphase: only parts overlapping the other body are paired
+            int partCount1 = collectParts(body1, shapeCount1, body2, 0);
+            if (partCount1 == 0)
+            {
+                return;
+            }
+            int partCount2 = collectParts(body2, shapeCount2, body1, partCount1);
+
             Contact newContact;
-            for( int i = 0; i < shapeCount1; i++)
+            for( int k = 0; k < partCount1; k++)
             {
-                for( int j = 0; j < shapeCount2; j++)
+                int i = mParts[k];
+                for( int l = partCount1; l < partCount1 + partCount2; l++)
                 {
-                    newContact = Collision.detectCollision( body1, i, body2, j);
+                    int j = mParts[l];
+                    if (! body2.partOverlaps(j, body1.partBoundFX(i, 0), body1.partBoundFX(i, 1), body1.partBoundFX(i, 2), body1.partBoundFX(i, 3)))
+                    {
+                        continue;
+                    }
+                    newContact = Collision.detectCollision( body1, i, body2, j, this);
                     if (newContact != null)
                     {
                         mContacts = checkVector(mContacts, mContactCount);
@@ -1850,7 +2585,7 @@ private final void checkBodyPair(Body body1, Body body2)
         }
         else
         {
-            Contact newContact = Collision.detectCollision( body1, body2);
+            Contact newContact = Collision.detectCollision( body1, body2, this);
             if (newContact != null)
             {
                 mContacts = checkVector(mContacts, mContactCount);
@@ -1860,6 +2595,124 @@ private final void checkBodyPair(Body body1, Body body2)
         }
     }
 
+    /**
+     * Sets whether bodies on two collision layers collide.
+     * By default bodies that share a layer do not collide, all others do.
+     * Bodies collide only if no layer of the one is filtered against a layer of the other.
+     * Pairs that cannot collide are never tested by the broadphase.
+     * @param layer1 the first layer (smaller than 32)
+     * @param layer2 the second layer (smaller than 32)
+     * @param collide whether bodies on the layers collide
+     */
+    public void setLayerCollision(int layer1, int layer2, boolean collide)
+    {
+        if (collide)
+        {
+            mLayerFilters[layer1] &= ~(1 << layer2);
+            mLayerFilters[layer2] &= ~(1 << layer1);
+        }
+        else
+        {
+            mLayerFilters[layer1] |= 1 << layer2;
+            mLayerFilters[layer2] |= 1 << layer1;
+        }
+    }
+
+    /**
+     * Checks whether bodies on two collision layers collide.
+     * @param layer1 the first layer (smaller than 32)
+     * @param layer2 the second layer (smaller than 32)
+     * @return true if bodies on the layers collide.
+     */
+    public boolean getLayerCollision(int layer1, int layer2)
+    {
+        return (mLayerFilters[layer1] & (1 << layer2)) == 0;
+    }
+
+    /**
+     * Checks whether bodies with the given collision layers collide.
+     * @param layers1 the layer bitflag of body 1
+     * @param layers2 the layer bitflag of body 2
+     * @return true if the bodies can collide.
+     */
+    final boolean layersCollide(int layers1, int layers2)
+    {
+        return (layers1 & getLayerFilter(mLayerFilters, layers2)) == 0;
+    }
+
+    /**
+     * Combines the filters of all layers of a layer bitflag.
+     * @param layerFilters the layer filter masks
+     * @param layers the layer bitflag
+     * @return the layers that do not collide with the given layers
+     */
+    static final int getLayerFilter(int[] layerFilters, int layers)
+    {
+        int filter = 0;
+        for( int l = 0; layers != 0; l++, layers >>>= 1)
+        {
+            if ((layers & 1) != 0)
+            {
+                filter |= layerFilters[l];
+            }
+        }
+        return filter;
+    }
+
+    private static int[] createDefaultLayerFilters()
+    {
+        int[] layerFilters = new int[32];
+        for( int l = 0; l < 32; l++)
+        {
+            layerFilters[l] = 1 << l;
+        }
+        return layerFilters;
+    }
+
+    /**
+     * Sets the buffer the simulation results are published to.
+     * At the end of each step the state of the awake bodies and the particles
+     * is written to the buffer (see {@link TransformBuffer}).
+     * @param transformBuffer the buffer, null to stop publishing
+     */
+    public void setTransformBuffer(TransformBuffer transformBuffer)
+    {
+        mTransformBuffer = transformBuffer;
+    }
+
+    /**
+     * Gets the buffer the simulation results are published to.
+     * @return the buffer, null if not set.
+     */
+    public TransformBuffer getTransformBuffer()
+    {
+        return mTransformBuffer;
+    }
+
+    /**
+     * Collects the parts of a body that overlap the AABB of another body.
+     * The indices are stored in mParts.
+     * @param body the body
+     * @param shapeCount number of parts of the body
+     * @param other the other body
+     * @param start the first index in mParts to use
+     * @return the number of overlapping parts
+     */
+    private final int collectParts(Body body, int shapeCount, Body other, int start)
+    {
+        int count = 0;
+        for( int i = 0; i < shapeCount; i++)
+        {
+            if (body.partOverlaps(i, other.mAABBMinXFX, other.mAABBMinYFX, other.mAABBMaxXFX, other.mAABBMaxYFX))
+            {
+                mParts = checkVector(mParts, start + count);
+                mParts[start + count] = i;
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Gets the gravity vector.
      * @return the gravity vector.
@@ -1936,6 +2789,17 @@ public Vector getParticleEmitters()
      }
      //#NoBasic */
 
+    /**
+     * Gets a vector containing all soft bodies.
+     * @return a vector containing all soft bodies.
+     */
+     //#NoBasic /*
+     public Vector getSoftBodies()
+     {
+         return mSoftBodies;
+     }
+     //#NoBasic */
+
     /**
      * Gets the start position of the area simulation.
      * @return start x coordinate (FX) of the area simulation.
@@ -1972,6 +2836,200 @@ public Body[] getBodies()
         return mBodies;
     }
 
+    /**
+     * Gets the hash of the world state.
+     * The hash is a deterministic checksum of the body states (position, velocity, rotation)
+     * and the particles after the last step. <br>
+     * It is maintained incrementally during integration and can be compared each tick
+     * between lockstep clients or against a reference simulation.
+     * If the hashes differ, use {@link #findDesync(World)} or {@link #dumpState()} to locate the difference.
+     * @return the state hash.
+     */
+    public int stateHash()
+    {
+        return mStateHash;
+    }
+
+    /**
+     * Recalculates the world hash from the body and particle hashes.
+     */
+    private final void updateStateHash()
+    {
+        int hash = mBodyCount;
+        for( int i = 0; i < mBodyCount; i++)
+        {
+            hash = FXUtil.hashStep(hash, mBodies[i].mStateHash);
+        }
+        //#NoBasic /*
+        for( int i = 0; i < mParticles.size(); i++)
+        {
+            hash = FXUtil.hashStep(hash, ((ParticleEmitter)mParticles.elementAt(i)).mStateHash);
+        }
+        for( int i = 0; i < mSoftBodies.size(); i++)
+        {
+            hash = FXUtil.hashStep(hash, ((SoftBody)mSoftBodies.elementAt(i)).mStateHash);
+        }
+        //#NoBasic */
+        mStateHash = hash;
+    }
+
+    /**
+     * Finds the first difference to another world.
+     * Desync diagnostics: compares the bodies (by id), the contacts and the particles
+     * and describes the first difference found.
+     * Both worlds should be at the same tick.
+     * @param other the world to compare to (e.g. reference simulation).
+     * @return a description of the first difference or null if the states are equal.
+     */
+    public String findDesync(World other)
+    {
+        if (mBodyCount != other.mBodyCount)
+        {
+            return "body count: " + mBodyCount + " != " + other.mBodyCount;
+        }
+        for( int i = 0; i < mBodyCount; i++)
+        {
+            Body b = mBodies[i];
+            Body o = other.findBodyById(b.mId);
+            if (o == null)
+            {
+                return "body " + b.mId + " missing";
+            }
+            if (b.mStateHash != o.mStateHash ||
+                b.mPositionFX.xFX != o.mPositionFX.xFX || b.mPositionFX.yFX != o.mPositionFX.yFX ||
+                b.mVelocityFX.xFX != o.mVelocityFX.xFX || b.mVelocityFX.yFX != o.mVelocityFX.yFX ||
+                b.mRotation2FX != o.mRotation2FX || b.mAngularVelocity2FX != o.mAngularVelocity2FX)
+            {
+                StringBuffer buffer = new StringBuffer();
+                appendBodyState(buffer, b);
+                buffer.append(" != ");
+                appendBodyState(buffer, o);
+                return buffer.toString();
+            }
+        }
+
+        if (mContactCount != other.mContactCount)
+        {
+            return "contact count: " + mContactCount + " != " + other.mContactCount;
+        }
+        for( int i = 0; i < mContactCount; i++)
+        {
+            Contact c = mContacts[i];
+            Contact o = null;
+            for( int j = 0; j < other.mContactCount && o == null; j++)
+            {
+                Contact oc = other.mContacts[j];
+                if (oc.mBody1.mId == c.mBody1.mId && oc.mBody2.mId == c.mBody2.mId &&
+                    oc.mB1Index == c.mB1Index && oc.mB2Index == c.mB2Index)
+                {
+                    o = oc;
+                }
+            }
+            if (o == null ||
+                c.mNormalDirection.xFX != o.mNormalDirection.xFX || c.mNormalDirection.yFX != o.mNormalDirection.yFX ||
+                c.getImpulseContact1FX() != o.getImpulseContact1FX() ||
+                c.getImpulseContact2FX() != o.getImpulseContact2FX())
+            {
+                StringBuffer buffer = new StringBuffer();
+                appendContactState(buffer, c);
+                buffer.append(" != ");
+                if (o == null)
+                {
+                    buffer.append("missing");
+                }
+                else
+                {
+                    appendContactState(buffer, o);
+                }
+                return buffer.toString();
+            }
+        }
+
+        //#NoBasic /*
+        if (mParticles.size() != other.mParticles.size())
+        {
+            return "particle emitter count: " + mParticles.size() + " != " + other.mParticles.size();
+        }
+        for( int i = 0; i < mParticles.size(); i++)
+        {
+            ParticleEmitter p = (ParticleEmitter) mParticles.elementAt(i);
+            ParticleEmitter o = (ParticleEmitter) other.mParticles.elementAt(i);
+            if (p.mStateHash != o.mStateHash)
+            {
+                return "particle emitter " + i + ": hash " + p.mStateHash + " != " + o.mStateHash;
+            }
+        }
+        if (mSoftBodies.size() != other.mSoftBodies.size())
+        {
+            return "soft body count: " + mSoftBodies.size() + " != " + other.mSoftBodies.size();
+        }
+        for( int i = 0; i < mSoftBodies.size(); i++)
+        {
+            SoftBody s = (SoftBody) mSoftBodies.elementAt(i);
+            SoftBody o = (SoftBody) other.mSoftBodies.elementAt(i);
+            if (s.mStateHash != o.mStateHash)
+            {
+                return "soft body " + i + ": hash " + s.mStateHash + " != " + o.mStateHash;
+            }
+        }
+        //#NoBasic */
+
+        return null;
+    }
+
+    /**
+     * Dumps the world state.
+     * Desync diagnostics: each body and contact is written on a separate line,
+     * so that dumps of different lockstep clients can be compared.
+     * @return the textual state dump.
+     */
+    public String dumpState()
+    {
+        StringBuffer buffer = new StringBuffer();
+        buffer.append("hash ").append(mStateHash).append('\n');
+        for( int i = 0; i < mBodyCount; i++)
+        {
+            appendBodyState(buffer, mBodies[i]);
+            buffer.append('\n');
+        }
+        for( int i = 0; i < mContactCount; i++)
+        {
+            appendContactState(buffer, mContacts[i]);
+            buffer.append('\n');
+        }
+        //#NoBasic /*
+        for( int i = 0; i < mParticles.size(); i++)
+        {
+            buffer.append("particles ").append(i).append(": hash ")
+                  .append(((ParticleEmitter) mParticles.elementAt(i)).mStateHash).append('\n');
+        }
+        for( int i = 0; i < mSoftBodies.size(); i++)
+        {
+            buffer.append("soft body ").append(i).append(": hash ")
+                  .append(((SoftBody) mSoftBodies.elementAt(i)).mStateHash).append('\n');
+        }
+        //#NoBasic */
+        return buffer.toString();
+    }
+
+    private static final void appendBodyState(StringBuffer buffer, Body b)
+    {
+        buffer.append("body ").append(b.mId)
+              .append(": pos ").append(b.mPositionFX.xFX).append(' ').append(b.mPositionFX.yFX)
+              .append(" vel ").append(b.mVelocityFX.xFX).append(' ').append(b.mVelocityFX.yFX)
+              .append(" rot ").append(b.mRotation2FX)
+              .append(" angvel ").append(b.mAngularVelocity2FX)
+              .append(" hash ").append(b.mStateHash);
+    }
+
+    private static final void appendContactState(StringBuffer buffer, Contact c)
+    {
+        buffer.append("contact ").append(c.mBody1.mId).append('/').append(c.mB1Index)
+              .append(" - ").append(c.mBody2.mId).append('/').append(c.mB2Index)
+              .append(": normal ").append(c.mNormalDirection.xFX).append(' ').append(c.mNormalDirection.yFX)
+              .append(" impulse ").append(c.getImpulseContact1FX()).append(' ').append(c.getImpulseContact2FX());
+    }
+
     /**
      * Gets the start index of the currently active bodies.
      * @return the start index of the currently active bodies.
@@ -2098,9 +3156,24 @@ protected int[] getScriptIndices()
     }
     //#NoBasic */
 
+    /**
+     * Gets all current contacts for a body (reuse object).
+     * The contacts are written into the supplied array, no objects are created.
+     * @param b the body.
+     * @param target array for the contacts, should hold at least 8 entries.
+     * @return the number of contacts written into the array.
+     */
+    public int getContactsForBody(Body b, Contact[] target)
+    {
+        int contactsCount = Math.min(b.mContactCount, target.length);
+        System.arraycopy(b.mContacts, 0, target, 0, contactsCount);
+        return contactsCount;
+    }
+
     /**
      * Gets all current contacts for a body.
      * Note: this method is currently expensive due to object creation.
+     * See {@link #getContactsForBody(Body, Contact[])} for a version without object creation.
      * @param b the body.
      * @return a list containing all contacts.
      */
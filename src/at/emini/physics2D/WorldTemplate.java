@@ -0,0 +1,292 @@
+package at.emini.physics2D;
+
+import java.util.Vector;
+
+import at.emini.physics2D.util.FXVector;
+import at.emini.physics2D.util.PhysicsFileReader;        //#NoBasic
+
+/**
+ * A parsed world that serves as template for new worlds.
+ * The world file is parsed only once, new worlds are created as copies of the template. <br>
+ * Worlds that are not needed anymore can be released to the template's pool.
+ * They are reset to the template state and reused by {@link #obtainWorld()},
+ * which avoids the reallocation of bodies, contacts and arrays. <br>
+ * The template world must not be simulated or modified after the template is created.
+ * <p>
+ * A world can be reset in place only if its structure did not change,
+ * i.e. no bodies, constraints, scripts, particle emitters or soft bodies were added or removed.
+ * Otherwise it is discarded and a new copy is created.
+ * The listeners are removed and the external forces are replaced by copies of the template's forces,
+ * so a reused world does not keep objects of its previous user.
+ * Other configuration changes on constraints, events or soft bodies are not restored by the reset.
+ *
+ * @author Alexander Adensamer
+ */
+public class WorldTemplate
+{
+    /**
+     * The template world.
+     */
+    private World mTemplate;
+
+    /**
+     * Pooled worlds ready for reuse.
+     */
+    private Vector mPool = new Vector();
+
+    /**
+     * Maximum number of pooled worlds.
+     */
+    private int mMaxPoolSize;
+
+    /**
+     * Mapping from template body ids to the bodies of the world to reset.
+     */
+    private Body[] mBodyMapping;
+
+    /**
+     * Bodies of the world to reset, indexed by id.
+     */
+    private Body[] mWorldBodies;
+
+    /**
+     * Constructor.
+     * The passed world is used as template directly (not copied).
+     * @param world the template world.
+     * @param maxPoolSize maximum number of worlds kept for reuse.
+     */
+    public WorldTemplate(World world, int maxPoolSize)
+    {
+        mTemplate = world;
+        mMaxPoolSize = maxPoolSize;
+        mBodyMapping = new Body[world.mCurrentBodyId];
+        mWorldBodies = new Body[world.mBodyCount];
+    }
+
+    /**
+     * Constructor.
+     * Loads the template world from a stream.
+     * @param reader the reader.
+     * @param maxPoolSize maximum number of worlds kept for reuse.
+     */
+    //#NoBasic /*
+    //#WorldLoadingOFF /*
+    public WorldTemplate(PhysicsFileReader reader, int maxPoolSize)
+    {
+        this(World.loadWorld(reader), maxPoolSize);
+    }
+    //#WorldLoadingOFF */
+    //#NoBasic */
+
+    /**
+     * Gets the template world.
+     * It must not be modified.
+     * @return the template world.
+     */
+    public World getTemplate()
+    {
+        return mTemplate;
+    }
+
+    /**
+     * Creates a new copy of the template world.
+     * @return the new world.
+     */
+    public World createWorld()
+    {
+        return new World(mTemplate);
+    }
+
+    /**
+     * Gets a world in the template state.
+     * A pooled world is reused if available, otherwise a new copy is created.
+     * @return the world.
+     */
+    public World obtainWorld()
+    {
+        int size = mPool.size();
+        if (size > 0)
+        {
+            World world = (World) mPool.elementAt(size - 1);
+            mPool.removeElementAt(size - 1);
+            return world;
+        }
+        return createWorld();
+    }
+
+    /**
+     * Returns a world to the pool.
+     * The world is reset to the template state immediately.
+     * If the world cannot be reset or the pool is full, it is discarded.
+     * The world must not be used anymore by the caller.
+     * @param world a world obtained from this template.
+     */
+    public void releaseWorld(World world)
+    {
+        if (mPool.size() < mMaxPoolSize && reset(world))
+        {
+            mPool.addElement(world);
+        }
+    }
+
+    /**
+     * Gets the number of pooled worlds.
+     * @return the number of worlds ready for reuse.
+     */
+    public int getPoolSize()
+    {
+        return mPool.size();
+    }
+
+    /**
+     * Resets a world to the template state.
+     * The existing bodies and arrays of the world are reused.
+     * @param world a world created from this template.
+     * @return false if the structure of the world changed and it could not be reset.
+     */
+    public boolean reset(World world)
+    {
+        World template = mTemplate;
+        if (world.mBodyCount != template.mBodyCount ||
+            world.mCurrentBodyId != template.mBodyCount ||
+            world.mConstraintCount != template.mConstraintCount ||     //#NoEco
+            world.mScriptCount != template.mScriptCount ||             //#NoBasic
+            world.mParticles.size() != template.mParticles.size() ||   //#NoBasic
+            world.mSoftBodies.size() != template.mSoftBodies.size() || //#NoBasic
+            world == template)
+        {
+            return false;
+        }
+
+        //map the bodies: the copy of the i-th template body has the id i
+        Body[] worldBodies = mWorldBodies;
+        for( int i = 0; i < world.mBodyCount; i++)
+        {
+            worldBodies[world.mBodies[i].mId] = world.mBodies[i];
+        }
+        Body[] bodyMapping = mBodyMapping;
+        for( int i = 0; i < template.mBodyCount; i++)
+        {
+            bodyMapping[template.mBodies[i].mId] = worldBodies[i];
+        }
+
+        //release the contacts
+        for( int i = 0; i < world.mBodyCount; i++)
+        {
+            world.mBodies[i].resetContacts(world);
+        }
+        world.mLandscape.resetContacts(world);                             //#NoEco
+        for( int i = 0; i < world.mContactCount; i++)
+        {
+            world.mContacts[i] = null;
+        }
+        world.mContactCount = 0;
+        world.clearSensors();
+
+        //bodies
+        for( int i = 0; i < template.mBodyCount; i++)
+        {
+            Body b = worldBodies[i];
+            b.restoreState(template.mBodies[i]);
+            b.forceUpdate(template.mTimestepFX);
+            b.calculateAABB(0);
+            world.mBodies[i] = b;
+        }
+        world.sortBodyList();
+
+        //#NoEco /*
+        //constraints
+        for( int i = 0; i < template.mConstraintCount; i++)
+        {
+            world.mConstraints[i] = template.mConstraints[i].copy(bodyMapping);
+        }
+
+        //landscape (only replaced if it was modified and is not shared anymore)
+        if (world.mLandscape.mStartpoints != template.mLandscape.mStartpoints ||
+            world.mLandscape.mSegmentCount != template.mLandscape.mSegmentCount)
+        {
+            world.setLandscape(template.mLandscape.copy());
+        }
+        //#NoEco */
+
+        //#NoBasic /*
+        //scripts
+        world.mScriptBodies = World.checkVector(world.mScriptBodies, template.mScriptBodyCount);
+        world.mScriptIndex = World.checkVector(world.mScriptIndex, template.mScriptBodyCount);
+        world.mScriptElementIndex = World.checkVector(world.mScriptElementIndex, template.mScriptBodyCount);
+        world.mScriptExecutionIndex = World.checkVector(world.mScriptExecutionIndex, template.mScriptBodyCount);
+        for( int i = template.mScriptBodyCount; i < world.mScriptBodyCount; i++)
+        {
+            world.mScriptBodies[i] = null;
+        }
+        for( int i = 0; i < template.mScriptBodyCount; i++)
+        {
+            world.mScriptBodies[i] = bodyMapping[template.mScriptBodies[i].mId];
+            world.mScriptIndex[i] = template.mScriptIndex[i];
+            world.mScriptElementIndex[i] = template.mScriptElementIndex[i];
+            world.mScriptExecutionIndex[i] = template.mScriptExecutionIndex[i];
+        }
+        world.mScriptBodyCount = template.mScriptBodyCount;
+
+        //particles
+        for( int i = 0; i < world.mParticles.size(); i++)
+        {
+            ((ParticleEmitter) world.mParticles.elementAt(i)).clearParticles();
+        }
+
+        //soft bodies
+        for( int i = 0; i < world.mSoftBodies.size(); i++)
+        {
+            SoftBody softBody = (SoftBody) world.mSoftBodies.elementAt(i);
+            SoftBody templateSoftBody = (SoftBody) template.mSoftBodies.elementAt(i);
+            if (softBody.mNodeCount != templateSoftBody.mNodeCount)
+            {
+                world.mSoftBodies.setElementAt(templateSoftBody.copy(), i);
+            }
+            else
+            {
+                softBody.restoreState(templateSoftBody);
+            }
+        }
+
+        //events
+        Vector events = world.mEventSet.getEvents();
+        for( int i = 0; i < events.size(); i++)
+        {
+            ((Event) events.elementAt(i)).resetTriggers();
+        }
+
+        //external forces and listeners
+        world.mForces.removeAllElements();
+        for( int i = 0; i < template.mForces.size(); i++)
+        {
+            world.mForces.addElement(((ExternalForce) template.mForces.elementAt(i)).copy(bodyMapping));
+        }
+        world.setPhysicsEventListener(null);
+        //#NoBasic */
+        world.setSensorListener(null);
+
+        //world parameters
+        world.setGravity(new FXVector(template.getGravity()));     //the vector of the world may be shared
+        world.setDampingLateralFX(template.getDampingLateralFX());
+        world.setDampingRotationalFX(template.getDampingRotationalFX());
+        world.mAreaStartFX = template.mAreaStartFX;
+        world.mAreaEndFX = template.mAreaEndFX;
+        world.mTimestepFX = template.mTimestepFX;
+        world.mInvTimestepFX = template.mInvTimestepFX;
+        world.mConstraintIterations = template.mConstraintIterations;
+        world.mPositionConstraintIterations = template.mPositionConstraintIterations;
+        world.mContactColoring = template.mContactColoring;
+        world.mJointChainSolving = template.mJointChainSolving;
+        System.arraycopy(template.mLayerFilters, 0, world.mLayerFilters, 0, world.mLayerFilters.length);
+        world.setTransformBuffer(null);
+        world.mStateHash = 0;
+
+        for( int i = 0; i < template.mBodyCount; i++)
+        {
+            worldBodies[i] = null;
+            bodyMapping[template.mBodies[i].mId] = null;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+package at.emini.physics2D.util;
+
+/**
+ * Reads bit packed values written by a {@link BitWriter}.
+ * Reads beyond the end return 0 and set the overflow flag.
+ *
+ * @author Alexander Adensamer
+ */
+public class BitReader
+{
+    private byte[] mBuffer;
+    private int mPosition = 0;
+    private int mLimit = 0;
+    private boolean mOverflow = false;
+
+    /**
+     * Constructor.
+     * @param buffer the source buffer
+     * @param length the number of valid bytes
+     */
+    public BitReader(byte[] buffer, int length)
+    {
+        mBuffer = buffer;
+        mLimit = Math.min(length, buffer.length) * 8;
+    }
+
+    /**
+     * Reads an unsigned value.
+     * @param count the number of bits (up to 32)
+     * @return the value.
+     */
+    public int readBits(int count)
+    {
+        if (mPosition + count > mLimit)
+        {
+            mOverflow = true;
+            mPosition = mLimit;
+            return 0;
+        }
+        int value = 0;
+        while (count > 0)
+        {
+            int index = mPosition >> 3;
+            int free = 8 - (mPosition & 7);
+            int n = count < free ? count : free;
+            int bits = (mBuffer[index] >> (free - n)) & ((1 << n) - 1);
+            value = (value << n) | bits;
+            mPosition += n;
+            count -= n;
+        }
+        return value;
+    }
+
+    /**
+     * Reads a single bit.
+     * @return the bit.
+     */
+    public boolean readBit()
+    {
+        return readBits(1) != 0;
+    }
+
+    /**
+     * Gets the read position.
+     * @return the number of read bits.
+     */
+    public int getPosition()
+    {
+        return mPosition;
+    }
+
+    /**
+     * Checks if a read exceeded the data.
+     * @return true if a read exceeded the data.
+     */
+    public boolean isOverflow()
+    {
+        return mOverflow;
+    }
+}
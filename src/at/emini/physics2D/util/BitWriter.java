@@ -0,0 +1,101 @@
+package at.emini.physics2D.util;
+
+/**
+ * Writes bit packed values into a byte buffer.
+ * The bits are written most significant bit first. <br>
+ * Writes that do not fit into the limit are not performed and set the overflow flag.
+ * The position can be reset to undo writes (e.g. an entry that does not fit).
+ *
+ * @author Alexander Adensamer
+ */
+public class BitWriter
+{
+    private byte[] mBuffer;
+    private int mPosition = 0;
+    private int mLimit = 0;
+    private boolean mOverflow = false;
+
+    /**
+     * Constructor.
+     * @param buffer the target buffer
+     * @param maxBytes the maximum number of bytes to write
+     */
+    public BitWriter(byte[] buffer, int maxBytes)
+    {
+        mBuffer = buffer;
+        mLimit = Math.min(maxBytes, buffer.length) * 8;
+    }
+
+    /**
+     * Writes a value.
+     * @param value the value (only the lowest bits are written)
+     * @param count the number of bits (up to 32)
+     */
+    public void writeBits(int value, int count)
+    {
+        if (mPosition + count > mLimit)
+        {
+            mOverflow = true;
+            return;
+        }
+        while (count > 0)
+        {
+            int index = mPosition >> 3;
+            int free = 8 - (mPosition & 7);
+            int n = count < free ? count : free;
+            int shift = free - n;
+            int mask = ((1 << n) - 1) << shift;
+            int bits = ((value >>> (count - n)) << shift) & mask;
+            mBuffer[index] = (byte) ((mBuffer[index] & ~mask) | bits);
+            mPosition += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Writes a single bit.
+     * @param value the bit
+     */
+    public void writeBit(boolean value)
+    {
+        writeBits(value ? 1 : 0, 1);
+    }
+
+    /**
+     * Gets the write position.
+     * @return the number of written bits.
+     */
+    public int getPosition()
+    {
+        return mPosition;
+    }
+
+    /**
+     * Resets the write position.
+     * Clears the overflow flag.
+     * @param position the position (bits) to continue writing at
+     */
+    public void setPosition(int position)
+    {
+        mPosition = position;
+        mOverflow = false;
+    }
+
+    /**
+     * Checks if a write did not fit.
+     * @return true if a write exceeded the limit.
+     */
+    public boolean isOverflow()
+    {
+        return mOverflow;
+    }
+
+    /**
+     * Gets the number of used bytes.
+     * @return the byte count.
+     */
+    public int getByteCount()
+    {
+        return (mPosition + 7) >> 3;
+    }
+}
@@ -164,6 +164,47 @@ public final void mult(FXVector vector, FXVector target)
 
     }
 
+    /**
+     * Multiplies the matrix with several vectors and adds a translation (without object creation).<br>
+     * target[targetStart + i] = matrix * vectors[i] + translation. <br>
+     * The results are identical to {@link #mult(FXVector, FXVector)} followed by {@link FXVector#add(FXVector)}.
+     * @param vectors the vectors to transform.
+     * @param count the number of vectors.
+     * @param translation the translation added to each result.
+     * @param target the result vectors.
+     * @param targetStart the index of the first result vector.
+     */
+    public final void transform(FXVector[] vectors, int count, FXVector translation, FXVector[] target, int targetStart)
+    {
+        int precision = this.mPrecision;
+        long col1xFX = mCol1xFX, col1yFX = mCol1yFX, col2xFX = mCol2xFX, col2yFX = mCol2yFX;
+        int translationXFX = translation.xFX, translationYFX = translation.yFX;
+        for( int i = 0; i < count; i++)
+        {
+            long xFX = vectors[i].xFX;
+            long yFX = vectors[i].yFX;
+            FXVector result = target[targetStart + i];
+            result.xFX = (int) (((col1xFX * xFX) >> precision) + ((col2xFX * yFX) >> precision)) + translationXFX;    //#FX2F result.xFX = col1xFX * xFX + col2xFX * yFX + translationXFX;
+            result.yFX = (int) (((col1yFX * xFX) >> precision) + ((col2yFX * yFX) >> precision)) + translationYFX;    //#FX2F result.yFX = col1yFX * xFX + col2yFX * yFX + translationYFX;
+        }
+    }
+
+    /**
+     * Multiplies the transposed matrix with a vector (without object creation).
+     * For rotation matrices this corresponds to the inverse rotation.
+     * Note: Do not supply the same vector in both arguments! This will lead to wrong results!
+     * @param vector the vector to multiply.
+     * @param target the result vector.
+     */
+    public final void multTransposed(FXVector vector, FXVector target)
+    {
+        int precision = this.mPrecision;
+        target.xFX = (int) (((mCol1xFX * (long)vector.xFX) >> (precision)) +      //#FX2F target.xFX = mCol1xFX * vector.xFX + mCol1yFX * vector.yFX;
+                            ((mCol1yFX * (long)vector.yFX) >> (precision)));      //#FX2F
+        target.yFX = (int) (((mCol2xFX * (long)vector.xFX) >> (precision)) +      //#FX2F target.yFX = mCol2xFX * vector.xFX + mCol2yFX * vector.yFX;
+                            ((mCol2yFX * (long)vector.yFX) >> (precision)));      //#FX2F
+    }
+
     /**
      * Inverts the matrix.
      */
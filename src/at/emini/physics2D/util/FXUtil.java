@@ -280,4 +280,17 @@ public static int fromFX(int valueFX)
     {
         return valueFX >> FXUtil.DECIMAL;
     }
+
+    /**
+     * Mixes a value into a hash value.
+     * Used for deterministic state checksums (see {@link at.emini.physics2D.World#stateHash()}).
+     * @fx
+     * @param hash the current hash value.
+     * @param valueFX the value to add (FX).
+     * @return the new hash value.
+     */
+    public static int hashStep(int hash, int valueFX)
+    {
+        return (hash ^ valueFX) * 16777619;                         //#FX2F return (hash ^ Float.floatToIntBits(valueFX)) * 16777619;
+    }
 }
@@ -2,27 +2,45 @@
 
 import java.io.File;                    //#NoJ2ME
 import java.io.FileInputStream;         //#NoJ2ME
-import java.io.FileNotFoundException;   //#NoJ2ME
 import java.io.IOException;
 import java.io.InputStream;
 
 /**
- * Wrapper for an InputStream.
- * Features convenience methods to convert read bits.
+ * Reader for physics data streams.
+ * Features convenience methods to convert read bits. <br>
+ * The complete stream is read into a byte buffer on construction,
+ * all values are then decoded directly from the buffer.
+ * This avoids the (slow) single byte reads from the underlying stream
+ * and allows to skip data and to bulk decode arrays.
  *
  * @author Alexander Adensamer
  */
 public class PhysicsFileReader
 {
+    /**
+     * Block size for reading streams of unknown length.
+     */
+    private static final int M_READ_BLOCK_SIZE = 4096;
+
     /**
      * File version.
      */
     private int mVersion = 0;
 
     /**
-     * The stream.
+     * The data buffer.
+     */
+    private byte[] mBuffer;
+
+    /**
+     * Number of valid bytes in the buffer.
+     */
+    private int mLength = 0;
+
+    /**
+     * Current read position.
      */
-    private InputStream mStream;
+    private int mPosition = 0;
 
     /**
      * Constructor.
@@ -31,34 +49,103 @@
      */
     public PhysicsFileReader( String name )
     {
-        mStream = getClass().getResourceAsStream( name );
-        readHeader();
+        initStream(getClass().getResourceAsStream( name ));
     }
 
     /**
      * Constructor using a File.
      * @param file the file containing the data stream.
      */
-    public PhysicsFileReader( File file )               //#NoJ2ME
-    {                                                   //#NoJ2ME
-        try {                                           //#NoJ2ME
-            mStream = new FileInputStream(file);         //#NoJ2ME
-            readHeader();                               //#NoJ2ME
-        } catch (FileNotFoundException e) {             //#NoJ2ME
-            e.printStackTrace();                        //#NoJ2ME
-        }                                               //#NoJ2ME
-    }                                                   //#NoJ2ME
+    public PhysicsFileReader( File file )                       //#NoJ2ME
+    {                                                           //#NoJ2ME
+        mBuffer = new byte[(int) file.length()];                //#NoJ2ME
+        try {                                                   //#NoJ2ME
+            FileInputStream stream = new FileInputStream(file); //#NoJ2ME
+            readStream(stream);                                 //#NoJ2ME
+            stream.close();                                     //#NoJ2ME
+        } catch (IOException e) {                               //#NoJ2ME
+            e.printStackTrace();                                //#NoJ2ME
+        }                                                       //#NoJ2ME
+        readHeader();                                           //#NoJ2ME
+    }                                                           //#NoJ2ME
 
     /**
      * COnstructor using an input stream.
+     * The stream is read completely and closed.
      * @param stream the data stream.
      */
     public PhysicsFileReader( InputStream stream )
     {
-        this.mStream = stream;
+        initStream(stream);
+    }
+
+    /**
+     * Reads the complete stream into the buffer and reads the header.
+     * @param stream the data stream.
+     */
+    private void initStream(InputStream stream)
+    {
+        mBuffer = new byte[M_READ_BLOCK_SIZE];
+        if (stream != null)
+        {
+            try
+            {
+                readStream(stream);
+                stream.close();
+            }
+            catch (IOException e)
+            {
+            }
+        }
+        readHeader();
+    }
+
+    /**
+     * Constructor using a byte array.
+     * The array is used directly (not copied).
+     * @param data the data stream.
+     * @param length the number of valid bytes in the array.
+     */
+    public PhysicsFileReader( byte[] data, int length )
+    {
+        mBuffer = data;
+        mLength = length;
         readHeader();
     }
 
+    /**
+     * Reads the complete stream into the buffer.
+     * The buffer is enlarged if required.
+     * A full buffer is only enlarged if the stream has more data,
+     * so a buffer with the exact stream length is not reallocated.
+     * @param stream the data stream.
+     * @throws IOException
+     */
+    private void readStream(InputStream stream) throws IOException
+    {
+        while (true)
+        {
+            if (mLength == mBuffer.length)
+            {
+                int next = stream.read();
+                if (next < 0)
+                {
+                    return;
+                }
+                byte[] newBuffer = new byte[mBuffer.length * 2 + M_READ_BLOCK_SIZE];
+                System.arraycopy(mBuffer, 0, newBuffer, 0, mLength);
+                mBuffer = newBuffer;
+                mBuffer[mLength++] = (byte) next;
+            }
+            int read = stream.read(mBuffer, mLength, mBuffer.length - mLength);
+            if (read < 0)
+            {
+                return;
+            }
+            mLength += read;
+        }
+    }
+
     /**
      * Reads the header of the passed file/stream.
      */
@@ -76,21 +163,52 @@ public int getVersion()
         return mVersion;
     }
 
+    /**
+     * Gets the current read position.
+     * @return the number of bytes read so far (including the header).
+     */
+    public int getPosition()
+    {
+        return mPosition;
+    }
+
+    /**
+     * Sets the read position.
+     * Used to skip (or repeat) sections of the stream.
+     * @param position the new read position.
+     */
+    public void setPosition(int position)
+    {
+        mPosition = Math.max(0, Math.min(position, mLength));
+    }
+
+    /**
+     * Skips bytes of the stream.
+     * @param count the number of bytes to skip.
+     */
+    public void skip(int count)
+    {
+        setPosition(mPosition + count);
+    }
+
+    /**
+     * Gets the number of remaining bytes.
+     * @return the number of bytes that can still be read.
+     */
+    public int available()
+    {
+        return mLength - mPosition;
+    }
+
     /**
      * Reads the next byte.
      * @return the next byte in the stream.
      */
     public int next()
     {
-        if (mStream != null)
+        if (mPosition < mLength)
         {
-            try
-            {
-                return mStream.read();
-            }
-            catch (IOException e)
-            {
-            }
+            return mBuffer[mPosition++] & 0xFF;
         }
         return -1;
     }
@@ -104,44 +222,47 @@ public int next()
      */
     public String nextString()
     {
-        if (mStream != null)
+        int length = nextInt();
+        if (length < 0 || mPosition + length > mLength)
+        {
+            return null;
+        }
+        try
+        {
+            String result = new String(mBuffer, mPosition, length, "UTF-8");
+            mPosition += length;
+            return result;
+        }
+        catch (IOException e)
         {
-            try
-            {
-                int length = nextInt();
-
-                byte[] bytes = new byte[length];
-                mStream.read(bytes, 0, length);
-                return new String(bytes, "UTF-8");
-            }
-            catch (IOException e)
-            {
-            }
         }
         return null;
     }
 
+    /**
+     * Decodes the int (4 byte) at the current position.
+     * @return the int (4 bytes) or -1 at the end of the stream.
+     */
+    private final int decodeInt()
+    {
+        if (mPosition + 4 > mLength)
+        {
+            mPosition = mLength;
+            return -1;
+        }
+        byte[] buffer = mBuffer;
+        int pos = mPosition;
+        mPosition += 4;
+        return ((buffer[pos] & 0xFF) << 24) + ((buffer[pos + 1] & 0xFF) << 16) + ((buffer[pos + 2] & 0xFF) << 8) + (buffer[pos + 3] & 0xFF);
+    }
+
     /**
      * Reads the next int (4 byte).
      * @return the next int of the stream (4 bytes).
      */
     public int nextInt()
     {
-        if (mStream != null)
-        {
-            try
-            {
-                int bits1 = mStream.read();
-                int bits2 = mStream.read();
-                int bits3 = mStream.read();
-                int bits4 = mStream.read();
-                return (bits1 << 24) + (bits2 << 16) + (bits3 << 8) + bits4;
-            }
-            catch (IOException e)
-            {
-            }
-        }
-        return -1;
+        return decodeInt();
     }
 
     //#FX2F private static final int decimal = FXUtil.DECIMAL;
@@ -155,21 +276,7 @@ public int nextInt()
      */
     public int nextIntFX()
     {
-        if (mStream != null)
-        {
-            try
-            {
-                int bits1 = mStream.read();
-                int bits2 = mStream.read();
-                int bits3 = mStream.read();
-                int bits4 = mStream.read();
-                return (bits1 << 24) + (bits2 << 16) + (bits3 << 8) + bits4; //#FX2F return ((float) ((bits1 << 24) + (bits2 << 16) + (bits3 << 8) + bits4)) / (float) koeff;
-            }
-            catch (IOException e)
-            {
-            }
-        }
-        return -1;
+        return decodeInt(); //#FX2F return ((float) decodeInt()) / (float) koeff;
     }
 
     //#FX2F private static final int decimal2 = FXUtil.DECIMAL2;
@@ -183,21 +290,7 @@ public int nextIntFX()
      */
     public int nextInt2FX()
     {
-        if (mStream != null)
-        {
-            try
-            {
-                int bits1 = mStream.read();
-                int bits2 = mStream.read();
-                int bits3 = mStream.read();
-                int bits4 = mStream.read();
-                return (bits1 << 24) + (bits2 << 16) + (bits3 << 8) + bits4; //#FX2F return ((float) ((bits1 << 24) + (bits2 << 16) + (bits3 << 8) + bits4)) / (float) koeff2;
-            }
-            catch (IOException e)
-            {
-            }
-        }
-        return -1;
+        return decodeInt(); //#FX2F return ((float) decodeInt()) / (float) koeff2;
     }
 
     /**
@@ -206,22 +299,60 @@ public int nextInt2FX()
      */
     public FXVector nextVector()
     {
-        if (mStream != null)
+        return new FXVector( nextIntFX(), nextIntFX());
+    }
+
+    /**
+     * Reads a block of ints (4 byte each).
+     * @param values the array to fill.
+     * @param offset the first index to fill.
+     * @param count the number of ints to read.
+     */
+    public void nextInts(int[] values, int offset, int count)
+    {
+        for( int i = 0; i < count; i++)
         {
-            return new FXVector( nextIntFX(), nextIntFX());
+            values[offset + i] = decodeInt();
         }
-        return new FXVector();
     }
 
     /**
-     * Closes the stream.
+     * Reads a block of ints (4 byte each, FX).
+     * @fx
+     * @param valuesFX the array to fill.
+     * @param offset the first index to fill.
+     * @param count the number of values to read.
      */
-    public void close()
+    public void nextIntsFX(int[] valuesFX, int offset, int count)
     {
-        try {
-            mStream.close();
-        } catch (IOException e) {
+        for( int i = 0; i < count; i++)
+        {
+            valuesFX[offset + i] = decodeInt(); //#FX2F valuesFX[offset + i] = ((float) decodeInt()) / (float) koeff;
         }
     }
 
+    /**
+     * Reads a block of bytes.
+     * @param values the array to fill.
+     * @param offset the first index to fill.
+     * @param count the number of bytes to read.
+     */
+    public void nextBytes(byte[] values, int offset, int count)
+    {
+        count = Math.min(count, mLength - mPosition);
+        System.arraycopy(mBuffer, mPosition, values, offset, count);
+        mPosition += count;
+    }
+
+    /**
+     * Closes the reader.
+     * Releases the buffer.
+     */
+    public void close()
+    {
+        mBuffer = new byte[0];
+        mLength = 0;
+        mPosition = 0;
+    }
+
 }
@@ -0,0 +1,391 @@
+package at.emini.physics2DDesigner;
+
+import java.util.Vector;
+
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * Splits a (concave) outline into convex parts.
+ *
+ * The outline is triangulated by ear clipping, then neighbouring parts are merged greedily,
+ * the merge that adds the least area to the convex hull first (Hertel-Mehlhorn style).
+ * This gives an approximately minimal number of parts.
+ * Parts are limited to {@link World#M_SHAPE_SAT_MAX_VERTICES} vertices.
+ * With a tolerance > 0 near-convex parts are merged and replaced by their convex hull.
+ */
+public class ConvexDecomposition
+{
+    private static final double EPSILON = 1e-9;
+
+    private Vector parts = new Vector();        //double[][] {x, y} of the convex parts, same orientation as shapes
+    private double outlineArea = 0;
+    private boolean complete = true;            //false if the triangulation found no ear (outline not simple)
+
+    /**
+     * Decomposes an outline.
+     * @param outline the vertices of a simple polygon (either orientation)
+     * @param tolerance area a merged part may exceed the covered outline (fraction, 0 for exact decomposition)
+     * @param maxVertices maximum number of vertices of a part
+     */
+    public ConvexDecomposition(FXVector[] outline, double tolerance, int maxVertices)
+    {
+        int n = outline.length;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for( int i = 0; i < n; i++)
+        {
+            x[i] = outline[i].xFX / (double) FXUtil.ONE_FX;
+            y[i] = outline[i].yFX / (double) FXUtil.ONE_FX;
+        }
+        //work with counterclockwise outline (positive area)
+        if (area(x, y, n) < 0)
+        {
+            reverse(x, n);
+            reverse(y, n);
+        }
+        outlineArea = Math.abs(area(x, y, n));
+        if (n < 3)
+        {
+            return;
+        }
+
+        Vector pieces = triangulate(x, y);
+        merge(pieces, tolerance, Math.max(3, maxVertices));
+
+        //shapes are clockwise: reverse the parts
+        for( int i = 0; i < pieces.size(); i++)
+        {
+            Piece piece = (Piece) pieces.elementAt(i);
+            reverse(piece.x, piece.x.length);
+            reverse(piece.y, piece.y.length);
+            parts.addElement(new double[][] { piece.x, piece.y });
+        }
+    }
+
+    /**
+     * Decomposes an outline with the default vertex limit.
+     */
+    public ConvexDecomposition(FXVector[] outline, double tolerance)
+    {
+        this(outline, tolerance, World.M_SHAPE_SAT_MAX_VERTICES);
+    }
+
+    /**
+     * Checks whether the parts cover the whole outline.
+     * The triangulation stops if it finds no ear, e.g. for a self-intersecting outline.
+     */
+    public boolean isComplete()
+    {
+        return complete;
+    }
+
+    public int getPartCount()
+    {
+        return parts.size();
+    }
+
+    /**
+     * Gets the corners of a part (clockwise, as required by {@link at.emini.physics2D.Shape}).
+     */
+    public FXVector[] getPart(int index)
+    {
+        double[][] part = (double[][]) parts.elementAt(index);
+        FXVector[] corners = new FXVector[part[0].length];
+        for( int i = 0; i < corners.length; i++)
+        {
+            corners[i] = new FXVector((int) Math.round(part[0][i] * FXUtil.ONE_FX), (int) Math.round(part[1][i] * FXUtil.ONE_FX));
+        }
+        return corners;
+    }
+
+    /**
+     * Gets the area that the parts cover in addition to the outline (fraction of the outline area).
+     */
+    public double getExcessArea()
+    {
+        if (outlineArea < EPSILON)
+        {
+            return 0;
+        }
+        double partArea = 0;
+        for( int i = 0; i < parts.size(); i++)
+        {
+            double[][] part = (double[][]) parts.elementAt(i);
+            partArea += Math.abs(area(part[0], part[1], part[0].length));
+        }
+        return Math.max(0, partArea / outlineArea - 1);
+    }
+
+    /**
+     * Estimates the collision cost of the parts against a polygon.
+     * Counts the vertex projections of a SAT test of all parts
+     * (every axis of both shapes, every vertex of both shapes).
+     * @param otherVertices the vertex count of the other polygon (e.g. 4 for a box)
+     * @return the number of projections
+     */
+    public int estimateCollisionCost(int otherVertices)
+    {
+        int cost = 0;
+        for( int i = 0; i < parts.size(); i++)
+        {
+            int vertices = ((double[][]) parts.elementAt(i))[0].length;
+            cost += (vertices + otherVertices) * (vertices + otherVertices);
+        }
+        return cost;
+    }
+
+    /**
+     * A convex part (counterclockwise) with the area of the outline it covers.
+     */
+    private static class Piece
+    {
+        double[] x;
+        double[] y;
+        double coveredArea;
+        boolean alive = true;
+
+        Piece(double[] x, double[] y, double coveredArea)
+        {
+            this.x = x;
+            this.y = y;
+            this.coveredArea = coveredArea;
+        }
+    }
+
+    /**
+     * Ear clipping triangulation of a counterclockwise polygon.
+     * Stops after a pass over all vertices that finds no ear.
+     */
+    private Vector triangulate(double[] x, double[] y)
+    {
+        Vector triangles = new Vector();
+        int count = x.length;
+        int[] remaining = new int[count];
+        for( int i = 0; i < count; i++)
+        {
+            remaining[i] = i;
+        }
+
+        boolean clipped = true;
+        while (count > 3 && clipped)
+        {
+            clipped = false;
+            for( int i = 0; i < count && ! clipped; i++)
+            {
+                int a = remaining[(i + count - 1) % count];
+                int b = remaining[i];
+                int c = remaining[(i + 1) % count];
+                double turn = cross(x[a], y[a], x[b], y[b], x[c], y[c]);
+                if (turn < -EPSILON)
+                {
+                    continue;   //reflex vertex
+                }
+                boolean ear = true;
+                if (turn > EPSILON)
+                {
+                    for( int j = 0; j < count && ear; j++)
+                    {
+                        int p = remaining[j];
+                        if (p != a && p != b && p != c && insideTriangle(x[p], y[p], x[a], y[a], x[b], y[b], x[c], y[c]))
+                        {
+                            ear = false;
+                        }
+                    }
+                    if (ear)
+                    {
+                        triangles.addElement(createPiece(x, y, new int[] {a, b, c}));
+                    }
+                }
+                //collinear vertices are dropped
+                if (ear)
+                {
+                    System.arraycopy(remaining, i + 1, remaining, i, count - i - 1);
+                    count--;
+                    clipped = true;
+                }
+            }
+        }
+        complete = clipped;
+        if (count == 3)
+        {
+            int a = remaining[0];
+            int b = remaining[1];
+            int c = remaining[2];
+            if (cross(x[a], y[a], x[b], y[b], x[c], y[c]) > EPSILON)
+            {
+                triangles.addElement(createPiece(x, y, new int[] {a, b, c}));
+            }
+        }
+        return triangles;
+    }
+
+    private static Piece createPiece(double[] x, double[] y, int[] indices)
+    {
+        double[] px = new double[indices.length];
+        double[] py = new double[indices.length];
+        for( int i = 0; i < indices.length; i++)
+        {
+            px[i] = x[indices[i]];
+            py[i] = y[indices[i]];
+        }
+        return new Piece(px, py, area(px, py, px.length));
+    }
+
+    /**
+     * Greedily merges neighbouring pieces.
+     */
+    private static void merge(Vector pieces, double tolerance, int maxVertices)
+    {
+        int count = pieces.size();
+        boolean[][] adjacent = new boolean[count][count];
+        for( int i = 0; i < count; i++)
+        {
+            for( int j = i + 1; j < count; j++)
+            {
+                adjacent[i][j] = adjacent[j][i] = shareEdge((Piece) pieces.elementAt(i), (Piece) pieces.elementAt(j));
+            }
+        }
+
+        while (true)
+        {
+            int bestI = -1, bestJ = -1;
+            double bestExcess = Double.MAX_VALUE;
+            Piece bestPiece = null;
+            for( int i = 0; i < count; i++)
+            {
+                Piece p1 = (Piece) pieces.elementAt(i);
+                if (! p1.alive) continue;
+                for( int j = i + 1; j < count; j++)
+                {
+                    Piece p2 = (Piece) pieces.elementAt(j);
+                    if (! p2.alive || ! adjacent[i][j]) continue;
+
+                    Piece merged = hull(p1, p2);
+                    if (merged.x.length > maxVertices) continue;
+                    double excess = area(merged.x, merged.y, merged.x.length) / merged.coveredArea - 1;
+                    if (excess <= tolerance + EPSILON && excess < bestExcess)
+                    {
+                        bestExcess = excess;
+                        bestI = i;
+                        bestJ = j;
+                        bestPiece = merged;
+                    }
+                }
+            }
+            if (bestPiece == null)
+            {
+                break;
+            }
+            pieces.setElementAt(bestPiece, bestI);
+            ((Piece) pieces.elementAt(bestJ)).alive = false;
+            for( int k = 0; k < count; k++)
+            {
+                adjacent[bestI][k] = adjacent[k][bestI] = (adjacent[bestI][k] || adjacent[bestJ][k]) && k != bestI;
+                adjacent[bestJ][k] = adjacent[k][bestJ] = false;
+            }
+        }
+
+        for( int i = pieces.size() - 1; i >= 0; i--)
+        {
+            if (! ((Piece) pieces.elementAt(i)).alive)
+            {
+                pieces.removeElementAt(i);
+            }
+        }
+    }
+
+    private static boolean shareEdge(Piece p1, Piece p2)
+    {
+        int shared = 0;
+        for( int i = 0; i < p1.x.length; i++)
+        {
+            for( int j = 0; j < p2.x.length; j++)
+            {
+                if (p1.x[i] == p2.x[j] && p1.y[i] == p2.y[j])
+                {
+                    shared++;
+                }
+            }
+        }
+        return shared >= 2;
+    }
+
+    /**
+     * Convex hull of two pieces (monotone chain, counterclockwise, no collinear vertices).
+     */
+    private static Piece hull(Piece p1, Piece p2)
+    {
+        int n = p1.x.length + p2.x.length;
+        double[] px = new double[n];
+        double[] py = new double[n];
+        System.arraycopy(p1.x, 0, px, 0, p1.x.length);
+        System.arraycopy(p1.y, 0, py, 0, p1.y.length);
+        System.arraycopy(p2.x, 0, px, p1.x.length, p2.x.length);
+        System.arraycopy(p2.y, 0, py, p1.y.length, p2.y.length);
+
+        //sort by x, then y
+        for( int i = 1; i < n; i++)
+        {
+            for( int j = i; j > 0 && (px[j] < px[j - 1] || (px[j] == px[j - 1] && py[j] < py[j - 1])); j--)
+            {
+                double t = px[j]; px[j] = px[j - 1]; px[j - 1] = t;
+                t = py[j]; py[j] = py[j - 1]; py[j - 1] = t;
+            }
+        }
+
+        double[] hx = new double[2 * n];
+        double[] hy = new double[2 * n];
+        int k = 0;
+        for( int i = 0; i < n; i++)
+        {
+            while (k >= 2 && cross(hx[k - 2], hy[k - 2], hx[k - 1], hy[k - 1], px[i], py[i]) <= EPSILON) k--;
+            hx[k] = px[i]; hy[k] = py[i]; k++;
+        }
+        for( int i = n - 2, lower = k + 1; i >= 0; i--)
+        {
+            while (k >= lower && cross(hx[k - 2], hy[k - 2], hx[k - 1], hy[k - 1], px[i], py[i]) <= EPSILON) k--;
+            hx[k] = px[i]; hy[k] = py[i]; k++;
+        }
+        k--;    //last point equals the first
+
+        double[] x = new double[k];
+        double[] y = new double[k];
+        System.arraycopy(hx, 0, x, 0, k);
+        System.arraycopy(hy, 0, y, 0, k);
+        return new Piece(x, y, p1.coveredArea + p2.coveredArea);
+    }
+
+    private static double cross(double ax, double ay, double bx, double by, double cx, double cy)
+    {
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+
+    private static boolean insideTriangle(double px, double py, double ax, double ay, double bx, double by, double cx, double cy)
+    {
+        return cross(ax, ay, bx, by, px, py) >= -EPSILON
+            && cross(bx, by, cx, cy, px, py) >= -EPSILON
+            && cross(cx, cy, ax, ay, px, py) >= -EPSILON;
+    }
+
+    private static double area(double[] x, double[] y, int n)
+    {
+        double area = 0;
+        for( int i = 0, j = n - 1; i < n; j = i, i++)
+        {
+            area += x[j] * y[i] - x[i] * y[j];
+        }
+        return area / 2;
+    }
+
+    private static void reverse(double[] values, int n)
+    {
+        for( int i = 0, j = n - 1; i < j; i++, j--)
+        {
+            double t = values[i];
+            values[i] = values[j];
+            values[j] = t;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package at.emini.physics2DDesigner;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Vector;
+
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * Dialog to draw a concave outline and split it into convex shapes.
+ * The resulting part count and the estimated collision cost are shown before the shapes are created.
+ */
+public class DecompositionDialog extends JDialog
+{
+    private static final long serialVersionUID = 3920167351926417306L;
+
+    private static final int SCALE = 4;     //pixels per unit
+    private static final int SIZE = 100;    //drawing area in units
+
+    private ShapeSelectionPanel shapePanel;
+
+    private Vector outline = new Vector();  //FXVector
+    private ConvexDecomposition decomposition = null;
+
+    private JCheckBox mergeNearConvex;
+    private JSpinner tolerance;
+    private JLabel result;
+    private JButton createButton;
+    private JPanel canvas;
+
+    public DecompositionDialog(ShapeSelectionPanel shapePanel)
+    {
+        this.shapePanel = shapePanel;
+
+        setTitle("Decompose Outline");
+
+        addWindowListener (new java.awt.event.WindowAdapter () {
+            public void windowClosing (java.awt.event.WindowEvent evt) {
+                dispose();
+            }
+        });
+
+        initComponents();
+    }
+
+    private void initComponents()
+    {
+        canvas = new JPanel() {
+            private static final long serialVersionUID = -2384651901746214383L;
+
+            public void paint(Graphics g)
+            {
+                paintCanvas((Graphics2D) g);
+            }
+        };
+        canvas.setPreferredSize(new Dimension(SIZE * SCALE, SIZE * SCALE));
+        canvas.addMouseListener(new MouseAdapter() {
+            public void mousePressed(MouseEvent e)
+            {
+                //click: add vertex (snapped to units)
+                int x = Math.round(e.getX() / (float) SCALE) - SIZE / 2;
+                int y = Math.round(e.getY() / (float) SCALE) - SIZE / 2;
+                outline.addElement(FXVector.newVector(x, y));
+                updateDecomposition();
+            }
+        });
+        add(canvas, BorderLayout.CENTER);
+
+        //options
+        JPanel options = new JPanel(new FlowLayout(FlowLayout.LEADING, 5, 5));
+        mergeNearConvex = new JCheckBox("Merge near-convex pieces");
+        mergeNearConvex.addActionListener(new ActionListener(){
+            public void actionPerformed(ActionEvent e) {
+                updateDecomposition();
+            }
+        });
+        options.add(mergeNearConvex);
+        tolerance = new JSpinner(new SpinnerNumberModel(5, 0, 50, 1));
+        tolerance.addChangeListener(new ChangeListener() {
+            public void stateChanged(ChangeEvent e) {
+                updateDecomposition();
+            }
+        });
+        options.add(new JLabel("Tolerance (% area):"));
+        options.add(tolerance);
+        add(options, BorderLayout.NORTH);
+
+        //result and buttons
+        JPanel hold = new JPanel(new FlowLayout(FlowLayout.TRAILING, 5, 5) );
+        result = new JLabel();
+        hold.add(result);
+
+        JButton clearButton = new JButton("Clear");
+        clearButton.addActionListener(new ActionListener(){
+            public void actionPerformed(ActionEvent e) {
+                outline.removeAllElements();
+                updateDecomposition();
+            }
+        });
+        hold.add(clearButton);
+
+        createButton = new JButton("Create");
+        createButton.addActionListener(new ActionListener(){
+            public void actionPerformed(ActionEvent e) {
+                createPressed();
+            }
+        });
+        hold.add(createButton);
+
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(new ActionListener(){
+            public void actionPerformed(ActionEvent e) {
+                setVisible(false);
+                dispose();
+            }
+        });
+        hold.add(cancelButton);
+        add(hold, BorderLayout.SOUTH);
+
+        updateDecomposition();
+        pack();
+    }
+
+    private void updateDecomposition()
+    {
+        decomposition = null;
+        if (outline.size() >= 3)
+        {
+            FXVector[] corners = new FXVector[outline.size()];
+            outline.copyInto(corners);
+            double tolerancePercent = ((Number) tolerance.getValue()).doubleValue();
+            decomposition = new ConvexDecomposition(corners, mergeNearConvex.isSelected() ? tolerancePercent / 100.0 : 0);
+        }
+
+        if (decomposition == null || decomposition.getPartCount() == 0)
+        {
+            result.setText("Click to add outline vertices");
+            createButton.setEnabled(false);
+        }
+        else if (! decomposition.isComplete())
+        {
+            result.setText("The outline must not intersect itself");
+            createButton.setEnabled(false);
+        }
+        else
+        {
+            result.setText(decomposition.getPartCount() + " shapes, ~"
+                    + decomposition.estimateCollisionCost(4) + " projections per box contact, "
+                    + Math.round(decomposition.getExcessArea() * 100) + "% extra area");
+            createButton.setEnabled(true);
+        }
+        canvas.repaint();
+    }
+
+    private void paintCanvas(Graphics2D g)
+    {
+        g.setColor(Color.white);
+        g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        if (decomposition != null)
+        {
+            for( int i = 0; i < decomposition.getPartCount(); i++)
+            {
+                Polygon polygon = toPolygon(decomposition.getPart(i));
+                g.setColor(Color.getHSBColor(i * 0.17f, 0.5f, 1.0f));
+                g.fillPolygon(polygon);
+                g.setColor(Color.gray);
+                g.drawPolygon(polygon);
+            }
+        }
+
+        FXVector[] corners = new FXVector[outline.size()];
+        outline.copyInto(corners);
+        Polygon polygon = toPolygon(corners);
+        g.setColor(Color.black);
+        g.drawPolygon(polygon);
+        for( int i = 0; i < polygon.npoints; i++)
+        {
+            g.fillRect(polygon.xpoints[i] - 2, polygon.ypoints[i] - 2, 5, 5);
+        }
+    }
+
+    private static Polygon toPolygon(FXVector[] corners)
+    {
+        Polygon polygon = new Polygon();
+        for( int i = 0; i < corners.length; i++)
+        {
+            polygon.addPoint((corners[i].xFX * SCALE >> FXUtil.DECIMAL) + SIZE * SCALE / 2,
+                             (corners[i].yFX * SCALE >> FXUtil.DECIMAL) + SIZE * SCALE / 2);
+        }
+        return polygon;
+    }
+
+    private void createPressed()
+    {
+        Vector shapes = new Vector();
+        for( int i = 0; i < decomposition.getPartCount(); i++)
+        {
+            shapes.addElement(new DesignShapeStd(new Shape(decomposition.getPart(i))));
+        }
+        shapePanel.addDecomposedShapes(shapes);
+
+        setVisible(false);
+        dispose();
+    }
+}
@@ -506,6 +506,8 @@ public void saveToFile(MyFileWriter fileWriter, Vector shapes)
             flags |= canRotate() ? 2 : 0;
             flags |= !isInteracting() ? 4 : 0;
             flags |= !isAffectedByGravity() ? 8 : 0;
+            flags |= isSensor() ? 16 : 0;
+            flags |= isKinematic() ? 32 : 0;
             fileWriter.write( flags );
 
             fileWriter.writeInt( getColissionBitFlag() );
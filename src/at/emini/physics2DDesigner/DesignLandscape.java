@@ -44,6 +44,7 @@ public DesignLandscape()
     public DesignLandscape(Landscape landscape)
     {
         super(landscape);
+        ensureOwnSegments();    //segments are edited in place
     }
 
     public Landscape copy()
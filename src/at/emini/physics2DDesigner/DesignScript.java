@@ -36,6 +36,7 @@ public DesignScript(boolean restart) {
 
     public DesignScript(Script script) {
         super(script);
+        ensureOwnElements();    //elements are edited in place
 
         index = scriptIndex++;
         c = defaultColors[currColor];
@@ -106,6 +107,7 @@ public int getElementCount()
 
     public ScriptElement getElement(int i)
     {
+        ensureOwnElements();
         return (ScriptElement) mElements.get(i);
     }
 
@@ -114,14 +116,6 @@ public String getName()
         return "Script " + index;
     }
 
-    public boolean isRestart() {
-        return mRestart;
-    }
-
-    public void setRestart(boolean selected) {
-        mRestart = selected;
-    }
-
     public void setVisible(boolean visible)
     {
         this.visible = visible;
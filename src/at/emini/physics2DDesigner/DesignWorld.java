@@ -57,6 +57,7 @@ public class DesignWorld extends World
     static final int VERSION_8 =    0x0800;   //version Index 8: userData for world, events, particles and constraints
     static final int VERSION_9 =    0x0900;   //version Index 9: multishapes
     static final int VERSION_10 =   0x0A00;   //version Index 10: rotational damping
+    static final int VERSION_11 =   0x0B00;   //version Index 11: length prefixed sections
 
     //section indices
     static final int SHAPES_IDX       = 1;
@@ -830,7 +831,7 @@ public void saveToFile(MyFileWriter fileWriter)
         {
             reorderIds();
 
-            int versionIndex = VERSION_10;
+            int versionIndex = VERSION_11;
             fileWriter.writeInt(versionIndex);
 
             Vector rawShapes = getShapes();
@@ -838,7 +839,7 @@ public void saveToFile(MyFileWriter fileWriter)
             //correct shape order
 
             //first shapes
-            fileWriter.write(SHAPES_IDX);
+            fileWriter.beginSection(SHAPES_IDX);
             int stdShapeCount = 0;
             for( int i = 0; i < rawShapes.size(); i++)
             {
@@ -870,7 +871,7 @@ public void saveToFile(MyFileWriter fileWriter)
             }
 
             //then the bodies
-            fileWriter.write(BODY_IDX);
+            fileWriter.beginSection(BODY_IDX);
             Vector bodyVec = new Vector();
             fileWriter.write(getBodyCount());
             for( int i = 0; i< getBodyCount(); i++)
@@ -882,13 +883,13 @@ public void saveToFile(MyFileWriter fileWriter)
             //then the landscape
             if (getLandscape() != null)
             {
-                fileWriter.write(LANDSCAPE_IDX);
+                fileWriter.beginSection(LANDSCAPE_IDX);
                 ((DesignLandscape) getLandscape()).saveToFile(fileWriter, shapes);
             }
 
             if (getConstraintCount() > 0 )
             {
-                fileWriter.write(CONSTRAINTS_IDX);
+                fileWriter.beginSection(CONSTRAINTS_IDX);
                 //then the constraints
                 fileWriter.write(getConstraintCount());
                 for( int i = 0; i< getConstraintCount(); i++)
@@ -899,7 +900,7 @@ public void saveToFile(MyFileWriter fileWriter)
 
             if (getScriptCount() > 0)
             {
-                fileWriter.write(SCRIPTS_IDX);
+                fileWriter.beginSection(SCRIPTS_IDX);
                 //save the scripts
                 fileWriter.write(getScriptCount());
                 for( int i = 0; i< getScriptCount(); i++)
@@ -918,7 +919,7 @@ public void saveToFile(MyFileWriter fileWriter)
 
             if (getEvents().size() > 0)
             {
-                fileWriter.write(EVENTS_IDX);
+                fileWriter.beginSection(EVENTS_IDX);
                 //then the events
                 fileWriter.write(getEvents().size());
                 for( int i = 0; i< getEvents().size(); i++)
@@ -929,7 +930,7 @@ public void saveToFile(MyFileWriter fileWriter)
 
             if (getParticleEmitters().size() > 0)
             {
-                fileWriter.write(PARTICLES_IDX);
+                fileWriter.beginSection(PARTICLES_IDX);
                 //then the particles
                 fileWriter.write(getParticleEmitters().size());
                 for( int i = 0; i< getParticleEmitters().size(); i++)
@@ -939,12 +940,13 @@ public void saveToFile(MyFileWriter fileWriter)
             }
 
             //finally world parameter
-            fileWriter.write(WORLD_IDX);
+            fileWriter.beginSection(WORLD_IDX);
             fileWriter.writeFX(getGravity());
             fileWriter.writeInt(getDampingLateralFX());
             fileWriter.writeInt(getDampingRotationalFX());
 
             StringUserData.writeToStream(fileWriter, (StringUserData) mUserData);
+            fileWriter.endSection();
 
         }
         catch( IOException e)
@@ -959,7 +961,7 @@ public static DesignWorld loadDesignWorld(PhysicsFileReader reader, UserData use
        int version = reader.getVersion();
 
        if ( ((version & MASK_VERSION) < VERSION_1) ||
-            ((version & MASK_VERSION) > VERSION_10) )
+            ((version & MASK_VERSION) > VERSION_11) )
        {
            return null;
        }
@@ -969,6 +971,7 @@ public static DesignWorld loadDesignWorld(PhysicsFileReader reader, UserData use
        Vector bodies = new Vector();
 
        int nextItem = 0;
+       int sectionEnd = -1;
        while( nextItem != -1)
        {
            switch(nextItem)
@@ -1094,7 +1097,16 @@ public static DesignWorld loadDesignWorld(PhysicsFileReader reader, UserData use
            }
            else
            {
+               if (sectionEnd >= 0)
+               {
+                   reader.setPosition(sectionEnd);
+               }
                nextItem = reader.next();
+               if ((version & MASK_VERSION) >= VERSION_11 && nextItem != -1)
+               {
+                   sectionEnd = reader.nextInt();
+                   sectionEnd += reader.getPosition();
+               }
            }
        }
        reader.close();
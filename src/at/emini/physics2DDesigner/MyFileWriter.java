@@ -3,46 +3,70 @@
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import at.emini.physics2D.util.FXUtil;
 import at.emini.physics2D.util.FXVector;
 
 
+/**
+ * File writer for the physics file format.
+ * All data is collected in a memory buffer and written to the file on flush/close.
+ * This allows to prefix the sections with their length (see {@link #beginSection(int)}).
+ */
 public class MyFileWriter extends FileOutputStream
 {
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    private int sectionStart = -1;
 
     public MyFileWriter(File file) throws IOException
     {
         super(file);
     }
 
+    private void ensureCapacity(int bytes)
+    {
+        if (buffer.remaining() < bytes)
+        {
+            ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            newBuffer.put(buffer);
+            buffer = newBuffer;
+        }
+    }
+
+    public void write(int b) throws IOException
+    {
+        ensureCapacity(1);
+        buffer.put((byte) b);
+    }
+
+    public void write(byte[] b) throws IOException
+    {
+        write(b, 0, b.length);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        ensureCapacity(len);
+        buffer.put(b, off, len);
+    }
+
     private static final int decimal = FXUtil.DECIMAL;  //trick to avoid automated conversion
     //method for world saving compatibility in float mode
     public void writeInt (float value) throws IOException
     {
         int val = 0; //#FX2F int val = (int) (value * (1 << decimal));
-        int b1 =  (val >> 24);
-        int b2 =  (val >> 16);
-        int b3 =  (val >> 8);
-        int b4 =  (val >> 0);
-        super.write( b1 );
-        super.write( b2 );
-        super.write( b3 );
-        super.write( b4 );
+        writeInt(val);
     }
 
     public void writeInt (int value) throws IOException
     {
-        //int v1 = value >> 16;
-        //int v2 = value & (( 1 << 16 ) - 1);
-        int b1 =  (value >> 24);
-        int b2 =  (value >> 16);
-        int b3 =  (value >> 8);
-        int b4 =  (value >> 0);
-        super.write( b1 );
-        super.write( b2 );
-        super.write( b3 );
-        super.write( b4 );
+        ensureCapacity(4);
+        buffer.putInt(value);
     }
 
     public void writeFX (FXVector vector) throws IOException
@@ -50,4 +74,50 @@ public void writeFX (FXVector vector) throws IOException
         writeInt(vector.xFX);
         writeInt(vector.yFX);
     }
+
+    /**
+     * Starts a length prefixed section.
+     * Writes the section id and reserves the length field, which is filled by {@link #endSection()}.
+     * @param sectionId the section id
+     */
+    public void beginSection(int sectionId) throws IOException
+    {
+        endSection();
+        write(sectionId);
+        writeInt(0);
+        sectionStart = buffer.position();
+    }
+
+    /**
+     * Ends the current section and writes its length.
+     */
+    public void endSection()
+    {
+        if (sectionStart >= 0)
+        {
+            buffer.putInt(sectionStart - 4, buffer.position() - sectionStart);
+            sectionStart = -1;
+        }
+    }
+
+    public void flush() throws IOException
+    {
+        endSection();
+        if (buffer.position() > 0)
+        {
+            buffer.flip();
+            while (buffer.hasRemaining())
+            {
+                getChannel().write(buffer);
+            }
+            buffer.clear();
+        }
+        super.flush();
+    }
+
+    public void close() throws IOException
+    {
+        flush();
+        super.close();
+    }
 }
@@ -26,6 +26,7 @@ public class ShapeSelectionPanel extends SelectionPanel
 
     private JButton addShape;
     private JButton addMultiShape;
+    private JButton decomposeShape;
     private JButton removeShape;
     private JButton saveShape;
     private JButton loadShape;
@@ -84,6 +85,15 @@ public void actionPerformed(ActionEvent e) {
             });
             addMultiShape.setToolTipText("New Combined Shape");
 
+            decomposeShape = new JButton("Decompose");
+            decomposeShape.addActionListener(new ActionListener(){
+                public void actionPerformed(ActionEvent e) {
+                    DecompositionDialog dialog = new DecompositionDialog(ShapeSelectionPanel.this);
+                    dialog.setVisible(true);
+                }
+            });
+            decomposeShape.setToolTipText("Decompose Outline into Combined Shape");
+
             image = ImageIO.read( getClass().getResourceAsStream("/res/button_load_shape.png") );
             loadShape = new JButton( new ImageIcon(image));
             loadShape.addActionListener(new ActionListener(){
@@ -120,6 +130,7 @@ private void initComponents()
 
         toolBar.add(addShape);
         toolBar.add(addMultiShape);
+        toolBar.add(decomposeShape);
         toolBar.add(removeShape);
 
 
@@ -176,6 +187,22 @@ private void newMultiShape()
         addShape( new DesignMultiShape(shapes) );
     }
 
+    /**
+     * Adds the convex parts of a decomposed outline and a combined shape of them.
+     * @param shapes the parts (DesignShapeStd)
+     */
+    protected void addDecomposedShapes(Vector shapes)
+    {
+        for( int i = 0; i < shapes.size(); i++)
+        {
+            addShape( (DesignShape) shapes.elementAt(i) );
+        }
+        if (shapes.size() > 1)
+        {
+            addShape( new DesignMultiShape(shapes) );
+        }
+    }
+
     private void addShape( DesignShape shape )
     {
         //register shape at world
@@ -0,0 +1,75 @@
+package at.emini.physics2DSimulationTests;
+
+import java.lang.management.ManagementFactory;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.PhysicsFileReader;
+
+/**
+ * Checks that the simulation does not create objects once it reached a steady state.
+ * Uses the allocation counter of the HotSpot thread bean.
+ */
+public class AllocationTest extends TestCase
+{
+    private static final String[] FILES = {
+        "StackTest5.world", "BoxTunnelTest.world", "ElasticityTest.world",
+        "LandscapeFacesTest.world", "CirclePolyCollisionTest.world",
+        "PerformanceTest.world", "FixJointTest.world", "test_basic.world" };
+
+    public AllocationTest(String name)
+    {
+        super(name);
+    }
+
+    public void testSteadyStateTick()
+    {
+        if (! (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+        {
+            return;
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (! threadBean.isThreadAllocatedMemorySupported())
+        {
+            return;
+        }
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        for( int i = 0; i < FILES.length; i++)
+        {
+            //two identical worlds: the simulation is deterministic,
+            //so an allocation of the engine happens in the same step of both worlds.
+            //The JVM itself occasionally allocates on this thread (e.g. around compilation),
+            //which hits only one of them.
+            World world = World.loadWorld(new PhysicsFileReader("/tests/" + FILES[i]));
+            World twin = World.loadWorld(new PhysicsFileReader("/tests/" + FILES[i]));
+            assertNotNull(FILES[i], world);
+            assertNotNull(FILES[i], twin);
+
+            //warm up: contact pool and arrays reach their high water mark
+            for( int j = 0; j < 2000; j++)
+            {
+                world.tick();
+                twin.tick();
+            }
+
+            //every step has to be free of allocations
+            for( int j = 0; j < 500; j++)
+            {
+                long before = threadBean.getThreadAllocatedBytes(threadId);
+                world.tick();
+                long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+                before = threadBean.getThreadAllocatedBytes(threadId);
+                twin.tick();
+                long allocatedTwin = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+                if (allocated != 0 && allocatedTwin != 0)
+                {
+                    fail(FILES[i] + " step " + j + " allocated " + allocated + " bytes");
+                }
+            }
+        }
+    }
+}
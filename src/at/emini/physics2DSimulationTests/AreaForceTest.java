@@ -0,0 +1,98 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.AreaForce;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.BuoyancyForce;
+import at.emini.physics2D.ExternalForce;
+import at.emini.physics2D.RadialForce;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.WindForce;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+import at.emini.physics2D.util.PhysicsFileReader;
+
+/**
+ * Tests the broadphase lookup of area forces.
+ */
+public class AreaForceTest extends TestCase
+{
+    /**
+     * Applies an area force to all bodies (no broadphase lookup).
+     */
+    private static class BruteForce implements ExternalForce
+    {
+        private AreaForce mForce;
+
+        public BruteForce(AreaForce force)
+        {
+            mForce = force;
+        }
+
+        public void applyForce(Body[] bodies, int bodyCount, int timestepFX)
+        {
+            mForce.applyForce(bodies, bodyCount, timestepFX);
+        }
+
+        public ExternalForce copy(Body[] bodyMapping)
+        {
+            return new BruteForce((AreaForce) mForce.copy(bodyMapping));
+        }
+    }
+
+    public AreaForceTest(String name)
+    {
+        super(name);
+    }
+
+    private AreaForce[] createForces()
+    {
+        return new AreaForce[] {
+            new WindForce(0, 0, 100 << FXUtil.DECIMAL, 60 << FXUtil.DECIMAL, FXVector.newVector(2000, 0)),
+            new RadialForce(FXVector.newVector(150, 40), 50 << FXUtil.DECIMAL, 3000 << FXUtil.DECIMAL),
+            new BuoyancyForce(0, 80 << FXUtil.DECIMAL, 300 << FXUtil.DECIMAL, 200 << FXUtil.DECIMAL,
+                              FXVector.newVector(0, -15), FXUtil.ONE_FX / 20) };
+    }
+
+    public void testOnlyBodiesInArea()
+    {
+        World world = new World();
+        world.setGravity(0);
+        Shape box = Shape.createRectangle(8, 8);
+        for( int i = 0; i < 10; i++)
+        {
+            world.addBody(new Body(20 + i * 30, 20, box, true));
+        }
+        world.addExternalForce(new WindForce(0, 0, 100 << FXUtil.DECIMAL, 60 << FXUtil.DECIMAL, FXVector.newVector(2000, 0)));
+        world.tick();
+        world.tick();
+
+        Body[] bodies = world.getBodies();
+        for( int i = 0; i < world.getBodyCount(); i++)
+        {
+            Body b = bodies[i];
+            boolean inArea = b.getAABBMinXFX() <= (100 << FXUtil.DECIMAL);
+            assertEquals(inArea, b.velocityXFX() > 0);
+        }
+    }
+
+    public void testSameAsBruteForce()
+    {
+        World world = World.loadWorld(new PhysicsFileReader("/tests/StackTest5.world"));
+        World reference = new World(world);
+
+        AreaForce[] forces = createForces();
+        for( int i = 0; i < forces.length; i++)
+        {
+            world.addExternalForce(forces[i]);
+            reference.addExternalForce(new BruteForce(forces[i]));
+        }
+        for( int i = 0; i < 300; i++)
+        {
+            world.tick();
+            reference.tick();
+        }
+        assertNull(world.findDesync(reference));
+    }
+}
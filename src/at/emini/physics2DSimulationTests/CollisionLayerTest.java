@@ -0,0 +1,106 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.Contact;
+import at.emini.physics2D.Landscape;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * Tests the collision layer matrix of the world.
+ */
+public class CollisionLayerTest extends TestCase
+{
+    public CollisionLayerTest(String name)
+    {
+        super(name);
+    }
+
+    private static World createWorld(Body[] bodies)
+    {
+        World world = new World();
+        world.setGravity(0);
+        Shape box = Shape.createRectangle(10, 10);
+        for( int i = 0; i < bodies.length; i++)
+        {
+            bodies[i] = new Body(i * 8, 0, box, true);
+            world.addBody(bodies[i]);
+        }
+        return world;
+    }
+
+    public void testDefaultLayers()
+    {
+        Body[] bodies = new Body[3];
+        World world = createWorld(bodies);
+        bodies[0].addCollisionLayer(1);
+        bodies[1].addCollisionLayer(1);
+        bodies[2].addCollisionLayer(2);
+
+        world.tick();
+
+        //bodies sharing a layer do not collide, other layers do
+        Contact[] contacts = new Contact[4];
+        assertEquals(0, world.getContactsForBody(bodies[0], contacts));
+        assertEquals(1, world.getContactsForBody(bodies[2], contacts));
+        assertTrue(contacts[0].concernsBody(bodies[1]));
+        assertTrue(world.getLayerCollision(1, 2));
+        assertFalse(world.getLayerCollision(1, 1));
+    }
+
+    public void testLayerMatrix()
+    {
+        Body[] bodies = new Body[4];
+        World world = createWorld(bodies);
+        bodies[0].addCollisionLayer(1);
+        bodies[1].addCollisionLayer(2);
+        bodies[2].addCollisionLayer(1);
+        bodies[3].addCollisionLayer(3);
+
+        world.setLayerCollision(1, 2, false);
+        world.setLayerCollision(1, 1, true);
+        assertFalse(world.getLayerCollision(2, 1));
+
+        world.tick();
+
+        Contact[] contacts = new Contact[4];
+        assertEquals(0, world.getContactsForBody(bodies[0], contacts));
+        assertEquals(0, world.getContactsForBody(bodies[1], contacts));
+        assertEquals(1, world.getContactsForBody(bodies[3], contacts));
+        assertTrue(contacts[0].concernsBody(bodies[2]));
+
+        //the copy keeps the matrix
+        World copy = new World(world);
+        assertFalse(copy.getLayerCollision(1, 2));
+        copy.tick();
+        assertEquals(world.getContactCount(), copy.getContactCount());
+    }
+
+    public void testLandscapeLayer()
+    {
+        World world = new World();
+        world.setGravity(10);
+        Landscape landscape = new Landscape();
+        landscape.addSegment(FXVector.newVector(-100, 20), FXVector.newVector(100, 20), Landscape.FACE_NONE);
+        world.setLandscape(landscape);
+        landscape.getBody().addCollisionLayer(5);
+        Body body = new Body(0, 0, Shape.createRectangle(10, 10), true);
+        body.addCollisionLayer(4);
+        Body ghost = new Body(20, 0, Shape.createRectangle(10, 10), true);
+        ghost.addCollisionLayer(6);
+        world.addBody(body);
+        world.addBody(ghost);
+
+        world.setLayerCollision(6, 5, false);
+        for( int i = 0; i < 50; i++)
+        {
+            world.tick();
+        }
+
+        //the ghost falls through the landscape
+        assertEquals(15, body.positionFX().yAsInt(), 1);
+        assertTrue(ghost.positionFX().yAsInt() > 20);
+    }
+}
@@ -0,0 +1,109 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.Contact;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.PhysicsFileReader;
+
+/**
+ * Tests the colour batches of the contact solver.
+ */
+public class ContactColoringTest extends TestCase
+{
+    private static final String[] FILES = { "StackTest5.world", "PerformanceTest.world" };
+
+    public ContactColoringTest(String name)
+    {
+        super(name);
+    }
+
+    private void checkColors(World world, String file)
+    {
+        Contact[] contacts = world.getContacts();
+        int colorCount = world.getContactColorCount();
+        assertEquals(file, 0, world.getContactColorStart(0));
+        assertEquals(file, world.getContactCount(), world.getContactColorStart(colorCount + 1));
+        assertTrue(file, world.getContactColorStart(colorCount) <= world.getContactCount());
+        for( int c = 0; c < colorCount; c++)
+        {
+            int start = world.getContactColorStart(c);
+            int end = world.getContactColorStart(c + 1);
+            assertTrue(file, start < end);
+            for( int i = start; i < end; i++)
+            {
+                for( int j = i + 1; j < end; j++)
+                {
+                    assertFalse(file, shareDynamicBody(contacts[i], contacts[j]));
+                }
+            }
+        }
+    }
+
+    private boolean shareDynamicBody(Contact c1, Contact c2)
+    {
+        return shares(c1.body1(), c2) || shares(c1.body2(), c2);
+    }
+
+    private boolean shares(Body b, Contact c)
+    {
+        return b.isDynamic() && (c.body1() == b || c.body2() == b);
+    }
+
+    public void testColors()
+    {
+        for( int i = 0; i < FILES.length; i++)
+        {
+            World world = World.loadWorld(new PhysicsFileReader("/tests/" + FILES[i]));
+            world.setContactColoring(true);
+            int maxColors = 0;
+            for( int j = 0; j < 300; j++)
+            {
+                world.tick();
+                checkColors(world, FILES[i]);
+                maxColors = Math.max(maxColors, world.getContactColorCount());
+            }
+            assertTrue(FILES[i], maxColors > 1);
+        }
+    }
+
+    public void testDeterministic()
+    {
+        World world = World.loadWorld(new PhysicsFileReader("/tests/StackTest5.world"));
+        world.setContactColoring(true);
+        World copy = new World(world);
+        assertTrue(copy.isContactColoring());
+        for( int j = 0; j < 300; j++)
+        {
+            world.tick();
+            copy.tick();
+        }
+        assertNull(world.findDesync(copy));
+    }
+
+    public void testUncolored()
+    {
+        //a dynamic plank carrying more boxes than there are colours
+        World world = new World();
+        world.setGravity(10);
+        world.addBody(new Body(200, 200, Shape.createRectangle(500, 20), false));
+        world.addBody(new Body(200, 185, Shape.createRectangle(480, 10), true));
+        Shape box = Shape.createRectangle(8, 8);
+        for( int i = 0; i < 40; i++)
+        {
+            world.addBody(new Body(i * 12 - 34, 175, box, true));
+        }
+        world.setContactColoring(true);
+
+        int maxUncolored = 0;
+        for( int j = 0; j < 100; j++)
+        {
+            world.tick();
+            checkColors(world, "plank");
+            int colorCount = world.getContactColorCount();
+            maxUncolored = Math.max(maxUncolored, world.getContactColorStart(colorCount + 1) - world.getContactColorStart(colorCount));
+        }
+        assertTrue(maxUncolored > 0);
+    }
+}
@@ -0,0 +1,147 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.Joint;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * Tests the direct solver for joint chains.
+ * The joint error is the distance of the pivot points, summed over all joints and steps.
+ */
+public class JointChainTest extends TestCase
+{
+    private static final int LINKS = 30;
+    private static final int LINK_LENGTH = 10;
+    private static final int STEPS = 300;
+
+    public JointChainTest(String name)
+    {
+        super(name);
+    }
+
+    private World createWorld(boolean chainSolving, int iterations)
+    {
+        World world = new World();
+        world.setGravity(10);
+        world.setConstraintIterations(iterations);
+        world.setJointChainSolving(chainSolving);
+        return world;
+    }
+
+    private Body addAnchor(World world, int x, int y)
+    {
+        Body anchor = new Body(x, y, Shape.createRectangle(10, 10), false);
+        anchor.addCollisionLayer(1);
+        world.addBody(anchor);
+        return anchor;
+    }
+
+    private void addJoint(World world, Body b1, Body b2, int x1, int x2)
+    {
+        Joint joint = new Joint(b1, b2, FXVector.newVector(x1, 0), FXVector.newVector(x2, 0), false);
+        joint.setCollisionLayer(1);
+        world.addConstraint(joint);
+    }
+
+    /**
+     * Adds a horizontal chain of links to the right of a body.
+     * @return the last link
+     */
+    private Body addChain(World world, Body start, int startX, int links)
+    {
+        Shape shape = Shape.createRectangle(LINK_LENGTH, 4);
+        int x = (start.positionXFX() >> FXUtil.DECIMAL) + startX;
+        int y = start.positionYFX() >> FXUtil.DECIMAL;
+        Body previous = start;
+        int previousX = startX;
+        for( int i = 0; i < links; i++)
+        {
+            Body link = new Body(x + LINK_LENGTH * i + LINK_LENGTH / 2, y, shape, true);
+            world.addBody(link);
+            addJoint(world, previous, link, previousX, - LINK_LENGTH / 2);
+            previous = link;
+            previousX = LINK_LENGTH / 2;
+        }
+        return previous;
+    }
+
+    private long simulate(World world)
+    {
+        long error = 0;
+        for( int i = 0; i < STEPS; i++)
+        {
+            world.tick();
+            for( int j = 0; j < world.getConstraintCount(); j++)
+            {
+                Joint joint = (Joint) world.getConstraints()[j];
+                error += joint.getPoint1().distFX(joint.getPoint2());
+            }
+        }
+        return error;
+    }
+
+    public void testHangingChain()
+    {
+        long[] errors = new long[3];
+        for( int mode = 0; mode < 3; mode++)
+        {
+            World world = createWorld(mode == 1, mode == 2 ? 50 : 2);
+            addChain(world, addAnchor(world, 0, 0), 0, LINKS);
+            errors[mode] = simulate(world);
+        }
+
+        //with two iterations the direct solver is as good as 50 plain iterations
+        assertTrue(errors[1] * 5 < errors[0]);
+        assertTrue(errors[1] < errors[2] * 5 / 4);
+    }
+
+    public void testBridge()
+    {
+        long[] errors = new long[3];
+        for( int mode = 0; mode < 3; mode++)
+        {
+            World world = createWorld(mode == 1, mode == 2 ? 50 : 2);
+            Body right = addAnchor(world, LINKS * LINK_LENGTH, 0);
+            Body last = addChain(world, addAnchor(world, 0, 0), 0, LINKS);
+            addJoint(world, last, right, LINK_LENGTH / 2, 0);
+            errors[mode] = simulate(world);
+        }
+
+        assertTrue(errors[1] * 5 < errors[0]);
+        assertTrue(errors[1] < errors[2] * 5 / 4);
+    }
+
+    public void testTree()
+    {
+        //three chains hanging from one body, which is shared by the chains
+        long[] errors = new long[2];
+        for( int mode = 0; mode < 2; mode++)
+        {
+            World world = createWorld(mode == 1, 2);
+            Body hub = new Body(0, 0, Shape.createRectangle(10, 10), true);
+            hub.addCollisionLayer(1);
+            world.addBody(hub);
+            addJoint(world, addAnchor(world, -50, 0), hub, 50, 0);
+            addChain(world, hub, 5, LINKS / 3);
+            Body middle = new Body(0, 0, Shape.createRectangle(10, 10), true);
+            middle.addCollisionLayer(1);
+            world.addBody(middle);
+            addJoint(world, hub, middle, 0, 0);
+            addChain(world, middle, 5, LINKS / 3);
+            errors[mode] = simulate(world);
+        }
+        assertTrue(errors[1] < errors[0]);
+    }
+
+    public void testCopy()
+    {
+        World world = createWorld(true, 2);
+        assertTrue(world.isJointChainSolving());
+        assertTrue(new World(world).isJointChainSolving());
+        assertFalse(new World().isJointChainSolving());
+    }
+}
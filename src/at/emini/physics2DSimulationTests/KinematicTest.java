@@ -0,0 +1,96 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.Script;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * Tests kinematic bodies.
+ */
+public class KinematicTest extends TestCase
+{
+    public KinematicTest(String name)
+    {
+        super(name);
+    }
+
+    public void testCarryBody()
+    {
+        World world = new World();
+        world.setGravity(10);
+
+        Shape platformShape = Shape.createRectangle(100, 10);
+        platformShape.setFriction(100);
+        Body platform = new Body(100, 100, platformShape, false);
+        platform.setKinematic(true);
+        platform.velocityFX().assign(FXVector.newVector(5, 0));
+        world.addBody(platform);
+        assertTrue(platform.isKinematic());
+        assertFalse(platform.isDynamic());
+
+        Shape boxShape = Shape.createRectangle(10, 10);
+        boxShape.setFriction(100);
+        Body box = new Body(100, 85, boxShape, true);
+        world.addBody(box);
+
+        for( int i = 0; i < 200; i++)
+        {
+            world.tick();
+        }
+
+        //the platform follows its velocity exactly, the box is carried on top
+        assertEquals(100 << FXUtil.DECIMAL, platform.positionYFX());
+        assertEquals(5 << FXUtil.DECIMAL, platform.velocityXFX());
+        assertEquals(0, platform.velocityYFX());
+        assertTrue(platform.positionXFX() > 100 << FXUtil.DECIMAL);
+        assertTrue(box.positionYFX() < platform.positionYFX());
+        assertTrue(box.positionXFX() > 130 << FXUtil.DECIMAL);
+        assertTrue(box.velocityXFX() > 4 << FXUtil.DECIMAL);
+    }
+
+    public void testNoStaticContacts()
+    {
+        World world = new World();
+        world.addBody(new Body(100, 100, Shape.createRectangle(50, 50), false));
+        Body kinematic = new Body(110, 100, Shape.createRectangle(50, 50), true);
+        kinematic.setKinematic(true);
+        kinematic.velocityFX().assign(FXVector.newVector(0, 3));
+        world.addBody(kinematic);
+
+        for( int i = 0; i < 10; i++)
+        {
+            world.tick();
+            assertEquals(0, world.getContactCount());
+        }
+        assertEquals(0, kinematic.velocityXFX());
+        assertEquals(3 << FXUtil.DECIMAL, kinematic.velocityYFX());
+    }
+
+    public void testScriptVelocity()
+    {
+        World world = new World();
+        Script script = new Script(false);
+        script.addElement(Script.POSITION, 0, 0, 10);
+        script.addElement(Script.POSITION, 100, 0, 10);
+        script.setInterpolation(Script.INTERPOLATION_LINEAR);
+        world.addScript(script);
+
+        Body platform = new Body(0, 0, Shape.createRectangle(50, 10), false);
+        platform.setKinematic(true);
+        world.addBody(platform);
+        script.applyToBody(platform, world);
+
+        //the script moves the kinematic body by its velocity
+        for( int i = 0; i < 10; i++)
+        {
+            world.tick();
+            assertTrue(platform.velocityXFX() > 0);
+        }
+        world.tick();
+        assertEquals(100 << FXUtil.DECIMAL, platform.positionXFX(), 4);
+    }
+}
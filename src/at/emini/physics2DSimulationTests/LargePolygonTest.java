@@ -0,0 +1,47 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+
+/**
+ * Tests polygons with more vertices than tested by SAT.
+ */
+public class LargePolygonTest extends TestCase
+{
+    public LargePolygonTest(String name)
+    {
+        super(name);
+    }
+
+    public void testStack()
+    {
+        World world = new World();
+        world.setGravity(10);
+        Body ground = new Body(0, 100, Shape.createRectangle(200, 20), false);
+        world.addBody(ground);
+
+        Body wheel = new Body(-50, 70, Shape.createRegularPolygon(20, 48), true);
+        Body box = new Body(50, 80, Shape.createRectangle(20, 20), true);
+        Body top = new Body(50, 40, Shape.createRegularPolygon(10, 24), true);
+        world.addBody(wheel);
+        world.addBody(box);
+        world.addBody(top);
+
+        for( int i = 0; i < 400; i++)
+        {
+            world.tick();
+        }
+
+        //the polygons rest on the ground and on the box, nothing sinks in or falls through
+        assertEquals(-50, wheel.positionFX().xAsInt(), 10);      //may roll over a few vertices
+        assertEquals(70, wheel.positionFX().yAsInt(), 1);
+        assertEquals(80, box.positionFX().yAsInt(), 1);
+        assertEquals(50, top.positionFX().xAsInt(), 1);
+        assertEquals(60, top.positionFX().yAsInt(), 1);
+        assertTrue(Math.abs(wheel.velocityFX().yFX) < FXUtil.ONE_FX);
+        assertTrue(Math.abs(top.velocityFX().yFX) < FXUtil.ONE_FX);
+    }
+}
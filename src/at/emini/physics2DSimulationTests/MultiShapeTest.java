@@ -0,0 +1,85 @@
+package at.emini.physics2DSimulationTests;
+
+import java.util.Vector;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.Contact;
+import at.emini.physics2D.Landscape;
+import at.emini.physics2D.MultiShape;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * Tests collisions of multishapes with many parts.
+ */
+public class MultiShapeTest extends TestCase
+{
+    public MultiShapeTest(String name)
+    {
+        super(name);
+    }
+
+    /**
+     * Creates a bar of 8 boxes (80 x 10).
+     */
+    private static MultiShape createBar()
+    {
+        Vector shapes = new Vector();
+        for( int i = 0; i < 8; i++)
+        {
+            int xFX = (i * 10 - 35) << FXUtil.DECIMAL;
+            int halfFX = 5 << FXUtil.DECIMAL;
+            FXVector[] corners = new FXVector[4];
+            corners[0] = new FXVector(xFX - halfFX, - halfFX);
+            corners[1] = new FXVector(xFX - halfFX,   halfFX);
+            corners[2] = new FXVector(xFX + halfFX,   halfFX);
+            corners[3] = new FXVector(xFX + halfFX, - halfFX);
+            shapes.addElement(new Shape(corners));
+        }
+        return new MultiShape(shapes);
+    }
+
+    public void testCornerContact()
+    {
+        World world = new World();
+        world.setGravity(0);
+        MultiShape bar = createBar();
+        Body body1 = new Body(0, 0, bar, false);
+        Body body2 = new Body(78, 9, bar, true);
+        Body body3 = new Body(0, 30, bar, true);
+        world.addBody(body1);
+        world.addBody(body2);
+        world.addBody(body3);
+
+        world.tick();
+
+        //only the corner boxes touch
+        Contact[] contacts = new Contact[8];
+        assertEquals(1, world.getContactsForBody(body2, contacts));
+        assertTrue(contacts[0].concernsBody(body1));
+        assertEquals(0, world.getContactsForBody(body3, contacts));
+    }
+
+    public void testLandscape()
+    {
+        World world = new World();
+        world.setGravity(10);
+        Landscape landscape = new Landscape();
+        landscape.addSegment(FXVector.newVector(-100, 20), FXVector.newVector(100, 20), Landscape.FACE_NONE);
+        world.setLandscape(landscape);
+        Body body = new Body(0, 0, createBar(), true);
+        body.setRotationDeg(10);
+        world.addBody(body);
+
+        for( int i = 0; i < 300; i++)
+        {
+            world.tick();
+        }
+
+        //the bar tips over and lies flat on the segment
+        assertEquals(15, body.positionFX().yAsInt(), 1);
+    }
+}
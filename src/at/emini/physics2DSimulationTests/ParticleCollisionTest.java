@@ -0,0 +1,146 @@
+package at.emini.physics2DSimulationTests;
+
+import java.util.Vector;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.MultiShape;
+import at.emini.physics2D.ParticleEmitter;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * Tests the collision of particles with bodies.
+ */
+public class ParticleCollisionTest extends TestCase
+{
+    public ParticleCollisionTest(String name)
+    {
+        super(name);
+    }
+
+    private static Shape createBox(int x1, int y1, int x2, int y2)
+    {
+        FXVector[] corners = new FXVector[4];
+        corners[0] = FXVector.newVector(x1, y1);
+        corners[1] = FXVector.newVector(x1, y2);
+        corners[2] = FXVector.newVector(x2, y2);
+        corners[3] = FXVector.newVector(x2, y1);
+        return new Shape(corners);
+    }
+
+    private static ParticleEmitter createRain(World world)
+    {
+        return new ParticleEmitter(100,
+                20 << FXUtil.DECIMAL, 0,
+                20 << FXUtil.DECIMAL, 0,
+                null, FXVector.newVector(-10, -30), FXVector.newVector(10, -30),
+                0, 0,
+                0, 0,
+                true,
+                0, FXUtil.ONE_FX, 0,
+                world.getTimestepFX());
+    }
+
+    public void testBox()
+    {
+        World world = new World();
+        world.setGravity(20);
+        world.addBody(new Body(0, 10, Shape.createRectangle(60, 10), false));
+        ParticleEmitter rain = createRain(world);
+        world.addParticleEmitter(rain);
+
+        for( int i = 0; i < 100; i++)
+        {
+            world.tick();
+        }
+
+        //the particles rest on the box
+        int[] yFX = rain.getYPosFX();
+        short[] life = rain.getLifeTimes();
+        int count = 0;
+        for( int i = 0; i < rain.getMaxParticleCount(); i++)
+        {
+            if (life[i] > 0)
+            {
+                count++;
+                assertTrue(yFX[i] < (7 << FXUtil.DECIMAL));
+            }
+        }
+        assertTrue(count > 10);
+    }
+
+    public void testMultiShapeCup()
+    {
+        World world = new World();
+        world.setGravity(20);
+
+        //a cup: floor and two walls
+        Vector shapes = new Vector();
+        shapes.addElement(createBox(-20, 5, 20, 10));
+        shapes.addElement(createBox(-20, -20, -15, 5));
+        shapes.addElement(createBox(15, -20, 20, 5));
+        Body cup = new Body(0, 0, new MultiShape(shapes), false);
+        world.addBody(cup);
+        ParticleEmitter rain = createRain(world);
+        world.addParticleEmitter(rain);
+
+        for( int i = 0; i < 100; i++)
+        {
+            world.tick();
+        }
+
+        //the particles collect in the cup instead of being pushed out of its hull
+        int[] xFX = rain.getXPosFX();
+        int[] yFX = rain.getYPosFX();
+        short[] life = rain.getLifeTimes();
+        int count = 0;
+        for( int i = 0; i < rain.getMaxParticleCount(); i++)
+        {
+            if (life[i] > 0 && yFX[i] > cup.getAABBMinYFX())
+            {
+                count++;
+                assertTrue(xFX[i] > cup.getAABBMinXFX() + (4 << FXUtil.DECIMAL));
+                assertTrue(xFX[i] < cup.getAABBMaxXFX() - (4 << FXUtil.DECIMAL));
+                assertTrue(yFX[i] < cup.getAABBMaxYFX() - (3 << FXUtil.DECIMAL));
+            }
+        }
+        assertTrue(count > 10);
+    }
+
+    public void testMultiShapeCircle()
+    {
+        World world = new World();
+        world.setGravity(20);
+
+        //a polygon part followed by a circle part
+        Vector shapes = new Vector();
+        shapes.addElement(createBox(-30, 5, 30, 10));
+        shapes.addElement(Shape.createCircle(3));
+        world.addBody(new Body(0, 0, new MultiShape(shapes), false));
+        ParticleEmitter rain = createRain(world);
+        world.addParticleEmitter(rain);
+
+        for( int i = 0; i < 100; i++)
+        {
+            world.tick();
+        }
+
+        //the particles above the box part rest on it (the circle pushes some over the edge)
+        int[] xFX = rain.getXPosFX();
+        int[] yFX = rain.getYPosFX();
+        short[] life = rain.getLifeTimes();
+        int count = 0;
+        for( int i = 0; i < rain.getMaxParticleCount(); i++)
+        {
+            if (life[i] > 0 && Math.abs(xFX[i]) < (28 << FXUtil.DECIMAL))
+            {
+                count++;
+                assertTrue(yFX[i] < (7 << FXUtil.DECIMAL));
+            }
+        }
+        assertTrue(count > 10);
+    }
+}
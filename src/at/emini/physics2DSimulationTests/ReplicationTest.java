@@ -0,0 +1,143 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.ReplicationClient;
+import at.emini.physics2D.ReplicationDecoder;
+import at.emini.physics2D.ReplicationEncoder;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+
+/**
+ * Tests the replication of a server world to a client world (in-process loopback).
+ */
+public class ReplicationTest extends TestCase
+{
+    public ReplicationTest(String name)
+    {
+        super(name);
+    }
+
+    /**
+     * Creates the same world for server and client.
+     */
+    private static World createWorld()
+    {
+        World world = new World();
+        world.addBody(new Body(0, 100, Shape.createRectangle(400, 10), false));
+        Shape box = Shape.createRectangle(10, 10);
+        for( int i = 0; i < 40; i++)
+        {
+            Body body = new Body((i % 10) * 20 - 100, (i / 10) * 15, box, true);
+            body.setRotationDeg(i * 9);
+            world.addBody(body);
+        }
+        return world;
+    }
+
+    private static void assertReplicated(World server, World client)
+    {
+        Body[] bodies = server.getBodies();
+        for( int i = 0; i < server.getBodyCount(); i++)
+        {
+            Body body = bodies[i];
+            Body replica = client.findBodyById(body.getId());
+            assertEquals(body.positionFX().xFX, replica.positionFX().xFX, 8);
+            assertEquals(body.positionFX().yFX, replica.positionFX().yFX, 8);
+            assertEquals(body.velocityFX().xFX, replica.velocityFX().xFX, 8);
+            assertEquals(body.velocityFX().yFX, replica.velocityFX().yFX, 8);
+            int rotationDiff2FX = FXUtil.wrapAngleFX(replica.rotation2FX() - body.rotation2FX() + FXUtil.PI_2FX) - FXUtil.PI_2FX;
+            assertEquals(0, rotationDiff2FX, FXUtil.TWO_PI_2FX >> 12);
+        }
+    }
+
+    public void testLoopback()
+    {
+        World server = createWorld();
+        World client = createWorld();
+        ReplicationEncoder encoder = new ReplicationEncoder(server);
+        ReplicationClient channel = encoder.createClient();
+        ReplicationDecoder decoder = new ReplicationDecoder(client);
+        byte[] packet = new byte[2048];
+
+        for( int i = 0; i < 60; i++)
+        {
+            server.tick();
+            encoder.update();
+            int length = encoder.encode(channel, packet, packet.length);
+            int sequence = decoder.decode(packet, length);
+            assertEquals(i, sequence);
+            channel.acknowledge(sequence);
+            assertReplicated(server, client);
+        }
+
+        //nothing changed: only the header is sent
+        encoder.update();
+        int length = encoder.encode(channel, packet, packet.length);
+        assertTrue(length <= 10);
+        channel.acknowledge(decoder.decode(packet, length));
+        assertReplicated(server, client);
+    }
+
+    public void testPacketLoss()
+    {
+        World server = createWorld();
+        World client = createWorld();
+        ReplicationEncoder encoder = new ReplicationEncoder(server);
+        ReplicationClient channel = encoder.createClient();
+        ReplicationDecoder decoder = new ReplicationDecoder(client);
+        byte[] packet = new byte[2048];
+
+        for( int i = 0; i < 100; i++)
+        {
+            server.tick();
+            encoder.update();
+            int length = encoder.encode(channel, packet, packet.length);
+            if (i % 3 == 1)
+            {
+                continue;   //packet lost
+            }
+            int sequence = decoder.decode(packet, length);
+            assertTrue(sequence >= 0);
+            if (i % 5 != 0)
+            {
+                channel.acknowledge(sequence);      //otherwise the ack is lost
+            }
+        }
+        assertTrue(channel.getAcknowledgedSequence() > 90);
+
+        encoder.update();
+        int length = encoder.encode(channel, packet, packet.length);
+        decoder.decode(packet, length);
+        assertReplicated(server, client);
+    }
+
+    public void testBudget()
+    {
+        World server = createWorld();
+        World client = createWorld();
+        ReplicationEncoder encoder = new ReplicationEncoder(server);
+        ReplicationClient channel = encoder.createClient();
+        ReplicationDecoder decoder = new ReplicationDecoder(client);
+        byte[] packet = new byte[2048];
+
+        for( int i = 0; i < 60; i++)
+        {
+            server.tick();
+            encoder.update();
+            int length = encoder.encode(channel, packet, 64);
+            assertTrue(length <= 64);
+            channel.acknowledge(decoder.decode(packet, length));
+        }
+
+        //the remaining bodies follow in the next packets
+        encoder.update();
+        for( int i = 0; i < 20; i++)
+        {
+            int length = encoder.encode(channel, packet, 64);
+            channel.acknowledge(decoder.decode(packet, length));
+        }
+        assertReplicated(server, client);
+    }
+}
@@ -0,0 +1,258 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.Contact;
+import at.emini.physics2D.Motor;
+import at.emini.physics2D.RollbackManager;
+import at.emini.physics2D.Script;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.PhysicsFileReader;
+
+/**
+ * Tests deterministic resimulation of the rollback manager
+ * on a stack of boxes (persistent contacts) with a motor.
+ */
+public class RollbackTest extends TestCase
+{
+    public RollbackTest(String name)
+    {
+        super(name);
+    }
+
+    private World loadWorld()
+    {
+        World world = World.loadWorld(new PhysicsFileReader("/tests/StackTest5.world"));
+        assertTrue(world != null);
+        return world;
+    }
+
+    private int[] getState(World world)
+    {
+        Body[] bodies = world.getBodies();
+        int[] state = new int[world.getBodyCount() * 6];
+        for( int i = 0; i < world.getBodyCount(); i++)
+        {
+            Body b = bodies[i];
+            state[i * 6    ] = b.getId();
+            state[i * 6 + 1] = b.positionFX().xFX;
+            state[i * 6 + 2] = b.positionFX().yFX;
+            state[i * 6 + 3] = b.velocityFX().xFX;
+            state[i * 6 + 4] = b.velocityFX().yFX;
+            state[i * 6 + 5] = b.rotation2FX();
+        }
+        return state;
+    }
+
+    private void assertSameState(int[] expected, int[] actual)
+    {
+        assertEquals(expected.length, actual.length);
+        for( int i = 0; i < expected.length; i++)
+        {
+            assertEquals("state value " + i, expected[i], actual[i]);
+        }
+    }
+
+    public void testReplayWithoutChange()
+    {
+        World world = loadWorld();
+        RollbackManager manager = new RollbackManager(world, 16);
+        for( int i = 0; i < 100; i++)
+        {
+            manager.tick();
+        }
+        int[] expected = getState(world);
+
+        assertTrue(manager.rewindAndReplay(92));
+        assertEquals(100, manager.getTick());
+        assertEquals(8, manager.getLastResimulatedTicks());
+        assertSameState(expected, getState(world));
+
+        assertFalse(manager.rewindAndReplay(80));
+    }
+
+    public void testLateInput()
+    {
+        World reference = loadWorld();
+        RollbackManager referenceManager = new RollbackManager(reference, 16);
+        int bodyId = reference.getBodies()[reference.getBodyCount() - 1].getId();
+        referenceManager.addInput(95, RollbackManager.INPUT_IMPULSE, bodyId, FXUtil.ONE_FX * 20, 0);
+        for( int i = 0; i < 120; i++)
+        {
+            referenceManager.tick();
+        }
+
+        World world = loadWorld();
+        RollbackManager manager = new RollbackManager(world, 16);
+        for( int i = 0; i < 100; i++)
+        {
+            manager.tick();
+        }
+        manager.addInput(95, RollbackManager.INPUT_IMPULSE, bodyId, FXUtil.ONE_FX * 20, 0);
+        assertTrue(manager.resimulate());
+        assertEquals(5, manager.getLastResimulatedTicks());
+        for( int i = 100; i < 120; i++)
+        {
+            manager.tick();
+        }
+
+        assertSameState(getState(reference), getState(world));
+    }
+
+    /**
+     * Loads the stack with a motor on the top box and a script.
+     * The top box lands shortly before the inputs, so the contact and motor
+     * accumulators still change at the rollback ticks.
+     */
+    private World loadMotorWorld()
+    {
+        World world = loadWorld();
+        Body top = world.getBodies()[world.getBodyCount() - 1];
+        world.addConstraint(new Motor(top, FXUtil.ONE_FX * 5, 0, FXUtil.ONE_FX * 20));
+        Script script = new Script(false);
+        script.addElement(Script.VELOCITY, 30, -20, 10);
+        world.addScript(script);
+        return world;
+    }
+
+    /**
+     * Runs a world with the input at tick 95 and a world that receives it late at tick 100.
+     * After resimulation both worlds must have the same state hash,
+     * including the restored contact and motor accumulators.
+     */
+    private void assertLateInputReplay(int type, int aFX, int bFX, Object spawnBody)
+    {
+        World reference = loadMotorWorld();
+        RollbackManager referenceManager = new RollbackManager(reference, 16);
+        int bodyId = reference.getBodies()[reference.getBodyCount() - 1].getId();
+        referenceManager.addInput(95, type, bodyId, aFX, bFX, type == RollbackManager.INPUT_SCRIPT ? reference.getScript(0) : spawnBody);
+        World unchanged = loadMotorWorld();
+        for( int i = 0; i < 120; i++)
+        {
+            referenceManager.tick();
+            unchanged.tick();
+        }
+        assertTrue("input has no effect", reference.stateHash() != unchanged.stateHash());
+
+        World world = loadMotorWorld();
+        RollbackManager manager = new RollbackManager(world, 16);
+        for( int i = 0; i < 100; i++)
+        {
+            manager.tick();
+        }
+        assertTrue(manager.addInput(95, type, bodyId, aFX, bFX, type == RollbackManager.INPUT_SCRIPT ? world.getScript(0) : spawnBody));
+        assertTrue(manager.resimulate());
+        assertEquals(5, manager.getLastResimulatedTicks());
+        for( int i = 100; i < 120; i++)
+        {
+            manager.tick();
+        }
+
+        assertEquals(reference.getBodyCount(), world.getBodyCount());
+        assertEquals(reference.stateHash(), world.stateHash());
+    }
+
+    public void testReplayImpulse()
+    {
+        assertLateInputReplay(RollbackManager.INPUT_IMPULSE, 0, -FXUtil.ONE_FX * 20, null);
+    }
+
+    public void testReplayForce()
+    {
+        assertLateInputReplay(RollbackManager.INPUT_FORCE, FXUtil.ONE_FX * 2000, 0, null);
+    }
+
+    public void testReplayVelocity()
+    {
+        assertLateInputReplay(RollbackManager.INPUT_VELOCITY, FXUtil.ONE_FX * 40, -FXUtil.ONE_FX * 40, null);
+    }
+
+    public void testReplayAngularVelocity()
+    {
+        assertLateInputReplay(RollbackManager.INPUT_ANGULAR_VELOCITY, FXUtil.PI_2FX, 0, null);
+    }
+
+    public void testReplayScript()
+    {
+        assertLateInputReplay(RollbackManager.INPUT_SCRIPT, 0, 0, null);
+    }
+
+    public void testReplaySpawn()
+    {
+        Body spawn = new Body(0, 0, Shape.createRectangle(10, 10), true);
+        assertLateInputReplay(RollbackManager.INPUT_SPAWN, 0, 0, spawn);
+    }
+
+    public void testEstimateWithoutMeasurement()
+    {
+        RollbackManager manager = new RollbackManager(loadWorld(), 16);
+        assertEquals(-1, manager.estimateResimulationTicks(10));
+    }
+
+    private int[] getAccumulators(World world, Motor motor)
+    {
+        Contact[] contacts = world.getContacts();
+        int[] state = new int[world.getContactCount() * 4 + 1];
+        for( int i = 0; i < world.getContactCount(); i++)
+        {
+            Contact c = contacts[i];
+            state[i * 4    ] = c.body1().getId();
+            state[i * 4 + 1] = c.body2().getId();
+            state[i * 4 + 2] = c.getImpulseContact1FX();
+            state[i * 4 + 3] = c.getImpulseContact2FX();
+        }
+        state[state.length - 1] = motor.getImpulseFX();
+        return state;
+    }
+
+    public void testRewindRestoresAccumulators()
+    {
+        World world = loadMotorWorld();
+        Motor motor = (Motor) world.getConstraints()[0];
+        RollbackManager manager = new RollbackManager(world, 16);
+        for( int i = 0; i < 95; i++)
+        {
+            manager.tick();
+        }
+        int[] expected = getAccumulators(world, motor);
+        assertTrue(world.getContactCount() > 0);
+        assertTrue(motor.getImpulseFX() != 0);
+        for( int i = 95; i < 100; i++)
+        {
+            manager.tick();
+        }
+        assertTrue(motor.getImpulseFX() != expected[expected.length - 1]);
+
+        assertTrue(manager.rewind(95));
+        assertSameState(expected, getAccumulators(world, motor));
+    }
+
+    public void testDirtyTickLeavesBuffer()
+    {
+        World world = loadWorld();
+        RollbackManager manager = new RollbackManager(world, 16);
+        int bodyId = world.getBodies()[world.getBodyCount() - 1].getId();
+        for( int i = 0; i < 100; i++)
+        {
+            manager.tick();
+        }
+
+        //the late input is not resimulated before its snapshot is overwritten
+        assertTrue(manager.addInput(90, RollbackManager.INPUT_IMPULSE, bodyId, FXUtil.ONE_FX * 20, 0));
+        for( int i = 0; i < 20; i++)
+        {
+            manager.tick();
+        }
+        assertTrue(manager.resimulate());
+        assertEquals(15, manager.getLastResimulatedTicks());
+        assertFalse(manager.resimulate());
+
+        //rollback still works afterwards
+        manager.tick();
+        assertTrue(manager.addInput(118, RollbackManager.INPUT_IMPULSE, bodyId, FXUtil.ONE_FX * 20, 0));
+        assertTrue(manager.resimulate());
+        assertEquals(3, manager.getLastResimulatedTicks());
+    }
+}
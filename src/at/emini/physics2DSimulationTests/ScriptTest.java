@@ -0,0 +1,150 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.Script;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+
+/**
+ * Tests the execution of compiled script timelines.
+ */
+public class ScriptTest extends TestCase
+{
+    public ScriptTest(String name)
+    {
+        super(name);
+    }
+
+    private Body addBody(World world, Script script, int phaseSteps)
+    {
+        Body body = new Body(0, 0, Shape.createRectangle(10, 10), false);
+        world.addBody(body);
+        script.applyToBody(body, world, phaseSteps);
+        return body;
+    }
+
+    private Script createScript(int[] positions, int timeSteps, boolean restart, int interpolation)
+    {
+        Script script = new Script(restart);
+        script.setInterpolation(interpolation);
+        for( int i = 0; i < positions.length; i++)
+        {
+            script.addElement(Script.POSITION, positions[i], 0, timeSteps);
+        }
+        return script;
+    }
+
+    public void testStep()
+    {
+        World world = new World();
+        Script script = createScript(new int[] { 10, 20 }, 3, true, Script.INTERPOLATION_STEP);
+        world.addScript(script);
+        Body body = addBody(world, script, 0);
+
+        //the first element is executed for 3 steps, the others for 4 steps, the restart takes one step
+        int[] expected = { 10, 10, 10, 20, 20, 20, 20, 20, 10, 10, 10, 10, 20 };
+        for( int i = 0; i < expected.length; i++)
+        {
+            world.tick();
+            assertEquals("step " + i, expected[i] << FXUtil.DECIMAL, body.positionXFX());
+        }
+    }
+
+    public void testLinear()
+    {
+        World world = new World();
+        Script script = createScript(new int[] { 0, 50 }, 4, true, Script.INTERPOLATION_LINEAR);
+        world.addScript(script);
+        Body body = addBody(world, script, 0);
+
+        int[] expected = { 10, 20, 30, 40, 50, 40, 30, 20, 10, 10, 0, 10 };
+        for( int i = 0; i < expected.length; i++)
+        {
+            world.tick();
+            assertEquals("step " + i, expected[i] << FXUtil.DECIMAL, body.positionXFX());
+        }
+    }
+
+    public void testCubic()
+    {
+        //a Catmull-Rom spline through equidistant collinear keyframes is a straight line
+        World world = new World();
+        Script linear = createScript(new int[] { 0, 30, 60, 90 }, 7, false, Script.INTERPOLATION_LINEAR);
+        Script cubic = createScript(new int[] { 0, 30, 60, 90 }, 7, false, Script.INTERPOLATION_CUBIC);
+        world.addScript(linear);
+        world.addScript(cubic);
+        Body linearBody = addBody(world, linear, 0);
+        Body cubicBody = addBody(world, cubic, 0);
+
+        for( int i = 0; i < 31; i++)
+        {
+            world.tick();
+            assertTrue("step " + i, Math.abs(linearBody.positionXFX() - cubicBody.positionXFX()) <= 4);
+        }
+
+        //keyframes are passed exactly
+        Script curve = createScript(new int[] { 0, 40, 0, -40 }, 5, true, Script.INTERPOLATION_CUBIC);
+        world.addScript(curve);
+        Body curveBody = addBody(world, curve, 0);
+        for( int i = 0; i < 5; i++)
+        {
+            world.tick();
+        }
+        for( int i = 0; i < 4; i++)
+        {
+            world.tick();
+            assertEquals(new int[] { 40, 0, -40, 0 }[i] << FXUtil.DECIMAL, curveBody.positionXFX());
+            for( int j = 0; j < 5; j++)
+            {
+                world.tick();
+            }
+            if (i == 2)
+            {
+                world.tick();   //restart step
+            }
+        }
+    }
+
+    public void testPhaseOffset()
+    {
+        int[] phases = { 0, 3, 17, 50, 1000 };
+        for( int p = 0; p < phases.length; p++)
+        {
+            World world = new World();
+            Script script = createScript(new int[] { 0, 50, 20 }, 6, true, Script.INTERPOLATION_LINEAR);
+            world.addScript(script);
+            Body reference = addBody(world, script, 0);
+            Body shifted = addBody(world, script, phases[p]);
+
+            int[] referencePositions = new int[phases[p] + 100];
+            int[] shiftedPositions = new int[100];
+            for( int i = 0; i < referencePositions.length; i++)
+            {
+                world.tick();
+                referencePositions[i] = reference.positionXFX();
+                if (i < shiftedPositions.length)
+                {
+                    shiftedPositions[i] = shifted.positionXFX();
+                }
+            }
+            for( int i = 0; i < shiftedPositions.length; i++)
+            {
+                assertEquals("phase " + phases[p] + " step " + i, referencePositions[i + phases[p]], shiftedPositions[i]);
+            }
+        }
+    }
+
+    public void testFinished()
+    {
+        //a phase beyond the end of a script that does not restart
+        World world = new World();
+        Script script = createScript(new int[] { 10, 20 }, 3, false, Script.INTERPOLATION_STEP);
+        world.addScript(script);
+        Body body = addBody(world, script, 100);
+
+        world.tick();
+        assertEquals(0, body.positionXFX());
+    }
+}
@@ -0,0 +1,144 @@
+package at.emini.physics2DSimulationTests;
+
+import java.util.Vector;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.RollbackManager;
+import at.emini.physics2D.SensorListener;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
+
+/**
+ * Tests sensor bodies and their enter/exit transitions.
+ */
+public class SensorTest extends TestCase implements SensorListener
+{
+    private Vector entered = new Vector();
+    private Vector exited = new Vector();
+
+    public SensorTest(String name)
+    {
+        super(name);
+    }
+
+    public void setUp()
+    {
+        entered.removeAllElements();
+        exited.removeAllElements();
+    }
+
+    public void sensorEntered(Body sensor, Body body)
+    {
+        entered.addElement(body);
+    }
+
+    public void sensorExited(Body sensor, Body body)
+    {
+        exited.addElement(body);
+    }
+
+    public void testEnterExit()
+    {
+        World world = new World();
+        world.setGravity(10);
+        world.setSensorListener(this);
+
+        Body sensor = new Body(50, 60, Shape.createRectangle(40, 10), false);
+        sensor.setSensor(true);
+        world.addBody(sensor);
+        Body ball = new Body(50, 0, Shape.createCircle(5), true);
+        world.addBody(ball);
+
+        int enterTick = -1;
+        int exitTick = -1;
+        for( int i = 0; i < 1000 && exitTick < 0; i++)
+        {
+            world.tick();
+            if (enterTick < 0 && entered.size() > 0)
+            {
+                enterTick = i;
+                assertEquals(1, sensor.getSensorOverlapCount());
+                assertSame(ball, sensor.getSensorOverlaps()[0]);
+            }
+            if (exited.size() > 0)
+            {
+                exitTick = i;
+            }
+        }
+
+        //the ball falls through the sensor: exactly one transition each
+        assertTrue(enterTick >= 0);
+        assertTrue(exitTick > enterTick);
+        assertEquals(1, entered.size());
+        assertEquals(1, exited.size());
+        assertSame(ball, entered.elementAt(0));
+        assertSame(ball, exited.elementAt(0));
+        assertEquals(0, sensor.getSensorOverlapCount());
+        assertEquals(0, world.getContactCount());
+    }
+
+    public void testRollback()
+    {
+        World world = new World();
+        world.setGravity(10);
+        world.setSensorListener(this);
+
+        Body sensor = new Body(50, 60, Shape.createRectangle(40, 40), false);
+        sensor.setSensor(true);
+        world.addBody(sensor);
+        Body ball = new Body(50, 0, Shape.createCircle(5), true);
+        world.addBody(ball);
+
+        RollbackManager manager = new RollbackManager(world, 32);
+        while (entered.size() == 0)
+        {
+            manager.tick();
+        }
+        int enterTick = manager.getTick() - 1;
+        for( int i = 0; i < 3; i++)
+        {
+            manager.tick();
+        }
+        assertEquals(1, sensor.getSensorOverlapCount());
+
+        //rewind through the enter: it is reported again, no exit
+        assertTrue(manager.rewindAndReplay(enterTick - 2));
+        assertEquals(2, entered.size());
+        assertEquals(0, exited.size());
+        assertEquals(1, sensor.getSensorOverlapCount());
+
+        //rewind within the overlap: no transition
+        assertTrue(manager.rewindAndReplay(enterTick + 1));
+        assertEquals(2, entered.size());
+        assertEquals(0, exited.size());
+        assertSame(ball, sensor.getSensorOverlaps()[0]);
+    }
+
+    public void testNoContacts()
+    {
+        World world = new World();
+        world.setGravity(0);
+        world.setSensorListener(this);
+
+        Body sensor = new Body(0, 0, Shape.createRectangle(40, 40), false);
+        sensor.setSensor(true);
+        world.addBody(sensor);
+        Body box = new Body(5, 5, Shape.createRectangle(10, 10), true);
+        world.addBody(box);
+
+        for( int i = 0; i < 50; i++)
+        {
+            world.tick();
+            assertEquals(0, world.getContactCount());
+        }
+        assertEquals(1, entered.size());
+        assertEquals(0, exited.size());
+        assertEquals(0, box.velocityXFX());
+        assertEquals(0, box.velocityYFX());
+
+        world.removeBody(box);
+        world.tick();
+        assertEquals(1, exited.size());
+    }
+}
@@ -0,0 +1,192 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.Landscape;
+import at.emini.physics2D.RollbackManager;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.SoftBody;
+import at.emini.physics2D.World;
+import at.emini.physics2D.WorldTemplate;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * Tests soft bodies.
+ */
+public class SoftBodyTest extends TestCase
+{
+    public SoftBodyTest(String name)
+    {
+        super(name);
+    }
+
+    private static int maxStretchFX(SoftBody softBody)
+    {
+        int maxStretchFX = 0;
+        for( int i = 0; i < softBody.getSpringCount(); i++)
+        {
+            int node1 = softBody.getSpringNode1(i);
+            int node2 = softBody.getSpringNode2(i);
+            FXVector distance = new FXVector(softBody.getXPosFX(node2) - softBody.getXPosFX(node1),
+                                             softBody.getYPosFX(node2) - softBody.getYPosFX(node1));
+            int stretchFX = FXUtil.divideFX(distance.lengthFX() - softBody.getRestLengthFX(i), softBody.getRestLengthFX(i));
+            maxStretchFX = Math.max(maxStretchFX, Math.abs(stretchFX));
+        }
+        return maxStretchFX;
+    }
+
+    public void testCloth()
+    {
+        World world = new World();
+        world.setGravity(10);
+        SoftBody cloth = SoftBody.createGrid(0, 0, 20, 20, 5 << FXUtil.DECIMAL, false);
+        for( int c = 0; c < 20; c++)
+        {
+            cloth.setNodePinned(c, true);
+        }
+        cloth.setIterations(8);
+        world.addSoftBody(cloth);
+        assertEquals(400, cloth.getNodeCount());
+        assertEquals(2 * 19 * 20, cloth.getSpringCount());
+
+        for( int i = 0; i < 300; i++)
+        {
+            world.tick();
+        }
+
+        //the pinned row stays, the cloth hangs down without tearing apart
+        for( int c = 0; c < 20; c++)
+        {
+            assertEquals(c * 5 << FXUtil.DECIMAL, cloth.getXPosFX(c));
+            assertEquals(0, cloth.getYPosFX(c));
+        }
+        assertTrue(cloth.getYPosFX(399) > 80 << FXUtil.DECIMAL);
+        assertTrue(maxStretchFX(cloth) < FXUtil.ONE_FX / 5);
+    }
+
+    public void testLandscape()
+    {
+        World world = new World();
+        world.setGravity(10);
+        Landscape landscape = new Landscape();
+        landscape.addSegment(FXVector.newVector(-100, 100), FXVector.newVector(200, 100), Landscape.FACE_NONE);
+        world.setLandscape(landscape);
+
+        SoftBody jelly = SoftBody.createGrid(0, 0, 6, 6, 4 << FXUtil.DECIMAL, true);
+        world.addSoftBody(jelly);
+        for( int i = 0; i < 300; i++)
+        {
+            world.tick();
+            for( int n = 0; n < jelly.getNodeCount(); n++)
+            {
+                assertTrue(jelly.getYPosFX(n) <= (100 << FXUtil.DECIMAL) + FXUtil.ONE_FX);
+            }
+        }
+        //resting on the landscape, keeping its shape
+        assertTrue(jelly.getYPosFX(35) > 95 << FXUtil.DECIMAL);
+        assertTrue(maxStretchFX(jelly) < FXUtil.ONE_FX / 5);
+    }
+
+    public void testStaticBody()
+    {
+        World world = new World();
+        world.setGravity(10);
+        world.addBody(new Body(10, 100, Shape.createRectangle(200, 20), false));
+        world.addBody(new Body(10, 60, Shape.createCircle(10), false));
+
+        SoftBody jelly = SoftBody.createGrid(0, 0, 8, 4, 4 << FXUtil.DECIMAL, true);
+        world.addSoftBody(jelly);
+        for( int i = 0; i < 300; i++)
+        {
+            world.tick();
+        }
+        //nodes do not sink into the box
+        for( int n = 0; n < jelly.getNodeCount(); n++)
+        {
+            assertTrue(jelly.getYPosFX(n) <= (90 << FXUtil.DECIMAL) + FXUtil.ONE_FX);
+        }
+        assertTrue(jelly.getYPosFX(31) > 80 << FXUtil.DECIMAL);
+    }
+
+    public void testPushBody()
+    {
+        World world = new World();
+        Body box = new Body(50, 6, Shape.createRectangle(10, 10), true);
+        world.addBody(box);
+
+        //the jelly moves to the right with 60 per second
+        SoftBody jelly = SoftBody.createGrid(0, 0, 4, 4, 4 << FXUtil.DECIMAL, true);
+        jelly.setNodeMassFX(FXUtil.ONE_FX * 10);
+        for( int n = 0; n < jelly.getNodeCount(); n++)
+        {
+            jelly.setNodeVelocityFX(n, 60 << FXUtil.DECIMAL, 0, world.getTimestepFX());
+        }
+        world.addSoftBody(jelly);
+
+        for( int i = 0; i < 100; i++)
+        {
+            world.tick();
+        }
+        assertTrue(box.velocityXFX() > 0);
+        assertTrue(box.positionXFX() > 50 << FXUtil.DECIMAL);
+        assertTrue(jelly.getXPosFX(0) < box.positionXFX());
+    }
+
+    public void testCopyAndReset()
+    {
+        World world = new World();
+        world.setGravity(10);
+        world.addBody(new Body(10, 60, Shape.createRectangle(100, 10), false));
+        world.addSoftBody(SoftBody.createGrid(0, 0, 5, 5, 4 << FXUtil.DECIMAL, true));
+
+        WorldTemplate template = new WorldTemplate(world, 1);
+        World copy1 = template.obtainWorld();
+        World copy2 = template.obtainWorld();
+        for( int i = 0; i < 100; i++)
+        {
+            copy1.tick();
+            copy2.tick();
+            assertEquals(copy1.stateHash(), copy2.stateHash());
+        }
+        assertNull(copy1.findDesync(copy2));
+
+        //the reset restores the nodes
+        int hash = copy1.stateHash();
+        template.releaseWorld(copy1);
+        World reused = template.obtainWorld();
+        assertSame(copy1, reused);
+        for( int i = 0; i < 100; i++)
+        {
+            reused.tick();
+        }
+        assertEquals(hash, reused.stateHash());
+    }
+
+    public void testRollback()
+    {
+        World world = new World();
+        world.setGravity(10);
+        world.addBody(new Body(10, 60, Shape.createRectangle(100, 10), false));
+        SoftBody jelly = SoftBody.createGrid(0, 0, 5, 5, 4 << FXUtil.DECIMAL, true);
+        world.addSoftBody(jelly);
+
+        RollbackManager manager = new RollbackManager(world, 16);
+        for( int i = 0; i < 100; i++)
+        {
+            manager.tick();
+        }
+        int hash = world.stateHash();
+        int yFX = jelly.getYPosFX(24);
+
+        //the nodes are rewound together with the bodies
+        assertTrue(manager.rewind(90));
+        assertTrue(jelly.getYPosFX(24) != yFX);
+        for( int i = 90; i < 100; i++)
+        {
+            manager.tick();
+        }
+        assertEquals(yFX, jelly.getYPosFX(24));
+        assertEquals(hash, world.stateHash());
+    }
+}
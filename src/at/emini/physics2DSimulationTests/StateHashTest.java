@@ -0,0 +1,50 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+import at.emini.physics2D.util.PhysicsFileReader;
+
+/**
+ * Tests the world state hash and the desync diagnostics.
+ */
+public class StateHashTest extends TestCase
+{
+    public StateHashTest(String name)
+    {
+        super(name);
+    }
+
+    private World loadWorld()
+    {
+        World world = World.loadWorld(new PhysicsFileReader("/tests/StackTest5.world"));
+        assertTrue(world != null);
+        return world;
+    }
+
+    public void testStateHash()
+    {
+        World world1 = loadWorld();
+        World world2 = loadWorld();
+
+        for( int i = 0; i < 100; i++)
+        {
+            world1.tick();
+            world2.tick();
+            assertEquals(world1.stateHash(), world2.stateHash());
+        }
+        assertNull(world1.findDesync(world2));
+
+        Body body = world2.getBodies()[world2.getBodyCount() - 1];
+        body.applyMomentum(new FXVector(FXUtil.ONE_FX, 0));
+        world1.tick();
+        world2.tick();
+
+        assertTrue(world1.stateHash() != world2.stateHash());
+        String desync = world1.findDesync(world2);
+        assertNotNull(desync);
+        assertTrue(desync.startsWith("body "));
+    }
+}
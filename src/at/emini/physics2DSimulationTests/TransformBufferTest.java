@@ -0,0 +1,107 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.ParticleEmitter;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.TransformBuffer;
+import at.emini.physics2D.TransformFrame;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * Tests the publishing of the simulation results.
+ */
+public class TransformBufferTest extends TestCase
+{
+    public TransformBufferTest(String name)
+    {
+        super(name);
+    }
+
+    public void testPublish()
+    {
+        World world = new World();
+        Body ground = new Body(0, 50, Shape.createRectangle(200, 10), false);
+        Body box = new Body(0, 0, Shape.createRectangle(10, 10), true);
+        world.addBody(ground);
+        world.addBody(box);
+        world.addParticleEmitter(new ParticleEmitter(20,
+                20 << FXUtil.DECIMAL, 0,
+                1 << FXUtil.DECIMAL, 0,
+                null, FXVector.newVector(0, 0), FXVector.newVector(10, 0),
+                FXUtil.ONE_FX, 0,
+                0, 0,
+                true,
+                0, FXUtil.ONE_FX, 0,
+                world.getTimestepFX()));
+
+        TransformBuffer buffer = new TransformBuffer();
+        world.setTransformBuffer(buffer);
+        assertNull(buffer.getFront());
+
+        world.tick();
+        TransformFrame frame1 = buffer.getFront();
+        assertEquals(1, frame1.getTick());
+
+        //the static ground is not published
+        assertEquals(1, frame1.getBodyCount());
+        int[] data = frame1.getBodyData();
+        assertEquals(box.getId(), data[TransformBuffer.BODY_ID]);
+        assertEquals(box.positionFX().xFX, data[TransformBuffer.BODY_X]);
+        assertEquals(box.positionFX().yFX, data[TransformBuffer.BODY_Y]);
+        assertEquals(box.rotation2FX(), data[TransformBuffer.BODY_ROTATION]);
+        assertEquals(box.velocityFX().xFX, data[TransformBuffer.BODY_VX]);
+        assertEquals(box.velocityFX().yFX, data[TransformBuffer.BODY_VY]);
+        assertEquals(TransformBuffer.FLAG_DYNAMIC, data[TransformBuffer.BODY_FLAGS]);
+
+        assertEquals(1, frame1.getEmitterCount());
+        assertEquals(1, frame1.getParticleCount());
+        assertEquals(1, frame1.getEmitterParticleCount(0));
+
+        //the next step goes to the other frame
+        int yFX = box.positionFX().yFX;
+        world.tick();
+        TransformFrame frame2 = buffer.getFront();
+        assertNotSame(frame1, frame2);
+        assertEquals(2, frame2.getTick());
+        assertEquals(box.positionFX().yFX, frame2.getBodyData()[TransformBuffer.BODY_Y]);
+        assertEquals(2, frame2.getParticleCount());
+
+        //the last frame is kept until the step after
+        assertEquals(1, frame1.getTick());
+        assertEquals(yFX, frame1.getBodyData()[TransformBuffer.BODY_Y]);
+
+        world.tick();
+        assertSame(frame1, buffer.getFront());
+        assertEquals(3, frame1.getTick());
+    }
+
+    public void testCopyFront()
+    {
+        World world = new World();
+        Body box = new Body(0, 0, Shape.createRectangle(10, 10), true);
+        world.addBody(box);
+        TransformBuffer buffer = new TransformBuffer();
+        world.setTransformBuffer(buffer);
+
+        TransformFrame copy = new TransformFrame();
+        assertFalse(buffer.copyFront(copy));
+
+        world.tick();
+        world.tick();
+        assertTrue(buffer.copyFront(copy));
+        assertEquals(2, copy.getTick());
+        assertEquals(1, copy.getBodyCount());
+        assertEquals(0, copy.getEmitterCount());
+        assertEquals(box.positionFX().yFX, copy.getBodyData()[TransformBuffer.BODY_Y]);
+
+        //the copy is kept when the frames are overwritten
+        int yFX = box.positionFX().yFX;
+        world.tick();
+        world.tick();
+        assertEquals(2, copy.getTick());
+        assertEquals(yFX, copy.getBodyData()[TransformBuffer.BODY_Y]);
+    }
+}
@@ -0,0 +1,181 @@
+package at.emini.physics2DSimulationTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Body;
+import at.emini.physics2D.Landscape;
+import at.emini.physics2D.SensorListener;
+import at.emini.physics2D.TransformBuffer;
+import at.emini.physics2D.WindForce;
+import at.emini.physics2D.World;
+import at.emini.physics2D.WorldTemplate;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+import at.emini.physics2D.util.PhysicsFileReader;
+
+/**
+ * Tests world creation from a template and the reset of pooled worlds.
+ */
+public class WorldTemplateTest extends TestCase
+{
+    public WorldTemplateTest(String name)
+    {
+        super(name);
+    }
+
+    public void testReset()
+    {
+        String[] files = { "StackTest5.world", "FixJointTest.world", "LandscapeFacesTest.world" };
+        for( int i = 0; i < files.length; i++)
+        {
+            WorldTemplate template = new WorldTemplate(new PhysicsFileReader("/tests/" + files[i]), 2);
+
+            World world = template.obtainWorld();
+            for( int j = 0; j < 200; j++)
+            {
+                world.tick();
+            }
+            template.releaseWorld(world);
+            assertEquals(1, template.getPoolSize());
+
+            World reused = template.obtainWorld();
+            assertSame(world, reused);
+            assertEquals(0, template.getPoolSize());
+
+            World fresh = template.createWorld();
+            for( int j = 0; j < 200; j++)
+            {
+                reused.tick();
+                fresh.tick();
+            }
+            assertNull(files[i], fresh.findDesync(reused));
+        }
+    }
+
+    public void testSharedGravity()
+    {
+        WorldTemplate template = new WorldTemplate(new PhysicsFileReader("/tests/StackTest5.world"), 2);
+        FXVector gravity = new FXVector(FXUtil.ONE_FX, FXUtil.ONE_FX * 5);
+        World world = template.obtainWorld();
+        world.setGravity(gravity);
+        template.releaseWorld(world);
+
+        //the reset must not change the vector passed by the user
+        assertEquals(FXUtil.ONE_FX, gravity.xFX);
+        assertEquals(FXUtil.ONE_FX * 5, gravity.yFX);
+        World reused = template.obtainWorld();
+        assertSame(world, reused);
+        assertEquals(template.getTemplate().getGravity().xFX, reused.getGravity().xFX);
+        assertEquals(template.getTemplate().getGravity().yFX, reused.getGravity().yFX);
+    }
+
+    public void testResetSettings()
+    {
+        WorldTemplate template = new WorldTemplate(new PhysicsFileReader("/tests/StackTest5.world"), 2);
+        template.getTemplate().setLayerCollision(3, 4, false);
+        template.getTemplate().setContactColoring(true);
+        World world = template.obtainWorld();
+        assertFalse(world.getLayerCollision(3, 4));
+        world.setLayerCollision(3, 4, true);
+        world.setLayerCollision(1, 2, false);
+        world.setContactColoring(false);
+        world.setJointChainSolving(true);
+        world.setTransformBuffer(new TransformBuffer());
+        template.releaseWorld(world);
+
+        World reused = template.obtainWorld();
+        assertSame(world, reused);
+        assertFalse(reused.getLayerCollision(3, 4));
+        assertTrue(reused.getLayerCollision(1, 2));
+        assertTrue(reused.isContactColoring());
+        assertFalse(reused.isJointChainSolving());
+        assertNull(reused.getTransformBuffer());
+    }
+
+    private static SensorListener createCounter(final int[] calls)
+    {
+        return new SensorListener() {
+            public void sensorEntered(Body sensor, Body body)
+            {
+                calls[0]++;
+            }
+            public void sensorExited(Body sensor, Body body)
+            {
+                calls[0]++;
+            }
+        };
+    }
+
+    public void testResetListeners()
+    {
+        WorldTemplate template = new WorldTemplate(new PhysicsFileReader("/tests/StackTest5.world"), 2);
+        World world = template.obtainWorld();
+        int[] oldCalls = new int[1];
+        world.setSensorListener(createCounter(oldCalls));
+        template.releaseWorld(world);
+
+        //the next user gets no callbacks of the previous one
+        World reused = template.obtainWorld();
+        assertSame(world, reused);
+        reused.getBodies()[0].setSensor(true);
+        World fresh = template.createWorld();
+        fresh.getBodies()[0].setSensor(true);
+        int[] freshCalls = new int[1];
+        fresh.setSensorListener(createCounter(freshCalls));
+        for( int j = 0; j < 100; j++)
+        {
+            reused.tick();
+            fresh.tick();
+        }
+        assertTrue(freshCalls[0] > 0);
+        assertEquals(0, oldCalls[0]);
+    }
+
+    public void testResetForces()
+    {
+        WorldTemplate template = new WorldTemplate(new PhysicsFileReader("/tests/StackTest5.world"), 2);
+        World world = template.obtainWorld();
+        world.addExternalForce(new WindForce(-10000 << FXUtil.DECIMAL, -10000 << FXUtil.DECIMAL,
+                10000 << FXUtil.DECIMAL, 10000 << FXUtil.DECIMAL, FXVector.newVector(0, -500)));
+        template.releaseWorld(world);
+
+        World reused = template.obtainWorld();
+        assertSame(world, reused);
+        World fresh = template.createWorld();
+        for( int j = 0; j < 100; j++)
+        {
+            reused.tick();
+            fresh.tick();
+        }
+        assertNull(fresh.findDesync(reused));
+    }
+
+    public void testStructureChanged()
+    {
+        WorldTemplate template = new WorldTemplate(new PhysicsFileReader("/tests/StackTest5.world"), 2);
+        World world = template.obtainWorld();
+        world.removeBody(world.getBodies()[0]);
+        template.releaseWorld(world);
+        assertEquals(0, template.getPoolSize());
+    }
+
+    public void testSharedAssets()
+    {
+        WorldTemplate template = new WorldTemplate(new PhysicsFileReader("/tests/LandscapeFacesTest.world"), 2);
+        Landscape templateLandscape = template.getTemplate().getLandscape();
+        int segmentCount = templateLandscape.segmentCount();
+        assertTrue(segmentCount > 0);
+
+        World world1 = template.createWorld();
+        World world2 = template.createWorld();
+        assertSame(templateLandscape.elementStartPoints(), world1.getLandscape().elementStartPoints());
+        assertSame(templateLandscape.elementStartPoints(), world2.getLandscape().elementStartPoints());
+
+        //copy on write
+        world1.getLandscape().addSegment(new FXVector(0, 0), new FXVector(FXUtil.ONE_FX, 0), Landscape.FACE_NONE);
+        assertEquals(segmentCount + 1, world1.getLandscape().segmentCount());
+        assertEquals(segmentCount, world2.getLandscape().segmentCount());
+        assertEquals(segmentCount, templateLandscape.segmentCount());
+        assertNotSame(templateLandscape.elementStartPoints(), world1.getLandscape().elementStartPoints());
+        assertSame(templateLandscape.elementStartPoints(), world2.getLandscape().elementStartPoints());
+    }
+}
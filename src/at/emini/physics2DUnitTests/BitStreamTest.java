@@ -0,0 +1,61 @@
+package at.emini.physics2DUnitTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.util.BitReader;
+import at.emini.physics2D.util.BitWriter;
+
+public class BitStreamTest extends TestCase
+{
+    public BitStreamTest(String name)
+    {
+        super(name);
+    }
+
+    public void testRoundTrip()
+    {
+        byte[] buffer = new byte[32];
+        BitWriter writer = new BitWriter(buffer, buffer.length);
+        writer.writeBit(true);
+        writer.writeBits(5, 3);
+        writer.writeBits(-123456789, 32);
+        writer.writeBits(0x3FF, 10);
+        writer.writeBit(false);
+        assertEquals(47, writer.getPosition());
+        assertEquals(6, writer.getByteCount());
+
+        BitReader reader = new BitReader(buffer, writer.getByteCount());
+        assertTrue(reader.readBit());
+        assertEquals(5, reader.readBits(3));
+        assertEquals(-123456789, reader.readBits(32));
+        assertEquals(0x3FF, reader.readBits(10));
+        assertFalse(reader.readBit());
+        assertFalse(reader.isOverflow());
+        reader.readBits(2);
+        assertTrue(reader.isOverflow());
+    }
+
+    public void testLimit()
+    {
+        byte[] buffer = new byte[4];
+        for( int i = 0; i < buffer.length; i++)
+        {
+            buffer[i] = (byte) 0xFF;
+        }
+        BitWriter writer = new BitWriter(buffer, 2);
+        writer.writeBits(0, 12);
+        assertFalse(writer.isOverflow());
+
+        //does not fit: nothing is written
+        writer.writeBits(0, 5);
+        assertTrue(writer.isOverflow());
+        assertEquals(12, writer.getPosition());
+
+        //undo the last write: the bits are overwritten
+        writer.setPosition(4);
+        writer.writeBits(0xA5, 8);
+        assertFalse(writer.isOverflow());
+        assertEquals(0x0A, buffer[0] & 0xFF);
+        assertEquals(0x5F, buffer[1] & 0xFF);
+        assertEquals(0xFF, buffer[2] & 0xFF);
+    }
+}
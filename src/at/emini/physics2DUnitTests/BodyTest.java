@@ -49,6 +49,24 @@ public void testBasic()
         assertEquals(12.00, absolute2.yAsFloat(), 0.01);
     }
 
+    public void testRelativePoint()
+    {
+        Body b = new Body( 10, 10, s, true);
+        b.setRotationDeg(90);
+
+        FXVector relative = new FXVector();
+        b.getRelativePoint(FXVector.newVector(10, 12), relative);
+        assertEquals( 2.00, relative.xAsFloat(), 0.01);
+        assertEquals( 0.00, relative.yAsFloat(), 0.01);
+
+        FXVector absolute = new FXVector();
+        b.getAbsoluePoint(relative, absolute);
+        assertEquals(10.00, absolute.xAsFloat(), 0.01);
+        assertEquals(12.00, absolute.yAsFloat(), 0.01);
+        assertEquals(10 << FXUtil.DECIMAL, b.positionXFX());
+        assertEquals(10 << FXUtil.DECIMAL, b.positionYFX());
+    }
+
     public void testGetVertices()
     {
         Body b = new Body( 0, 0, s, true);
@@ -1,11 +1,15 @@
 package at.emini.physics2DUnitTests;
 
+import java.lang.ref.WeakReference;
+
 import junit.framework.TestCase;
 import at.emini.physics2D.Body;
 import at.emini.physics2D.Collision;
 import at.emini.physics2D.Contact;
 import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
 import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
 
 public class CollisionTest extends TestCase {
 
@@ -52,6 +56,95 @@ public void testSingleCollision()
 
     }
 
+    public void testSeparatingAxisCache()
+    {
+        Body b1 = new Body(0, 0, box, true );
+        Body b2 = new Body(20, 0, box, true );
+        b2.setRotationDeg(30);
+
+        //the pair is separated along the x axis
+        assertEquals(null, Collision.detectCollision(b1, b2));
+        assertEquals(null, Collision.detectCollision(b1, b2));
+
+        //the cached axis does not separate any more, but another one does
+        b2.translate(FXVector.newVector(-20, 20), FXUtil.ONE_FX / 30);
+        assertEquals(null, Collision.detectCollision(b1, b2));
+
+        //the cached axis must not hide an intersection
+        b2.translate(FXVector.newVector(0, -10), FXUtil.ONE_FX / 30);
+        Contact c = Collision.detectCollision(b1, b2);
+        assertFalse(null == c);
+        assertEquals(-1.00, c.getNormal().yAsFloat(), 0.01);
+
+        //the same for polygon and circle
+        Body circle = new Body(20, 0, Shape.createCircle(5), true );
+        assertEquals(null, Collision.detectCollision(b1, circle));
+        assertEquals(null, Collision.detectCollision(b1, circle));
+        circle.translate(FXVector.newVector(-12, 0), FXUtil.ONE_FX / 30);
+        assertFalse(null == Collision.detectCollision(b1, circle));
+    }
+
+    public void testSeparatingAxisCacheRemove()
+    {
+        //the cache is kept by one of the bodies, remove either of them
+        for( int removed = 0; removed < 2; removed++)
+        {
+            //the bounding boxes overlap, the bodies are separated along the diagonal
+            World world = new World();
+            Body[] bodies = { new Body(0, 0, box, true ), new Body(10, 10, box, true ) };
+            for( int i = 0; i < bodies.length; i++)
+            {
+                bodies[i].setRotationDeg(45);
+                world.addBody(bodies[i]);
+            }
+            world.tick();
+            assertEquals(0, world.getContactCount());
+
+            //the cache of the remaining body does not keep the removed one
+            world.removeBody(bodies[removed]);
+            WeakReference reference = new WeakReference(bodies[removed]);
+            bodies[removed] = null;
+            for( int i = 0; i < 10 && reference.get() != null; i++)
+            {
+                System.gc();
+            }
+            assertNull(reference.get());
+        }
+    }
+
+    public void testLargePolygon()
+    {
+        //more vertices than tested by SAT
+        Shape polygon = Shape.createRegularPolygon(10, 32);
+        Body b1 = new Body(0, 0, polygon, true );
+
+        assertEquals(null, Collision.detectCollision(b1, new Body(0, 30, box, true )));
+        assertEquals(null, Collision.detectCollision(b1, new Body(14, 14, box, true )));
+
+        //resting on a face of the polygon
+        Contact c = Collision.detectCollision(b1, new Body(0, 14, box, true ));
+        assertFalse(null == c);
+        assertEquals( 0.00, c.getNormal().xAsFloat(), 0.02);
+        assertEquals(-1.00, c.getNormal().yAsFloat(), 0.02);
+        assertEquals( 0.95, c.getDepth1FX() / (float) (1 <<FXUtil.DECIMAL), 0.05);
+
+        //two large polygons
+        Body b2 = new Body(0, 19, polygon, true );
+        b2.setRotationDeg(5);
+        c = Collision.detectCollision(b1, b2);
+        assertFalse(null == c);
+        assertEquals(-1.00, c.getNormal().yAsFloat(), 0.02);
+        assertEquals(null, Collision.detectCollision(b1, new Body(21, 0, polygon, true )));
+
+        //circles outside and inside the polygon
+        c = Collision.detectCollision(b1, new Body(0, 14, Shape.createCircle(5), true ));
+        assertFalse(null == c);
+        assertEquals(-1.00, c.getNormal().yAsFloat(), 0.02);
+        assertEquals( 0.95, c.getDepth1FX() / (float) (1 <<FXUtil.DECIMAL), 0.05);
+        assertFalse(null == Collision.detectCollision(b1, new Body(2, 3, Shape.createCircle(2), true )));
+        assertEquals(null, Collision.detectCollision(b1, new Body(12, 12, Shape.createCircle(5), true )));
+    }
+
     public void testDoubleCollision()
     {
 
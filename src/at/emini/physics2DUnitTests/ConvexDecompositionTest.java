@@ -0,0 +1,106 @@
+package at.emini.physics2DUnitTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.Shape;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXVector;
+import at.emini.physics2DDesigner.ConvexDecomposition;
+
+public class ConvexDecompositionTest extends TestCase
+{
+    public ConvexDecompositionTest(String name)
+    {
+        super(name);
+    }
+
+    private static FXVector[] createOutline(int[] coordinates)
+    {
+        FXVector[] outline = new FXVector[coordinates.length / 2];
+        for( int i = 0; i < outline.length; i++)
+        {
+            outline[i] = FXVector.newVector(coordinates[i * 2], coordinates[i * 2 + 1]);
+        }
+        return outline;
+    }
+
+    /**
+     * Checks that all parts are convex, clockwise and within the vertex limit.
+     */
+    private static void checkParts(ConvexDecomposition decomposition, int maxVertices)
+    {
+        for( int p = 0; p < decomposition.getPartCount(); p++)
+        {
+            FXVector[] part = decomposition.getPart(p);
+            assertTrue(part.length >= 3);
+            assertTrue(part.length <= maxVertices);
+            for( int i = 0, j = part.length - 1, k = part.length - 2; i < part.length; k = j, j = i, i++)
+            {
+                FXVector v1 = new FXVector(part[i]);
+                v1.subtract(part[j]);
+                FXVector v2 = new FXVector(part[j]);
+                v2.subtract(part[k]);
+                assertTrue(v1.crossFX(v2) >= 0);
+            }
+        }
+    }
+
+    public void testLShape()
+    {
+        FXVector[] outline = createOutline(new int[] {0, 0, 20, 0, 20, 10, 10, 10, 10, 30, 0, 30});
+        ConvexDecomposition decomposition = new ConvexDecomposition(outline, 0);
+        assertEquals(2, decomposition.getPartCount());
+        assertTrue(decomposition.isComplete());
+        assertEquals(0, decomposition.getExcessArea(), 1e-6);
+        checkParts(decomposition, World.M_SHAPE_SAT_MAX_VERTICES);
+
+        //the other orientation gives the same result
+        FXVector[] reversed = new FXVector[outline.length];
+        for( int i = 0; i < outline.length; i++)
+        {
+            reversed[i] = outline[outline.length - 1 - i];
+        }
+        assertEquals(2, new ConvexDecomposition(reversed, 0).getPartCount());
+    }
+
+    public void testUShape()
+    {
+        FXVector[] outline = createOutline(new int[] {0, 0, 30, 0, 30, 30, 20, 30, 20, 10, 10, 10, 10, 30, 0, 30});
+        ConvexDecomposition decomposition = new ConvexDecomposition(outline, 0);
+        assertEquals(3, decomposition.getPartCount());
+        checkParts(decomposition, World.M_SHAPE_SAT_MAX_VERTICES);
+        assertTrue(decomposition.estimateCollisionCost(4) > 3 * 8 * 8 - 1);
+    }
+
+    public void testVertexLimit()
+    {
+        Shape circle = Shape.createRegularPolygon(50, 40);
+        ConvexDecomposition decomposition = new ConvexDecomposition(circle.getCorners(), 0);
+        checkParts(decomposition, World.M_SHAPE_SAT_MAX_VERTICES);
+        assertTrue(decomposition.getPartCount() >= 4);
+        assertTrue(decomposition.getPartCount() <= 6);
+
+        //without limit the convex polygon stays a single part
+        assertEquals(1, new ConvexDecomposition(circle.getCorners(), 0, 255).getPartCount());
+    }
+
+    public void testMergeNearConvex()
+    {
+        //box with a shallow dent
+        FXVector[] outline = createOutline(new int[] {0, 0, 20, 0, 40, 1, 60, 0, 60, 20, 0, 20});
+        assertEquals(2, new ConvexDecomposition(outline, 0).getPartCount());
+
+        ConvexDecomposition merged = new ConvexDecomposition(outline, 0.05);
+        assertEquals(1, merged.getPartCount());
+        assertTrue(merged.getExcessArea() < 0.05);
+        checkParts(merged, World.M_SHAPE_SAT_MAX_VERTICES);
+    }
+
+    public void testSelfIntersecting()
+    {
+        //star polygon {7/3}: no vertex is an ear, the triangulation gives up after one pass
+        FXVector[] outline = createOutline(new int[] {30, 0, -27, 13, 19, -23, -7, 29, -7, -29, 19, 23, -27, -13});
+        ConvexDecomposition decomposition = new ConvexDecomposition(outline, 0);
+        assertFalse(decomposition.isComplete());
+        checkParts(decomposition, World.M_SHAPE_SAT_MAX_VERTICES);
+    }
+}
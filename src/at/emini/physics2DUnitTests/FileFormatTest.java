@@ -0,0 +1,85 @@
+package at.emini.physics2DUnitTests;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.PhysicsFileReader;
+import at.emini.physics2DDesigner.DesignWorld;
+import at.emini.physics2DDesigner.StringUserData;
+
+public class FileFormatTest extends TestCase {
+
+    public FileFormatTest(String name) {
+        super(name);
+    }
+
+    public void testSectionRoundTrip() throws IOException
+    {
+        String[] files = { "StackTest5.world", "LandscapeFacesTest.world", "FixJointTest.world" };
+        for( int i = 0; i < files.length; i++)
+        {
+            World original = World.loadWorld(new PhysicsFileReader("/tests/" + files[i]));
+            DesignWorld designWorld = DesignWorld.loadDesignWorld(new PhysicsFileReader("/tests/" + files[i]), new StringUserData());
+            assertNotNull(original);
+            assertNotNull(designWorld);
+
+            File file = File.createTempFile("physics", ".world");
+            file.deleteOnExit();
+            designWorld.saveToFile(file);
+
+            PhysicsFileReader reader = new PhysicsFileReader(file);
+            assertEquals(0x0B00, reader.getVersion());
+            World loaded = World.loadWorld(reader);
+            assertNotNull(loaded);
+
+            assertEquals(original.getBodyCount(), loaded.getBodyCount());
+            assertEquals(original.getConstraintCount(), loaded.getConstraintCount());
+            assertEquals(original.getLandscape().segmentCount(), loaded.getLandscape().segmentCount());
+            for( int j = 0; j < 50; j++)
+            {
+                original.tick();
+                loaded.tick();
+            }
+            assertNull(files[i], original.findDesync(loaded));
+        }
+    }
+
+    public void testReaderBuffer()
+    {
+        byte[] data = { 0, 0, 0x0B, 0, 1, 2, 3, 4, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFE, 7 };
+        PhysicsFileReader reader = new PhysicsFileReader(data, data.length);
+        assertEquals(0x0B00, reader.getVersion());
+        assertEquals(4, reader.getPosition());
+        reader.skip(4);
+        int[] values = new int[1];
+        reader.nextInts(values, 0, 1);
+        assertEquals(-2, values[0]);
+        assertEquals(7, reader.next());
+        assertEquals(-1, reader.next());
+        assertEquals(-1, reader.nextInt());
+    }
+
+    public void testReaderStreamLength()
+    {
+        //exactly one read block, and one byte more (read past the full buffer)
+        int[] lengths = { 4096, 4097 };
+        for( int i = 0; i < lengths.length; i++)
+        {
+            byte[] data = new byte[lengths[i]];
+            data[2] = 0x0B;
+            for( int j = 4; j < data.length; j++)
+            {
+                data[j] = (byte) j;
+            }
+            PhysicsFileReader reader = new PhysicsFileReader(new ByteArrayInputStream(data));
+            assertEquals(0x0B00, reader.getVersion());
+            assertEquals(lengths[i] - 4, reader.available());
+            reader.skip(lengths[i] - 5);
+            assertEquals((lengths[i] - 1) & 0xFF, reader.next());
+            assertEquals(-1, reader.next());
+        }
+    }
+}
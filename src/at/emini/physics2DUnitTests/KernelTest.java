@@ -0,0 +1,96 @@
+package at.emini.physics2DUnitTests;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.util.FXMatrix;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+/**
+ * Tests the vertex transform kernel of FXMatrix against the scalar operations.
+ * The main method runs a benchmark of the kernel.
+ */
+public class KernelTest extends TestCase
+{
+    private static final int COUNT = 12;
+
+    public KernelTest(String name)
+    {
+        super(name);
+    }
+
+    private static FXVector[] createVectors(Random random, int count, int range)
+    {
+        FXVector[] vectors = new FXVector[count];
+        for( int i = 0; i < count; i++)
+        {
+            vectors[i] = new FXVector(random.nextInt(range) - range / 2, random.nextInt(range) - range / 2);
+        }
+        return vectors;
+    }
+
+    public void testTransform()
+    {
+        Random random = new Random(3);
+        FXVector[] vectors = createVectors(random, COUNT, 1 << 22);
+        FXVector translation = new FXVector(123456, -654321);
+        FXVector[] target = createVectors(random, COUNT + 2, 1);
+
+        for( int j = 0; j < 16; j++)
+        {
+            FXMatrix matrix = FXMatrix.createRotationMatrix(random.nextInt(FXUtil.TWO_PI_2FX));
+            matrix.transform(vectors, COUNT, translation, target, 2);
+            FXVector expected = new FXVector();
+            for( int i = 0; i < COUNT; i++)
+            {
+                matrix.mult(vectors[i], expected);
+                expected.add(translation);
+                assertEquals(expected.xFX, target[i + 2].xFX);
+                assertEquals(expected.yFX, target[i + 2].yFX);
+            }
+        }
+    }
+
+    /**
+     * Measures the time of the scalar loop and the kernel.
+     * @param args number of repetitions (default 5)
+     */
+    public static void main(String[] args)
+    {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int loops = 200000;
+        Random random = new Random(4);
+        FXVector[] vectors = createVectors(random, COUNT, 1 << 22);
+        FXVector[] target = createVectors(random, COUNT, 1);
+        FXVector translation = new FXVector(123456, -654321);
+        FXMatrix matrix = FXMatrix.createRotationMatrix(FXUtil.PI_2FX / 3);
+
+        for( int r = 0; r < repetitions; r++)
+        {
+            long sum = 0;
+
+            long start = System.currentTimeMillis();
+            for( int l = 0; l < loops; l++)
+            {
+                for( int i = 0; i < COUNT; i++)
+                {
+                    matrix.mult(vectors[i], target[i]);
+                    target[i].add(translation);
+                }
+                sum += target[l % COUNT].xFX;
+            }
+            long scalarTransform = System.currentTimeMillis() - start;
+            start = System.currentTimeMillis();
+            for( int l = 0; l < loops; l++)
+            {
+                matrix.transform(vectors, COUNT, translation, target, 0);
+                sum += target[l % COUNT].xFX;
+            }
+            long kernelTransform = System.currentTimeMillis() - start;
+
+            System.out.println("transform: " + scalarTransform + " ms scalar, " + kernelTransform + " ms kernel");
+            System.out.println("(checksum " + sum + ")");
+        }
+    }
+}
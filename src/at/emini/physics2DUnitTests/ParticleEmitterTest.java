@@ -0,0 +1,55 @@
+package at.emini.physics2DUnitTests;
+
+import junit.framework.TestCase;
+import at.emini.physics2D.ParticleEmitter;
+import at.emini.physics2D.World;
+import at.emini.physics2D.util.FXUtil;
+import at.emini.physics2D.util.FXVector;
+
+public class ParticleEmitterTest extends TestCase
+{
+    public ParticleEmitterTest(String name)
+    {
+        super(name);
+    }
+
+    public void testExport()
+    {
+        World world = new World();
+        ParticleEmitter emitter = new ParticleEmitter(50,
+                20 << FXUtil.DECIMAL, 0,
+                1 << FXUtil.DECIMAL, 0,
+                null, FXVector.newVector(0, 0), FXVector.newVector(10, 0),
+                FXUtil.ONE_FX, 0,
+                0, 0,
+                true,
+                0, FXUtil.ONE_FX, 0,
+                world.getTimestepFX());
+        world.addParticleEmitter(emitter);
+        for( int i = 0; i < 30; i++)
+        {
+            world.tick();
+        }
+
+        //the particles live 20 steps: some slots are unused
+        int count = emitter.getParticleCount();
+        assertTrue(count > 0);
+        assertTrue(count < emitter.getMaxParticleCount());
+
+        int[] buffer = new int[2 + 3 * count];
+        assertEquals(count, emitter.exportParticles(buffer, 2));
+
+        int[] xFX = emitter.getXPosFX();
+        int[] yFX = emitter.getYPosFX();
+        short[] life = emitter.getLifeTimes();
+        for( int i = 0, j = 2; i < emitter.getMaxParticleCount(); i++)
+        {
+            if (life[i] > 0)
+            {
+                assertEquals(xFX[i], buffer[j++]);
+                assertEquals(yFX[i], buffer[j++]);
+                assertEquals(life[i], buffer[j++]);
+            }
+        }
+    }
+}